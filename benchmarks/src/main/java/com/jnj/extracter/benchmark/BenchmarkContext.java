@@ -0,0 +1,90 @@
+package com.jnj.extracter.benchmark;
+
+import com.jnj.extracter.config.ExcelProcessingConfig;
+import com.jnj.extracter.entity.ExcelData;
+import com.jnj.extracter.service.AdaptivePoolSizer;
+import com.jnj.extracter.service.ContentStore;
+import com.jnj.extracter.service.ExcelService;
+import com.jnj.extracter.service.ExtractionCoalescer;
+import com.jnj.extracter.service.FileCatalog;
+import com.jnj.extracter.service.MetricsService;
+import com.jnj.extracter.service.RowCache;
+import com.jnj.extracter.serviceImpl.ExcelServiceImpl;
+import com.jnj.extracter.transform.MasterDataService;
+import com.jnj.extracter.transform.Transform;
+import com.jnj.extracter.util.MemoryMappedFileHandler;
+import com.jnj.extracter.util.ProtoConverter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * The services under benchmark, wired as the application wires them but without
+ * the web layer or auto-configuration, reading {@code application.properties} from
+ * the application jar.
+ * <p>
+ * Paths are relative to the working directory as in the application: benchmarks
+ * run from the repository root, where the sample workbooks are in {@code excel/}.
+ */
+final class BenchmarkContext implements AutoCloseable {
+
+    /** The sample the journal paths read, and the default sample for the other paths */
+    static final File SAMPLE_FILE = new File("excel", "Detailed Costing.xlsx");
+
+    private final AnnotationConfigApplicationContext context;
+
+    BenchmarkContext() {
+        if (!SAMPLE_FILE.isFile()) {
+            throw new IllegalStateException("Sample workbook " + SAMPLE_FILE.getAbsolutePath()
+                    + " not found; run the benchmarks from the repository root");
+        }
+        context = new AnnotationConfigApplicationContext();
+        context.registerBean(MeterRegistry.class, SimpleMeterRegistry::new);
+        context.register(ExcelProcessingConfig.class, MetricsService.class, MemoryMappedFileHandler.class,
+                ProtoConverter.class, ExtractionCoalescer.class, ContentStore.class, FileCatalog.class,
+                RowCache.class, AdaptivePoolSizer.class, ExcelServiceImpl.class, MasterDataService.class, Transform.class);
+        context.refresh();
+    }
+
+    /**
+     * The rows of a workload.
+     *
+     * @param source {@code sample} for the rows extracted from the sample workbook,
+     *               {@code generated} for generated rows
+     * @param generatedRows Number of generated rows
+     */
+    List<ExcelData> rows(String source, int generatedRows) {
+        if (source.equals("sample")) {
+            return excelService().extractExcelFile(SAMPLE_FILE).getExtractedData();
+        }
+        return Workloads.rows(generatedRows);
+    }
+
+    ExcelService excelService() {
+        return context.getBean(ExcelService.class);
+    }
+
+    ExcelServiceImpl excelServiceImpl() {
+        return context.getBean(ExcelServiceImpl.class);
+    }
+
+    ExcelProcessingConfig config() {
+        return context.getBean(ExcelProcessingConfig.class);
+    }
+
+    ProtoConverter protoConverter() {
+        return context.getBean(ProtoConverter.class);
+    }
+
+    Transform transform() {
+        return context.getBean(Transform.class);
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+}
@@ -0,0 +1,110 @@
+package com.jnj.extracter.benchmark;
+
+import com.jnj.extracter.serviceImpl.ExcelServiceImpl;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding single cells with {@code getCellValue}, per cell type. Each invocation
+ * decodes a row of {@value #CELLS} cells of the type, so scores are cells per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms1g", "-Xmx1g"})
+public class CellValueBenchmark {
+
+    private static final int CELLS = 1024;
+    private static final MethodHandle GET_CELL_VALUE;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(ExcelServiceImpl.class, MethodHandles.lookup());
+            GET_CELL_VALUE = lookup.findVirtual(ExcelServiceImpl.class, "getCellValue",
+                    MethodType.methodType(Object.class, Cell.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    @Param({"string", "integer", "decimal", "date", "boolean", "formula", "blank"})
+    public String cellType;
+
+    private BenchmarkContext context;
+    private ExcelServiceImpl service;
+    private XSSFWorkbook workbook;
+    private Cell[] cells;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new BenchmarkContext();
+        service = context.excelServiceImpl();
+        workbook = new XSSFWorkbook();
+        CellStyle dateStyle = workbook.createCellStyle();
+        dateStyle.setDataFormat(workbook.getCreationHelper().createDataFormat().getFormat("yyyy-mm-dd"));
+        Sheet sheet = workbook.createSheet("Cells");
+        Row row = sheet.createRow(0);
+        cells = new Cell[CELLS];
+        for (int i = 0; i < CELLS; i++) {
+            Cell cell = row.createCell(i);
+            switch (cellType) {
+                case "string" -> cell.setCellValue("Value " + (i % 64));
+                case "integer" -> cell.setCellValue(i * 7);
+                case "decimal" -> cell.setCellValue(i * 7.25);
+                case "date" -> {
+                    cell.setCellValue(new Date(1_700_000_000_000L + i * 86_400_000L));
+                    cell.setCellStyle(dateStyle);
+                }
+                case "boolean" -> cell.setCellValue(i % 2 == 0);
+                case "formula" -> cell.setCellFormula("1+" + i);
+                case "blank" -> cell.setBlank();
+                default -> throw new IllegalArgumentException("Unknown cell type " + cellType);
+            }
+            cells[i] = cell;
+        }
+        if (cellType.equals("formula")) {
+            // Cached results, as in a workbook saved by Excel
+            workbook.getCreationHelper().createFormulaEvaluator().evaluateAll();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        workbook.close();
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CELLS)
+    public void getCellValue(Blackhole blackhole) throws Throwable {
+        for (Cell cell : cells) {
+            blackhole.consume(GET_CELL_VALUE.invoke(service, cell));
+        }
+    }
+}
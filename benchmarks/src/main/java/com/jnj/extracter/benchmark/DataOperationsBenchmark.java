@@ -0,0 +1,64 @@
+package com.jnj.extracter.benchmark;
+
+import com.jnj.extracter.entity.ExcelData;
+import com.jnj.extracter.service.ExcelService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Running each operation of {@code performDataOperations} over extracted rows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+public class DataOperationsBenchmark {
+
+    @Param({"count", "summary", "groupbysheet", "groupbyfile", "numeric_analysis", "column_stats"})
+    public String operation;
+
+    /** {@code sample}: the extracted sample workbook; {@code generated}: generated rows */
+    @Param({"sample", "generated"})
+    public String source;
+
+    @Param({"20000"})
+    public int generatedRows;
+
+    private BenchmarkContext context;
+    private ExcelService service;
+    private List<ExcelData> rows;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new BenchmarkContext();
+        service = context.excelService();
+        rows = context.rows(source, generatedRows);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Map<String, Object> performDataOperations() {
+        return service.performDataOperations(rows, operation);
+    }
+}
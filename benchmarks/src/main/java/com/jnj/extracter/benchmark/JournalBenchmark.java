@@ -0,0 +1,70 @@
+package com.jnj.extracter.benchmark;
+
+import com.jnj.extracter.transform.JournalBatch;
+import com.jnj.extracter.transform.JournalWriter;
+import com.jnj.extracter.transform.Transform;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The {@link Transform} journal paths over the sample master workbook, which
+ * {@code Transform} reads from a fixed path: one journal for the whole master,
+ * partitioning the master per entity and payrun, and writing the partitioned
+ * journals as a ZIP. Output goes to a null stream, so disk writes are not measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+public class JournalBenchmark {
+
+    private BenchmarkContext context;
+    private Transform transform;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new BenchmarkContext();
+        transform = context.transform();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int generateJournalFromMaster() throws IOException {
+        try (JournalWriter journal = transform.generateJournalFromMaster()) {
+            journal.write(OutputStream.nullOutputStream());
+            return journal.getRowsWritten();
+        }
+    }
+
+    @Benchmark
+    public JournalBatch partitionJournalsFromMaster() {
+        return transform.partitionJournalsFromMaster();
+    }
+
+    @Benchmark
+    public int writeJournalBatch() throws IOException {
+        JournalBatch batch = transform.partitionJournalsFromMaster();
+        transform.writeJournalBatch(batch, OutputStream.nullOutputStream());
+        return batch.getJournalCount();
+    }
+}
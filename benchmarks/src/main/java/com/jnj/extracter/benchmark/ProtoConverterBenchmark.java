@@ -0,0 +1,75 @@
+package com.jnj.extracter.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.jnj.extracter.entity.ExcelData;
+import com.jnj.extracter.entity.ExcelProcessingResult;
+import com.jnj.extracter.util.ProtoConverter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Converting an extraction result to the JSON tree and back with {@link ProtoConverter}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+public class ProtoConverterBenchmark {
+
+    /** {@code sample}: the extracted sample workbook; {@code generated}: generated rows */
+    @Param({"sample", "generated"})
+    public String source;
+
+    @Param({"20000"})
+    public int generatedRows;
+
+    private BenchmarkContext context;
+    private ProtoConverter converter;
+    private ExcelProcessingResult result;
+    private JsonNode json;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new BenchmarkContext();
+        converter = context.protoConverter();
+        if (source.equals("sample")) {
+            result = context.excelService().extractExcelFile(BenchmarkContext.SAMPLE_FILE);
+        } else {
+            List<ExcelData> rows = Workloads.rows(generatedRows);
+            result = new ExcelProcessingResult(Workloads.GENERATED_FILE_NAME, true, "Generated", 1, rows.size(),
+                    List.of("Data"), rows, null);
+        }
+        json = converter.toJson(result);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public JsonNode toJson() {
+        return converter.toJson(result);
+    }
+
+    @Benchmark
+    public ExcelProcessingResult fromJson() {
+        return converter.fromJson(json);
+    }
+}
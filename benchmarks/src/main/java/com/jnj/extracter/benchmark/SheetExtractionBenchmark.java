@@ -0,0 +1,131 @@
+package com.jnj.extracter.benchmark;
+
+import com.jnj.extracter.entity.ExcelData;
+import com.jnj.extracter.service.ExtractionListener;
+import com.jnj.extracter.serviceImpl.ExcelServiceImpl;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Extracting the rows of a sheet already opened with the user model: the whole
+ * sheet through {@code extractDataFromSheet}, and one batch of rows through
+ * {@code processBatch}. Opening the workbook is not measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+public class SheetExtractionBenchmark {
+
+    private static final MethodHandle EXTRACT_DATA_FROM_SHEET;
+    private static final MethodHandle PROCESS_BATCH;
+    private static final MethodHandle RESOLVE_COLUMN_HEADERS;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(ExcelServiceImpl.class, MethodHandles.lookup());
+            EXTRACT_DATA_FROM_SHEET = lookup.findVirtual(ExcelServiceImpl.class, "extractDataFromSheet",
+                    MethodType.methodType(List.class, Sheet.class, String.class, ExtractionListener.class));
+            PROCESS_BATCH = lookup.findVirtual(ExcelServiceImpl.class, "processBatch",
+                    MethodType.methodType(List.class, Sheet.class, String.class, List.class, Map.class,
+                            ExtractionListener.class));
+            RESOLVE_COLUMN_HEADERS = lookup.findVirtual(ExcelServiceImpl.class, "resolveColumnHeaders",
+                    MethodType.methodType(Map.class, Sheet.class, String.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /** {@code sample}: the first sheet of the sample workbook; {@code generated}: a generated sheet */
+    @Param({"sample", "generated"})
+    public String source;
+
+    @Param({"20000"})
+    public int generatedRows;
+
+    private BenchmarkContext context;
+    private ExcelServiceImpl service;
+    private File generatedFile;
+    private Workbook workbook;
+    private Sheet sheet;
+    private String fileName;
+    private List<Integer> batchRows;
+    private Map<Integer, String> headers;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Throwable {
+        context = new BenchmarkContext();
+        service = context.excelServiceImpl();
+        File file = BenchmarkContext.SAMPLE_FILE;
+        if (source.equals("generated")) {
+            generatedFile = Files.createTempFile("extracter-benchmark-", ".xlsx").toFile();
+            Workloads.writeWorkbook(generatedFile, generatedRows);
+            file = generatedFile;
+        }
+        fileName = file.getName();
+        try (InputStream in = new FileInputStream(file)) {
+            workbook = new XSSFWorkbook(in);
+        }
+        sheet = workbook.getSheetAt(0);
+
+        int first = sheet.getFirstRowNum() + 1;
+        int last = Math.min(sheet.getLastRowNum(), first + context.config().getBatchSize() - 1);
+        batchRows = new ArrayList<>();
+        for (int i = first; i <= last; i++) {
+            batchRows.add(i);
+        }
+        @SuppressWarnings("unchecked")
+        Map<Integer, String> resolved = (Map<Integer, String>) RESOLVE_COLUMN_HEADERS.invoke(service, sheet, fileName);
+        headers = resolved;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        workbook.close();
+        context.close();
+        if (generatedFile != null) {
+            Files.deleteIfExists(generatedFile.toPath());
+        }
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public List<ExcelData> extractDataFromSheet() throws Throwable {
+        return (List<ExcelData>) EXTRACT_DATA_FROM_SHEET.invoke(service, sheet, fileName, ExtractionListener.NONE);
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public List<ExcelData> processBatch() throws Throwable {
+        return (List<ExcelData>) PROCESS_BATCH.invoke(service, sheet, fileName, batchRows, headers,
+                ExtractionListener.NONE);
+    }
+}
@@ -0,0 +1,87 @@
+package com.jnj.extracter.benchmark;
+
+import com.jnj.extracter.entity.ExcelData;
+import com.jnj.extracter.service.ExcelService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Combining columns of extracted rows, on its own and written to a new workbook
+ * with {@code createTransformedExcelFile}. The combined column is computed up front,
+ * but the rows are views created on access, so {@link #transformDataByCombiningColumns}
+ * reads every combined value to include creating them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+public class TransformBenchmark {
+
+    private static final String TARGET_COLUMN = "Combined";
+    private static final String OUTPUT_FILE = "benchmark-transformed.xlsx";
+
+    /** {@code sample}: the extracted sample workbook; {@code generated}: generated rows */
+    @Param({"sample", "generated"})
+    public String source;
+
+    @Param({"20000"})
+    public int generatedRows;
+
+    private BenchmarkContext context;
+    private ExcelService service;
+    private List<ExcelData> rows;
+    private List<String> sourceColumns;
+    private String outputPath;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new BenchmarkContext();
+        service = context.excelService();
+        rows = context.rows(source, generatedRows);
+        // The first two columns of the first row
+        sourceColumns = new ArrayList<>(rows.get(0).getData().keySet()).subList(0, 2);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        context.close();
+        if (outputPath != null) {
+            Files.deleteIfExists(new File(outputPath).toPath());
+        }
+    }
+
+    @Benchmark
+    public void transformDataByCombiningColumns(Blackhole blackhole) {
+        for (ExcelData row : service.transformDataByCombiningColumns(rows, sourceColumns, TARGET_COLUMN, " - ")) {
+            blackhole.consume(row.getData().get(TARGET_COLUMN));
+        }
+    }
+
+    @Benchmark
+    public String createTransformedExcelFile() {
+        outputPath = service.createTransformedExcelFile(rows, Map.of(TARGET_COLUMN, sourceColumns),
+                Map.of(TARGET_COLUMN, " - "), OUTPUT_FILE, true);
+        return outputPath;
+    }
+}
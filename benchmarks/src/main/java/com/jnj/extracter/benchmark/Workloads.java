@@ -0,0 +1,107 @@
+package com.jnj.extracter.benchmark;
+
+import com.jnj.extracter.entity.ExcelData;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Generated workloads: a workbook and extracted rows of a fixed shape, seeded so
+ * every run measures the same data. The columns mix repeated text (shared
+ * strings), integers, decimals, dates, booleans and a formula.
+ */
+final class Workloads {
+
+    static final String GENERATED_FILE_NAME = "generated.xlsx";
+    static final List<String> COLUMNS = List.of("Id", "Employee", "Region", "Cost Centre", "Amount",
+            "Hours", "Paid Date", "Active", "Total");
+
+    private static final String[] REGIONS = {"North", "South", "East", "West", "Central"};
+    private static final String[] SHEETS = {"Payroll", "Bonus", "Leave"};
+    private static final long SEED = 42;
+
+    private Workloads() {
+    }
+
+    /**
+     * Write a one-sheet workbook with a header row and the given number of data rows.
+     *
+     * @param file Destination
+     * @param rows Data rows
+     */
+    static void writeWorkbook(File file, int rows) throws IOException {
+        Random random = new Random(SEED);
+        try (SXSSFWorkbook workbook = new SXSSFWorkbook(100);
+             OutputStream out = new FileOutputStream(file)) {
+            CellStyle dateStyle = workbook.createCellStyle();
+            dateStyle.setDataFormat(workbook.getCreationHelper().createDataFormat().getFormat("yyyy-mm-dd"));
+            Sheet sheet = workbook.createSheet("Data");
+            Row header = sheet.createRow(0);
+            for (int c = 0; c < COLUMNS.size(); c++) {
+                header.createCell(c).setCellValue(COLUMNS.get(c));
+            }
+            for (int r = 1; r <= rows; r++) {
+                Row row = sheet.createRow(r);
+                row.createCell(0).setCellValue(r);
+                row.createCell(1).setCellValue("Employee " + random.nextInt(rows / 10 + 1));
+                row.createCell(2).setCellValue(REGIONS[random.nextInt(REGIONS.length)]);
+                row.createCell(3).setCellValue("CC-" + (1000 + random.nextInt(50)));
+                row.createCell(4).setCellValue(Math.round(random.nextDouble() * 1_000_000) / 100.0);
+                row.createCell(5).setCellValue(random.nextInt(160));
+                row.createCell(6).setCellValue(date(random));
+                row.getCell(6).setCellStyle(dateStyle);
+                row.createCell(7).setCellValue(random.nextBoolean());
+                row.createCell(8).setCellFormula("E" + (r + 1) + "*F" + (r + 1));
+            }
+            workbook.write(out);
+            workbook.dispose();
+        }
+    }
+
+    /**
+     * Build extracted rows of the same shape as the generated workbook, spread over
+     * a few sheets so grouping by sheet has several groups.
+     *
+     * @param rows Number of rows
+     */
+    static List<ExcelData> rows(int rows) {
+        Random random = new Random(SEED);
+        List<ExcelData> data = new ArrayList<>(rows);
+        for (int r = 1; r <= rows; r++) {
+            Map<String, Object> values = new LinkedHashMap<>();
+            values.put("Id", (long) r);
+            values.put("Employee", "Employee " + random.nextInt(rows / 10 + 1));
+            values.put("Region", REGIONS[random.nextInt(REGIONS.length)]);
+            values.put("Cost Centre", "CC-" + (1000 + random.nextInt(50)));
+            double amount = Math.round(random.nextDouble() * 1_000_000) / 100.0;
+            long hours = random.nextInt(160);
+            values.put("Amount", amount);
+            values.put("Hours", hours);
+            values.put("Paid Date", date(random).toString());
+            values.put("Active", random.nextBoolean());
+            values.put("Total", amount * hours);
+            data.add(new ExcelData(GENERATED_FILE_NAME, SHEETS[r % SHEETS.length], r, values,
+                    "2025-01-01 00:00:00"));
+        }
+        return data;
+    }
+
+    private static Date date(Random random) {
+        return Date.from(LocalDate.of(2024, 1, 1).plusDays(random.nextInt(730))
+                .atStartOfDay(ZoneOffset.UTC).toInstant());
+    }
+}
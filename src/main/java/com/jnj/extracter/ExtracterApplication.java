@@ -1,16 +1,19 @@
 package com.jnj.extracter;
 
+import com.jnj.extracter.service.MetricsService;
 import org.apache.poi.openxml4j.util.ZipSecureFile;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.util.concurrent.Executor;
 
 @SpringBootApplication
 @EnableAsync
+@EnableScheduling
 public class ExtracterApplication {
 
     public static void main(String[] args) {
@@ -28,17 +31,20 @@ public class ExtracterApplication {
     }
     
     /**
-     * Configure an async executor for background tasks
+     * Configure an async executor for background tasks, timing how long its tasks
+     * wait and counting the ones it rejects
      */
     @Bean
-    public Executor taskExecutor() {
+    public Executor taskExecutor(MetricsService metricsService) {
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         executor.setCorePoolSize(4);
         executor.setMaxPoolSize(10);
         executor.setQueueCapacity(100);
         executor.setThreadNamePrefix("ExcelProcessor-");
         executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setTaskDecorator(metricsService.executorTimingDecorator("taskExecutor"));
         executor.initialize();
+        metricsService.countRejections(executor.getThreadPoolExecutor(), "taskExecutor");
         return executor;
     }
 }
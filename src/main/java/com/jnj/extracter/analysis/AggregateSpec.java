@@ -0,0 +1,101 @@
+package com.jnj.extracter.analysis;
+
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * An aggregate such as {@code sum(Amount)} or {@code count(*)} applied to a column.
+ */
+public class AggregateSpec {
+
+    public enum Function {
+        SUM, COUNT, AVG, MIN, MAX
+    }
+
+    private static final Pattern SPEC_PATTERN = Pattern.compile("^\\s*(\\w+)\\s*\\(\\s*(.*?)\\s*\\)\\s*$");
+
+    private final Function function;
+    private final String column;
+
+    public AggregateSpec(Function function, String column) {
+        this.function = function;
+        this.column = column;
+    }
+
+    /**
+     * Parse an aggregate written as {@code function(column)}.
+     *
+     * @param spec The aggregate text, e.g. "sum(Amount)"
+     * @return The parsed aggregate
+     * @throws IllegalArgumentException If the text is not a supported aggregate
+     */
+    public static AggregateSpec parse(String spec) {
+        Matcher matcher = SPEC_PATTERN.matcher(spec);
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("Invalid aggregate '" + spec + "', expected e.g. sum(Amount)");
+        }
+        Function function;
+        try {
+            function = Function.valueOf(matcher.group(1).toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown aggregate function '" + matcher.group(1)
+                    + "', expected one of sum, count, avg, min, max");
+        }
+        String column = matcher.group(2);
+        if (column.isEmpty() || (column.equals("*") && function != Function.COUNT)) {
+            throw new IllegalArgumentException("Aggregate '" + spec + "' needs a column");
+        }
+        return new AggregateSpec(function, column);
+    }
+
+    public Function getFunction() {
+        return function;
+    }
+
+    public String getColumn() {
+        return column;
+    }
+
+    /**
+     * @return true for count(*), which counts rows rather than values
+     */
+    public boolean isCountAll() {
+        return function == Function.COUNT && column.equals("*");
+    }
+
+    /**
+     * @return The output column name, e.g. "sum(Amount)"
+     */
+    public String getAlias() {
+        return function.name().toLowerCase(Locale.ROOT) + "(" + column + ")";
+    }
+
+    /**
+     * Coerce a cell value to a number for aggregation.
+     *
+     * @param value The cell value
+     * @return The numeric value, or NaN if the value is not numeric
+     */
+    public static double toDouble(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        if (value instanceof String) {
+            String text = ((String) value).trim();
+            if (!text.isEmpty()) {
+                try {
+                    return Double.parseDouble(text.replace(",", ""));
+                } catch (NumberFormatException e) {
+                    return Double.NaN;
+                }
+            }
+        }
+        return Double.NaN;
+    }
+
+    @Override
+    public String toString() {
+        return getAlias();
+    }
+}
@@ -0,0 +1,147 @@
+package com.jnj.extracter.analysis;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Single-pass, bounded-memory profile of one column: null and blank counts,
+ * a histogram of value types, an approximate distinct count ({@link HyperLogLog})
+ * and the most frequent values ({@link SpaceSavingTopK}). Profiles of the same
+ * column from different sheets, files or threads can be merged.
+ */
+public class ColumnStatsAccumulator {
+
+    private static final int TOP_K_CAPACITY = 64;
+    private static final int TOP_K_REPORTED = 10;
+    private static final String[] TYPE_NAMES = {"string", "integer", "decimal", "boolean", "other"};
+
+    private long count;
+    private long nullCount;
+    private long blankCount;
+    private final long[] typeCounts = new long[TYPE_NAMES.length];
+    private final HyperLogLog distinct = new HyperLogLog();
+    private final SpaceSavingTopK topValues = new SpaceSavingTopK(TOP_K_CAPACITY);
+
+    /**
+     * Add a cell value.
+     *
+     * @param value The value, possibly null
+     */
+    public void accept(Object value) {
+        count++;
+        if (value == null) {
+            nullCount++;
+            return;
+        }
+        String text = value.toString();
+        if (text.trim().isEmpty()) {
+            blankCount++;
+            return;
+        }
+        typeCounts[typeIndex(value)]++;
+        distinct.add(text);
+        topValues.add(text);
+    }
+
+    /**
+     * Merge another accumulator into this one. The other accumulator is not modified.
+     *
+     * @param other The accumulator to merge
+     * @return This accumulator
+     */
+    public ColumnStatsAccumulator merge(ColumnStatsAccumulator other) {
+        count += other.count;
+        nullCount += other.nullCount;
+        blankCount += other.blankCount;
+        for (int i = 0; i < typeCounts.length; i++) {
+            typeCounts[i] += other.typeCounts[i];
+        }
+        distinct.merge(other.distinct);
+        topValues.merge(other.topValues);
+        return this;
+    }
+
+    private static int typeIndex(Object value) {
+        if (value instanceof String) {
+            return 0;
+        } else if (value instanceof Long || value instanceof Integer || value instanceof Short) {
+            return 1;
+        } else if (value instanceof Number) {
+            return 2;
+        } else if (value instanceof Boolean) {
+            return 3;
+        }
+        return 4;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return The number of cells holding a non-blank value
+     */
+    public long getPopulatedCount() {
+        return count - nullCount - blankCount;
+    }
+
+    /**
+     * @return The most common value type, "mixed" when no type covers 90% of values, or "empty"
+     */
+    public String getInferredType() {
+        long populated = getPopulatedCount();
+        if (populated == 0) {
+            return "empty";
+        }
+        int best = 0;
+        for (int i = 1; i < typeCounts.length; i++) {
+            if (typeCounts[i] > typeCounts[best]) {
+                best = i;
+            }
+        }
+        // Integers mixed with decimals are still numeric
+        if (best <= 2 && best > 0 && typeCounts[1] + typeCounts[2] >= populated * 0.9) {
+            return typeCounts[2] > 0 ? "decimal" : "integer";
+        }
+        return typeCounts[best] >= populated * 0.9 ? TYPE_NAMES[best] : "mixed";
+    }
+
+    /**
+     * @return The statistics as a map, keyed as rendered by the analysis-result view
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("type", getInferredType());
+        stats.put("count", count);
+        stats.put("uniqueCount", distinct.estimate());
+        stats.put("missingCount", nullCount + blankCount);
+        stats.put("nullCount", nullCount);
+        stats.put("blankCount", blankCount);
+
+        Map<String, Long> typeHistogram = new LinkedHashMap<>();
+        for (int i = 0; i < TYPE_NAMES.length; i++) {
+            if (typeCounts[i] > 0) {
+                typeHistogram.put(TYPE_NAMES[i], typeCounts[i]);
+            }
+        }
+        stats.put("typeHistogram", typeHistogram);
+
+        Map<String, Long> top = topValues.top(TOP_K_REPORTED);
+        Map.Entry<String, Long> first = top.entrySet().stream().findFirst().orElse(null);
+        stats.put("topValue", first != null ? first.getKey() : null);
+        stats.put("topCount", first != null ? first.getValue() : 0L);
+        stats.put("topValues", top);
+        return stats;
+    }
+
+    /**
+     * Merge a map of per-column accumulators into another, column by column.
+     *
+     * @param target The map to merge into
+     * @param source The map to merge from
+     */
+    public static void mergeAll(Map<String, ColumnStatsAccumulator> target, Map<String, ColumnStatsAccumulator> source) {
+        source.forEach((column, accumulator) ->
+                target.computeIfAbsent(column, k -> new ColumnStatsAccumulator()).merge(accumulator));
+    }
+}
@@ -0,0 +1,542 @@
+package com.jnj.extracter.analysis;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Hash group-by over arbitrary key columns.
+ * <p>
+ * Key values are dictionary-encoded per column into ints and groups are stored
+ * in an open-addressing table over the encoded keys; aggregate state lives in
+ * flat primitive arrays indexed by group. One aggregator is a partial: parallel
+ * callers build one per thread and {@link #merge} them at the end.
+ * <p>
+ * When the number of groups exceeds the in-memory limit the table is spilled to
+ * hash-partitioned temp files and cleared. {@link #forEachResult} then finishes
+ * each partition independently, so only one partition's groups are held at a time;
+ * {@link #getResults()} collects them all and so holds every group at the end.
+ * Spill files are deleted once their partition was emitted; {@link #close} deletes
+ * those of an aggregator whose results were not, or not completely, produced.
+ * <p>
+ * Keys are grouped by their text. A key column that only ever held numbers is
+ * turned back into numbers on output.
+ */
+@Slf4j
+public class GroupByAggregator implements Closeable {
+
+    private static final int SPILL_PARTITIONS = 16;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final List<String> keyColumns;
+    private final List<AggregateSpec> aggregates;
+    private final int maxGroupsInMemory;
+    private final int keyWidth;
+    /** Whether each key column has only held numbers (or nothing) so far */
+    private final boolean[] numericKeys;
+
+    private List<Dictionary> dictionaries;
+    private int[] slots;
+    private int[] groupKeys;
+    private double[][] values;
+    private double[][] compensations;
+    private long[][] counts;
+    private int groupCount;
+
+    private final List<List<File>> spillFiles = new ArrayList<>();
+    private long spilledGroups;
+
+    /**
+     * @param keyColumns The columns to group by
+     * @param aggregates The aggregates to compute per group
+     * @param maxGroupsInMemory Number of groups above which the table is spilled to disk
+     */
+    public GroupByAggregator(List<String> keyColumns, List<AggregateSpec> aggregates, int maxGroupsInMemory) {
+        this.keyColumns = List.copyOf(keyColumns);
+        this.aggregates = List.copyOf(aggregates);
+        this.maxGroupsInMemory = Math.max(1, maxGroupsInMemory);
+        this.keyWidth = keyColumns.size();
+        this.numericKeys = new boolean[keyWidth];
+        Arrays.fill(numericKeys, true);
+        for (int i = 0; i < SPILL_PARTITIONS; i++) {
+            spillFiles.add(new ArrayList<>());
+        }
+        reset();
+    }
+
+    private void reset() {
+        dictionaries = new ArrayList<>(keyWidth);
+        for (int i = 0; i < keyWidth; i++) {
+            dictionaries.add(new Dictionary());
+        }
+        slots = new int[INITIAL_CAPACITY * 2];
+        groupKeys = new int[INITIAL_CAPACITY * keyWidth];
+        values = new double[aggregates.size()][INITIAL_CAPACITY];
+        compensations = new double[aggregates.size()][INITIAL_CAPACITY];
+        counts = new long[aggregates.size()][INITIAL_CAPACITY];
+        groupCount = 0;
+    }
+
+    /**
+     * Aggregate one row.
+     *
+     * @param row The row's column values
+     */
+    public void accept(Map<String, Object> row) {
+        if (row == null) {
+            return;
+        }
+        Object[] keyValues = new Object[keyWidth];
+        for (int i = 0; i < keyWidth; i++) {
+            keyValues[i] = row.get(keyColumns.get(i));
+        }
+        Object[] inputs = new Object[aggregates.size()];
+        for (int a = 0; a < aggregates.size(); a++) {
+            AggregateSpec spec = aggregates.get(a);
+            inputs[a] = spec.isCountAll() ? null : row.get(spec.getColumn());
+        }
+        accept(keyValues, inputs);
+    }
+
+    /**
+     * Aggregate one row given positionally.
+     *
+     * @param keyValues The key values, in key column order
+     * @param inputs The input value of each aggregate, in aggregate order; ignored for count(*)
+     */
+    public void accept(Object[] keyValues, Object[] inputs) {
+        int[] key = new int[keyWidth];
+        for (int i = 0; i < keyWidth; i++) {
+            key[i] = dictionaries.get(i).encode(keyText(keyValues[i]));
+            if (keyValues[i] != null && !(keyValues[i] instanceof Number)) {
+                numericKeys[i] = false;
+            }
+        }
+        int group = findOrInsert(key);
+        for (int a = 0; a < aggregates.size(); a++) {
+            AggregateSpec spec = aggregates.get(a);
+            if (spec.isCountAll()) {
+                counts[a][group]++;
+                continue;
+            }
+            Object raw = inputs[a];
+            if (spec.getFunction() == AggregateSpec.Function.COUNT) {
+                if (raw != null && !raw.toString().trim().isEmpty()) {
+                    counts[a][group]++;
+                }
+                continue;
+            }
+            double value = AggregateSpec.toDouble(raw);
+            if (!Double.isNaN(value)) {
+                update(a, group, value, 1);
+            }
+        }
+        if (groupCount > maxGroupsInMemory) {
+            spill();
+        }
+    }
+
+    private void update(int aggregate, int group, double value, long count) {
+        if (count == 0) {
+            return;
+        }
+        double[] v = values[aggregate];
+        long[] c = counts[aggregate];
+        switch (aggregates.get(aggregate).getFunction()) {
+            case MIN:
+                v[group] = c[group] == 0 ? value : Math.min(v[group], value);
+                break;
+            case MAX:
+                v[group] = c[group] == 0 ? value : Math.max(v[group], value);
+                break;
+            default:
+                // Neumaier-compensated sum
+                double t = v[group] + value;
+                if (Math.abs(v[group]) >= Math.abs(value)) {
+                    compensations[aggregate][group] += (v[group] - t) + value;
+                } else {
+                    compensations[aggregate][group] += (value - t) + v[group];
+                }
+                v[group] = t;
+                break;
+        }
+        c[group] += count;
+    }
+
+    private int findOrInsert(int[] key) {
+        int mask = slots.length - 1;
+        int slot = hash(key) & mask;
+        while (true) {
+            int entry = slots[slot];
+            if (entry == 0) {
+                int group = groupCount++;
+                ensureGroupCapacity(groupCount);
+                System.arraycopy(key, 0, groupKeys, group * keyWidth, keyWidth);
+                slots[slot] = group + 1;
+                if (groupCount * 2 > slots.length) {
+                    rehash(slots.length * 2);
+                }
+                return group;
+            }
+            if (keyEquals(entry - 1, key)) {
+                return entry - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private boolean keyEquals(int group, int[] key) {
+        int base = group * keyWidth;
+        for (int i = 0; i < keyWidth; i++) {
+            if (groupKeys[base + i] != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int hash(int[] key) {
+        int h = 0x9747b28c;
+        for (int value : key) {
+            h = (h ^ value) * 0x5bd1e995;
+            h ^= h >>> 15;
+        }
+        return h;
+    }
+
+    private void rehash(int newSize) {
+        int[] newSlots = new int[newSize];
+        int mask = newSize - 1;
+        int[] key = new int[keyWidth];
+        for (int group = 0; group < groupCount; group++) {
+            System.arraycopy(groupKeys, group * keyWidth, key, 0, keyWidth);
+            int slot = hash(key) & mask;
+            while (newSlots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            newSlots[slot] = group + 1;
+        }
+        slots = newSlots;
+    }
+
+    private void ensureGroupCapacity(int required) {
+        int capacity = values.length > 0 ? values[0].length : groupKeys.length / Math.max(1, keyWidth);
+        if (keyWidth > 0 && groupKeys.length < required * keyWidth) {
+            groupKeys = Arrays.copyOf(groupKeys, Math.max(required, capacity * 2) * keyWidth);
+        }
+        if (values.length > 0 && values[0].length < required) {
+            int newCapacity = Math.max(required, capacity * 2);
+            for (int a = 0; a < aggregates.size(); a++) {
+                values[a] = Arrays.copyOf(values[a], newCapacity);
+                compensations[a] = Arrays.copyOf(compensations[a], newCapacity);
+                counts[a] = Arrays.copyOf(counts[a], newCapacity);
+            }
+        }
+    }
+
+    /**
+     * Merge another partial into this one. Keys are decoded from the other
+     * partial's dictionaries, so partials need not share dictionaries.
+     *
+     * @param other The partial to merge
+     * @return This aggregator
+     */
+    public GroupByAggregator merge(GroupByAggregator other) {
+        String[] keyValues = new String[keyWidth];
+        for (int group = 0; group < other.groupCount; group++) {
+            other.decodeKey(group, keyValues);
+            int target = findOrInsert(encodeKey(keyValues));
+            for (int a = 0; a < aggregates.size(); a++) {
+                mergeState(a, target, other.value(a, group), other.counts[a][group]);
+            }
+            if (groupCount > maxGroupsInMemory) {
+                spill();
+            }
+        }
+        for (int p = 0; p < SPILL_PARTITIONS; p++) {
+            // The files now belong to this aggregator, so closing the other one keeps them
+            spillFiles.get(p).addAll(other.spillFiles.get(p));
+            other.spillFiles.get(p).clear();
+        }
+        spilledGroups += other.spilledGroups;
+        for (int i = 0; i < keyWidth; i++) {
+            numericKeys[i] &= other.numericKeys[i];
+        }
+        return this;
+    }
+
+    private void mergeState(int aggregate, int group, double value, long count) {
+        AggregateSpec.Function function = aggregates.get(aggregate).getFunction();
+        if (function == AggregateSpec.Function.COUNT) {
+            counts[aggregate][group] += count;
+        } else {
+            update(aggregate, group, value, count);
+        }
+    }
+
+    private int[] encodeKey(String[] keyValues) {
+        int[] key = new int[keyWidth];
+        for (int i = 0; i < keyWidth; i++) {
+            key[i] = dictionaries.get(i).encode(keyValues[i]);
+        }
+        return key;
+    }
+
+    private void decodeKey(int group, String[] keyValues) {
+        for (int i = 0; i < keyWidth; i++) {
+            keyValues[i] = dictionaries.get(i).decode(groupKeys[group * keyWidth + i]);
+        }
+    }
+
+    private static String keyText(Object value) {
+        return value != null ? value.toString() : "";
+    }
+
+    /**
+     * Write all in-memory groups to the partition files and clear the table.
+     */
+    private void spill() {
+        try {
+            DataOutputStream[] outputs = new DataOutputStream[SPILL_PARTITIONS];
+            String[] keyValues = new String[keyWidth];
+            try {
+                for (int group = 0; group < groupCount; group++) {
+                    decodeKey(group, keyValues);
+                    int partition = Math.floorMod(Arrays.hashCode(keyValues), SPILL_PARTITIONS);
+                    if (outputs[partition] == null) {
+                        File file = File.createTempFile("groupby-spill-", ".bin");
+                        spillFiles.get(partition).add(file);
+                        outputs[partition] = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+                    }
+                    DataOutputStream out = outputs[partition];
+                    for (String keyValue : keyValues) {
+                        writeKey(out, keyValue);
+                    }
+                    for (int a = 0; a < aggregates.size(); a++) {
+                        out.writeDouble(value(a, group));
+                        out.writeLong(counts[a][group]);
+                    }
+                }
+            } finally {
+                for (DataOutputStream out : outputs) {
+                    if (out != null) {
+                        out.close();
+                    }
+                }
+            }
+            log.debug("Spilled {} groups to disk", groupCount);
+            spilledGroups += groupCount;
+            reset();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to spill group-by state to disk", e);
+        }
+    }
+
+    public List<String> getKeyColumns() {
+        return keyColumns;
+    }
+
+    public List<AggregateSpec> getAggregates() {
+        return aggregates;
+    }
+
+    /**
+     * @return true if any groups were spilled to disk
+     */
+    public boolean hasSpilled() {
+        return spilledGroups > 0;
+    }
+
+    /**
+     * Produce the final groups. Each row holds the key columns followed by the
+     * aggregate aliases.
+     *
+     * @return The aggregated rows
+     */
+    public List<Map<String, Object>> getResults() {
+        List<Map<String, Object>> results = new ArrayList<>();
+        forEachResult(results::add);
+        return results;
+    }
+
+    /**
+     * Pass the final groups to a consumer one at a time. Each row holds the key
+     * columns followed by the aggregate aliases. Spilled partitions are re-aggregated
+     * one at a time and their files deleted, also when the consumer stops early or
+     * anything throws.
+     *
+     * @param consumer Receives each group; returning false stops the output
+     * @return false if the consumer stopped the output
+     */
+    public boolean forEachResult(Predicate<Map<String, Object>> consumer) {
+        if (!hasSpilled()) {
+            return emit(consumer, numericKeys);
+        }
+
+        try {
+            spill();
+            for (List<File> partitionFiles : spillFiles) {
+                GroupByAggregator partition = new GroupByAggregator(keyColumns, aggregates, Integer.MAX_VALUE);
+                partitionFiles.forEach(partition::readSpill);
+                deleteSpills(partitionFiles);
+                if (!partition.emit(consumer, numericKeys)) {
+                    return false;
+                }
+            }
+            return true;
+        } finally {
+            close();
+        }
+    }
+
+    int getSpillFileCount() {
+        return spillFiles.stream().mapToInt(List::size).sum();
+    }
+
+    /**
+     * Delete the spill files that were not emitted yet.
+     */
+    @Override
+    public void close() {
+        spillFiles.forEach(GroupByAggregator::deleteSpills);
+    }
+
+    private static void deleteSpills(List<File> files) {
+        for (File file : files) {
+            if (!file.delete()) {
+                log.debug("Could not delete spill file {}", file);
+            }
+        }
+        files.clear();
+    }
+
+    private void readSpill(File file) {
+        String[] keyValues = new String[keyWidth];
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            while (true) {
+                try {
+                    for (int i = 0; i < keyWidth; i++) {
+                        keyValues[i] = readKey(in);
+                    }
+                } catch (EOFException e) {
+                    return;
+                }
+                int group = findOrInsert(encodeKey(keyValues));
+                for (int a = 0; a < aggregates.size(); a++) {
+                    double value = in.readDouble();
+                    long count = in.readLong();
+                    mergeState(a, group, value, count);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read group-by spill file " + file, e);
+        }
+    }
+
+    /**
+     * writeUTF is limited to 64 KB, so keys are written with an int length.
+     */
+    private static void writeKey(DataOutputStream out, String key) throws IOException {
+        byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readKey(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private boolean emit(Predicate<Map<String, Object>> consumer, boolean[] numeric) {
+        String[] keyValues = new String[keyWidth];
+        for (int group = 0; group < groupCount; group++) {
+            decodeKey(group, keyValues);
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (int i = 0; i < keyWidth; i++) {
+                row.put(keyColumns.get(i), restoreKey(keyValues[i], numeric[i]));
+            }
+            for (int a = 0; a < aggregates.size(); a++) {
+                row.put(aggregates.get(a).getAlias(), finalValue(a, group));
+            }
+            if (!consumer.test(row)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Turn the text of a key back into a number if its column only held numbers.
+     */
+    private static Object restoreKey(String key, boolean numeric) {
+        if (!numeric || key.isEmpty()) {
+            return key;
+        }
+        try {
+            return Long.parseLong(key);
+        } catch (NumberFormatException e) {
+            return Double.parseDouble(key);
+        }
+    }
+
+    private double value(int aggregate, int group) {
+        return values[aggregate][group] + compensations[aggregate][group];
+    }
+
+    private Object finalValue(int aggregate, int group) {
+        long count = counts[aggregate][group];
+        double value = value(aggregate, group);
+        switch (aggregates.get(aggregate).getFunction()) {
+            case COUNT:
+                return count;
+            case AVG:
+                return count > 0 ? value / count : null;
+            case MIN:
+            case MAX:
+                return count > 0 ? value : null;
+            default:
+                return value;
+        }
+    }
+
+    /**
+     * String dictionary assigning dense int ids in first-seen order.
+     */
+    private static final class Dictionary {
+        private final Map<String, Integer> ids = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        int encode(String value) {
+            Integer id = ids.get(value);
+            if (id == null) {
+                id = values.size();
+                ids.put(value, id);
+                values.add(value);
+            }
+            return id;
+        }
+
+        String decode(int id) {
+            return values.get(id);
+        }
+    }
+}
@@ -0,0 +1,453 @@
+package com.jnj.extracter.analysis;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hybrid hash join of two row streams on a precomputed key.
+ * <p>
+ * The build side is hashed into partitions held in memory; the probe side is then
+ * streamed through them. When the estimated size of the build side exceeds the
+ * memory budget, the largest in-memory partition is spilled to a temp file and later
+ * build rows of that partition go straight to disk. Probe rows of spilled partitions
+ * are written to a matching probe file, and {@link #finish} joins the spilled
+ * partitions one at a time, so only one of them is held in memory at once.
+ * <p>
+ * Either side may be the build side. When the left side is built for a left or anti
+ * join, build rows remember whether they matched and the unmatched ones are emitted
+ * by {@link #finish}. Null keys never match. Rows of in-memory partitions are emitted
+ * while probing; rows of spilled partitions are emitted by {@link #finish}, so output
+ * order follows the probe side only when nothing spilled.
+ */
+@Slf4j
+public class HashJoin implements Closeable {
+
+    private static final int PARTITIONS = 16;
+    /** Rough per-row overhead of the row array, its list slots and index entries */
+    private static final long ROW_OVERHEAD_BYTES = 64;
+
+    /**
+     * Join semantics, relative to the left side.
+     */
+    public enum Type {
+        /** Pairs of left and right rows with equal keys */
+        INNER,
+        /** Every left row, paired with its matches or with null if it has none */
+        LEFT,
+        /** Left rows without a match, paired with null */
+        ANTI
+    }
+
+    /**
+     * Receives joined rows.
+     */
+    @FunctionalInterface
+    public interface RowSink {
+
+        /**
+         * @param left The left row
+         * @param right The matching right row, or null for an unmatched left row
+         */
+        void accept(Object[] left, Object[] right);
+    }
+
+    private final Type type;
+    private final boolean buildIsLeft;
+    private final long memoryBudgetBytes;
+    private final Partition[] partitions = new Partition[PARTITIONS];
+    private final File[] buildSpills = new File[PARTITIONS];
+    private final DataOutputStream[] buildSpillOutputs = new DataOutputStream[PARTITIONS];
+    private final File[] probeSpills = new File[PARTITIONS];
+    private final DataOutputStream[] probeSpillOutputs = new DataOutputStream[PARTITIONS];
+    private long memoryBytes;
+    private long buildRows;
+    private long spilledRows;
+    private boolean sealed;
+
+    /**
+     * @param type The join type
+     * @param buildIsLeft Whether the left side is the build side
+     * @param memoryBudgetBytes Estimated build side size above which partitions are spilled
+     */
+    public HashJoin(Type type, boolean buildIsLeft, long memoryBudgetBytes) {
+        this.type = type;
+        this.buildIsLeft = buildIsLeft;
+        this.memoryBudgetBytes = Math.max(1, memoryBudgetBytes);
+        for (int p = 0; p < PARTITIONS; p++) {
+            partitions[p] = new Partition();
+        }
+    }
+
+    /**
+     * Add a build row.
+     *
+     * @param key The row's join key, or null if it has none
+     * @param row The row's values
+     */
+    public void build(String key, Object[] row) {
+        if (key == null && !buildPreserved()) {
+            // Can neither match nor be emitted
+            return;
+        }
+        buildRows++;
+        int partition = partitionOf(key);
+        if (buildSpills[partition] != null) {
+            writeSpill(buildSpillOutputs[partition], key, row);
+            spilledRows++;
+            return;
+        }
+        long size = partitions[partition].add(key, row);
+        memoryBytes += size;
+        if (memoryBytes > memoryBudgetBytes) {
+            spillLargestPartition();
+        }
+    }
+
+    /**
+     * Join a probe row against the build side. Call after all build rows were added.
+     *
+     * @param key The row's join key, or null if it has none
+     * @param row The row's values
+     * @param sink Receives the joined rows
+     */
+    public void probe(String key, Object[] row, RowSink sink) {
+        seal();
+        int partition = partitionOf(key);
+        if (probeSpillOutputs[partition] != null) {
+            writeSpill(probeSpillOutputs[partition], key, row);
+            return;
+        }
+        partitions[partition].probe(key, row, sink);
+    }
+
+    /**
+     * Join the spilled partitions and emit the unmatched build rows, then release
+     * all temp files.
+     *
+     * @param sink Receives the joined rows
+     */
+    public void finish(RowSink sink) {
+        seal();
+        for (int p = 0; p < PARTITIONS; p++) {
+            if (buildSpills[p] == null) {
+                partitions[p].emitUnmatched(sink);
+                partitions[p] = null;
+                continue;
+            }
+            closeQuietly(probeSpillOutputs[p]);
+            probeSpillOutputs[p] = null;
+            Partition partition = new Partition();
+            readSpill(buildSpills[p], partition::add);
+            partition.seal();
+            readSpill(probeSpills[p], (key, row) -> partition.probe(key, row, sink));
+            partition.emitUnmatched(sink);
+            deleteSpill(p);
+        }
+        memoryBytes = 0;
+    }
+
+    /**
+     * @return true if any build rows were spilled to disk
+     */
+    public boolean hasSpilled() {
+        return spilledRows > 0;
+    }
+
+    public long getBuildRows() {
+        return buildRows;
+    }
+
+    public long getSpilledRows() {
+        return spilledRows;
+    }
+
+    /**
+     * Delete the temp files of a join that was not finished.
+     */
+    @Override
+    public void close() {
+        for (int p = 0; p < PARTITIONS; p++) {
+            deleteSpill(p);
+        }
+    }
+
+    private boolean buildPreserved() {
+        return buildIsLeft && type != Type.INNER;
+    }
+
+    private static int partitionOf(String key) {
+        if (key == null) {
+            return 0;
+        }
+        int h = key.hashCode();
+        return Math.floorMod(h ^ (h >>> 16), PARTITIONS);
+    }
+
+    /**
+     * Close the build phase: flush the build spill files, open the matching probe
+     * spill files and index the in-memory partitions.
+     */
+    private void seal() {
+        if (sealed) {
+            return;
+        }
+        sealed = true;
+        for (int p = 0; p < PARTITIONS; p++) {
+            if (buildSpills[p] != null) {
+                closeQuietly(buildSpillOutputs[p]);
+                buildSpillOutputs[p] = null;
+                try {
+                    probeSpills[p] = createSpillFile("join-probe-");
+                    probeSpillOutputs[p] = openSpill(probeSpills[p]);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Failed to create join spill file", e);
+                }
+            } else {
+                partitions[p].seal();
+            }
+        }
+        if (hasSpilled()) {
+            log.info("Hash join spilled {} of {} build rows to disk", spilledRows, buildRows);
+        }
+    }
+
+    private void spillLargestPartition() {
+        int largest = -1;
+        for (int p = 0; p < PARTITIONS; p++) {
+            if (buildSpills[p] == null && (largest < 0 || partitions[p].bytes > partitions[largest].bytes)) {
+                largest = p;
+            }
+        }
+        if (largest < 0) {
+            return;
+        }
+        Partition partition = partitions[largest];
+        try {
+            buildSpills[largest] = createSpillFile("join-build-");
+            buildSpillOutputs[largest] = openSpill(buildSpills[largest]);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create join spill file", e);
+        }
+        for (int i = 0; i < partition.rows.size(); i++) {
+            writeSpill(buildSpillOutputs[largest], partition.keys.get(i), partition.rows.get(i));
+        }
+        log.debug("Spilled join partition {} with {} rows to disk", largest, partition.rows.size());
+        spilledRows += partition.rows.size();
+        memoryBytes -= partition.bytes;
+        partitions[largest] = new Partition();
+    }
+
+    private void deleteSpill(int p) {
+        closeQuietly(buildSpillOutputs[p]);
+        closeQuietly(probeSpillOutputs[p]);
+        buildSpillOutputs[p] = null;
+        probeSpillOutputs[p] = null;
+        for (File file : new File[] {buildSpills[p], probeSpills[p]}) {
+            if (file != null && !file.delete()) {
+                log.debug("Could not delete spill file {}", file);
+            }
+        }
+        buildSpills[p] = null;
+        probeSpills[p] = null;
+    }
+
+    private static File createSpillFile(String prefix) throws IOException {
+        return File.createTempFile(prefix, ".bin");
+    }
+
+    private static DataOutputStream openSpill(File file) throws IOException {
+        return new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable == null) {
+            return;
+        }
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            log.debug("Could not close spill file: {}", e.getMessage());
+        }
+    }
+
+    private static void writeSpill(DataOutputStream out, String key, Object[] row) {
+        try {
+            writeValue(out, key);
+            out.writeInt(row.length);
+            for (Object value : row) {
+                writeValue(out, value);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to spill join rows to disk", e);
+        }
+    }
+
+    private static void readSpill(File file, SpillReader reader) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            while (true) {
+                Object key;
+                try {
+                    key = readValue(in);
+                } catch (EOFException e) {
+                    return;
+                }
+                Object[] row = new Object[in.readInt()];
+                for (int i = 0; i < row.length; i++) {
+                    row[i] = readValue(in);
+                }
+                reader.accept((String) key, row);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read join spill file " + file, e);
+        }
+    }
+
+    /**
+     * Cell values are strings, longs, doubles or booleans; anything else is kept as text.
+     */
+    private static void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(0);
+        } else if (value instanceof Long || value instanceof Integer) {
+            out.writeByte(2);
+            out.writeLong(((Number) value).longValue());
+        } else if (value instanceof Double) {
+            out.writeByte(3);
+            out.writeDouble((Double) value);
+        } else if (value instanceof Boolean) {
+            out.writeByte(4);
+            out.writeBoolean((Boolean) value);
+        } else {
+            // writeUTF is limited to 64 KB, so strings are written with an int length
+            byte[] bytes = value.toString().getBytes(StandardCharsets.UTF_8);
+            out.writeByte(1);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static Object readValue(DataInputStream in) throws IOException {
+        byte tag = in.readByte();
+        switch (tag) {
+            case 0:
+                return null;
+            case 1: {
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                return new String(bytes, StandardCharsets.UTF_8);
+            }
+            case 2:
+                return in.readLong();
+            case 3:
+                return in.readDouble();
+            case 4:
+                return in.readBoolean();
+            default:
+                throw new IOException("Corrupt join spill file: unknown value tag " + tag);
+        }
+    }
+
+    private static long estimateBytes(String key, Object[] row) {
+        long bytes = ROW_OVERHEAD_BYTES + 8L * row.length + (key != null ? 40 + key.length() : 0);
+        for (Object value : row) {
+            if (value instanceof String) {
+                bytes += 40 + ((String) value).length();
+            } else if (value != null) {
+                bytes += 24;
+            }
+        }
+        return bytes;
+    }
+
+    @FunctionalInterface
+    private interface SpillReader {
+        void accept(String key, Object[] row);
+    }
+
+    /**
+     * Build rows of one partition with a chained index over their keys. Chains are
+     * in build order, so matches are emitted in the order they were built.
+     */
+    private final class Partition {
+        private final List<String> keys = new ArrayList<>();
+        private final List<Object[]> rows = new ArrayList<>();
+        private final Map<String, Integer> heads = new HashMap<>();
+        private int[] next;
+        private BitSet matched;
+        private long bytes;
+
+        long add(String key, Object[] row) {
+            keys.add(key);
+            rows.add(row);
+            long size = estimateBytes(key, row);
+            bytes += size;
+            return size;
+        }
+
+        void seal() {
+            next = new int[rows.size()];
+            matched = buildPreserved() ? new BitSet(rows.size()) : null;
+            for (int i = rows.size() - 1; i >= 0; i--) {
+                String key = keys.get(i);
+                if (key == null) {
+                    continue;
+                }
+                Integer head = heads.put(key, i);
+                next[i] = head != null ? head : -1;
+            }
+        }
+
+        void probe(String key, Object[] probeRow, RowSink sink) {
+            Integer head = key != null ? heads.get(key) : null;
+            if (buildIsLeft) {
+                for (int i = head != null ? head : -1; i >= 0; i = next[i]) {
+                    if (matched != null) {
+                        matched.set(i);
+                    }
+                    if (type != Type.ANTI) {
+                        sink.accept(rows.get(i), probeRow);
+                    }
+                }
+                return;
+            }
+            if (head == null) {
+                if (type != Type.INNER) {
+                    sink.accept(probeRow, null);
+                }
+                return;
+            }
+            if (type == Type.ANTI) {
+                return;
+            }
+            for (int i = head; i >= 0; i = next[i]) {
+                sink.accept(probeRow, rows.get(i));
+            }
+        }
+
+        void emitUnmatched(RowSink sink) {
+            if (matched == null) {
+                return;
+            }
+            for (int i = matched.nextClearBit(0); i < rows.size(); i = matched.nextClearBit(i + 1)) {
+                sink.accept(rows.get(i), null);
+            }
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.jnj.extracter.analysis;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Single-pass, constant-memory statistics for one numeric column.
+ * Tracks count, min and max, a compensated (Neumaier) sum, Welford's running
+ * mean and variance, and a {@link QuantileSketch} for percentiles. Accumulators
+ * built over different partitions of the data (sheets, files, threads) can be
+ * merged without loss.
+ */
+public class NumericAccumulator {
+
+    private long count;
+    private double sum;
+    private double compensation;
+    private double mean;
+    private double m2;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+    private final QuantileSketch sketch = new QuantileSketch();
+
+    /**
+     * Add a value. NaN values are ignored.
+     *
+     * @param value The value to add
+     */
+    public void accept(double value) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+        count++;
+        addToSum(value);
+
+        double delta = value - mean;
+        mean += delta / count;
+        m2 += delta * (value - mean);
+
+        if (value < min) {
+            min = value;
+        }
+        if (value > max) {
+            max = value;
+        }
+        sketch.add(value);
+    }
+
+    /**
+     * Merge another accumulator into this one. The other accumulator is not modified.
+     *
+     * @param other The accumulator to merge
+     * @return This accumulator
+     */
+    public NumericAccumulator merge(NumericAccumulator other) {
+        if (other.count == 0) {
+            return this;
+        }
+        if (count == 0) {
+            mean = other.mean;
+            m2 = other.m2;
+        } else {
+            // Chan et al. parallel variance combination
+            long combined = count + other.count;
+            double delta = other.mean - mean;
+            mean += delta * other.count / combined;
+            m2 += other.m2 + delta * delta * ((double) count * other.count / combined);
+        }
+        count += other.count;
+        addToSum(other.sum);
+        addToSum(other.compensation);
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        sketch.merge(other.sketch);
+        return this;
+    }
+
+    private void addToSum(double value) {
+        double t = sum + value;
+        if (Math.abs(sum) >= Math.abs(value)) {
+            compensation += (sum - t) + value;
+        } else {
+            compensation += (value - t) + sum;
+        }
+        sum = t;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getSum() {
+        return sum + compensation;
+    }
+
+    public double getMean() {
+        return count > 0 ? mean : 0.0;
+    }
+
+    /**
+     * @return The sample variance, or 0 for fewer than two values
+     */
+    public double getVariance() {
+        return count > 1 ? m2 / (count - 1) : 0.0;
+    }
+
+    public double getStdDev() {
+        return Math.sqrt(getVariance());
+    }
+
+    public double getMin() {
+        return count > 0 ? min : 0.0;
+    }
+
+    public double getMax() {
+        return count > 0 ? max : 0.0;
+    }
+
+    /**
+     * Estimate a quantile, clamped to the observed range.
+     *
+     * @param quantile The quantile, between 0 and 1
+     * @return The estimated value
+     */
+    public double getQuantile(double quantile) {
+        if (count == 0) {
+            return 0.0;
+        }
+        return Math.max(min, Math.min(max, sketch.getQuantile(quantile)));
+    }
+
+    /**
+     * @return The statistics as a map, keyed as in the numeric_analysis operation output
+     */
+    public Map<String, Double> toMap() {
+        Map<String, Double> stats = new LinkedHashMap<>();
+        stats.put("count", (double) count);
+        stats.put("sum", getSum());
+        stats.put("average", getMean());
+        stats.put("min", getMin());
+        stats.put("max", getMax());
+        stats.put("variance", getVariance());
+        stats.put("stdDev", getStdDev());
+        stats.put("p50", getQuantile(0.5));
+        stats.put("p90", getQuantile(0.9));
+        stats.put("p99", getQuantile(0.99));
+        return stats;
+    }
+
+    /**
+     * Merge a map of per-column accumulators into another, column by column.
+     *
+     * @param target The map to merge into
+     * @param source The map to merge from
+     */
+    public static void mergeAll(Map<String, NumericAccumulator> target, Map<String, NumericAccumulator> source) {
+        source.forEach((column, accumulator) ->
+                target.computeIfAbsent(column, k -> new NumericAccumulator()).merge(accumulator));
+    }
+}
@@ -0,0 +1,183 @@
+package com.jnj.extracter.analysis;
+
+/**
+ * Mergeable streaming quantile sketch with bounded relative error.
+ * Values are counted in logarithmically sized buckets (the DDSketch scheme),
+ * so any quantile is estimated within {@link #RELATIVE_ACCURACY} of the true
+ * value. The number of buckets is capped, which keeps memory constant no matter
+ * how many values are added; when the cap is hit the lowest buckets are collapsed.
+ */
+public class QuantileSketch {
+
+    public static final double RELATIVE_ACCURACY = 0.01;
+
+    private static final int MAX_BINS = 2048;
+    private static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+    private static final double MIN_INDEXABLE_VALUE = Double.MIN_NORMAL * GAMMA;
+
+    private final BinStore positive = new BinStore();
+    private final BinStore negative = new BinStore();
+    private long zeroCount;
+    private long count;
+
+    /**
+     * Add a value to the sketch. NaN values are ignored.
+     *
+     * @param value The value to add
+     */
+    public void add(double value) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+        if (value > MIN_INDEXABLE_VALUE) {
+            positive.add(index(value), 1);
+        } else if (value < -MIN_INDEXABLE_VALUE) {
+            negative.add(index(-value), 1);
+        } else {
+            zeroCount++;
+        }
+        count++;
+    }
+
+    /**
+     * Merge another sketch into this one. The other sketch is not modified.
+     *
+     * @param other The sketch to merge
+     */
+    public void merge(QuantileSketch other) {
+        positive.merge(other.positive);
+        negative.merge(other.negative);
+        zeroCount += other.zeroCount;
+        count += other.count;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Estimate the value at the given quantile.
+     *
+     * @param quantile The quantile, between 0 and 1
+     * @return The estimated value, or NaN if the sketch is empty
+     */
+    public double getQuantile(double quantile) {
+        if (count == 0 || quantile < 0 || quantile > 1) {
+            return Double.NaN;
+        }
+        long rank = (long) (quantile * (count - 1));
+
+        // Negative values in ascending order are the negative store in descending index order
+        long seen = 0;
+        if (negative.total > 0) {
+            for (int i = negative.maxIndex; i >= negative.minIndex; i--) {
+                seen += negative.get(i);
+                if (seen > rank) {
+                    return -value(i);
+                }
+            }
+        }
+        seen += zeroCount;
+        if (seen > rank) {
+            return 0.0;
+        }
+        if (positive.total > 0) {
+            for (int i = positive.minIndex; i <= positive.maxIndex; i++) {
+                seen += positive.get(i);
+                if (seen > rank) {
+                    return value(i);
+                }
+            }
+        }
+        return positive.total > 0 ? value(positive.maxIndex) : 0.0;
+    }
+
+    private static int index(double value) {
+        return (int) Math.ceil(Math.log(value) / LOG_GAMMA);
+    }
+
+    private static double value(int index) {
+        return 2 * Math.pow(GAMMA, index) / (GAMMA + 1);
+    }
+
+    /**
+     * Dense array of bucket counts covering the index range [minIndex, maxIndex].
+     */
+    private static final class BinStore {
+
+        private static final int INITIAL_BINS = 64;
+
+        private long[] counts;
+        private int offset;
+        private int minIndex;
+        private int maxIndex;
+        private long total;
+
+        long get(int index) {
+            int i = index - offset;
+            return i >= 0 && i < counts.length ? counts[i] : 0;
+        }
+
+        void add(int index, long n) {
+            if (n == 0) {
+                return;
+            }
+            if (counts == null) {
+                counts = new long[INITIAL_BINS];
+                offset = index - INITIAL_BINS / 2;
+                minIndex = index;
+                maxIndex = index;
+            } else if (index < minIndex) {
+                // Values below the retained range fall into the lowest bucket
+                index = Math.max(index, maxIndex - MAX_BINS + 1);
+                ensureCovered(index, maxIndex);
+                minIndex = index;
+            } else if (index > maxIndex) {
+                int lowest = index - MAX_BINS + 1;
+                long collapsed = 0;
+                if (lowest > minIndex) {
+                    int upper = Math.min(maxIndex, lowest - 1);
+                    for (int i = minIndex; i <= upper; i++) {
+                        collapsed += counts[i - offset];
+                        counts[i - offset] = 0;
+                    }
+                    minIndex = lowest;
+                }
+                ensureCovered(minIndex, index);
+                maxIndex = index;
+                counts[minIndex - offset] += collapsed;
+            }
+            counts[index - offset] += n;
+            total += n;
+        }
+
+        void merge(BinStore other) {
+            if (other.total == 0) {
+                return;
+            }
+            for (int i = other.minIndex; i <= other.maxIndex; i++) {
+                add(i, other.get(i));
+            }
+        }
+
+        private void ensureCovered(int low, int high) {
+            if (low >= offset && high < offset + counts.length) {
+                return;
+            }
+            int needed = high - low + 1;
+            int length = Math.max(needed, Math.min(MAX_BINS, counts.length * 2));
+            int newOffset = low - (length - needed) / 2;
+            long[] newCounts = new long[length];
+
+            // Copy the overlap between the old and new windows
+            int from = Math.max(offset, newOffset);
+            int to = Math.min(offset + counts.length, newOffset + length);
+            if (from < to) {
+                System.arraycopy(counts, from - offset, newCounts, from - newOffset, to - from);
+            }
+            counts = newCounts;
+            offset = newOffset;
+        }
+    }
+}
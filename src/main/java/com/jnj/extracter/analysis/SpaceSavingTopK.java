@@ -0,0 +1,85 @@
+package com.jnj.extracter.analysis;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Space-Saving heavy hitter summary. At most {@code capacity} values are tracked;
+ * when a new value arrives and the summary is full, the value with the smallest
+ * count is replaced and the new value inherits that count as its error bound.
+ * Every value whose true frequency exceeds total/capacity is guaranteed to be kept.
+ */
+public class SpaceSavingTopK {
+
+    private final int capacity;
+    private final Map<String, long[]> counters;
+
+    /**
+     * @param capacity The maximum number of values tracked
+     */
+    public SpaceSavingTopK(int capacity) {
+        this.capacity = capacity;
+        this.counters = new HashMap<>(capacity * 2);
+    }
+
+    /**
+     * Count an occurrence of a value.
+     *
+     * @param value The value
+     */
+    public void add(String value) {
+        add(value, 1, 0);
+    }
+
+    private void add(String value, long count, long error) {
+        long[] counter = counters.get(value);
+        if (counter != null) {
+            counter[0] += count;
+            counter[1] += error;
+            return;
+        }
+        if (counters.size() < capacity) {
+            counters.put(value, new long[] {count, error});
+            return;
+        }
+        String minValue = null;
+        long[] minCounter = null;
+        for (Map.Entry<String, long[]> entry : counters.entrySet()) {
+            if (minCounter == null || entry.getValue()[0] < minCounter[0]) {
+                minValue = entry.getKey();
+                minCounter = entry.getValue();
+            }
+        }
+        counters.remove(minValue);
+        counters.put(value, new long[] {minCounter[0] + count, minCounter[0] + error});
+    }
+
+    /**
+     * Merge another summary into this one. The other summary is not modified.
+     *
+     * @param other The summary to merge
+     */
+    public void merge(SpaceSavingTopK other) {
+        for (Map.Entry<String, long[]> entry : other.counters.entrySet()) {
+            add(entry.getKey(), entry.getValue()[0], entry.getValue()[1]);
+        }
+    }
+
+    /**
+     * @param k The number of values to return
+     * @return The k most frequent values with their estimated counts, most frequent first
+     */
+    public Map<String, Long> top(int k) {
+        List<Map.Entry<String, long[]>> entries = new ArrayList<>(counters.entrySet());
+        entries.sort((a, b) -> Long.compare(b.getValue()[0], a.getValue()[0]));
+
+        Map<String, Long> top = new LinkedHashMap<>();
+        for (int i = 0; i < Math.min(k, entries.size()); i++) {
+            top.put(entries.get(i).getKey(), entries.get(i).getValue()[0]);
+        }
+        return top;
+    }
+}
@@ -31,4 +31,50 @@ public class ExcelProcessingConfig {
     
     @Value("${excel.thread.pool.size:4}")
     private int threadPoolSize;
+    
+    @Value("${excel.thread.pool.adaptive.enabled:false}")
+    private boolean adaptivePoolEnabled;
+    
+    @Value("${excel.thread.pool.adaptive.min-size:1}")
+    private int adaptivePoolMinSize;
+    
+    /** 0 means twice the available processors */
+    @Value("${excel.thread.pool.adaptive.max-size:0}")
+    private int adaptivePoolMaxSize;
+    
+    @Value("${excel.thread.pool.adaptive.interval-seconds:10}")
+    private int adaptivePoolIntervalSeconds;
+    
+    @Value("${excel.thread.pool.adaptive.target-cpu:0.85}")
+    private double adaptivePoolTargetCpu;
+    
+    @Value("${excel.thread.pool.adaptive.max-queue-wait-ms:100}")
+    private long adaptivePoolMaxQueueWaitMs;
+    
+    @Value("${excel.groupby.max-groups-in-memory:100000}")
+    private int groupByMaxGroupsInMemory;
+    
+    @Value("${excel.cache.max-sheets:32}")
+    private int cacheMaxSheets;
+    
+    @Value("${excel.cache.max-row-memory-mb:256}")
+    private int cacheMaxRowMemoryMb;
+    
+    @Value("${excel.write.row-window:100}")
+    private int writeRowWindow;
+    
+    @Value("${excel.journal.batch-threads:4}")
+    private int journalBatchThreads;
+    
+    @Value("${excel.join.build-memory-mb:64}")
+    private int joinBuildMemoryMb;
+    
+    @Value("${excel.jobs.max-retained:100}")
+    private int jobMaxRetained;
+    
+    @Value("${excel.jobs.retention-minutes:60}")
+    private int jobRetentionMinutes;
+    
+    @Value("${excel.jfr.max-recording-seconds:300}")
+    private int jfrMaxRecordingSeconds;
 }
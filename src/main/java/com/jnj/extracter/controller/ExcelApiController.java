@@ -1,6 +1,7 @@
 package com.jnj.extracter.controller;
 
 import com.jnj.extracter.service.ExcelService;
+import com.jnj.extracter.service.FileCatalog;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -22,6 +23,7 @@ import java.util.Map;
 public class ExcelApiController {
 
     private final ExcelService excelService;
+    private final FileCatalog fileCatalog;
     
     /**
      * Get sheet names for a file
@@ -29,11 +31,7 @@ public class ExcelApiController {
     @GetMapping("/sheets/{fileName}")
     public ResponseEntity<Map<String, Object>> getSheetNames(@PathVariable String fileName) {
         try {
-            List<File> files = excelService.getExcelFiles();
-            File targetFile = files.stream()
-                    .filter(file -> file.getName().equals(fileName))
-                    .findFirst()
-                    .orElse(null);
+            File targetFile = fileCatalog.find(fileName);
                     
             if (targetFile == null) {
                 return ResponseEntity.notFound().build();
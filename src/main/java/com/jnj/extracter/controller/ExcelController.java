@@ -1,24 +1,59 @@
 package com.jnj.extracter.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jnj.extracter.analysis.AggregateSpec;
+import com.jnj.extracter.analysis.GroupByAggregator;
+import com.jnj.extracter.analysis.HashJoin;
+import com.jnj.extracter.config.ExcelProcessingConfig;
 import com.jnj.extracter.entity.ExcelData;
 import com.jnj.extracter.entity.ExcelProcessingResult;
+import com.jnj.extracter.index.IndexedSheet;
+import com.jnj.extracter.query.QueryService;
+import com.jnj.extracter.service.ContentStore;
 import com.jnj.extracter.service.ExcelService;
+import com.jnj.extracter.service.ExtractionCache;
+import com.jnj.extracter.service.ExtractionProfile;
+import com.jnj.extracter.service.FileCatalog;
+import com.jnj.extracter.service.JoinService;
+import com.jnj.extracter.service.MetricsService;
+import com.jnj.extracter.service.SearchIndexService;
+import com.jnj.extracter.util.StreamingExcelWriter;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 
+@Slf4j
 @RestController
 @RequestMapping("/api/excel")
 @RequiredArgsConstructor
 public class ExcelController {
 
     private final ExcelService excelService;
+    private final QueryService queryService;
+    private final ExtractionCache extractionCache;
+    private final SearchIndexService searchIndexService;
+    private final ContentStore contentStore;
+    private final FileCatalog fileCatalog;
+    private final JoinService joinService;
+    private final ExcelProcessingConfig config;
+    private final ObjectMapper objectMapper;
 
     /**
      * Extract data from all Excel files in the excel folder
@@ -34,7 +69,7 @@ public class ExcelController {
      */
     @GetMapping("/files")
     public ResponseEntity<List<String>> getExcelFiles() {
-        List<File> files = excelService.getExcelFiles();
+        List<File> files = fileCatalog.getFiles();
         List<String> fileNames = files.stream()
                 .map(File::getName)
                 .toList();
@@ -42,15 +77,51 @@ public class ExcelController {
     }
 
     /**
-     * Extract data from a specific Excel file
+     * Get the content hash of every Excel file; files with equal hashes share their
+     * extraction, cached sheets and search index
+     */
+    @GetMapping("/files/content")
+    public ResponseEntity<Map<String, Object>> getFileContents() {
+        Map<String, String> aliases = new TreeMap<>();
+        for (File file : fileCatalog.getFiles()) {
+            String contentHash = contentStore.hashOf(file);
+            if (contentHash != null) {
+                aliases.put(file.getName(), contentHash);
+            }
+        }
+        Map<String, Object> result = new HashMap<>();
+        result.put("files", aliases);
+        result.put("distinctContents", new HashSet<>(aliases.values()).size());
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * Get the catalogued metadata of every Excel file: size, modification time and,
+     * for XLSX files, the sheet names with the row count each sheet declares
+     */
+    @GetMapping("/files/catalog")
+    public ResponseEntity<List<Map<String, Object>>> getFileCatalog() {
+        List<Map<String, Object>> entries = new ArrayList<>();
+        for (FileCatalog.Entry entry : fileCatalog.getEntries()) {
+            Map<String, Object> info = new LinkedHashMap<>();
+            info.put("name", entry.getName());
+            info.put("size", entry.getSize());
+            info.put("lastModified", entry.getLastModified());
+            info.put("sheets", entry.getEstimatedRows());
+            entries.add(info);
+        }
+        return ResponseEntity.ok(entries);
+    }
+
+    /**
+     * Extract data from a specific Excel file; with profile=true the result includes
+     * a breakdown of where the time went
      */
     @GetMapping("/extract/{fileName}")
-    public ResponseEntity<ExcelProcessingResult> extractSpecificFile(@PathVariable String fileName) {
-        List<File> files = excelService.getExcelFiles();
-        File targetFile = files.stream()
-                .filter(file -> file.getName().equals(fileName))
-                .findFirst()
-                .orElse(null);
+    public ResponseEntity<ExcelProcessingResult> extractSpecificFile(
+            @PathVariable String fileName,
+            @RequestParam(defaultValue = "false") boolean profile) {
+        File targetFile = fileCatalog.find(fileName);
 
         if (targetFile == null) {
             ExcelProcessingResult errorResult = new ExcelProcessingResult();
@@ -60,6 +131,12 @@ public class ExcelController {
             return ResponseEntity.notFound().build();
         }
 
+        if (profile) {
+            ExtractionProfile extractionProfile = new ExtractionProfile();
+            ExcelProcessingResult result = excelService.extractExcelFile(targetFile, extractionProfile);
+            result.setProfile(extractionProfile.toMap());
+            return ResponseEntity.ok(result);
+        }
         ExcelProcessingResult result = excelService.extractExcelFile(targetFile);
         return ResponseEntity.ok(result);
     }
@@ -72,11 +149,7 @@ public class ExcelController {
             @PathVariable String fileName,
             @PathVariable String sheetName) {
         
-        List<File> files = excelService.getExcelFiles();
-        File targetFile = files.stream()
-                .filter(file -> file.getName().equals(fileName))
-                .findFirst()
-                .orElse(null);
+        File targetFile = fileCatalog.find(fileName);
 
         if (targetFile == null) {
             return ResponseEntity.notFound().build();
@@ -98,17 +171,291 @@ public class ExcelController {
         return ResponseEntity.ok(result);
     }
 
+    /**
+     * Group the rows of a file (or one of its sheets) by arbitrary key columns. The
+     * rows are aggregated up front so bad keys or aggregates still give a 400; the
+     * groups are then streamed, since spilled groups need not fit in memory.
+     */
+    @PostMapping("/group-by/{fileName}")
+    public ResponseEntity<StreamingResponseBody> groupBy(
+            @PathVariable String fileName,
+            @RequestBody Map<String, Object> requestBody) {
+        
+        File targetFile = fileCatalog.find(fileName);
+
+        if (targetFile == null) {
+            return ResponseEntity.notFound().build();
+        }
+        
+        @SuppressWarnings("unchecked")
+        List<String> keyColumns = (List<String>) requestBody.get("keys");
+        
+        @SuppressWarnings("unchecked")
+        List<String> aggregates = (List<String>) requestBody.get("aggregates");
+        
+        String sheetName = (String) requestBody.get("sheetName");
+        
+        try {
+            List<ExcelData> data;
+            if (sheetName != null && !sheetName.trim().isEmpty()) {
+                data = excelService.extractSheetData(targetFile, sheetName);
+            } else {
+                data = excelService.extractExcelFile(targetFile).getExtractedData();
+            }
+            if (data == null) {
+                data = new ArrayList<>();
+            }
+            
+            GroupByAggregator aggregator = excelService.groupBy(data, keyColumns, aggregates);
+            StreamingResponseBody body = out -> {
+                try (GroupByAggregator groups = aggregator;
+                     JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                    generator.writeStartObject();
+                    generator.writeStringField("operation", "group_by");
+                    generator.writeStringField("fileName", fileName);
+                    if (sheetName != null) {
+                        generator.writeStringField("sheetName", sheetName);
+                    }
+                    generator.writeObjectField("keyColumns", groups.getKeyColumns());
+                    generator.writeObjectField("aggregates",
+                            groups.getAggregates().stream().map(AggregateSpec::getAlias).toList());
+                    generator.writeBooleanField("spilled", groups.hasSpilled());
+                    generator.writeArrayFieldStart("groups");
+                    long[] groupCount = {0};
+                    String error = null;
+                    try {
+                        groups.forEachResult(group -> {
+                            try {
+                                generator.writeObject(group);
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                            groupCount[0]++;
+                            return true;
+                        });
+                    } catch (UncheckedIOException e) {
+                        throw e.getCause();
+                    } catch (RuntimeException e) {
+                        log.error("Group-by of '{}' failed", fileName, e);
+                        error = e.getMessage();
+                    }
+                    generator.writeEndArray();
+                    generator.writeNumberField("groupCount", groupCount[0]);
+                    if (error != null) {
+                        generator.writeStringField("error", error);
+                    }
+                    generator.writeEndObject();
+                }
+            };
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(body);
+        } catch (IllegalArgumentException e) {
+            return streamingError(e.getMessage());
+        }
+    }
+
+    /**
+     * Look up rows of a sheet by column value, or by an inclusive from/to range, using secondary indexes
+     */
+    @GetMapping("/lookup/{fileName}/{sheetName}")
+    public ResponseEntity<Map<String, Object>> lookup(
+            @PathVariable String fileName,
+            @PathVariable String sheetName,
+            @RequestParam String column,
+            @RequestParam(required = false) String value,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(defaultValue = "1000") int limit) {
+        
+        File targetFile = fileCatalog.find(fileName);
+
+        if (targetFile == null) {
+            return ResponseEntity.notFound().build();
+        }
+        
+        IndexedSheet sheet = extractionCache.getSheet(targetFile, sheetName);
+        if (sheet == null) {
+            return ResponseEntity.notFound().build();
+        }
+        
+        String indexedColumn = sheet.resolveColumn(column);
+        if (indexedColumn == null || (value == null && from == null && to == null)) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", indexedColumn == null
+                    ? "Unknown column '" + column + "'; available columns: " + sheet.getColumns()
+                    : "Either value or a from/to range is required");
+            return ResponseEntity.badRequest().body(error);
+        }
+        
+        long startTime = System.nanoTime();
+        int[] positions = value != null
+                ? sheet.hashIndex(indexedColumn).lookup(value)
+                : sheet.sortedIndex(indexedColumn).range(from, to);
+        List<ExcelData> rows = sheet.rowsAt(positions, Math.max(0, limit), targetFile.getName());
+        
+        Map<String, Object> result = new HashMap<>();
+        result.put("fileName", fileName);
+        result.put("sheetName", sheetName);
+        result.put("column", indexedColumn);
+        result.put(value != null ? "value" : "range", value != null ? value : Arrays.asList(from, to));
+        result.put("matchCount", positions.length);
+        result.put("rows", rows);
+        result.put("lookupMicros", (System.nanoTime() - startTime) / 1000);
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * Search cell values across all workbooks, with prefix matching and pagination
+     */
+    @GetMapping("/search")
+    public ResponseEntity<Map<String, Object>> search(
+            @RequestParam("q") String query,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size) {
+        
+        try {
+            if (page < 0 || size < 1 || size > 1000) {
+                throw new IllegalArgumentException("page must be >= 0 and size between 1 and 1000");
+            }
+            return ResponseEntity.ok(searchIndexService.search(query, page, size));
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+
+    /**
+     * Run a SQL-like query over file.sheet tables, or explain its plan
+     */
+    @PostMapping("/query")
+    public ResponseEntity<Map<String, Object>> query(@RequestBody Map<String, Object> requestBody) {
+        String query = (String) requestBody.get("query");
+        boolean explain = Boolean.TRUE.equals(requestBody.get("explain"));
+        
+        try {
+            return ResponseEntity.ok(queryService.execute(query, explain));
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+
+    /**
+     * Join two sheets on key columns (inner, left or anti) and stream the joined rows
+     * as NDJSON, or as an Excel workbook with format "xlsx"
+     */
+    @PostMapping("/join")
+    public ResponseEntity<StreamingResponseBody> join(@RequestBody Map<String, Object> requestBody) {
+        String format = String.valueOf(requestBody.getOrDefault("format", "ndjson")).toLowerCase();
+        HashJoin.Type type;
+        JoinService.Side left;
+        JoinService.Side right;
+        try {
+            String typeName = String.valueOf(requestBody.getOrDefault("type", "inner"));
+            type = Arrays.stream(HashJoin.Type.values())
+                    .filter(candidate -> candidate.name().equalsIgnoreCase(typeName))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException(
+                            "Unsupported join type '" + typeName + "'; use inner, left or anti"));
+            if (!format.equals("ndjson") && !format.equals("xlsx")) {
+                throw new IllegalArgumentException("Unsupported format '" + format + "'; use ndjson or xlsx");
+            }
+            left = joinSide(requestBody, "left");
+            right = joinSide(requestBody, "right");
+        } catch (IllegalArgumentException | ClassCastException e) {
+            return streamingError(e instanceof ClassCastException ? "Malformed join request" : e.getMessage());
+        }
+        if (left == null || right == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        if (format.equals("xlsx")) {
+            // Join up front so bad keys still give a 400; the writer keeps its rows on disk
+            StreamingExcelWriter[] writer = new StreamingExcelWriter[1];
+            try {
+                joinService.join(left, right, type, new JoinService.JoinOutput() {
+                    @Override
+                    public void columns(List<String> columns) {
+                        writer[0] = new StreamingExcelWriter("Join", columns, config.getWriteRowWindow());
+                    }
+
+                    @Override
+                    public void row(Object[] values) {
+                        writer[0].writeRow(values);
+                    }
+                });
+            } catch (IllegalArgumentException e) {
+                closeQuietly(writer[0]);
+                return streamingError(e.getMessage());
+            } catch (RuntimeException e) {
+                closeQuietly(writer[0]);
+                throw e;
+            }
+            StreamingResponseBody body = out -> {
+                try (StreamingExcelWriter joined = writer[0]) {
+                    joined.write(out);
+                }
+            };
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=Join.xlsx")
+                    .contentType(MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"))
+                    .body(body);
+        }
+
+        // The join runs while streaming, so check the keys before the 200 is committed
+        try {
+            joinService.validate(left, right);
+        } catch (IllegalArgumentException e) {
+            return streamingError(e.getMessage());
+        }
+
+        // One object per joined row, then a final line with the join summary or the error
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.setRootValueSeparator(null);
+                String[][] columns = new String[1][];
+                Map<String, Object> summary = new HashMap<>();
+                try {
+                    summary.put("summary", joinService.join(left, right, type, new JoinService.JoinOutput() {
+                        @Override
+                        public void columns(List<String> names) {
+                            columns[0] = names.toArray(new String[0]);
+                        }
+
+                        @Override
+                        public void row(Object[] values) throws IOException {
+                            generator.writeStartObject();
+                            for (int i = 0; i < values.length; i++) {
+                                generator.writeFieldName(columns[0][i]);
+                                generator.writeObject(values[i]);
+                            }
+                            generator.writeEndObject();
+                            generator.writeRaw('\n');
+                            generator.flush();
+                        }
+                    }));
+                } catch (RuntimeException e) {
+                    log.error("Join of '{}' and '{}' failed", left.getFile().getName(), right.getFile().getName(), e);
+                    summary.put("error", e.getMessage());
+                }
+                objectMapper.writeValue(generator, summary);
+                generator.writeRaw('\n');
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
+    }
+
     /**
      * Get data summary for all extracted data
      */
     @GetMapping("/summary")
     public ResponseEntity<Map<String, Object>> getDataSummary() {
-        List<ExcelProcessingResult> results = excelService.extractAllExcelFiles();
-        List<ExcelData> allData = results.stream()
-                .flatMap(result -> result.getExtractedData().stream())
-                .toList();
-        
-        Map<String, Object> summary = excelService.getDataSummary(allData);
+        Map<String, Object> summary = excelService.performOperationOnAllFiles("summary");
         return ResponseEntity.ok(summary);
     }
 
@@ -117,12 +464,7 @@ public class ExcelController {
      */
     @GetMapping("/operations/{operation}")
     public ResponseEntity<Map<String, Object>> performOperationOnAllData(@PathVariable String operation) {
-        List<ExcelProcessingResult> results = excelService.extractAllExcelFiles();
-        List<ExcelData> allData = results.stream()
-                .flatMap(result -> result.getExtractedData().stream())
-                .toList();
-        
-        Map<String, Object> result = excelService.performDataOperations(allData, operation);
+        Map<String, Object> result = excelService.performOperationOnAllFiles(operation);
         return ResponseEntity.ok(result);
     }
 
@@ -221,14 +563,11 @@ public class ExcelController {
     @PostMapping("/transform/file/{fileName}")
     public ResponseEntity<Map<String, Object>> transformFileDataByCombiningColumns(
             @PathVariable String fileName,
-            @RequestBody Map<String, Object> requestBody) {
+            @RequestBody Map<String, Object> requestBody,
+            @RequestParam(defaultValue = "false") boolean profile) {
         
         try {
-            List<File> files = excelService.getExcelFiles();
-            File targetFile = files.stream()
-                    .filter(file -> file.getName().equals(fileName))
-                    .findFirst()
-                    .orElse(null);
+            File targetFile = fileCatalog.find(fileName);
     
             if (targetFile == null) {
                 Map<String, Object> error = new HashMap<>();
@@ -236,7 +575,10 @@ public class ExcelController {
                 return ResponseEntity.notFound().build();
             }
             
-            ExcelProcessingResult result = excelService.extractExcelFile(targetFile);
+            ExtractionProfile extractionProfile = profile ? new ExtractionProfile() : null;
+            ExcelProcessingResult result = profile
+                    ? excelService.extractExcelFile(targetFile, extractionProfile)
+                    : excelService.extractExcelFile(targetFile);
             
             if (!result.isSuccess()) {
                 Map<String, Object> error = new HashMap<>();
@@ -266,6 +608,9 @@ public class ExcelController {
             response.put("fileName", fileName);
             response.put("sourceColumns", sourceColumns);
             response.put("targetColumn", targetColumn);
+            if (extractionProfile != null) {
+                response.put("profile", extractionProfile.toMap());
+            }
             
             return ResponseEntity.ok(response);
         } catch (Exception e) {
@@ -281,14 +626,11 @@ public class ExcelController {
     @PostMapping("/transform/file/{fileName}/create-excel")
     public ResponseEntity<Map<String, Object>> createTransformedExcelFromFile(
             @PathVariable String fileName,
-            @RequestBody Map<String, Object> requestBody) {
+            @RequestBody Map<String, Object> requestBody,
+            @RequestParam(defaultValue = "false") boolean profile) {
         
         try {
-            List<File> files = excelService.getExcelFiles();
-            File targetFile = files.stream()
-                    .filter(file -> file.getName().equals(fileName))
-                    .findFirst()
-                    .orElse(null);
+            File targetFile = fileCatalog.find(fileName);
     
             if (targetFile == null) {
                 Map<String, Object> error = new HashMap<>();
@@ -297,7 +639,10 @@ public class ExcelController {
             }
             
             // Extract data from file
-            ExcelProcessingResult result = excelService.extractExcelFile(targetFile);
+            ExtractionProfile extractionProfile = profile ? new ExtractionProfile() : null;
+            ExcelProcessingResult result = profile
+                    ? excelService.extractExcelFile(targetFile, extractionProfile)
+                    : excelService.extractExcelFile(targetFile);
             
             if (!result.isSuccess()) {
                 Map<String, Object> error = new HashMap<>();
@@ -325,6 +670,7 @@ public class ExcelController {
             }
             
             // Create transformed Excel file
+            long writeStart = System.nanoTime();
             String filePath = excelService.createTransformedExcelFile(
                     result.getExtractedData(), 
                     transformationMap, 
@@ -339,6 +685,10 @@ public class ExcelController {
             response.put("sourceFile", fileName);
             response.put("transformationCount", transformationMap.size());
             response.put("recordCount", result.getExtractedData().size());
+            if (extractionProfile != null) {
+                extractionProfile.phaseSince(MetricsService.Phase.WRITE, writeStart);
+                response.put("profile", extractionProfile.toMap());
+            }
             
             return ResponseEntity.ok(response);
         } catch (Exception e) {
@@ -348,12 +698,55 @@ public class ExcelController {
         }
     }
 
+    /**
+     * Read one side of a join request: its file, sheet and key columns. Sides without
+     * their own keys use the top-level keys.
+     *
+     * @return The side, or null if the file does not exist
+     */
+    @SuppressWarnings("unchecked")
+    private JoinService.Side joinSide(Map<String, Object> requestBody, String name) {
+        Map<String, Object> side = (Map<String, Object>) requestBody.get(name);
+        if (side == null || side.get("fileName") == null || side.get("sheetName") == null) {
+            throw new IllegalArgumentException("'" + name + "' needs a fileName and a sheetName");
+        }
+        List<String> keys = (List<String>) side.getOrDefault("keys", requestBody.get("keys"));
+        if (keys == null || keys.isEmpty()) {
+            throw new IllegalArgumentException("No key columns given for '" + name + "'");
+        }
+        String fileName = (String) side.get("fileName");
+        File file = fileCatalog.find(fileName);
+        return file != null ? new JoinService.Side(file, (String) side.get("sheetName"), keys) : null;
+    }
+
+    /**
+     * A 400 response for the streaming endpoints, with the usual error body.
+     */
+    private ResponseEntity<StreamingResponseBody> streamingError(String message) {
+        Map<String, Object> error = new HashMap<>();
+        error.put("error", message);
+        return ResponseEntity.badRequest()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(out -> objectMapper.writeValue(out, error));
+    }
+
+    private static void closeQuietly(StreamingExcelWriter writer) {
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.close();
+        } catch (IOException e) {
+            log.debug("Could not close join output: {}", e.getMessage());
+        }
+    }
+
     /**
      * Health check endpoint
      */
     @GetMapping("/health")
     public ResponseEntity<Map<String, Object>> healthCheck() {
-        List<File> files = excelService.getExcelFiles();
+        List<File> files = fileCatalog.getFiles();
         
         // Check for XLSB files and provide warnings
         List<String> warnings = new ArrayList<>();
@@ -1,15 +1,21 @@
 package com.jnj.extracter.controller;
 
+import com.jnj.extracter.service.AdaptivePoolSizer;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
 import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
 import org.springframework.stereotype.Component;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Meter;
 import io.micrometer.core.instrument.Timer;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.StreamSupport;
 
 /**
@@ -21,10 +27,12 @@ import java.util.stream.StreamSupport;
 public class ExcelStatsEndpoint {
 
     private final MeterRegistry meterRegistry;
+    private final AdaptivePoolSizer poolSizer;
     
     @Autowired
-    public ExcelStatsEndpoint(MeterRegistry meterRegistry) {
+    public ExcelStatsEndpoint(MeterRegistry meterRegistry, AdaptivePoolSizer poolSizer) {
         this.meterRegistry = meterRegistry;
+        this.poolSizer = poolSizer;
     }
     
     @ReadOperation
@@ -36,12 +44,47 @@ public class ExcelStatsEndpoint {
         stats.put("rowsProcessed", getCounterValue("excel.rows.processed"));
         stats.put("errors", getCounterValue("excel.processing.errors"));
         
+        // Get extraction coalescing statistics
+        Map<String, Object> coalescing = new HashMap<>();
+        coalescing.put("extractionsStarted", getCounterValue("excel.extractions.started"));
+        coalescing.put("parsesSaved", getCounterValue("excel.extractions.coalesced"));
+        stats.put("coalescing", coalescing);
+        
         // Get timer statistics
         Map<String, Object> timers = new HashMap<>();
         timers.put("fileProcessing", getTimerStats("excel.file.processing.time"));
         timers.put("sheetProcessing", getTimerStats("excel.sheet.processing.time"));
         stats.put("timers", timers);
         
+        // Time per extraction phase, summed over file types, sizes and readers
+        Map<String, Map<String, Object>> phases = new TreeMap<>();
+        for (Timer timer : meterRegistry.find("excel.extraction.phase").timers()) {
+            Map<String, Object> phase = phases.computeIfAbsent(timer.getId().getTag("phase"), name -> {
+                Map<String, Object> totals = new HashMap<>();
+                totals.put("count", 0L);
+                totals.put("totalTimeSeconds", 0.0);
+                return totals;
+            });
+            phase.merge("count", timer.count(), (a, b) -> (Long) a + (Long) b);
+            phase.merge("totalTimeSeconds", timer.totalTime(TimeUnit.SECONDS), (a, b) -> (Double) a + (Double) b);
+        }
+        stats.put("phases", phases);
+        
+        Map<String, Object> inFlight = new HashMap<>();
+        inFlight.put("extractions", getGaugeValue("excel.extraction.inflight"));
+        inFlight.put("bytes", getGaugeValue("excel.extraction.inflight.bytes"));
+        stats.put("inFlight", inFlight);
+        
+        // Thread pools, by the name they are monitored under
+        Map<String, Object> executors = new TreeMap<>();
+        for (Gauge poolSize : meterRegistry.find("executor.pool.size").gauges()) {
+            String name = poolSize.getId().getTag("name");
+            if (name != null) {
+                executors.put(name, getExecutorStats(name));
+            }
+        }
+        stats.put("executors", executors);
+        
         // Get file type statistics
         Map<String, Object> fileTypes = new HashMap<>();
         StreamSupport.stream(meterRegistry.getMeters().spliterator(), false)
@@ -88,6 +131,39 @@ public class ExcelStatsEndpoint {
         }
     }
     
+    private double getGaugeValue(String name) {
+        Gauge gauge = meterRegistry.find(name).gauge();
+        return gauge != null ? gauge.value() : 0.0;
+    }
+    
+    private Map<String, Object> getExecutorStats(String name) {
+        Map<String, Object> executor = new HashMap<>();
+        executor.put("poolSize", getGaugeValue("executor.pool.size", name));
+        executor.put("coreSize", getGaugeValue("executor.pool.core", name));
+        executor.put("maxSize", getGaugeValue("executor.pool.max", name));
+        executor.put("active", getGaugeValue("executor.active", name));
+        executor.put("queued", getGaugeValue("executor.queued", name));
+        FunctionCounter completed = meterRegistry.find("executor.completed").tag("name", name).functionCounter();
+        executor.put("completed", completed != null ? completed.count() : 0.0);
+        Counter rejected = meterRegistry.find("executor.rejected").tag("name", name).counter();
+        executor.put("rejected", rejected != null ? rejected.count() : 0.0);
+        Timer idle = meterRegistry.find("executor.idle").tag("name", name).timer();
+        if (idle != null) {
+            executor.put("queueWaitMeanMs", idle.mean(TimeUnit.MILLISECONDS));
+            executor.put("queueWaitMaxMs", idle.max(TimeUnit.MILLISECONDS));
+        }
+        Map<String, Object> adaptive = poolSizer.describe(name);
+        if (adaptive != null) {
+            executor.put("adaptive", adaptive);
+        }
+        return executor;
+    }
+    
+    private double getGaugeValue(String name, String executorName) {
+        Gauge gauge = meterRegistry.find(name).tag("name", executorName).gauge();
+        return gauge != null ? gauge.value() : 0.0;
+    }
+    
     private double getCounterValue(Meter meter) {
         try {
             return meterRegistry.find(meter.getId().getName())
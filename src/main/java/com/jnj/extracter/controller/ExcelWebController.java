@@ -4,7 +4,11 @@ import com.jnj.extracter.entity.ExcelData;
 import com.jnj.extracter.entity.ExcelFileInfo;
 import com.jnj.extracter.entity.ExcelProcessingResult;
 import com.jnj.extracter.service.ExcelService;
+import com.jnj.extracter.service.FileCatalog;
+import com.jnj.extracter.service.UploadService;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.Resource;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
@@ -14,15 +18,14 @@ import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.nio.file.Paths;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Collectors;
 
 /**
@@ -34,68 +37,54 @@ import java.util.stream.Collectors;
 public class ExcelWebController {
 
     private final ExcelService excelService;
+    private final UploadService uploadService;
+    private final FileCatalog fileCatalog;
 
     /**
      * Main dashboard page
      */
     @GetMapping
     public String dashboard(Model model) {
-        List<File> files = excelService.getExcelFiles();
-        List<ExcelFileInfo> fileInfoList = convertToFileInfoList(files);
+        List<ExcelFileInfo> fileInfoList = convertToFileInfoList(fileCatalog.getEntries());
         model.addAttribute("files", fileInfoList);
         return "excel/dashboard";
     }
     
     /**
-     * Convert File objects to ExcelFileInfo objects to avoid Thymeleaf security restrictions
+     * Convert catalog entries to ExcelFileInfo objects to avoid Thymeleaf security restrictions
      */
-    private List<ExcelFileInfo> convertToFileInfoList(List<File> files) {
+    private List<ExcelFileInfo> convertToFileInfoList(List<FileCatalog.Entry> entries) {
         SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-        return files.stream().map(file -> {
+        return entries.stream().map(entry -> {
             ExcelFileInfo info = new ExcelFileInfo();
-            info.setName(file.getName());
-            info.setSize(file.length());
-            info.setPath(file.getAbsolutePath());
-            info.setLastModified(dateFormat.format(new Date(file.lastModified())));
+            info.setName(entry.getName());
+            info.setSize(entry.getSize());
+            info.setPath(entry.getFile().getAbsolutePath());
+            info.setLastModified(dateFormat.format(new Date(entry.getLastModified())));
             return info;
         }).collect(Collectors.toList());
     }
 
     /**
-     * Handle file upload
+     * Handle file upload: store the file and queue its extraction
      */
     @PostMapping("/upload")
     public String handleFileUpload(@RequestParam("file") MultipartFile file,
                                    RedirectAttributes redirectAttributes) {
-        if (file.isEmpty()) {
-            redirectAttributes.addFlashAttribute("error", "Please select a file to upload");
-            return "redirect:/excel";
-        }
-
         try {
-            // Get the Excel directory
-            List<File> existingFiles = excelService.getExcelFiles();
-            String uploadDir = "";
-            if (!existingFiles.isEmpty()) {
-                uploadDir = existingFiles.get(0).getParentFile().getAbsolutePath();
-            } else {
-                // Default upload directory if no existing files
-                uploadDir = Paths.get(System.getProperty("user.dir"), "excel").toString();
-                new File(uploadDir).mkdirs();
-            }
-
-            // Save the file
-            File destination = new File(uploadDir, file.getOriginalFilename());
-            try (FileOutputStream os = new FileOutputStream(destination)) {
-                os.write(file.getBytes());
-            }
-
+            UploadService.Upload upload = uploadService.ingest(file);
             redirectAttributes.addFlashAttribute("success", 
-                "File uploaded successfully: " + file.getOriginalFilename());
+                "File uploaded successfully: " + upload.getFile().getName()
+                        + ". Extraction job " + upload.getJob().getId() + " is preparing it.");
             
+        } catch (IllegalArgumentException e) {
+            redirectAttributes.addFlashAttribute("error", e.getMessage());
         } catch (IOException e) {
             redirectAttributes.addFlashAttribute("error", 
                 "Failed to upload file: " + e.getMessage());
+        } catch (RejectedExecutionException e) {
+            redirectAttributes.addFlashAttribute("error",
+                "File stored, but too many extraction jobs are queued to prepare it now; it is extracted when first opened.");
         }
 
         return "redirect:/excel";
@@ -106,8 +95,7 @@ public class ExcelWebController {
      */
     @GetMapping("/files")
     public String viewFiles(Model model) {
-        List<File> files = excelService.getExcelFiles();
-        List<ExcelFileInfo> fileInfoList = convertToFileInfoList(files);
+        List<ExcelFileInfo> fileInfoList = convertToFileInfoList(fileCatalog.getEntries());
         model.addAttribute("files", fileInfoList);
         return "excel/files";
     }
@@ -117,11 +105,7 @@ public class ExcelWebController {
      */
     @GetMapping("/view/{fileName}")
     public String viewFileData(@PathVariable String fileName, Model model) {
-        List<File> files = excelService.getExcelFiles();
-        File targetFile = files.stream()
-                .filter(file -> file.getName().equals(fileName))
-                .findFirst()
-                .orElse(null);
+        File targetFile = fileCatalog.find(fileName);
 
         if (targetFile == null) {
             model.addAttribute("error", "File not found: " + fileName);
@@ -148,11 +132,7 @@ public class ExcelWebController {
                                @PathVariable String sheetName,
                                Model model) {
         
-        List<File> files = excelService.getExcelFiles();
-        File targetFile = files.stream()
-                .filter(file -> file.getName().equals(fileName))
-                .findFirst()
-                .orElse(null);
+        File targetFile = fileCatalog.find(fileName);
 
         if (targetFile == null) {
             model.addAttribute("error", "File not found: " + fileName);
@@ -179,8 +159,7 @@ public class ExcelWebController {
      */
     @GetMapping("/analyze")
     public String analyzeData(Model model) {
-        List<File> files = excelService.getExcelFiles();
-        List<ExcelFileInfo> fileInfoList = convertToFileInfoList(files);
+        List<ExcelFileInfo> fileInfoList = convertToFileInfoList(fileCatalog.getEntries());
         model.addAttribute("files", fileInfoList);
         return "excel/analyze";
     }
@@ -194,11 +173,7 @@ public class ExcelWebController {
                                  @RequestParam String operation,
                                  Model model) {
         
-        List<File> files = excelService.getExcelFiles();
-        File targetFile = files.stream()
-                .filter(file -> file.getName().equals(fileName))
-                .findFirst()
-                .orElse(null);
+        File targetFile = fileCatalog.find(fileName);
 
         if (targetFile == null) {
             model.addAttribute("error", "File not found: " + fileName);
@@ -228,8 +203,7 @@ public class ExcelWebController {
      */
     @GetMapping("/transform")
     public String transformData(Model model) {
-        List<File> files = excelService.getExcelFiles();
-        List<ExcelFileInfo> fileInfoList = convertToFileInfoList(files);
+        List<ExcelFileInfo> fileInfoList = convertToFileInfoList(fileCatalog.getEntries());
         model.addAttribute("files", fileInfoList);
         return "excel/transform";
     }
@@ -238,24 +212,18 @@ public class ExcelWebController {
      * Download transformed Excel files from temp directory
      */
     @GetMapping("/temp/{fileName:.+}")
-    public ResponseEntity<byte[]> downloadTransformedFile(@PathVariable String fileName) {
+    public ResponseEntity<Resource> downloadTransformedFile(@PathVariable String fileName, HttpServletRequest request) {
         try {
             // Create temp directory path
             String tempDirPath = "excel/temp";
-            File tempFile = new File(tempDirPath, fileName);
+            File tempFile = FileDownloads.resolve(new File(tempDirPath), fileName);
             
-            if (!tempFile.exists()) {
+            if (tempFile == null) {
                 return ResponseEntity.notFound().build();
             }
             
-            // Read file into byte array
-            byte[] fileContent = java.nio.file.Files.readAllBytes(tempFile.toPath());
-            
-            // Set appropriate headers
-            return ResponseEntity.ok()
-                .header("Content-Disposition", "attachment; filename=\"" + fileName + "\"")
-                .header("Content-Type", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet")
-                .body(fileContent);
+            // Streamed from disk; supports Range and If-None-Match
+            return FileDownloads.attachment(tempFile, FileDownloads.XLSX, request);
                 
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
@@ -0,0 +1,172 @@
+package com.jnj.extracter.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jnj.extracter.entity.ExcelProcessingResult;
+import com.jnj.extracter.service.ExtractionJob;
+import com.jnj.extracter.service.ExtractionJobService;
+import com.jnj.extracter.service.FileCatalog;
+import com.jnj.extracter.service.MetricsService;
+import com.jnj.extracter.service.UploadService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * REST API for asynchronous extraction jobs
+ */
+@RestController
+@RequestMapping("/api/jobs")
+@RequiredArgsConstructor
+public class ExtractionJobController {
+
+    private final ExtractionJobService jobService;
+    private final UploadService uploadService;
+    private final FileCatalog fileCatalog;
+    private final MetricsService metricsService;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Start an extraction job for the given files, or all files when none are given
+     */
+    @PostMapping("/extract")
+    public ResponseEntity<Map<String, Object>> startExtraction(
+            @RequestBody(required = false) Map<String, Object> requestBody) {
+        
+        List<File> files = new ArrayList<>();
+        
+        @SuppressWarnings("unchecked")
+        List<String> requested = requestBody != null ? (List<String>) requestBody.get("files") : null;
+        
+        if (requested == null || requested.isEmpty()) {
+            files.addAll(fileCatalog.getFiles());
+        } else {
+            for (String fileName : requested) {
+                File file = fileCatalog.find(fileName);
+                if (file == null) {
+                    Map<String, Object> error = new HashMap<>();
+                    error.put("error", "File not found: " + fileName);
+                    return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
+                }
+                files.add(file);
+            }
+        }
+        
+        try {
+            ExtractionJob job = jobService.submit(files);
+            return ResponseEntity.accepted().body(jobHandle(job));
+        } catch (RejectedExecutionException e) {
+            return busy();
+        }
+    }
+
+    /**
+     * Upload a workbook and start extracting it right away
+     */
+    @PostMapping("/upload")
+    public ResponseEntity<Map<String, Object>> upload(@RequestParam("file") MultipartFile file) {
+        try {
+            UploadService.Upload upload = uploadService.ingest(file);
+            Map<String, Object> response = jobHandle(upload.getJob());
+            response.put("fileName", upload.getFile().getName());
+            response.put("bytes", upload.getBytes());
+            response.put("sha256", upload.getSha256());
+            response.put("duplicate", upload.isDuplicate());
+            return ResponseEntity.accepted().body(response);
+        } catch (RejectedExecutionException e) {
+            return busy();
+        } catch (IllegalArgumentException | IOException e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+
+    /**
+     * Get the progress of a job
+     */
+    @GetMapping("/{jobId}")
+    public ResponseEntity<Map<String, Object>> getJobStatus(@PathVariable String jobId) {
+        return jobService.getJob(jobId)
+                .map(job -> ResponseEntity.ok(job.toStatusMap()))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Cancel a running job
+     */
+    @DeleteMapping("/{jobId}")
+    public ResponseEntity<Map<String, Object>> cancelJob(@PathVariable String jobId) {
+        return jobService.cancel(jobId)
+                .map(job -> ResponseEntity.ok(job.toStatusMap()))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Stream the results of a finished job as a JSON array, one result at a time.
+     * The rows are read through the extraction caches, one file at a time.
+     */
+    @GetMapping(value = "/{jobId}/results", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> getJobResults(@PathVariable String jobId) {
+        ExtractionJob job = jobService.getJob(jobId).orElse(null);
+        if (job == null || job.isWarmup()) {
+            // Warm-up jobs keep no results
+            return ResponseEntity.notFound().build();
+        }
+        if (!job.isFinished()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        
+        List<ExcelProcessingResult> summaries = job.getSummaries();
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.writeStartArray();
+                for (ExcelProcessingResult summary : summaries) {
+                    ExcelProcessingResult result = jobService.loadResult(job, summary);
+                    long start = System.nanoTime();
+                    objectMapper.writeValue(generator, result);
+                    generator.flush();
+                    FileCatalog.Entry entry = fileCatalog.entry(result.getFileName());
+                    metricsService.recordPhase(MetricsService.Phase.SERIALIZE,
+                            MetricsService.fileTags(result.getFileName(), entry != null ? entry.getSize() : 0,
+                                    MetricsService.Reader.NONE),
+                            System.nanoTime() - start);
+                }
+                generator.writeEndArray();
+            }
+        };
+        
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+
+    private static ResponseEntity<Map<String, Object>> busy() {
+        Map<String, Object> error = new HashMap<>();
+        error.put("error", "Too many extraction jobs queued; try again later");
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(error);
+    }
+
+    private static Map<String, Object> jobHandle(ExtractionJob job) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("jobId", job.getId());
+        response.put("status", job.getStatus().name());
+        response.put("statusUrl", "/api/jobs/" + job.getId());
+        if (!job.isWarmup()) {
+            response.put("resultsUrl", "/api/jobs/" + job.getId() + "/results");
+        }
+        return response;
+    }
+}
@@ -0,0 +1,96 @@
+package com.jnj.extracter.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Serves files from disk without reading them into memory.
+ * <p>
+ * Responses carry an ETag and Last-Modified so conditional requests get a 304, and
+ * the body is a {@link FileSystemResource} so Spring answers Range requests with
+ * 206 region responses. Plain full downloads on a container that supports sendfile
+ * (Tomcat's NIO connector) are handed to the container, which copies the file to the
+ * socket without passing it through the JVM heap.
+ */
+final class FileDownloads {
+
+    static final MediaType XLSX = MediaType.parseMediaType(
+            "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private FileDownloads() {
+    }
+
+    /**
+     * Resolve a file name inside a directory, rejecting names that escape it.
+     *
+     * @return The file, or null if it does not exist or is outside the directory
+     */
+    static File resolve(File directory, String fileName) throws IOException {
+        File file = new File(directory, fileName).getCanonicalFile();
+        File parent = directory.getCanonicalFile();
+        if (!parent.equals(file.getParentFile()) || !file.isFile()) {
+            return null;
+        }
+        return file;
+    }
+
+    /**
+     * Build the download response for a file as an attachment.
+     *
+     * @param file The file to send
+     * @param contentType Media type of the file
+     * @param request The current request, consulted for conditional and range headers
+     */
+    static ResponseEntity<Resource> attachment(File file, MediaType contentType, HttpServletRequest request) {
+        long length = file.length();
+        long lastModified = file.lastModified();
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(etag(length, lastModified))
+                .lastModified(lastModified)
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .header(HttpHeaders.CONTENT_DISPOSITION, disposition(file.getName()))
+                .contentType(contentType);
+
+        // Conditional and range requests are answered by Spring from the resource
+        boolean plainGet = "GET".equals(request.getMethod())
+                && request.getHeader(HttpHeaders.RANGE) == null
+                && request.getHeader(HttpHeaders.IF_NONE_MATCH) == null
+                && request.getHeader(HttpHeaders.IF_MODIFIED_SINCE) == null;
+        if (plainGet && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, file.getAbsolutePath());
+            request.setAttribute(SENDFILE_START, 0L);
+            request.setAttribute(SENDFILE_END, length);
+            return response.contentLength(length).build();
+        }
+        return response.body(new FileSystemResource(file));
+    }
+
+    private static String disposition(String fileName) {
+        ContentDisposition.Builder builder = ContentDisposition.attachment();
+        // Only non-ASCII names need the RFC 5987 encoded form
+        if (StandardCharsets.US_ASCII.newEncoder().canEncode(fileName)) {
+            builder.filename(fileName);
+        } else {
+            builder.filename(fileName, StandardCharsets.UTF_8);
+        }
+        return builder.build().toString();
+    }
+
+    private static String etag(long length, long lastModified) {
+        return "\"" + Long.toHexString(length) + "-" + Long.toHexString(lastModified) + "\"";
+    }
+}
@@ -0,0 +1,137 @@
+package com.jnj.extracter.controller;
+
+import com.jnj.extracter.config.ExcelProcessingConfig;
+import com.jnj.extracter.jfr.BatchDecodeEvent;
+import com.jnj.extracter.jfr.SheetParseEvent;
+import com.jnj.extracter.jfr.TransformEvent;
+import com.jnj.extracter.jfr.WorkbookOpenEvent;
+import com.jnj.extracter.jfr.WriteEvent;
+import jdk.jfr.Configuration;
+import jdk.jfr.Event;
+import jdk.jfr.Recording;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.boot.actuate.endpoint.web.annotation.WebEndpoint;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Actuator endpoint that records the JVM with the flight recorder for a number of
+ * seconds and returns the {@code .jfr} file, including the extraction events of
+ * {@link com.jnj.extracter.jfr}. Only one recording runs at a time.
+ * Accessible via: /actuator/jfr?seconds=30&amp;settings=profile
+ */
+@Slf4j
+@Component
+@WebEndpoint(id = "jfr")
+public class FlightRecordingEndpoint {
+
+    private static final int DEFAULT_SECONDS = 30;
+    /** The configurations shipped with the JDK */
+    private static final Set<String> SETTINGS = Set.of("default", "profile");
+    private static final List<Class<? extends Event>> EXTRACTION_EVENTS = List.of(WorkbookOpenEvent.class,
+            SheetParseEvent.class, BatchDecodeEvent.class, TransformEvent.class, WriteEvent.class);
+
+    private final ExcelProcessingConfig config;
+    private final Lock lock = new ReentrantLock();
+
+    public FlightRecordingEndpoint(ExcelProcessingConfig config) {
+        this.config = config;
+    }
+
+    @ReadOperation(produces = "application/octet-stream")
+    public WebEndpointResponse<Resource> record(@Nullable Integer seconds, @Nullable String settings) {
+        int duration = seconds != null ? seconds : DEFAULT_SECONDS;
+        String configuration = settings != null ? settings : "default";
+        if (duration < 1 || duration > config.getJfrMaxRecordingSeconds() || !SETTINGS.contains(configuration)) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_BAD_REQUEST);
+        }
+        if (!lock.tryLock()) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_TOO_MANY_REQUESTS);
+        }
+        Path file = null;
+        try {
+            file = Files.createTempFile("extracter-", ".jfr");
+            try (Recording recording = new Recording(Configuration.getConfiguration(configuration))) {
+                recording.setName("extracter-on-demand");
+                EXTRACTION_EVENTS.forEach(recording::enable);
+                recording.start();
+                log.info("Started a {} s flight recording with the '{}' settings", duration, configuration);
+                Thread.sleep(Duration.ofSeconds(duration).toMillis());
+                recording.stop();
+                recording.dump(file);
+            }
+            log.info("Flight recording of {} s written ({} bytes)", duration, Files.size(file));
+            return new WebEndpointResponse<>(new TemporaryFileSystemResource(file.toFile()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            deleteQuietly(file);
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_SERVICE_UNAVAILABLE);
+        } catch (IOException | ParseException | IllegalStateException e) {
+            log.error("Flight recording failed: {}", e.getMessage(), e);
+            deleteQuietly(file);
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_INTERNAL_SERVER_ERROR);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.debug("Cannot delete {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * The recording file, deleted once it has been sent.
+     */
+    private static final class TemporaryFileSystemResource extends FileSystemResource {
+
+        TemporaryFileSystemResource(File file) {
+            super(file);
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return new FilterInputStream(super.getInputStream()) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        deleteQuietly(getFile().toPath());
+                    }
+                }
+            };
+        }
+
+        /**
+         * Not a file, so it is sent through {@link #getInputStream()} and deleted.
+         */
+        @Override
+        public boolean isFile() {
+            return false;
+        }
+    }
+}
@@ -1,14 +1,16 @@
 package com.jnj.extracter.controller;
 
+import com.jnj.extracter.transform.JournalBatch;
+import com.jnj.extracter.transform.JournalWriter;
 import com.jnj.extracter.transform.Transform;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.ByteArrayResource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/api/transform")
@@ -23,16 +25,37 @@ public class TransformController {
     }
 
     @GetMapping("/generate-journal")
-    public ResponseEntity<ByteArrayResource> generateJournalFromMaster() {
-        byte[] data = transformService.generateJournalFromMaster();
-        if (data == null || data.length == 0) {
+    public ResponseEntity<StreamingResponseBody> generateJournalFromMaster() {
+        JournalWriter journal = transformService.generateJournalFromMaster();
+        if (journal == null) {
             return ResponseEntity.notFound().build();
         }
-        ByteArrayResource resource = new ByteArrayResource(data);
+        // The workbook is written straight to the response instead of being buffered as bytes
+        StreamingResponseBody body = out -> {
+            try (journal) {
+                journal.write(out);
+            }
+        };
         return ResponseEntity.ok()
                 .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=Journal_transformed.xlsx")
                 .contentType(MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"))
-                .contentLength(data.length)
-                .body(resource);
+                .body(body);
+    }
+
+    /**
+     * One journal per entity and payrun in the master, as a ZIP that is written while
+     * the journals are still being generated.
+     */
+    @GetMapping("/generate-journals")
+    public ResponseEntity<StreamingResponseBody> generateJournalBatch() {
+        JournalBatch batch = transformService.partitionJournalsFromMaster();
+        if (batch == null) {
+            return ResponseEntity.notFound().build();
+        }
+        StreamingResponseBody body = out -> transformService.writeJournalBatch(batch, out);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=Journals.zip")
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .body(body);
     }
 }
@@ -1,10 +1,12 @@
 package com.jnj.extracter.entity;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.util.List;
+import java.util.Map;
 
 @Data
 @NoArgsConstructor
@@ -17,4 +19,7 @@ public class ExcelProcessingResult {
     private int totalRows;
     private List<String> sheetNames;
     private List<ExcelData> extractedData;
+    /** Where the time of the extraction went; only present when a profile was requested */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Map<String, Object> profile;
 }
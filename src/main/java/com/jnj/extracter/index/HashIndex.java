@@ -0,0 +1,108 @@
+package com.jnj.extracter.index;
+
+import com.jnj.extracter.analysis.AggregateSpec;
+import com.jnj.extracter.entity.ExcelData;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Equality index over one column: maps each distinct value to the sorted
+ * positions of the rows holding it.
+ * <p>
+ * Values are keyed by their text, with numbers in canonical form, so the numeric
+ * cell 123, the text cell "123" and the lookup value "123.0" all meet at one key.
+ */
+public final class HashIndex {
+
+    private final Map<String, int[]> postings;
+
+    private HashIndex(Map<String, int[]> postings) {
+        this.postings = postings;
+    }
+
+    /**
+     * Build the index over a column of the given rows.
+     *
+     * @param rows The extracted rows; positions refer to this list
+     * @param column The column to index
+     * @return The index
+     */
+    public static HashIndex build(List<ExcelData> rows, String column) {
+        Map<String, IntList> lists = new HashMap<>();
+        for (int i = 0; i < rows.size(); i++) {
+            Map<String, Object> data = rows.get(i).getData();
+            String key = key(data != null ? data.get(column) : null);
+            if (key != null) {
+                lists.computeIfAbsent(key, k -> new IntList()).add(i);
+            }
+        }
+        Map<String, int[]> postings = new HashMap<>(lists.size() * 2);
+        lists.forEach((key, list) -> postings.put(key, list.toArray()));
+        return new HashIndex(postings);
+    }
+
+    /**
+     * Find the rows whose value equals the given text, either literally or numerically.
+     *
+     * @param value The value to look up
+     * @return Sorted row positions; empty if nothing matches
+     */
+    public int[] lookup(String value) {
+        if (value == null) {
+            return new int[0];
+        }
+        int[] literal = postings.get(value.trim());
+        String canonical = key(AggregateSpec.toDouble(value));
+        int[] numeric = canonical != null && !canonical.equals(value.trim()) ? postings.get(canonical) : null;
+        if (literal == null) {
+            return numeric != null ? numeric : new int[0];
+        }
+        if (numeric == null) {
+            return literal;
+        }
+        // Both spellings matched different keys: merge the two sorted lists
+        int[] merged = new int[literal.length + numeric.length];
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < literal.length || j < numeric.length) {
+            if (j >= numeric.length || (i < literal.length && literal[i] < numeric[j])) {
+                merged[n++] = literal[i++];
+            } else if (i >= literal.length || numeric[j] < literal[i]) {
+                merged[n++] = numeric[j++];
+            } else {
+                merged[n++] = literal[i++];
+                j++;
+            }
+        }
+        return Arrays.copyOf(merged, n);
+    }
+
+    public int getDistinctValues() {
+        return postings.size();
+    }
+
+    /**
+     * Index key of a cell value, or null for empty cells, which are not indexed.
+     */
+    static String key(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof Number) {
+            double number = ((Number) value).doubleValue();
+            if (Double.isNaN(number)) {
+                return null;
+            }
+            if (number == Math.rint(number) && Math.abs(number) < 1e15) {
+                return Long.toString((long) number);
+            }
+            return Double.toString(number);
+        }
+        String text = value.toString().trim();
+        return text.isEmpty() ? null : text;
+    }
+}
@@ -0,0 +1,98 @@
+package com.jnj.extracter.index;
+
+import com.jnj.extracter.entity.ExcelData;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The extracted rows of one sheet together with the secondary indexes built over
+ * them. Indexes are built lazily per column on first use and live exactly as long
+ * as the rows, which are valid for the file content they were read from and for any
+ * later content whose sheet part signature is unchanged.
+ */
+@Getter
+public final class IndexedSheet {
+
+    private final String partSignature;
+    private final List<ExcelData> rows;
+    private final List<String> columns;
+    private final Map<String, HashIndex> hashIndexes = new ConcurrentHashMap<>();
+    private final Map<String, SortedIndex> sortedIndexes = new ConcurrentHashMap<>();
+    private volatile long lastAccess = System.nanoTime();
+
+    public IndexedSheet(String partSignature, List<ExcelData> rows) {
+        this.partSignature = partSignature;
+        this.rows = Collections.unmodifiableList(rows);
+        // All rows of a sheet share the header set
+        this.columns = rows.isEmpty() || rows.get(0).getData() == null
+                ? List.of() : List.copyOf(new ArrayList<>(rows.get(0).getData().keySet()));
+    }
+
+    /**
+     * Resolve a column name exactly, falling back to a case-insensitive match.
+     *
+     * @return The column as stored in the rows, or null if the sheet has no such column
+     */
+    public String resolveColumn(String column) {
+        if (column == null) {
+            return null;
+        }
+        if (columns.contains(column)) {
+            return column;
+        }
+        for (String candidate : columns) {
+            if (candidate.equalsIgnoreCase(column)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Get the equality index of a column, building it on first use.
+     */
+    public HashIndex hashIndex(String column) {
+        return hashIndexes.computeIfAbsent(column, c -> HashIndex.build(rows, c));
+    }
+
+    /**
+     * Get the range index of a column, building it on first use.
+     */
+    public SortedIndex sortedIndex(String column) {
+        return sortedIndexes.computeIfAbsent(column, c -> SortedIndex.build(rows, c));
+    }
+
+    /**
+     * Resolve row positions returned by an index to the rows themselves.
+     *
+     * @param positions Row positions
+     * @param limit Maximum number of rows to return
+     * @param fileName The file the rows are served for; rows read from another file
+     *                 with the same content are returned as copies carrying this name
+     */
+    public List<ExcelData> rowsAt(int[] positions, int limit, String fileName) {
+        int count = Math.min(positions.length, limit);
+        List<ExcelData> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ExcelData row = rows.get(positions[i]);
+            if (!fileName.equals(row.getFileName())) {
+                row = new ExcelData(fileName, row.getSheetName(), row.getRowNumber(), row.getData(),
+                        row.getExtractedAt());
+            }
+            result.add(row);
+        }
+        return result;
+    }
+
+    /**
+     * Mark the sheet as used, for least-recently-used eviction.
+     */
+    public void touch() {
+        lastAccess = System.nanoTime();
+    }
+}
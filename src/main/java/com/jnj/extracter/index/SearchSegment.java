@@ -0,0 +1,267 @@
+package com.jnj.extracter.index;
+
+import com.jnj.extracter.entity.ExcelData;
+import lombok.Getter;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Immutable inverted index over the cell values of one workbook.
+ * <p>
+ * Terms are kept in a sorted array so prefix queries are a binary search plus a
+ * short scan. Each term's postings are the cells containing it, packed into longs
+ * as (sheet, row, column), sorted, delta-encoded and written as variable-length
+ * integers into one shared byte array. A workbook that changes is re-indexed as
+ * a whole new segment; the others are untouched.
+ */
+public final class SearchSegment {
+
+    private static final Pattern WORD = Pattern.compile("[\\p{L}\\p{N}]+(?:[._/-][\\p{L}\\p{N}]+)*");
+    private static final Pattern PART = Pattern.compile("[\\p{L}\\p{N}]+");
+
+    @Getter
+    private final String fileName;
+    @Getter
+    private final String contentHash;
+    private final List<String> sheetNames;
+    private final List<List<String>> columnNames;
+    private final String[] terms;
+    private final int[] offsets;
+    private final byte[] postings;
+
+    private SearchSegment(String fileName, String contentHash, List<String> sheetNames,
+                          List<List<String>> columnNames, String[] terms, int[] offsets, byte[] postings) {
+        this.fileName = fileName;
+        this.contentHash = contentHash;
+        this.sheetNames = sheetNames;
+        this.columnNames = columnNames;
+        this.terms = terms;
+        this.offsets = offsets;
+        this.postings = postings;
+    }
+
+    /**
+     * Index the extracted rows of a workbook.
+     *
+     * @param fileName The workbook name
+     * @param contentHash Content hash of the file the rows were extracted from
+     * @param rows The extracted rows of all sheets
+     * @return The segment
+     */
+    public static SearchSegment build(String fileName, String contentHash, List<ExcelData> rows) {
+        Map<String, Integer> sheetIds = new LinkedHashMap<>();
+        List<Map<String, Integer>> columnIds = new ArrayList<>();
+        Map<String, LongList> termCells = new HashMap<>();
+
+        for (ExcelData row : rows) {
+            if (row.getData() == null) {
+                continue;
+            }
+            Integer sheetId = sheetIds.get(row.getSheetName());
+            if (sheetId == null) {
+                sheetId = sheetIds.size();
+                sheetIds.put(row.getSheetName(), sheetId);
+                columnIds.add(new LinkedHashMap<>());
+            }
+            Map<String, Integer> columns = columnIds.get(sheetId);
+            for (Map.Entry<String, Object> cell : row.getData().entrySet()) {
+                if (cell.getValue() == null) {
+                    continue;
+                }
+                Integer columnId = columns.computeIfAbsent(cell.getKey(), k -> columns.size());
+                long cellKey = cellKey(sheetId, row.getRowNumber(), columnId);
+                for (String term : tokenize(cell.getValue().toString())) {
+                    termCells.computeIfAbsent(term, t -> new LongList()).add(cellKey);
+                }
+            }
+        }
+
+        String[] terms = termCells.keySet().toArray(new String[0]);
+        Arrays.sort(terms);
+        int[] offsets = new int[terms.length + 1];
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int i = 0; i < terms.length; i++) {
+            offsets[i] = out.size();
+            long[] cells = termCells.get(terms[i]).toSortedArray();
+            long previous = 0;
+            for (long cell : cells) {
+                writeVarLong(out, cell - previous);
+                previous = cell;
+            }
+        }
+        offsets[terms.length] = out.size();
+
+        List<List<String>> columnNames = new ArrayList<>();
+        for (Map<String, Integer> columns : columnIds) {
+            columnNames.add(List.copyOf(columns.keySet()));
+        }
+        return new SearchSegment(fileName, contentHash, List.copyOf(sheetIds.keySet()), columnNames,
+                terms, offsets, out.toByteArray());
+    }
+
+    /**
+     * Split a value into lower-case search terms. Compound tokens such as
+     * "7490-JJCM" or "59710.82" are indexed whole and as their parts.
+     */
+    public static Set<String> tokenize(String text) {
+        Set<String> tokens = new LinkedHashSet<>();
+        Matcher words = WORD.matcher(text.toLowerCase(Locale.ROOT));
+        while (words.find()) {
+            String word = words.group();
+            tokens.add(word);
+            if (word.length() > 1 && !PART.matcher(word).matches()) {
+                Matcher parts = PART.matcher(word);
+                while (parts.find()) {
+                    tokens.add(parts.group());
+                }
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Find the cells containing a term that starts with the given prefix.
+     *
+     * @param prefix Lower-case term prefix
+     * @return Sorted, distinct cell keys
+     */
+    public long[] prefixSearch(String prefix) {
+        int start = lowerBound(prefix);
+        LongList cells = new LongList();
+        int matchedTerms = 0;
+        for (int i = start; i < terms.length && terms[i].startsWith(prefix); i++) {
+            decode(i, cells);
+            matchedTerms++;
+        }
+        // A single term's postings are already sorted and distinct
+        return matchedTerms <= 1 ? cells.toArray() : cells.toSortedArray();
+    }
+
+    /**
+     * Intersect two sorted cell key arrays.
+     */
+    public static long[] intersect(long[] left, long[] right) {
+        long[] result = new long[Math.min(left.length, right.length)];
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < left.length && j < right.length) {
+            if (left[i] < right[j]) {
+                i++;
+            } else if (left[i] > right[j]) {
+                j++;
+            } else {
+                result[n++] = left[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, n);
+    }
+
+    public String sheetName(long cellKey) {
+        return sheetNames.get((int) (cellKey >>> 48));
+    }
+
+    public int rowNumber(long cellKey) {
+        return (int) ((cellKey >>> 16) & 0xFFFFFFFFL);
+    }
+
+    public String columnName(long cellKey) {
+        return columnNames.get((int) (cellKey >>> 48)).get((int) (cellKey & 0xFFFF));
+    }
+
+    public int getTermCount() {
+        return terms.length;
+    }
+
+    public int getPostingsBytes() {
+        return postings.length;
+    }
+
+    private static long cellKey(int sheetId, int rowNumber, int columnId) {
+        return ((long) sheetId << 48) | ((long) rowNumber << 16) | (columnId & 0xFFFF);
+    }
+
+    private void decode(int term, LongList cells) {
+        int position = offsets[term];
+        int end = offsets[term + 1];
+        long value = 0;
+        while (position < end) {
+            long delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = postings[position++];
+                delta |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            value += delta;
+            cells.add(value);
+        }
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private int lowerBound(String key) {
+        int low = 0;
+        int high = terms.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (terms[mid].compareTo(key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Growable list of primitive longs.
+     */
+    private static final class LongList {
+        private long[] values = new long[4];
+        private int size;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+
+        long[] toSortedArray() {
+            long[] sorted = toArray();
+            Arrays.sort(sorted);
+            int n = 0;
+            for (int i = 0; i < sorted.length; i++) {
+                if (n == 0 || sorted[i] != sorted[n - 1]) {
+                    sorted[n++] = sorted[i];
+                }
+            }
+            return Arrays.copyOf(sorted, n);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.jnj.extracter.index;
+
+import com.jnj.extracter.analysis.AggregateSpec;
+import com.jnj.extracter.entity.ExcelData;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Range index over one column. Numeric values (numbers and numeric text) and
+ * other text are kept in two separately sorted arrays of (key, row position),
+ * so numeric ranges compare numerically and text ranges lexicographically.
+ */
+public final class SortedIndex {
+
+    private final double[] numericKeys;
+    private final int[] numericRows;
+    private final String[] textKeys;
+    private final int[] textRows;
+
+    private SortedIndex(double[] numericKeys, int[] numericRows, String[] textKeys, int[] textRows) {
+        this.numericKeys = numericKeys;
+        this.numericRows = numericRows;
+        this.textKeys = textKeys;
+        this.textRows = textRows;
+    }
+
+    /**
+     * Build the index over a column of the given rows.
+     *
+     * @param rows The extracted rows; positions refer to this list
+     * @param column The column to index
+     * @return The index
+     */
+    public static SortedIndex build(List<ExcelData> rows, String column) {
+        IntList numeric = new IntList();
+        List<Integer> text = new ArrayList<>();
+        double[] numbers = new double[rows.size()];
+        String[] strings = new String[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            Map<String, Object> data = rows.get(i).getData();
+            Object value = data != null ? data.get(column) : null;
+            if (value == null || value.toString().trim().isEmpty()) {
+                continue;
+            }
+            double number = AggregateSpec.toDouble(value);
+            if (!Double.isNaN(number)) {
+                numbers[i] = number;
+                numeric.add(i);
+            } else {
+                strings[i] = value.toString().trim();
+                text.add(i);
+            }
+        }
+
+        // Sort row positions by key; boxing is confined to the one-off build
+        Integer[] numericOrder = new Integer[numeric.size()];
+        for (int i = 0; i < numericOrder.length; i++) {
+            numericOrder[i] = numeric.get(i);
+        }
+        Arrays.sort(numericOrder, Comparator.comparingDouble(row -> numbers[row]));
+        double[] numericKeys = new double[numericOrder.length];
+        int[] numericRows = new int[numericOrder.length];
+        for (int i = 0; i < numericOrder.length; i++) {
+            numericRows[i] = numericOrder[i];
+            numericKeys[i] = numbers[numericOrder[i]];
+        }
+
+        text.sort(Comparator.comparing(row -> strings[row]));
+        String[] textKeys = new String[text.size()];
+        int[] textRows = new int[text.size()];
+        for (int i = 0; i < textKeys.length; i++) {
+            textRows[i] = text.get(i);
+            textKeys[i] = strings[textRows[i]];
+        }
+        return new SortedIndex(numericKeys, numericRows, textKeys, textRows);
+    }
+
+    /**
+     * Find the rows whose value lies in an inclusive range. If every given bound is
+     * numeric the numeric values are searched, otherwise the text values.
+     *
+     * @param from Lower bound, or null for unbounded
+     * @param to Upper bound, or null for unbounded
+     * @return Row positions in ascending key order
+     */
+    public int[] range(String from, String to) {
+        double low = from != null ? AggregateSpec.toDouble(from) : Double.NEGATIVE_INFINITY;
+        double high = to != null ? AggregateSpec.toDouble(to) : Double.POSITIVE_INFINITY;
+        if (!Double.isNaN(low) && !Double.isNaN(high)) {
+            int start = lowerBound(numericKeys, low);
+            int end = upperBound(numericKeys, high);
+            return start < end ? Arrays.copyOfRange(numericRows, start, end) : new int[0];
+        }
+        int start = from != null ? lowerBound(textKeys, from.trim()) : 0;
+        int end = to != null ? upperBound(textKeys, to.trim()) : textKeys.length;
+        return start < end ? Arrays.copyOfRange(textRows, start, end) : new int[0];
+    }
+
+    public int size() {
+        return numericKeys.length + textKeys.length;
+    }
+
+    private static int lowerBound(double[] keys, double key) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static int upperBound(double[] keys, double key) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid] <= key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static int lowerBound(String[] keys, String key) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid].compareTo(key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static int upperBound(String[] keys, String key) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid].compareTo(key) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,48 @@
+package com.jnj.extracter.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for decoding the cells of one batch of rows into extracted
+ * records or column vectors.
+ */
+@Name("com.jnj.extracter.BatchDecode")
+@Label("Batch Decode")
+@Category({"Extracter", "Extraction"})
+@Description("A batch of rows was decoded")
+public class BatchDecodeEvent extends Event {
+
+    @Label("File Name")
+    String fileName;
+
+    @Label("Sheet Name")
+    String sheetName;
+
+    @Label("Rows")
+    long rows;
+
+    @Label("Reader Mode")
+    String readerMode;
+
+    /**
+     * Commit the event if a recording wants it.
+     *
+     * @param fileName The workbook file name
+     * @param sheetName The sheet
+     * @param rows The rows in the batch
+     * @param readerMode How the workbook was read
+     */
+    public void report(String fileName, String sheetName, long rows, String readerMode) {
+        if (shouldCommit()) {
+            this.fileName = fileName;
+            this.sheetName = sheetName;
+            this.rows = rows;
+            this.readerMode = readerMode;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.jnj.extracter.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for reading the rows of one sheet, including decoding its
+ * cells where the reader decodes while it parses.
+ */
+@Name("com.jnj.extracter.SheetParse")
+@Label("Sheet Parse")
+@Category({"Extracter", "Extraction"})
+@Description("The rows of a sheet were read")
+public class SheetParseEvent extends Event {
+
+    @Label("File Name")
+    String fileName;
+
+    @Label("Sheet Name")
+    String sheetName;
+
+    @Label("Rows")
+    long rows;
+
+    @Label("Reader Mode")
+    String readerMode;
+
+    /**
+     * Commit the event if a recording wants it.
+     *
+     * @param fileName The workbook file name
+     * @param sheetName The sheet
+     * @param rows The rows read from the sheet
+     * @param readerMode How the workbook was read
+     */
+    public void report(String fileName, String sheetName, long rows, String readerMode) {
+        if (shouldCommit()) {
+            this.fileName = fileName;
+            this.sheetName = sheetName;
+            this.rows = rows;
+            this.readerMode = readerMode;
+            commit();
+        }
+    }
+}
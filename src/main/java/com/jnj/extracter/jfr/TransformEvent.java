@@ -0,0 +1,43 @@
+package com.jnj.extracter.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for deriving output rows from extracted data, e.g. the
+ * combined columns of a transformed file or the rows of a journal.
+ */
+@Name("com.jnj.extracter.Transform")
+@Label("Transform")
+@Category({"Extracter", "Transform"})
+@Description("Rows were derived from extracted data")
+public class TransformEvent extends Event {
+
+    @Label("Transform")
+    String transform;
+
+    @Label("Source")
+    String source;
+
+    @Label("Rows")
+    long rows;
+
+    /**
+     * Commit the event if a recording wants it.
+     *
+     * @param transform What was derived, e.g. {@code combined_columns} or a journal entity
+     * @param source The file or sheet the rows were derived from
+     * @param rows The rows derived
+     */
+    public void report(String transform, String source, long rows) {
+        if (shouldCommit()) {
+            this.transform = transform;
+            this.source = source;
+            this.rows = rows;
+            commit();
+        }
+    }
+}
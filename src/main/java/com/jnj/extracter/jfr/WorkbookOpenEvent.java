@@ -0,0 +1,46 @@
+package com.jnj.extracter.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+import java.io.File;
+
+/**
+ * Flight recorder event for opening a workbook, from the start of reading the file
+ * until its shared strings and styles are loaded.
+ */
+@Name("com.jnj.extracter.WorkbookOpen")
+@Label("Workbook Open")
+@Category({"Extracter", "Extraction"})
+@Description("A workbook was opened for reading")
+public class WorkbookOpenEvent extends Event {
+
+    @Label("File Name")
+    String fileName;
+
+    @Label("File Size")
+    @DataAmount
+    long fileSize;
+
+    @Label("Reader Mode")
+    String readerMode;
+
+    /**
+     * Commit the event if a recording wants it.
+     *
+     * @param file The workbook
+     * @param readerMode How the workbook was read, e.g. {@code streaming} or {@code user_model}
+     */
+    public void report(File file, String readerMode) {
+        if (shouldCommit()) {
+            this.fileName = file.getName();
+            this.fileSize = file.length();
+            this.readerMode = readerMode;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.jnj.extracter.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for serializing a generated workbook to its output.
+ */
+@Name("com.jnj.extracter.Write")
+@Label("Workbook Write")
+@Category({"Extracter", "Transform"})
+@Description("A generated workbook was written")
+public class WriteEvent extends Event {
+
+    @Label("Sheet Name")
+    String sheetName;
+
+    @Label("Rows")
+    long rows;
+
+    @Label("Bytes Written")
+    @DataAmount
+    long bytes;
+
+    /**
+     * Commit the event if a recording wants it.
+     *
+     * @param sheetName The sheet of the generated workbook
+     * @param rows The data rows written
+     * @param bytes The bytes written to the output
+     */
+    public void report(String sheetName, long rows, long bytes) {
+        if (shouldCommit()) {
+            this.sheetName = sheetName;
+            this.rows = rows;
+            this.bytes = bytes;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,460 @@
+package com.jnj.extracter.query;
+
+import com.jnj.extracter.analysis.AggregateSpec;
+import com.jnj.extracter.analysis.GroupByAggregator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Push-based physical operators. Each operator receives column batches from its
+ * child and pushes results to its parent; {@link Sink#finish()} flushes blocking
+ * operators such as aggregation and sort once the input is exhausted.
+ */
+final class BatchOperators {
+
+    /** Rows per batch emitted by blocking operators */
+    static final int OUTPUT_BATCH_SIZE = 1024;
+
+    private BatchOperators() {
+    }
+
+    /**
+     * Receiver of column batches.
+     */
+    interface Sink {
+
+        /**
+         * @return false once no more input is wanted
+         */
+        boolean accept(ColumnBatch batch);
+
+        /**
+         * Called once after the last batch; flushes buffered output to the parent.
+         *
+         * @return false if the parent wants no more input
+         */
+        default boolean finish() {
+            return true;
+        }
+
+        /**
+         * Release what the operator holds, also when the input failed before {@link #finish()}.
+         */
+        default void close() {
+        }
+    }
+
+    /**
+     * Keeps the rows matching a predicate.
+     */
+    static final class FilterSink implements Sink {
+        private final Expression predicate;
+        private final Sink downstream;
+
+        FilterSink(Expression predicate, Sink downstream) {
+            this.predicate = predicate;
+            this.downstream = downstream;
+        }
+
+        @Override
+        public boolean accept(ColumnBatch batch) {
+            int[] selection = new int[batch.size()];
+            int count = predicate.select(batch, selection);
+            return count == 0 || downstream.accept(batch.select(selection, count));
+        }
+    }
+
+    /**
+     * Selects and renames columns without copying their vectors.
+     */
+    static final class ProjectSink implements Sink {
+        private final List<ParsedQuery.SelectItem> items;
+        private final List<String> outputNames;
+        private final Sink downstream;
+
+        ProjectSink(List<ParsedQuery.SelectItem> items, List<String> outputNames, Sink downstream) {
+            this.items = items;
+            this.outputNames = outputNames;
+            this.downstream = downstream;
+        }
+
+        @Override
+        public boolean accept(ColumnBatch batch) {
+            List<String> names = new ArrayList<>();
+            List<Object[]> vectors = new ArrayList<>();
+            for (int i = 0; i < items.size(); i++) {
+                ParsedQuery.SelectItem item = items.get(i);
+                if (item.isStar()) {
+                    for (int c = 0; c < batch.columnCount(); c++) {
+                        names.add(batch.getColumnNames().get(c));
+                        vectors.add(batch.vector(c));
+                    }
+                    continue;
+                }
+                Object[] vector = batch.vector(item.getColumn());
+                names.add(outputNames != null ? outputNames.get(i) : item.getOutputName());
+                vectors.add(vector != null ? vector : new Object[batch.size()]);
+            }
+            return downstream.accept(new ColumnBatch(names, vectors.toArray(new Object[0][]), batch.size()));
+        }
+    }
+
+    /**
+     * Hash aggregation backed by {@link GroupByAggregator}, which groups key values by
+     * their text and turns a key column that only ever held numbers back into numbers,
+     * so that it sorts numerically. Groups are emitted in batches as the aggregator
+     * produces them.
+     */
+    static final class AggregateSink implements Sink {
+        private final List<String> groupBy;
+        private final List<ParsedQuery.SelectItem> items;
+        private final List<String> outputNames;
+        private final List<AggregateSpec> aggregates = new ArrayList<>();
+        private final GroupByAggregator aggregator;
+        private final Sink downstream;
+        private final List<Map<String, Object>> pending = new ArrayList<>(OUTPUT_BATCH_SIZE);
+
+        AggregateSink(List<String> groupBy, List<ParsedQuery.SelectItem> items, List<String> outputNames,
+                      int maxGroupsInMemory, Sink downstream) {
+            this.groupBy = groupBy;
+            this.items = items;
+            this.outputNames = outputNames;
+            this.downstream = downstream;
+            for (ParsedQuery.SelectItem item : items) {
+                if (item.getAggregate() != null) {
+                    aggregates.add(item.getAggregate());
+                }
+            }
+            this.aggregator = new GroupByAggregator(groupBy, aggregates, maxGroupsInMemory);
+        }
+
+        @Override
+        public boolean accept(ColumnBatch batch) {
+            Object[][] keyVectors = new Object[groupBy.size()][];
+            for (int k = 0; k < keyVectors.length; k++) {
+                keyVectors[k] = batch.vector(groupBy.get(k));
+                if (keyVectors[k] == null) {
+                    keyVectors[k] = new Object[batch.size()];
+                }
+            }
+            Object[][] inputVectors = new Object[aggregates.size()][];
+            for (int a = 0; a < inputVectors.length; a++) {
+                AggregateSpec spec = aggregates.get(a);
+                inputVectors[a] = spec.isCountAll() ? null : batch.vector(spec.getColumn());
+            }
+
+            Object[] keys = new Object[keyVectors.length];
+            Object[] inputs = new Object[inputVectors.length];
+            for (int row = 0; row < batch.size(); row++) {
+                for (int k = 0; k < keys.length; k++) {
+                    keys[k] = keyVectors[k][row];
+                }
+                for (int a = 0; a < inputs.length; a++) {
+                    inputs[a] = inputVectors[a] != null ? inputVectors[a][row] : null;
+                }
+                aggregator.accept(keys, inputs);
+            }
+            return true;
+        }
+
+        @Override
+        public boolean finish() {
+            boolean[] empty = {true};
+            boolean more = aggregator.forEachResult(group -> {
+                empty[0] = false;
+                pending.add(group);
+                return pending.size() < OUTPUT_BATCH_SIZE || flush();
+            });
+            if (!more) {
+                return false;
+            }
+            if (empty[0] && groupBy.isEmpty()) {
+                // A global aggregate over no rows still yields one row
+                Map<String, Object> row = new HashMap<>();
+                for (AggregateSpec spec : aggregates) {
+                    row.put(spec.getAlias(), spec.getFunction() == AggregateSpec.Function.COUNT ? 0L : null);
+                }
+                pending.add(row);
+            }
+            return pending.isEmpty() || flush();
+        }
+
+        @Override
+        public void close() {
+            aggregator.close();
+        }
+
+        /**
+         * Push the pending groups downstream as one batch.
+         */
+        private boolean flush() {
+            int size = pending.size();
+            Object[][] vectors = new Object[items.size()][size];
+            for (int i = 0; i < items.size(); i++) {
+                ParsedQuery.SelectItem item = items.get(i);
+                int keyIndex = item.getAggregate() == null ? keyIndex(item.getColumn()) : -1;
+                String source = keyIndex >= 0 ? groupBy.get(keyIndex) : item.getAggregate().getAlias();
+                for (int row = 0; row < size; row++) {
+                    vectors[i][row] = pending.get(row).get(source);
+                }
+            }
+            pending.clear();
+            return downstream.accept(new ColumnBatch(new ArrayList<>(outputNames), vectors, size));
+        }
+
+        private int keyIndex(String column) {
+            for (int k = 0; k < groupBy.size(); k++) {
+                if (groupBy.get(k).equalsIgnoreCase(column)) {
+                    return k;
+                }
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * Sorts all rows, or keeps only the first topN rows in a bounded heap.
+     */
+    static final class SortSink implements Sink {
+        private final List<ParsedQuery.OrderItem> orderBy;
+        private final int topN;
+        private final Sink downstream;
+        private final RowBuffer buffer = new RowBuffer();
+        private Comparator<Object[]> comparator;
+        private PriorityQueue<Object[]> heap;
+
+        SortSink(List<ParsedQuery.OrderItem> orderBy, int topN, Sink downstream) {
+            this.orderBy = orderBy;
+            this.topN = topN;
+            this.downstream = downstream;
+        }
+
+        @Override
+        public boolean accept(ColumnBatch batch) {
+            if (batch.size() == 0) {
+                return true;
+            }
+            if (comparator == null) {
+                buffer.addColumns(batch);
+                comparator = comparator(buffer);
+                if (topN > 0) {
+                    heap = new PriorityQueue<>(topN + 1, comparator.reversed());
+                }
+            }
+            int[] mapping = buffer.addColumns(batch);
+            for (int row = 0; row < batch.size(); row++) {
+                Object[] values = buffer.toRow(batch, row, mapping);
+                if (heap == null) {
+                    buffer.getRows().add(values);
+                } else if (heap.size() < topN) {
+                    heap.add(values);
+                } else if (comparator.compare(values, heap.peek()) < 0) {
+                    heap.poll();
+                    heap.add(values);
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public boolean finish() {
+            List<Object[]> rows = buffer.getRows();
+            if (heap != null) {
+                rows.addAll(heap);
+            }
+            if (comparator != null) {
+                rows.sort(comparator);
+            }
+            return buffer.emit(downstream);
+        }
+
+        private Comparator<Object[]> comparator(RowBuffer columns) {
+            int[] indexes = new int[orderBy.size()];
+            for (int i = 0; i < indexes.length; i++) {
+                indexes[i] = columns.indexOf(orderBy.get(i).getColumn());
+                if (indexes[i] < 0) {
+                    throw new IllegalArgumentException("Unknown ORDER BY column '" + orderBy.get(i).getColumn() + "'");
+                }
+            }
+            return (left, right) -> {
+                for (int i = 0; i < indexes.length; i++) {
+                    Object l = indexes[i] < left.length ? left[indexes[i]] : null;
+                    Object r = indexes[i] < right.length ? right[indexes[i]] : null;
+                    int cmp;
+                    if (l == null || r == null) {
+                        // Nulls sort last in either direction
+                        cmp = l == r ? 0 : (l == null ? 1 : -1);
+                    } else {
+                        cmp = Expression.compareValues(l, r);
+                        if (orderBy.get(i).isDescending()) {
+                            cmp = -cmp;
+                        }
+                    }
+                    if (cmp != 0) {
+                        return cmp;
+                    }
+                }
+                return 0;
+            };
+        }
+    }
+
+    /**
+     * Passes through the first rows and then stops the pipeline.
+     */
+    static final class LimitSink implements Sink {
+        private final Sink downstream;
+        private long remaining;
+
+        LimitSink(long count, Sink downstream) {
+            this.remaining = count;
+            this.downstream = downstream;
+        }
+
+        @Override
+        public boolean accept(ColumnBatch batch) {
+            if (remaining <= 0) {
+                return false;
+            }
+            ColumnBatch limited = batch;
+            if (batch.size() > remaining) {
+                int[] positions = new int[(int) remaining];
+                for (int i = 0; i < positions.length; i++) {
+                    positions[i] = i;
+                }
+                limited = batch.select(positions, positions.length);
+            }
+            remaining -= limited.size();
+            return downstream.accept(limited) && remaining > 0;
+        }
+    }
+
+    /**
+     * Collects the final rows, up to a maximum.
+     */
+    static final class CollectSink implements Sink {
+        private final RowBuffer buffer = new RowBuffer();
+        private final int maxRows;
+        private boolean truncated;
+
+        CollectSink(int maxRows) {
+            this.maxRows = maxRows;
+        }
+
+        @Override
+        public boolean accept(ColumnBatch batch) {
+            int[] mapping = buffer.addColumns(batch);
+            for (int row = 0; row < batch.size(); row++) {
+                if (buffer.getRows().size() >= maxRows) {
+                    truncated = true;
+                    return false;
+                }
+                buffer.getRows().add(buffer.toRow(batch, row, mapping));
+            }
+            return true;
+        }
+
+        List<String> getColumns() {
+            return buffer.getColumns();
+        }
+
+        List<List<Object>> getRows() {
+            List<List<Object>> rows = new ArrayList<>(buffer.getRows().size());
+            int width = buffer.getColumns().size();
+            for (Object[] row : buffer.getRows()) {
+                rows.add(Arrays.asList(row.length == width ? row : Arrays.copyOf(row, width)));
+            }
+            return rows;
+        }
+
+        boolean isTruncated() {
+            return truncated;
+        }
+    }
+
+    /**
+     * Row-major buffer whose columns are the union, by name, of all batches added.
+     * Branches of a UNION ALL over SELECT * may have different columns.
+     */
+    static final class RowBuffer {
+        private final List<String> columns = new ArrayList<>();
+        private final Map<String, Integer> indexes = new HashMap<>();
+        private final List<Object[]> rows = new ArrayList<>();
+
+        /**
+         * Register the batch's columns.
+         *
+         * @return Buffer position of each batch column
+         */
+        int[] addColumns(ColumnBatch batch) {
+            int[] mapping = new int[batch.columnCount()];
+            for (int c = 0; c < mapping.length; c++) {
+                String name = batch.getColumnNames().get(c);
+                Integer index = indexes.get(name);
+                if (index == null) {
+                    index = columns.size();
+                    columns.add(name);
+                    indexes.put(name, index);
+                }
+                mapping[c] = index;
+            }
+            return mapping;
+        }
+
+        Object[] toRow(ColumnBatch batch, int row, int[] mapping) {
+            Object[] values = new Object[columns.size()];
+            for (int c = 0; c < mapping.length; c++) {
+                values[mapping[c]] = batch.get(row, c);
+            }
+            return values;
+        }
+
+        int indexOf(String name) {
+            Integer index = indexes.get(name);
+            if (index != null) {
+                return index;
+            }
+            for (int i = 0; i < columns.size(); i++) {
+                if (columns.get(i).equalsIgnoreCase(name)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        List<String> getColumns() {
+            return columns;
+        }
+
+        List<Object[]> getRows() {
+            return rows;
+        }
+
+        /**
+         * Push the buffered rows downstream in column batches.
+         */
+        boolean emit(Sink downstream) {
+            int width = columns.size();
+            for (int from = 0; from < rows.size(); from += OUTPUT_BATCH_SIZE) {
+                int size = Math.min(OUTPUT_BATCH_SIZE, rows.size() - from);
+                Object[][] vectors = new Object[width][size];
+                for (int row = 0; row < size; row++) {
+                    Object[] values = rows.get(from + row);
+                    for (int c = 0; c < values.length; c++) {
+                        vectors[c][row] = values[c];
+                    }
+                }
+                if (!downstream.accept(new ColumnBatch(new ArrayList<>(columns), vectors, size))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
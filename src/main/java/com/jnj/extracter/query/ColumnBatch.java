@@ -0,0 +1,106 @@
+package com.jnj.extracter.query;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A batch of rows stored column by column. Each column is a value vector of
+ * {@link #size()} entries, so operators work on whole vectors instead of per-row maps.
+ */
+public class ColumnBatch {
+
+    private final List<String> columnNames;
+    private final Object[][] vectors;
+    private final int size;
+
+    public ColumnBatch(List<String> columnNames, Object[][] vectors, int size) {
+        if (columnNames.size() != vectors.length) {
+            throw new IllegalArgumentException("Expected " + columnNames.size() + " vectors but got " + vectors.length);
+        }
+        this.columnNames = Collections.unmodifiableList(columnNames);
+        this.vectors = vectors;
+        this.size = size;
+    }
+
+    public List<String> getColumnNames() {
+        return columnNames;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int columnCount() {
+        return vectors.length;
+    }
+
+    public Object[] vector(int column) {
+        return vectors[column];
+    }
+
+    /**
+     * Find a column by name, falling back to a case-insensitive match.
+     *
+     * @return The column position, or -1 if the batch has no such column
+     */
+    public int indexOf(String name) {
+        int index = columnNames.indexOf(name);
+        if (index >= 0) {
+            return index;
+        }
+        for (int i = 0; i < columnNames.size(); i++) {
+            if (columnNames.get(i).equalsIgnoreCase(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Get the vector of a column by name.
+     *
+     * @return The vector, or null if the batch has no such column
+     */
+    public Object[] vector(String name) {
+        int index = indexOf(name);
+        return index < 0 ? null : vectors[index];
+    }
+
+    public Object get(int row, int column) {
+        return vectors[column][row];
+    }
+
+    /**
+     * Keep only the rows at the given positions, in order.
+     *
+     * @param positions Selected row positions
+     * @param count Number of valid entries in positions
+     */
+    public ColumnBatch select(int[] positions, int count) {
+        if (count == size) {
+            return this;
+        }
+        Object[][] selected = new Object[vectors.length][];
+        for (int c = 0; c < vectors.length; c++) {
+            Object[] source = vectors[c];
+            Object[] target = new Object[count];
+            for (int i = 0; i < count; i++) {
+                target[i] = source[positions[i]];
+            }
+            selected[c] = target;
+        }
+        return new ColumnBatch(new ArrayList<>(columnNames), selected, count);
+    }
+
+    /**
+     * Copy one row out of the batch.
+     */
+    public Object[] row(int row) {
+        Object[] values = new Object[vectors.length];
+        for (int c = 0; c < vectors.length; c++) {
+            values[c] = vectors[c][row];
+        }
+        return values;
+    }
+}
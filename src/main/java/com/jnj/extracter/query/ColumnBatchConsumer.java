@@ -0,0 +1,15 @@
+package com.jnj.extracter.query;
+
+/**
+ * Receives the column batches produced by a sheet scan.
+ */
+@FunctionalInterface
+public interface ColumnBatchConsumer {
+
+    /**
+     * Consume one batch.
+     *
+     * @return false to stop the scan early, e.g. once a LIMIT is satisfied
+     */
+    boolean accept(ColumnBatch batch);
+}
@@ -0,0 +1,450 @@
+package com.jnj.extracter.query;
+
+import com.jnj.extracter.analysis.AggregateSpec;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * A scalar or boolean expression evaluated a whole column vector at a time.
+ * <p>
+ * Predicates follow SQL three-valued logic: a comparison involving NULL yields
+ * NULL, and only rows whose predicate is TRUE are selected.
+ */
+public abstract class Expression {
+
+    /**
+     * Evaluate the expression for every row of the batch.
+     *
+     * @return One value per row; predicates return Boolean or null
+     */
+    public abstract Object[] evaluate(ColumnBatch batch);
+
+    /**
+     * Add the names of all columns this expression reads.
+     */
+    public abstract void collectColumns(Set<String> columns);
+
+    /**
+     * Evaluate a predicate and write the positions of the rows where it is TRUE.
+     *
+     * @return Number of selected positions
+     */
+    public int select(ColumnBatch batch, int[] selection) {
+        Object[] results = evaluate(batch);
+        int count = 0;
+        for (int i = 0; i < results.length; i++) {
+            if (Boolean.TRUE.equals(results[i])) {
+                selection[count++] = i;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Compare two non-null values. Numbers compare numerically, also against numeric
+     * text; everything else compares as text.
+     */
+    public static int compareValues(Object left, Object right) {
+        if (left instanceof Number || right instanceof Number) {
+            double l = AggregateSpec.toDouble(left);
+            double r = AggregateSpec.toDouble(right);
+            if (!Double.isNaN(l) && !Double.isNaN(r)) {
+                return Double.compare(l, r);
+            }
+        }
+        if (left instanceof Boolean && right instanceof Boolean) {
+            return Boolean.compare((Boolean) left, (Boolean) right);
+        }
+        return left.toString().compareTo(right.toString());
+    }
+
+    static String quoteIdentifier(String name) {
+        return name.matches("[A-Za-z_][A-Za-z0-9_]*") ? name : "\"" + name.replace("\"", "\"\"") + "\"";
+    }
+
+    static String formatLiteral(Object value) {
+        if (value == null) {
+            return "NULL";
+        }
+        if (value instanceof String) {
+            return "'" + ((String) value).replace("'", "''") + "'";
+        }
+        return value.toString();
+    }
+
+    /**
+     * Reference to a column by name; missing columns read as NULL.
+     */
+    public static final class ColumnRef extends Expression {
+        private final String name;
+
+        public ColumnRef(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public Object[] evaluate(ColumnBatch batch) {
+            Object[] vector = batch.vector(name);
+            return vector != null ? vector : new Object[batch.size()];
+        }
+
+        @Override
+        public void collectColumns(Set<String> columns) {
+            columns.add(name);
+        }
+
+        @Override
+        public String toString() {
+            return quoteIdentifier(name);
+        }
+    }
+
+    /**
+     * A constant value.
+     */
+    public static final class Literal extends Expression {
+        private final Object value;
+
+        public Literal(Object value) {
+            this.value = value;
+        }
+
+        public Object getValue() {
+            return value;
+        }
+
+        @Override
+        public Object[] evaluate(ColumnBatch batch) {
+            Object[] vector = new Object[batch.size()];
+            Arrays.fill(vector, value);
+            return vector;
+        }
+
+        @Override
+        public void collectColumns(Set<String> columns) {
+        }
+
+        @Override
+        public String toString() {
+            return formatLiteral(value);
+        }
+    }
+
+    /**
+     * Binary comparison: =, !=, <, <=, > or >=.
+     */
+    public static final class Comparison extends Expression {
+        private final String operator;
+        private final Expression left;
+        private final Expression right;
+
+        public Comparison(String operator, Expression left, Expression right) {
+            this.operator = operator.equals("<>") ? "!=" : operator;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        public Object[] evaluate(ColumnBatch batch) {
+            Object[] l = left.evaluate(batch);
+            Object[] r = right.evaluate(batch);
+            Object[] results = new Object[batch.size()];
+            for (int i = 0; i < results.length; i++) {
+                if (l[i] == null || r[i] == null) {
+                    continue;
+                }
+                int cmp = compareValues(l[i], r[i]);
+                boolean result;
+                switch (operator) {
+                    case "=":
+                        result = cmp == 0;
+                        break;
+                    case "!=":
+                        result = cmp != 0;
+                        break;
+                    case "<":
+                        result = cmp < 0;
+                        break;
+                    case "<=":
+                        result = cmp <= 0;
+                        break;
+                    case ">":
+                        result = cmp > 0;
+                        break;
+                    default:
+                        result = cmp >= 0;
+                        break;
+                }
+                results[i] = result;
+            }
+            return results;
+        }
+
+        @Override
+        public void collectColumns(Set<String> columns) {
+            left.collectColumns(columns);
+            right.collectColumns(columns);
+        }
+
+        @Override
+        public String toString() {
+            return left + " " + operator + " " + right;
+        }
+    }
+
+    /**
+     * Logical AND.
+     */
+    public static final class And extends Expression {
+        private final Expression left;
+        private final Expression right;
+
+        public And(Expression left, Expression right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        public Expression getLeft() {
+            return left;
+        }
+
+        public Expression getRight() {
+            return right;
+        }
+
+        @Override
+        public Object[] evaluate(ColumnBatch batch) {
+            Object[] l = left.evaluate(batch);
+            Object[] r = right.evaluate(batch);
+            Object[] results = new Object[batch.size()];
+            for (int i = 0; i < results.length; i++) {
+                if (Boolean.FALSE.equals(l[i]) || Boolean.FALSE.equals(r[i])) {
+                    results[i] = Boolean.FALSE;
+                } else if (l[i] != null && r[i] != null) {
+                    results[i] = Boolean.TRUE;
+                }
+            }
+            return results;
+        }
+
+        @Override
+        public void collectColumns(Set<String> columns) {
+            left.collectColumns(columns);
+            right.collectColumns(columns);
+        }
+
+        @Override
+        public String toString() {
+            return "(" + left + " AND " + right + ")";
+        }
+    }
+
+    /**
+     * Logical OR.
+     */
+    public static final class Or extends Expression {
+        private final Expression left;
+        private final Expression right;
+
+        public Or(Expression left, Expression right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        public Object[] evaluate(ColumnBatch batch) {
+            Object[] l = left.evaluate(batch);
+            Object[] r = right.evaluate(batch);
+            Object[] results = new Object[batch.size()];
+            for (int i = 0; i < results.length; i++) {
+                if (Boolean.TRUE.equals(l[i]) || Boolean.TRUE.equals(r[i])) {
+                    results[i] = Boolean.TRUE;
+                } else if (l[i] != null && r[i] != null) {
+                    results[i] = Boolean.FALSE;
+                }
+            }
+            return results;
+        }
+
+        @Override
+        public void collectColumns(Set<String> columns) {
+            left.collectColumns(columns);
+            right.collectColumns(columns);
+        }
+
+        @Override
+        public String toString() {
+            return "(" + left + " OR " + right + ")";
+        }
+    }
+
+    /**
+     * Logical NOT.
+     */
+    public static final class Not extends Expression {
+        private final Expression inner;
+
+        public Not(Expression inner) {
+            this.inner = inner;
+        }
+
+        @Override
+        public Object[] evaluate(ColumnBatch batch) {
+            Object[] values = inner.evaluate(batch);
+            Object[] results = new Object[values.length];
+            for (int i = 0; i < values.length; i++) {
+                if (values[i] instanceof Boolean) {
+                    results[i] = !(Boolean) values[i];
+                }
+            }
+            return results;
+        }
+
+        @Override
+        public void collectColumns(Set<String> columns) {
+            inner.collectColumns(columns);
+        }
+
+        @Override
+        public String toString() {
+            return "NOT " + inner;
+        }
+    }
+
+    /**
+     * IS NULL / IS NOT NULL. Blank text counts as NULL, as it does everywhere else in extraction.
+     */
+    public static final class IsNull extends Expression {
+        private final Expression inner;
+        private final boolean negated;
+
+        public IsNull(Expression inner, boolean negated) {
+            this.inner = inner;
+            this.negated = negated;
+        }
+
+        @Override
+        public Object[] evaluate(ColumnBatch batch) {
+            Object[] values = inner.evaluate(batch);
+            Object[] results = new Object[values.length];
+            for (int i = 0; i < values.length; i++) {
+                boolean isNull = values[i] == null || values[i].toString().trim().isEmpty();
+                results[i] = isNull != negated;
+            }
+            return results;
+        }
+
+        @Override
+        public void collectColumns(Set<String> columns) {
+            inner.collectColumns(columns);
+        }
+
+        @Override
+        public String toString() {
+            return inner + (negated ? " IS NOT NULL" : " IS NULL");
+        }
+    }
+
+    /**
+     * Case-insensitive LIKE with % and _ wildcards.
+     */
+    public static final class Like extends Expression {
+        private final Expression inner;
+        private final String pattern;
+        private final boolean negated;
+        private final Pattern regex;
+
+        public Like(Expression inner, String pattern, boolean negated) {
+            this.inner = inner;
+            this.pattern = pattern;
+            this.negated = negated;
+            StringBuilder builder = new StringBuilder();
+            for (char c : pattern.toCharArray()) {
+                if (c == '%') {
+                    builder.append(".*");
+                } else if (c == '_') {
+                    builder.append('.');
+                } else {
+                    builder.append(Pattern.quote(String.valueOf(c)));
+                }
+            }
+            this.regex = Pattern.compile(builder.toString(), Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+        }
+
+        @Override
+        public Object[] evaluate(ColumnBatch batch) {
+            Object[] values = inner.evaluate(batch);
+            Object[] results = new Object[values.length];
+            for (int i = 0; i < values.length; i++) {
+                if (values[i] != null) {
+                    results[i] = regex.matcher(values[i].toString()).matches() != negated;
+                }
+            }
+            return results;
+        }
+
+        @Override
+        public void collectColumns(Set<String> columns) {
+            inner.collectColumns(columns);
+        }
+
+        @Override
+        public String toString() {
+            return inner + (negated ? " NOT LIKE " : " LIKE ") + formatLiteral(pattern);
+        }
+    }
+
+    /**
+     * IN / NOT IN over a list of literals.
+     */
+    public static final class In extends Expression {
+        private final Expression inner;
+        private final List<Object> values;
+        private final boolean negated;
+
+        public In(Expression inner, List<Object> values, boolean negated) {
+            this.inner = inner;
+            this.values = values;
+            this.negated = negated;
+        }
+
+        @Override
+        public Object[] evaluate(ColumnBatch batch) {
+            Object[] input = inner.evaluate(batch);
+            Object[] results = new Object[input.length];
+            for (int i = 0; i < input.length; i++) {
+                if (input[i] == null) {
+                    continue;
+                }
+                boolean found = false;
+                for (Object value : values) {
+                    if (value != null && compareValues(input[i], value) == 0) {
+                        found = true;
+                        break;
+                    }
+                }
+                results[i] = found != negated;
+            }
+            return results;
+        }
+
+        @Override
+        public void collectColumns(Set<String> columns) {
+            inner.collectColumns(columns);
+        }
+
+        @Override
+        public String toString() {
+            return inner + (negated ? " NOT IN (" : " IN (")
+                    + values.stream().map(Expression::formatLiteral).collect(Collectors.joining(", ")) + ")";
+        }
+    }
+}
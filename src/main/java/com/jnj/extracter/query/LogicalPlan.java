@@ -0,0 +1,203 @@
+package com.jnj.extracter.query;
+
+import lombok.Getter;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Logical plan of a query. Nodes are immutable; the planner rewrites the tree
+ * to push filters and projections down into the scans.
+ */
+@Getter
+public abstract class LogicalPlan {
+
+    private final List<LogicalPlan> children;
+
+    protected LogicalPlan(List<LogicalPlan> children) {
+        this.children = List.copyOf(children);
+    }
+
+    public LogicalPlan getChild() {
+        return children.get(0);
+    }
+
+    /**
+     * One-line description of this node, without its children.
+     */
+    public abstract String describe();
+
+    /**
+     * Render the plan as indented lines, one per node.
+     */
+    public List<String> explain() {
+        List<String> lines = new ArrayList<>();
+        explain(lines, 0);
+        return lines;
+    }
+
+    private void explain(List<String> lines, int depth) {
+        lines.add("  ".repeat(depth) + describe());
+        for (LogicalPlan child : children) {
+            child.explain(lines, depth + 1);
+        }
+    }
+
+    private static String items(List<?> items) {
+        return items.stream().map(Object::toString).collect(Collectors.joining(", "));
+    }
+
+    /**
+     * Read rows of one file: a single sheet, or all sheets when sheetName is null.
+     */
+    @Getter
+    public static final class Scan extends LogicalPlan {
+        private final File file;
+        private final String sheetName;
+        /** Columns decoded by extraction; null decodes every column */
+        private final List<String> columns;
+        /** Filter conjuncts evaluated during extraction */
+        private final List<Expression> filters;
+
+        public Scan(File file, String sheetName, List<String> columns, List<Expression> filters) {
+            super(List.of());
+            this.file = file;
+            this.sheetName = sheetName;
+            this.columns = columns == null ? null : List.copyOf(columns);
+            this.filters = List.copyOf(filters);
+        }
+
+        public String getTableName() {
+            return Expression.quoteIdentifier(file.getName())
+                    + (sheetName != null ? "." + Expression.quoteIdentifier(sheetName) : ".*");
+        }
+
+        @Override
+        public String describe() {
+            StringBuilder text = new StringBuilder("Scan ").append(getTableName());
+            text.append(" columns=").append(columns == null ? "*" : "[" + items(columns) + "]");
+            if (!filters.isEmpty()) {
+                text.append(" pushedFilters=[").append(items(filters)).append("]");
+            }
+            return text.toString();
+        }
+    }
+
+    /**
+     * Keep rows matching a predicate.
+     */
+    @Getter
+    public static final class Filter extends LogicalPlan {
+        private final Expression predicate;
+
+        public Filter(Expression predicate, LogicalPlan child) {
+            super(List.of(child));
+            this.predicate = predicate;
+        }
+
+        @Override
+        public String describe() {
+            return "Filter " + predicate;
+        }
+    }
+
+    /**
+     * Select, rename and reorder columns.
+     */
+    @Getter
+    public static final class Project extends LogicalPlan {
+        private final List<ParsedQuery.SelectItem> items;
+        /** Output column names; null when the select list contains * */
+        private final List<String> outputNames;
+
+        public Project(List<ParsedQuery.SelectItem> items, List<String> outputNames, LogicalPlan child) {
+            super(List.of(child));
+            this.items = List.copyOf(items);
+            this.outputNames = outputNames == null ? null : List.copyOf(outputNames);
+        }
+
+        @Override
+        public String describe() {
+            return "Project [" + items(items) + "]";
+        }
+    }
+
+    /**
+     * Hash aggregation over the group-by columns.
+     */
+    @Getter
+    public static final class Aggregate extends LogicalPlan {
+        private final List<String> groupBy;
+        private final List<ParsedQuery.SelectItem> items;
+        private final List<String> outputNames;
+
+        public Aggregate(List<String> groupBy, List<ParsedQuery.SelectItem> items, List<String> outputNames,
+                         LogicalPlan child) {
+            super(List.of(child));
+            this.groupBy = List.copyOf(groupBy);
+            this.items = List.copyOf(items);
+            this.outputNames = List.copyOf(outputNames);
+        }
+
+        @Override
+        public String describe() {
+            return "Aggregate groupBy=[" + items(groupBy) + "] select=[" + items(items) + "]";
+        }
+    }
+
+    /**
+     * Concatenate the rows of all children.
+     */
+    public static final class Union extends LogicalPlan {
+
+        public Union(List<LogicalPlan> children) {
+            super(children);
+        }
+
+        @Override
+        public String describe() {
+            return "UnionAll";
+        }
+    }
+
+    /**
+     * Order rows; keeps only the top rows when a limit sits directly above it.
+     */
+    @Getter
+    public static final class Sort extends LogicalPlan {
+        private final List<ParsedQuery.OrderItem> orderBy;
+        /** Number of rows the parent needs, or 0 to sort everything */
+        private final int topN;
+
+        public Sort(List<ParsedQuery.OrderItem> orderBy, int topN, LogicalPlan child) {
+            super(List.of(child));
+            this.orderBy = List.copyOf(orderBy);
+            this.topN = topN;
+        }
+
+        @Override
+        public String describe() {
+            return (topN > 0 ? "TopN " + topN + " " : "Sort ") + "[" + items(orderBy) + "]";
+        }
+    }
+
+    /**
+     * Stop after a number of rows.
+     */
+    @Getter
+    public static final class Limit extends LogicalPlan {
+        private final int count;
+
+        public Limit(int count, LogicalPlan child) {
+            super(List.of(child));
+            this.count = count;
+        }
+
+        @Override
+        public String describe() {
+            return "Limit " + count;
+        }
+    }
+}
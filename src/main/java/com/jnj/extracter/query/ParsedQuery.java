@@ -0,0 +1,85 @@
+package com.jnj.extracter.query;
+
+import com.jnj.extracter.analysis.AggregateSpec;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Syntax tree of a query: one or more SELECT blocks joined by UNION ALL,
+ * followed by an optional ORDER BY and LIMIT that apply to the combined result.
+ */
+@Data
+@NoArgsConstructor
+public class ParsedQuery {
+
+    private boolean explain;
+    private List<SelectBlock> blocks = new ArrayList<>();
+    private List<OrderItem> orderBy = new ArrayList<>();
+    private Integer limit;
+
+    /**
+     * A single SELECT ... FROM ... [WHERE ...] [GROUP BY ...] block.
+     */
+    @Data
+    @NoArgsConstructor
+    public static class SelectBlock {
+        private List<SelectItem> items = new ArrayList<>();
+        /** Dotted table name parts; resolved to file and sheet by the planner */
+        private List<String> tableName = new ArrayList<>();
+        private Expression where;
+        private List<String> groupBy = new ArrayList<>();
+
+        public boolean isAggregate() {
+            return !groupBy.isEmpty() || items.stream().anyMatch(item -> item.getAggregate() != null);
+        }
+    }
+
+    /**
+     * An entry of the select list: *, a column or an aggregate, with an optional alias.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class SelectItem {
+        private boolean star;
+        private String column;
+        private AggregateSpec aggregate;
+        private String alias;
+
+        public String getOutputName() {
+            if (alias != null) {
+                return alias;
+            }
+            return aggregate != null ? aggregate.getAlias() : column;
+        }
+
+        @Override
+        public String toString() {
+            if (star) {
+                return "*";
+            }
+            String text = aggregate != null ? aggregate.getAlias() : Expression.quoteIdentifier(column);
+            return alias != null ? text + " AS " + Expression.quoteIdentifier(alias) : text;
+        }
+    }
+
+    /**
+     * An ORDER BY entry referring to an output column.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class OrderItem {
+        private String column;
+        private boolean descending;
+
+        @Override
+        public String toString() {
+            return Expression.quoteIdentifier(column) + (descending ? " DESC" : " ASC");
+        }
+    }
+}
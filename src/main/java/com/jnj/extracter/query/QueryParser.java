@@ -0,0 +1,410 @@
+package com.jnj.extracter.query;
+
+import com.jnj.extracter.analysis.AggregateSpec;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Recursive-descent parser for the query dialect:
+ * <pre>
+ * [EXPLAIN] SELECT item, ... FROM table [WHERE predicate] [GROUP BY column, ...]
+ *     [UNION ALL SELECT ...]...
+ *     [ORDER BY column [ASC|DESC], ...] [LIMIT n]
+ * </pre>
+ * Tables are written {@code file.sheet}, e.g. {@code "Detailed Costing.xlsx"."Detailed Costing"};
+ * a bare file name scans every sheet. Identifiers containing spaces or symbols are quoted
+ * with double quotes or backticks, text literals with single quotes.
+ * <p>
+ * Select items are *, columns, or count/sum/avg/min/max aggregates. Predicates support
+ * comparisons, AND, OR, NOT, IS [NOT] NULL, [NOT] LIKE and [NOT] IN.
+ */
+public class QueryParser {
+
+    private static final Set<String> RESERVED = Set.of(
+            "SELECT", "FROM", "WHERE", "GROUP", "BY", "ORDER", "ASC", "DESC", "LIMIT", "AND", "OR",
+            "NOT", "IS", "NULL", "LIKE", "IN", "AS", "UNION", "ALL", "EXPLAIN", "TRUE", "FALSE");
+
+    private enum TokenType {
+        IDENTIFIER, QUOTED_IDENTIFIER, STRING, NUMBER, SYMBOL, END
+    }
+
+    private static final class Token {
+        final TokenType type;
+        final String text;
+        final int position;
+
+        Token(TokenType type, String text, int position) {
+            this.type = type;
+            this.text = text;
+            this.position = position;
+        }
+
+        boolean isKeyword(String keyword) {
+            return type == TokenType.IDENTIFIER && text.equalsIgnoreCase(keyword);
+        }
+
+        boolean isSymbol(String symbol) {
+            return type == TokenType.SYMBOL && text.equals(symbol);
+        }
+
+        @Override
+        public String toString() {
+            return type == TokenType.END ? "end of query" : "'" + text + "'";
+        }
+    }
+
+    private final List<Token> tokens;
+    private int position;
+
+    private QueryParser(String query) {
+        this.tokens = tokenize(query);
+    }
+
+    /**
+     * Parse a query.
+     *
+     * @param query The query text
+     * @return The syntax tree
+     * @throws IllegalArgumentException On syntax errors
+     */
+    public static ParsedQuery parse(String query) {
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException("Query is empty");
+        }
+        return new QueryParser(query).parseQuery();
+    }
+
+    private ParsedQuery parseQuery() {
+        ParsedQuery query = new ParsedQuery();
+        query.setExplain(acceptKeyword("EXPLAIN"));
+        query.getBlocks().add(parseBlock());
+        while (acceptKeyword("UNION")) {
+            if (!acceptKeyword("ALL")) {
+                throw error("ALL after UNION; only UNION ALL is supported");
+            }
+            query.getBlocks().add(parseBlock());
+        }
+        if (acceptKeyword("ORDER")) {
+            expectKeyword("BY");
+            do {
+                String column = parseName();
+                boolean descending = false;
+                if (acceptKeyword("DESC")) {
+                    descending = true;
+                } else {
+                    acceptKeyword("ASC");
+                }
+                query.getOrderBy().add(new ParsedQuery.OrderItem(column, descending));
+            } while (acceptSymbol(","));
+        }
+        if (acceptKeyword("LIMIT")) {
+            Token token = next();
+            if (token.type != TokenType.NUMBER || token.text.contains(".")) {
+                throw error("a row count after LIMIT", token);
+            }
+            query.setLimit(Integer.parseInt(token.text));
+        }
+        acceptSymbol(";");
+        if (peek().type != TokenType.END) {
+            throw error("end of query", peek());
+        }
+        return query;
+    }
+
+    private ParsedQuery.SelectBlock parseBlock() {
+        ParsedQuery.SelectBlock block = new ParsedQuery.SelectBlock();
+        expectKeyword("SELECT");
+        do {
+            block.getItems().add(parseSelectItem());
+        } while (acceptSymbol(","));
+
+        expectKeyword("FROM");
+        do {
+            block.getTableName().add(parseName());
+        } while (acceptSymbol("."));
+
+        if (acceptKeyword("WHERE")) {
+            block.setWhere(parseOr());
+        }
+        if (acceptKeyword("GROUP")) {
+            expectKeyword("BY");
+            do {
+                block.getGroupBy().add(parseName());
+            } while (acceptSymbol(","));
+        }
+        return block;
+    }
+
+    private ParsedQuery.SelectItem parseSelectItem() {
+        if (acceptSymbol("*")) {
+            return new ParsedQuery.SelectItem(true, null, null, null);
+        }
+        ParsedQuery.SelectItem item = new ParsedQuery.SelectItem();
+        Token token = peek();
+        if (token.type == TokenType.IDENTIFIER && isAggregateFunction(token.text)
+                && tokens.get(position + 1).isSymbol("(")) {
+            next();
+            next();
+            String column = acceptSymbol("*") ? "*" : parseName();
+            expectSymbol(")");
+            item.setAggregate(AggregateSpec.parse(token.text + "(" + column + ")"));
+        } else {
+            item.setColumn(parseName());
+        }
+
+        if (acceptKeyword("AS")) {
+            item.setAlias(parseName());
+        } else if (peek().type == TokenType.QUOTED_IDENTIFIER
+                || (peek().type == TokenType.IDENTIFIER && !isReserved(peek().text))) {
+            item.setAlias(parseName());
+        }
+        return item;
+    }
+
+    private Expression parseOr() {
+        Expression left = parseAnd();
+        while (acceptKeyword("OR")) {
+            left = new Expression.Or(left, parseAnd());
+        }
+        return left;
+    }
+
+    private Expression parseAnd() {
+        Expression left = parseNot();
+        while (acceptKeyword("AND")) {
+            left = new Expression.And(left, parseNot());
+        }
+        return left;
+    }
+
+    private Expression parseNot() {
+        if (acceptKeyword("NOT")) {
+            return new Expression.Not(parseNot());
+        }
+        return parsePredicate();
+    }
+
+    private Expression parsePredicate() {
+        Expression left = parseOperand();
+        Token token = peek();
+        if (token.type == TokenType.SYMBOL && isComparison(token.text)) {
+            next();
+            return new Expression.Comparison(token.text, left, parseOperand());
+        }
+        if (acceptKeyword("IS")) {
+            boolean negated = acceptKeyword("NOT");
+            expectKeyword("NULL");
+            return new Expression.IsNull(left, negated);
+        }
+        boolean negated = acceptKeyword("NOT");
+        if (acceptKeyword("LIKE")) {
+            Token pattern = next();
+            if (pattern.type != TokenType.STRING) {
+                throw error("a quoted pattern after LIKE", pattern);
+            }
+            return new Expression.Like(left, pattern.text, negated);
+        }
+        if (acceptKeyword("IN")) {
+            expectSymbol("(");
+            List<Object> values = new ArrayList<>();
+            do {
+                Expression value = parseOperand();
+                if (!(value instanceof Expression.Literal)) {
+                    throw error("a literal value in the IN list");
+                }
+                values.add(((Expression.Literal) value).getValue());
+            } while (acceptSymbol(","));
+            expectSymbol(")");
+            return new Expression.In(left, values, negated);
+        }
+        if (negated) {
+            throw error("LIKE or IN after NOT", peek());
+        }
+        return left;
+    }
+
+    private Expression parseOperand() {
+        Token token = peek();
+        if (acceptSymbol("(")) {
+            Expression inner = parseOr();
+            expectSymbol(")");
+            return inner;
+        }
+        if (token.type == TokenType.STRING) {
+            next();
+            return new Expression.Literal(token.text);
+        }
+        if (token.type == TokenType.NUMBER) {
+            next();
+            return new Expression.Literal(parseNumber(token.text));
+        }
+        if (token.isSymbol("-") && tokens.get(position + 1).type == TokenType.NUMBER) {
+            next();
+            return new Expression.Literal(parseNumber("-" + next().text));
+        }
+        if (acceptKeyword("NULL")) {
+            return new Expression.Literal(null);
+        }
+        if (acceptKeyword("TRUE")) {
+            return new Expression.Literal(Boolean.TRUE);
+        }
+        if (acceptKeyword("FALSE")) {
+            return new Expression.Literal(Boolean.FALSE);
+        }
+        return new Expression.ColumnRef(parseName());
+    }
+
+    private String parseName() {
+        Token token = next();
+        if (token.type == TokenType.QUOTED_IDENTIFIER
+                || (token.type == TokenType.IDENTIFIER && !isReserved(token.text))) {
+            return token.text;
+        }
+        throw error("a column or table name", token);
+    }
+
+    private static Object parseNumber(String text) {
+        if (text.contains(".")) {
+            return Double.parseDouble(text);
+        }
+        try {
+            return Long.parseLong(text);
+        } catch (NumberFormatException e) {
+            return Double.parseDouble(text);
+        }
+    }
+
+    private static boolean isAggregateFunction(String name) {
+        try {
+            AggregateSpec.Function.valueOf(name.toUpperCase(Locale.ROOT));
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static boolean isComparison(String symbol) {
+        return symbol.equals("=") || symbol.equals("!=") || symbol.equals("<>") || symbol.equals("<")
+                || symbol.equals("<=") || symbol.equals(">") || symbol.equals(">=");
+    }
+
+    private static boolean isReserved(String word) {
+        return RESERVED.contains(word.toUpperCase(Locale.ROOT));
+    }
+
+    private Token peek() {
+        return tokens.get(position);
+    }
+
+    private Token next() {
+        Token token = tokens.get(position);
+        if (token.type != TokenType.END) {
+            position++;
+        }
+        return token;
+    }
+
+    private boolean acceptKeyword(String keyword) {
+        if (peek().isKeyword(keyword)) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    private boolean acceptSymbol(String symbol) {
+        if (peek().isSymbol(symbol)) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    private void expectKeyword(String keyword) {
+        if (!acceptKeyword(keyword)) {
+            throw error(keyword, peek());
+        }
+    }
+
+    private void expectSymbol(String symbol) {
+        if (!acceptSymbol(symbol)) {
+            throw error("'" + symbol + "'", peek());
+        }
+    }
+
+    private IllegalArgumentException error(String expected) {
+        return error(expected, peek());
+    }
+
+    private static IllegalArgumentException error(String expected, Token found) {
+        return new IllegalArgumentException("Syntax error at position " + (found.position + 1)
+                + ": expected " + expected + " but found " + found);
+    }
+
+    private static List<Token> tokenize(String query) {
+        List<Token> tokens = new ArrayList<>();
+        int i = 0;
+        int length = query.length();
+        while (i < length) {
+            char c = query.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '\'' || c == '"' || c == '`') {
+                int start = i;
+                StringBuilder text = new StringBuilder();
+                i++;
+                while (true) {
+                    if (i >= length) {
+                        throw new IllegalArgumentException("Unterminated quote starting at position " + (start + 1));
+                    }
+                    char ch = query.charAt(i);
+                    if (ch == c) {
+                        // A doubled quote stands for the quote character itself
+                        if (i + 1 < length && query.charAt(i + 1) == c) {
+                            text.append(c);
+                            i += 2;
+                            continue;
+                        }
+                        i++;
+                        break;
+                    }
+                    text.append(ch);
+                    i++;
+                }
+                tokens.add(new Token(c == '\'' ? TokenType.STRING : TokenType.QUOTED_IDENTIFIER, text.toString(), start));
+            } else if (Character.isDigit(c)) {
+                int start = i;
+                while (i < length && Character.isDigit(query.charAt(i))) {
+                    i++;
+                }
+                if (i + 1 < length && query.charAt(i) == '.' && Character.isDigit(query.charAt(i + 1))) {
+                    i++;
+                    while (i < length && Character.isDigit(query.charAt(i))) {
+                        i++;
+                    }
+                }
+                tokens.add(new Token(TokenType.NUMBER, query.substring(start, i), start));
+            } else if (Character.isLetter(c) || c == '_') {
+                int start = i;
+                while (i < length && (Character.isLetterOrDigit(query.charAt(i)) || query.charAt(i) == '_')) {
+                    i++;
+                }
+                tokens.add(new Token(TokenType.IDENTIFIER, query.substring(start, i), start));
+            } else if ((c == '!' || c == '<' || c == '>') && i + 1 < length
+                    && (query.charAt(i + 1) == '=' || (c == '<' && query.charAt(i + 1) == '>'))) {
+                tokens.add(new Token(TokenType.SYMBOL, query.substring(i, i + 2), i));
+                i += 2;
+            } else if ("=<>(),.*;-".indexOf(c) >= 0) {
+                tokens.add(new Token(TokenType.SYMBOL, String.valueOf(c), i));
+                i++;
+            } else {
+                throw new IllegalArgumentException("Unexpected character '" + c + "' at position " + (i + 1));
+            }
+        }
+        tokens.add(new Token(TokenType.END, "", length));
+        return tokens;
+    }
+}
@@ -0,0 +1,229 @@
+package com.jnj.extracter.query;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Turns a parsed query into a logical plan and optimizes it.
+ * <p>
+ * The naive plan scans every column of each table and filters afterwards.
+ * {@link #optimize} pushes WHERE conjuncts into the scan, where they run on the
+ * decoded filter columns before the other columns are decoded, and narrows the
+ * scan to the columns the select list, group-by and aggregates actually read.
+ */
+public class QueryPlanner {
+
+    private final List<File> files;
+
+    /**
+     * @param files The Excel files that table names are resolved against
+     */
+    public QueryPlanner(List<File> files) {
+        this.files = files;
+    }
+
+    /**
+     * Build the unoptimized plan.
+     *
+     * @throws IllegalArgumentException If a table is unknown or the query is semantically invalid
+     */
+    public LogicalPlan plan(ParsedQuery query) {
+        List<LogicalPlan> branches = new ArrayList<>();
+        List<String> firstOutputNames = null;
+        for (int i = 0; i < query.getBlocks().size(); i++) {
+            ParsedQuery.SelectBlock block = query.getBlocks().get(i);
+            List<String> outputNames = outputNames(block);
+            if (i == 0) {
+                firstOutputNames = outputNames;
+            } else if (outputNames != null && firstOutputNames != null) {
+                if (outputNames.size() != firstOutputNames.size()) {
+                    throw new IllegalArgumentException("UNION ALL branches must select the same number of columns");
+                }
+                // Union output takes its column names from the first branch
+                outputNames = firstOutputNames;
+            }
+            branches.add(planBlock(block, outputNames));
+        }
+
+        LogicalPlan plan = branches.size() == 1 ? branches.get(0) : new LogicalPlan.Union(branches);
+
+        if (!query.getOrderBy().isEmpty()) {
+            if (firstOutputNames != null) {
+                for (ParsedQuery.OrderItem item : query.getOrderBy()) {
+                    if (firstOutputNames.stream().noneMatch(name -> name.equalsIgnoreCase(item.getColumn()))) {
+                        throw new IllegalArgumentException("ORDER BY column '" + item.getColumn()
+                                + "' is not in the select list " + firstOutputNames);
+                    }
+                }
+            }
+            int topN = query.getLimit() != null ? query.getLimit() : 0;
+            plan = new LogicalPlan.Sort(query.getOrderBy(), topN, plan);
+        }
+        if (query.getLimit() != null) {
+            plan = new LogicalPlan.Limit(query.getLimit(), plan);
+        }
+        return plan;
+    }
+
+    private LogicalPlan planBlock(ParsedQuery.SelectBlock block, List<String> outputNames) {
+        List<String> tableName = block.getTableName();
+        LogicalPlan plan = resolveTable(tableName);
+        if (block.getWhere() != null) {
+            plan = new LogicalPlan.Filter(block.getWhere(), plan);
+        }
+
+        if (!block.isAggregate()) {
+            return new LogicalPlan.Project(block.getItems(), outputNames, plan);
+        }
+
+        for (ParsedQuery.SelectItem item : block.getItems()) {
+            if (item.isStar()) {
+                throw new IllegalArgumentException("SELECT * cannot be combined with aggregates or GROUP BY");
+            }
+            if (item.getAggregate() == null
+                    && block.getGroupBy().stream().noneMatch(key -> key.equalsIgnoreCase(item.getColumn()))) {
+                throw new IllegalArgumentException("Column '" + item.getColumn()
+                        + "' must appear in GROUP BY or be used in an aggregate");
+            }
+        }
+        return new LogicalPlan.Aggregate(block.getGroupBy(), block.getItems(), outputNames, plan);
+    }
+
+    private static List<String> outputNames(ParsedQuery.SelectBlock block) {
+        if (block.getItems().stream().anyMatch(ParsedQuery.SelectItem::isStar)) {
+            return null;
+        }
+        List<String> names = new ArrayList<>();
+        for (ParsedQuery.SelectItem item : block.getItems()) {
+            names.add(item.getOutputName());
+        }
+        return names;
+    }
+
+    /**
+     * Resolve dotted name parts to a file and optional sheet. File names contain dots
+     * themselves, so the longest prefix naming an existing file wins.
+     */
+    private LogicalPlan.Scan resolveTable(List<String> parts) {
+        for (int split = parts.size(); split >= 1; split--) {
+            String fileName = String.join(".", parts.subList(0, split));
+            File file = findFile(fileName);
+            if (file != null) {
+                String sheetName = split < parts.size() ? String.join(".", parts.subList(split, parts.size())) : null;
+                return new LogicalPlan.Scan(file, sheetName, null, List.of());
+            }
+        }
+        throw new IllegalArgumentException("Unknown table '" + String.join(".", parts)
+                + "': no Excel file with that name");
+    }
+
+    private File findFile(String fileName) {
+        for (File file : files) {
+            if (file.getName().equals(fileName)) {
+                return file;
+            }
+        }
+        for (File file : files) {
+            if (file.getName().equalsIgnoreCase(fileName)) {
+                return file;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Push filters and projections into the scans.
+     */
+    public static LogicalPlan optimize(LogicalPlan plan) {
+        if (plan instanceof LogicalPlan.Project project) {
+            List<String> required = null;
+            if (project.getItems().stream().noneMatch(ParsedQuery.SelectItem::isStar)) {
+                required = new ArrayList<>();
+                for (ParsedQuery.SelectItem item : project.getItems()) {
+                    addColumn(required, item.getColumn());
+                }
+            }
+            return new LogicalPlan.Project(project.getItems(), project.getOutputNames(),
+                    pushDown(project.getChild(), required));
+        }
+        if (plan instanceof LogicalPlan.Aggregate aggregate) {
+            List<String> required = new ArrayList<>();
+            for (String key : aggregate.getGroupBy()) {
+                addColumn(required, key);
+            }
+            for (ParsedQuery.SelectItem item : aggregate.getItems()) {
+                if (item.getAggregate() != null && !item.getAggregate().isCountAll()) {
+                    addColumn(required, item.getAggregate().getColumn());
+                }
+            }
+            return new LogicalPlan.Aggregate(aggregate.getGroupBy(), aggregate.getItems(),
+                    aggregate.getOutputNames(), pushDown(aggregate.getChild(), required));
+        }
+        if (plan instanceof LogicalPlan.Union) {
+            List<LogicalPlan> children = new ArrayList<>();
+            for (LogicalPlan child : plan.getChildren()) {
+                children.add(optimize(child));
+            }
+            return new LogicalPlan.Union(children);
+        }
+        if (plan instanceof LogicalPlan.Sort sort) {
+            return new LogicalPlan.Sort(sort.getOrderBy(), sort.getTopN(), optimize(sort.getChild()));
+        }
+        if (plan instanceof LogicalPlan.Limit limit) {
+            return new LogicalPlan.Limit(limit.getCount(), optimize(limit.getChild()));
+        }
+        return plan;
+    }
+
+    /**
+     * Fold the filters between a projection and its scan into the scan.
+     *
+     * @param required Columns needed above the filters, or null for all columns
+     */
+    private static LogicalPlan pushDown(LogicalPlan plan, List<String> required) {
+        List<Expression> filters = new ArrayList<>();
+        while (plan instanceof LogicalPlan.Filter filter) {
+            splitConjuncts(filter.getPredicate(), filters);
+            plan = filter.getChild();
+        }
+        if (plan instanceof LogicalPlan.Scan scan) {
+            List<Expression> pushed = new ArrayList<>(scan.getFilters());
+            pushed.addAll(filters);
+            return new LogicalPlan.Scan(scan.getFile(), scan.getSheetName(), required, pushed);
+        }
+        // Not directly over a scan: keep the filters where they were
+        for (Expression filter : filters) {
+            plan = new LogicalPlan.Filter(filter, plan);
+        }
+        return plan;
+    }
+
+    private static void splitConjuncts(Expression expression, List<Expression> conjuncts) {
+        if (expression instanceof Expression.And and) {
+            splitConjuncts(and.getLeft(), conjuncts);
+            splitConjuncts(and.getRight(), conjuncts);
+        } else {
+            conjuncts.add(expression);
+        }
+    }
+
+    private static void addColumn(List<String> columns, String column) {
+        if (columns.stream().noneMatch(existing -> existing.equalsIgnoreCase(column))) {
+            columns.add(column);
+        }
+    }
+
+    /**
+     * Columns read by a list of filters, in first-use order.
+     */
+    static List<String> filterColumns(List<Expression> filters) {
+        Set<String> columns = new LinkedHashSet<>();
+        for (Expression filter : filters) {
+            filter.collectColumns(columns);
+        }
+        return new ArrayList<>(columns);
+    }
+}
@@ -0,0 +1,148 @@
+package com.jnj.extracter.query;
+
+import com.jnj.extracter.config.ExcelProcessingConfig;
+import com.jnj.extracter.service.ExcelService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs SQL-like queries over the sheets of the Excel files.
+ * <p>
+ * A query is parsed, planned, optimized so that filters and projections run inside
+ * the sheet scan, and executed by push-based operators over column batches.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class QueryService {
+
+    /** Result rows returned when the query has no LIMIT */
+    public static final int DEFAULT_MAX_ROWS = 10_000;
+
+    private final ExcelService excelService;
+    private final ExcelProcessingConfig config;
+
+    /**
+     * Parse and plan a query, then either explain or execute it.
+     *
+     * @param query The query text
+     * @param explain Return the plans instead of running the query; also enabled by a leading EXPLAIN
+     * @return Map with the result columns and rows, or with the plans when explaining
+     * @throws IllegalArgumentException If the query is invalid or refers to an unknown file or sheet
+     */
+    public Map<String, Object> execute(String query, boolean explain) {
+        Instant startTime = Instant.now();
+        ParsedQuery parsed = QueryParser.parse(query);
+        LogicalPlan logicalPlan = new QueryPlanner(excelService.getExcelFiles()).plan(parsed);
+        LogicalPlan optimizedPlan = QueryPlanner.optimize(logicalPlan);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        if (explain || parsed.isExplain()) {
+            result.put("logicalPlan", logicalPlan.explain());
+            result.put("optimizedPlan", optimizedPlan.explain());
+            result.put("pushdown", describePushdown(optimizedPlan, new ArrayList<>()));
+            return result;
+        }
+
+        BatchOperators.CollectSink collector = new BatchOperators.CollectSink(
+                parsed.getLimit() != null ? parsed.getLimit() : DEFAULT_MAX_ROWS);
+        long[] rowsScanned = {0};
+        run(optimizedPlan, collector, rowsScanned);
+        collector.finish();
+
+        long elapsed = Duration.between(startTime, Instant.now()).toMillis();
+        log.info("Query returned {} rows from {} scanned rows in {} ms", collector.getRows().size(),
+                rowsScanned[0], elapsed);
+
+        result.put("columns", collector.getColumns());
+        result.put("rows", collector.getRows());
+        result.put("rowCount", collector.getRows().size());
+        result.put("truncated", collector.isTruncated());
+        result.put("rowsScanned", rowsScanned[0]);
+        result.put("elapsedMs", elapsed);
+        result.put("plan", optimizedPlan.explain());
+        return result;
+    }
+
+    /**
+     * Push the output of a plan node into the sink. The caller owns the sink and finishes it.
+     *
+     * @return false if the sink stopped accepting input
+     */
+    private boolean run(LogicalPlan plan, BatchOperators.Sink sink, long[] rowsScanned) {
+        if (plan instanceof LogicalPlan.Scan scan) {
+            boolean[] wantsMore = {true};
+            ScanRequest request = new ScanRequest(scan.getColumns(),
+                    QueryPlanner.filterColumns(scan.getFilters()), combineFilters(scan.getFilters()), 0);
+            rowsScanned[0] += excelService.scanSheets(scan.getFile(), scan.getSheetName(), request, batch -> {
+                wantsMore[0] = sink.accept(batch);
+                return wantsMore[0];
+            });
+            return wantsMore[0];
+        }
+        if (plan instanceof LogicalPlan.Union) {
+            for (LogicalPlan child : plan.getChildren()) {
+                if (!run(child, sink, rowsScanned)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        BatchOperators.Sink operator;
+        if (plan instanceof LogicalPlan.Filter filter) {
+            operator = new BatchOperators.FilterSink(filter.getPredicate(), sink);
+        } else if (plan instanceof LogicalPlan.Project project) {
+            operator = new BatchOperators.ProjectSink(project.getItems(), project.getOutputNames(), sink);
+        } else if (plan instanceof LogicalPlan.Aggregate aggregate) {
+            operator = new BatchOperators.AggregateSink(aggregate.getGroupBy(), aggregate.getItems(),
+                    aggregate.getOutputNames(), config.getGroupByMaxGroupsInMemory(), sink);
+        } else if (plan instanceof LogicalPlan.Sort sort) {
+            operator = new BatchOperators.SortSink(sort.getOrderBy(), sort.getTopN(), sink);
+        } else if (plan instanceof LogicalPlan.Limit limit) {
+            operator = new BatchOperators.LimitSink(limit.getCount(), sink);
+        } else {
+            throw new IllegalStateException("Unsupported plan node: " + plan.describe());
+        }
+        try {
+            run(plan.getChild(), operator, rowsScanned);
+            return operator.finish();
+        } finally {
+            operator.close();
+        }
+    }
+
+    private static ScanRequest.BatchFilter combineFilters(List<Expression> filters) {
+        if (filters.isEmpty()) {
+            return null;
+        }
+        Expression combined = filters.get(0);
+        for (int i = 1; i < filters.size(); i++) {
+            combined = new Expression.And(combined, filters.get(i));
+        }
+        return combined::select;
+    }
+
+    private static List<Map<String, Object>> describePushdown(LogicalPlan plan, List<Map<String, Object>> scans) {
+        if (plan instanceof LogicalPlan.Scan scan) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("table", scan.getTableName());
+            entry.put("projectedColumns", scan.getColumns() == null ? "*" : scan.getColumns());
+            entry.put("pushedFilters", scan.getFilters().stream().map(Object::toString).toList());
+            entry.put("filterColumns", QueryPlanner.filterColumns(scan.getFilters()));
+            scans.add(entry);
+        }
+        for (LogicalPlan child : plan.getChildren()) {
+            describePushdown(child, scans);
+        }
+        return scans;
+    }
+}
@@ -0,0 +1,51 @@
+package com.jnj.extracter.query;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Describes what a sheet scan has to decode. The filter columns are decoded first
+ * and the filter is applied to them; the remaining projected columns are only
+ * decoded for rows that pass the filter.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScanRequest {
+
+    /** Virtual column holding the source file name */
+    public static final String FILE_COLUMN = "_file";
+    /** Virtual column holding the source sheet name */
+    public static final String SHEET_COLUMN = "_sheet";
+    /** Virtual column holding the 1-based source row number */
+    public static final String ROW_COLUMN = "_row";
+
+    /** Columns to decode, or null for every column of the sheet */
+    private List<String> columns;
+
+    /** Columns the filter reads; decoded before the filter runs */
+    private List<String> filterColumns;
+
+    /** Filter applied to each batch of decoded filter columns, or null to keep every row */
+    private BatchFilter filter;
+
+    /** Rows decoded per batch */
+    private int batchSize;
+
+    /**
+     * Selects the rows of a batch that should be kept.
+     */
+    @FunctionalInterface
+    public interface BatchFilter {
+
+        /**
+         * @param batch Batch holding at least the filter columns
+         * @param selection Receives the positions of the kept rows, in order
+         * @return Number of positions written to selection
+         */
+        int select(ColumnBatch batch, int[] selection);
+    }
+}
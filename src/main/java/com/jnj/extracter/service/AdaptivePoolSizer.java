@@ -0,0 +1,258 @@
+package com.jnj.extracter.service;
+
+import com.jnj.extracter.config.ExcelProcessingConfig;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resizes thread pools within configured bounds from what they are observed to do,
+ * so the pool size does not have to be tuned per host. Off unless
+ * {@code excel.thread.pool.adaptive.enabled} is set.
+ * <p>
+ * Every interval each managed pool is checked once and changed by at most one
+ * thread:
+ * <ul>
+ *   <li>CPU load at or above the target shrinks the pool; more threads would only
+ *   compete for the processors.</li>
+ *   <li>A pool that grew in the last interval without completing more tasks than
+ *   before shrinks back and does not grow again for a few intervals.</li>
+ *   <li>Tasks waiting in the queue longer than allowed on average grow the pool,
+ *   as long as the CPU load is below the target.</li>
+ *   <li>A pool with an empty queue and fewer than half its threads busy shrinks
+ *   back towards its configured size.</li>
+ * </ul>
+ * The queue wait is read from the {@code executor.idle} timer that
+ * {@link MetricsService#monitorExecutor} registers, so a pool must be monitored
+ * before it is managed.
+ */
+@Slf4j
+@Service
+public class AdaptivePoolSizer {
+
+    /** Intervals to wait before growing again after a growth that did not pay off */
+    private static final int HOLD_INTERVALS = 3;
+
+    private final ExcelProcessingConfig config;
+    private final MeterRegistry registry;
+    private final com.sun.management.OperatingSystemMXBean os = osBean();
+    private final Map<String, ManagedPool> pools = new ConcurrentHashMap<>();
+    private volatile ScheduledExecutorService scheduler;
+
+    public AdaptivePoolSizer(ExcelProcessingConfig config, MeterRegistry registry) {
+        this.config = config;
+        this.registry = registry;
+    }
+
+    public boolean isEnabled() {
+        return config.isAdaptivePoolEnabled();
+    }
+
+    /**
+     * Start resizing a pool, if adaptive sizing is enabled. The pool's current size
+     * is the size it shrinks back to when idle.
+     *
+     * @param name The {@code name} tag the pool is monitored under
+     * @param pool The pool
+     */
+    public synchronized void manage(String name, ThreadPoolExecutor pool) {
+        if (!isEnabled()) {
+            return;
+        }
+        int min = Math.max(1, config.getAdaptivePoolMinSize());
+        int max = config.getAdaptivePoolMaxSize() > 0
+                ? config.getAdaptivePoolMaxSize() : 2 * Runtime.getRuntime().availableProcessors();
+        max = Math.max(min, max);
+        int baseline = Math.min(max, Math.max(min, pool.getMaximumPoolSize()));
+        ManagedPool managed = new ManagedPool(name, pool, min, max, baseline);
+        Timer idle = registry.find("executor.idle").tag("name", name).timer();
+        if (idle != null) {
+            managed.lastIdleCount = idle.count();
+            managed.lastIdleTotalMs = idle.totalTime(TimeUnit.MILLISECONDS);
+        }
+        resize(managed, baseline);
+        pools.put(name, managed);
+
+        if (scheduler == null) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+                Thread thread = new Thread(task, "adaptive-pool-sizer");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long interval = Math.max(1, config.getAdaptivePoolIntervalSeconds());
+            scheduler.scheduleWithFixedDelay(this::adjustAll, interval, interval, TimeUnit.SECONDS);
+        }
+        log.info("Adaptive sizing of '{}' between {} and {} threads, starting at {}", name, min, max, baseline);
+    }
+
+    @PreDestroy
+    void stop() {
+        ScheduledExecutorService running = scheduler;
+        if (running != null) {
+            running.shutdownNow();
+        }
+    }
+
+    /**
+     * Describe the bounds and the last decision for a pool.
+     *
+     * @param name The {@code name} tag of the pool
+     * @return Map with the bounds, the last decision and its inputs, or null if the
+     * pool is not managed
+     */
+    public Map<String, Object> describe(String name) {
+        ManagedPool managed = pools.get(name);
+        if (managed == null) {
+            return null;
+        }
+        synchronized (managed) {
+            Map<String, Object> state = new LinkedHashMap<>();
+            state.put("minSize", managed.min);
+            state.put("maxSize", managed.max);
+            state.put("baselineSize", managed.baseline);
+            state.put("lastDecision", managed.lastDecision);
+            state.put("cpuLoad", managed.lastCpu);
+            state.put("queueWaitMs", managed.lastWaitMs);
+            state.put("tasksPerSecond", managed.lastThroughput);
+            state.put("resizes", managed.resizes);
+            return state;
+        }
+    }
+
+    private void adjustAll() {
+        for (ManagedPool managed : pools.values()) {
+            try {
+                adjust(managed);
+            } catch (RuntimeException e) {
+                log.warn("Cannot resize '{}': {}", managed.name, e.getMessage(), e);
+            }
+        }
+    }
+
+    private void adjust(ManagedPool managed) {
+        synchronized (managed) {
+            ThreadPoolExecutor pool = managed.pool;
+            long now = System.nanoTime();
+            double seconds = (now - managed.lastNanos) / 1e9;
+            long completed = pool.getCompletedTaskCount();
+            double throughput = seconds > 0 ? (completed - managed.lastCompleted) / seconds : 0;
+
+            // Mean wait of the tasks started in this interval
+            double waitMs = 0;
+            Timer idle = registry.find("executor.idle").tag("name", managed.name).timer();
+            if (idle != null) {
+                long count = idle.count();
+                double totalMs = idle.totalTime(TimeUnit.MILLISECONDS);
+                if (count > managed.lastIdleCount) {
+                    waitMs = (totalMs - managed.lastIdleTotalMs) / (count - managed.lastIdleCount);
+                }
+                managed.lastIdleCount = count;
+                managed.lastIdleTotalMs = totalMs;
+            }
+            // Negative while the load is not known yet
+            double cpu = os != null ? os.getCpuLoad() : -1;
+
+            int size = pool.getMaximumPoolSize();
+            int target = size;
+            String decision = "keep";
+            if (managed.hold > 0) {
+                managed.hold--;
+            }
+            if (cpu >= config.getAdaptivePoolTargetCpu() && size > managed.min) {
+                target = size - 1;
+                decision = "shrink: CPU saturated";
+            } else if (managed.grew && throughput <= managed.lastThroughput && size > managed.min) {
+                target = size - 1;
+                decision = "shrink: growing did not raise throughput";
+                managed.hold = HOLD_INTERVALS;
+            } else if (waitMs > config.getAdaptivePoolMaxQueueWaitMs() && size < managed.max && managed.hold == 0
+                    && cpu < config.getAdaptivePoolTargetCpu()) {
+                target = size + 1;
+                decision = "grow: tasks waiting";
+            } else if (pool.getQueue().isEmpty() && pool.getActiveCount() < size / 2.0 && size > managed.baseline) {
+                target = size - 1;
+                decision = "shrink: idle";
+            }
+
+            managed.grew = target > size;
+            managed.lastNanos = now;
+            managed.lastCompleted = completed;
+            managed.lastThroughput = throughput;
+            managed.lastCpu = cpu;
+            managed.lastWaitMs = waitMs;
+            managed.lastDecision = decision;
+            if (target != size) {
+                resize(managed, target);
+                managed.resizes++;
+                registry.counter("executor.resized", "name", managed.name,
+                        "direction", target > size ? "up" : "down").increment();
+                log.info("Resized '{}' from {} to {} threads ({}; cpu={}, queueWaitMs={}, tasksPerSecond={})",
+                        managed.name, size, target, decision, String.format("%.2f", cpu),
+                        String.format("%.1f", waitMs), String.format("%.1f", throughput));
+            }
+        }
+    }
+
+    /**
+     * Set core and maximum size together, in the order the pool accepts.
+     */
+    private static void resize(ManagedPool managed, int size) {
+        ThreadPoolExecutor pool = managed.pool;
+        if (size > pool.getMaximumPoolSize()) {
+            pool.setMaximumPoolSize(size);
+            pool.setCorePoolSize(size);
+        } else {
+            pool.setCorePoolSize(size);
+            pool.setMaximumPoolSize(size);
+        }
+    }
+
+    /**
+     * The HotSpot operating system bean, or null where CPU load is not available.
+     */
+    private static com.sun.management.OperatingSystemMXBean osBean() {
+        if (ManagementFactory.getOperatingSystemMXBean() instanceof com.sun.management.OperatingSystemMXBean bean) {
+            return bean;
+        }
+        return null;
+    }
+
+    private static final class ManagedPool {
+        private final String name;
+        private final ThreadPoolExecutor pool;
+        private final int min;
+        private final int max;
+        private final int baseline;
+        private long lastNanos = System.nanoTime();
+        private long lastCompleted;
+        private long lastIdleCount;
+        private double lastIdleTotalMs;
+        private double lastThroughput;
+        private double lastCpu = -1;
+        private double lastWaitMs;
+        private String lastDecision = "keep";
+        private boolean grew;
+        private int hold;
+        private long resizes;
+
+        ManagedPool(String name, ThreadPoolExecutor pool, int min, int max, int baseline) {
+            this.name = name;
+            this.pool = pool;
+            this.min = min;
+            this.max = max;
+            this.baseline = baseline;
+            this.lastCompleted = pool.getCompletedTaskCount();
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package com.jnj.extracter.service;
+
+import com.jnj.extracter.config.ExcelProcessingConfig;
+import com.jnj.extracter.util.FileFingerprint;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Identifies workbooks by the SHA-256 of their content, so byte-identical files
+ * stored under different names share one extraction, one set of cached sheets and
+ * indexes and one search segment.
+ * <p>
+ * The hash of a file is remembered per file fingerprint, so a file is only read
+ * again after it was replaced or modified, and the files of each hash are indexed
+ * so caches can check whether a content is still held without visiting every file.
+ * The {@link FileCatalog} tells the store when a file is deleted. Uploads are stored once per distinct
+ * content as a blob named after its hash in the store folder inside the excel
+ * folder; each file name in the excel folder is an alias of a blob, created as a
+ * hard link (or a copy where the file system has no links).
+ */
+@Slf4j
+@Service
+public class ContentStore {
+
+    private static final String STORE_FOLDER = ".store";
+    private static final Pattern BLOB_NAME = Pattern.compile("[0-9a-f]{64}");
+
+    private final Path folder;
+    private final Map<String, ContentHash> hashes = new ConcurrentHashMap<>();
+    /** Paths of the files last hashed to each content hash */
+    private final Map<String, Set<String>> pathsByHash = new ConcurrentHashMap<>();
+
+    public ContentStore(ExcelProcessingConfig config) {
+        this.folder = Path.of(config.getExcelFolderPath());
+    }
+
+    /**
+     * Get the content hash of a file, reading the file only if it changed since its
+     * hash was last computed.
+     *
+     * @param file The file
+     * @return Hex SHA-256 of the content, or null if the file cannot be read or
+     * changed while it was hashed
+     */
+    public String hashOf(File file) {
+        String path = file.getAbsolutePath();
+        String fingerprint = FileFingerprint.of(file);
+        ContentHash known = hashes.get(path);
+        if (known != null && known.fingerprint.equals(fingerprint)) {
+            return known.hash;
+        }
+        String hash;
+        try {
+            hash = digest(file.toPath());
+        } catch (IOException e) {
+            log.debug("Cannot hash {}: {}", file.getName(), e.getMessage());
+            forget(path);
+            return null;
+        }
+        if (!fingerprint.equals(FileFingerprint.of(file))) {
+            // Written to while it was read; the digest matches no version of the file
+            forget(path);
+            return null;
+        }
+        ContentHash previous = hashes.put(path, new ContentHash(fingerprint, hash));
+        if (previous != null && !previous.hash.equals(hash)) {
+            unindex(path, previous.hash);
+        }
+        pathsByHash.compute(hash, (key, paths) -> {
+            Set<String> indexed = paths != null ? paths : ConcurrentHashMap.newKeySet();
+            indexed.add(path);
+            return indexed;
+        });
+        return hash;
+    }
+
+    /**
+     * Check whether any file whose hash is known currently has the given content.
+     * Caches use this to drop entries of content that no file holds anymore. Only
+     * the files last hashed to the content are checked.
+     */
+    public boolean isCurrent(String hash) {
+        Set<String> paths = pathsByHash.get(hash);
+        if (paths == null) {
+            return false;
+        }
+        for (String path : paths) {
+            ContentHash known = hashes.get(path);
+            if (known != null && known.hash.equals(hash) && known.isCurrent(path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Forget the hash of a file that was deleted.
+     *
+     * @param file The file
+     */
+    public void forget(File file) {
+        forget(file.getAbsolutePath());
+    }
+
+    /**
+     * @return The number of files whose hash is known
+     */
+    public int getKnownFileCount() {
+        return hashes.size();
+    }
+
+    private void forget(String path) {
+        ContentHash previous = hashes.remove(path);
+        if (previous != null) {
+            unindex(path, previous.hash);
+        }
+    }
+
+    private void unindex(String path, String hash) {
+        pathsByHash.computeIfPresent(hash, (key, paths) -> {
+            paths.remove(path);
+            return paths.isEmpty() ? null : paths;
+        });
+    }
+
+    /**
+     * Store content under a file name in the excel folder. The content is written to
+     * the store once per distinct hash; the name becomes an alias of the stored blob,
+     * replacing whatever the name pointed to before.
+     *
+     * @param in The content; not closed
+     * @param fileName Name of the file in the excel folder, without any path
+     * @return The stored file and its content hash
+     * @throws IOException If the content cannot be written
+     */
+    public StoredFile store(InputStream in, String fileName) throws IOException {
+        Path store = folder.resolve(STORE_FOLDER);
+        Files.createDirectories(store);
+        Path partial = store.resolve(UUID.randomUUID() + ".upload");
+        MessageDigest digest = sha256();
+        long bytes;
+        try {
+            bytes = Files.copy(new DigestInputStream(in, digest), partial);
+            String hash = HexFormat.of().formatHex(digest.digest());
+            Path destination = folder.resolve(fileName);
+            boolean duplicate;
+            // Blobs are linked and pruned one upload at a time, so no blob is pruned before it is linked
+            synchronized (this) {
+                Path blob = store.resolve(hash);
+                // An alias written to in place also changes its blob, so a blob is only reused if it still matches
+                duplicate = Files.exists(blob) && hash.equals(digest(blob));
+                if (!duplicate) {
+                    Files.move(partial, blob, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                }
+
+                // Link next to the destination first so the name switches over atomically
+                Path alias = folder.resolve("." + UUID.randomUUID() + ".upload");
+                try {
+                    Files.createLink(alias, blob);
+                } catch (UnsupportedOperationException | IOException e) {
+                    Files.copy(blob, alias);
+                }
+                Files.move(alias, destination, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                pruneUnlinkedBlobs(store);
+            }
+            log.info("Stored {} as alias of {} ({} bytes{})", fileName, hash, bytes,
+                    duplicate ? ", content already stored" : "");
+            return new StoredFile(destination.toFile(), bytes, hash, duplicate);
+        } finally {
+            Files.deleteIfExists(partial);
+        }
+    }
+
+    /**
+     * Delete blobs that no alias links to anymore. Only possible where the file
+     * system reports link counts; elsewhere blobs are kept.
+     */
+    private void pruneUnlinkedBlobs(Path store) {
+        // Blobs are named by their hash; uploads still being written are not
+        try (DirectoryStream<Path> blobs = Files.newDirectoryStream(store,
+                path -> BLOB_NAME.matcher(path.getFileName().toString()).matches())) {
+            for (Path blob : blobs) {
+                Object links = Files.getAttribute(blob, "unix:nlink");
+                if (links instanceof Integer && (Integer) links == 1) {
+                    Files.deleteIfExists(blob);
+                    log.debug("Deleted blob {} without aliases", blob.getFileName());
+                }
+            }
+        } catch (UnsupportedOperationException | IllegalArgumentException | IOException e) {
+            log.debug("Not pruning the content store: {}", e.getMessage());
+        }
+    }
+
+    private static String digest(Path path) throws IOException {
+        MessageDigest digest = sha256();
+        try (InputStream in = new DigestInputStream(Files.newInputStream(path), digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * A file name in the excel folder and the content it holds.
+     */
+    @Getter
+    public static final class StoredFile {
+        private final File file;
+        private final long bytes;
+        private final String sha256;
+        /** Whether the content was already in the store */
+        private final boolean duplicate;
+
+        StoredFile(File file, long bytes, String sha256, boolean duplicate) {
+            this.file = file;
+            this.bytes = bytes;
+            this.sha256 = sha256;
+            this.duplicate = duplicate;
+        }
+    }
+
+    private static final class ContentHash {
+        private final String fingerprint;
+        private final String hash;
+
+        ContentHash(String fingerprint, String hash) {
+            this.fingerprint = fingerprint;
+            this.hash = hash;
+        }
+
+        /**
+         * Whether the file at the path is still the one that was hashed.
+         */
+        boolean isCurrent(String path) {
+            return fingerprint.equals(FileFingerprint.of(new File(path)));
+        }
+    }
+}
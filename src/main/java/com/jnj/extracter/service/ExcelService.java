@@ -1,7 +1,10 @@
 package com.jnj.extracter.service;
 
+import com.jnj.extracter.analysis.GroupByAggregator;
 import com.jnj.extracter.entity.ExcelData;
 import com.jnj.extracter.entity.ExcelProcessingResult;
+import com.jnj.extracter.query.ColumnBatchConsumer;
+import com.jnj.extracter.query.ScanRequest;
 
 import java.io.File;
 import java.util.List;
@@ -19,11 +22,33 @@ public interface ExcelService {
      */
     ExcelProcessingResult extractExcelFile(File file);
     
+    /**
+     * Extract data from a specific Excel file, reporting progress to the listener.
+     * The extraction stops with a {@link java.util.concurrent.CancellationException}
+     * as soon as the listener reports cancellation.
+     */
+    ExcelProcessingResult extractExcelFile(File file, ExtractionListener listener);
+    
     /**
      * Extract data from a specific sheet in an Excel file
      */
     List<ExcelData> extractSheetData(File file, String sheetName);
     
+    /**
+     * Scan a sheet, or every sheet when sheetName is null, in column batches.
+     * Only the columns named by the request are decoded, and rows rejected by its
+     * filter never have their remaining columns decoded.
+     * 
+     * @param file The Excel file to scan
+     * @param sheetName The sheet to scan, or null for all sheets
+     * @param request Columns to decode and the filter to apply while decoding
+     * @param consumer Receives each batch; returning false stops the scan
+     * @return Number of rows handed to the consumer
+     * @throws IllegalArgumentException If the sheet does not exist
+     * @throws IllegalStateException If the workbook cannot be read
+     */
+    long scanSheets(File file, String sheetName, ScanRequest request, ColumnBatchConsumer consumer);
+    
     /**
      * Get sheet names from a specific Excel file
      */
@@ -39,6 +64,27 @@ public interface ExcelService {
      */
     Map<String, Object> performDataOperations(List<ExcelData> data, String operation);
     
+    /**
+     * Perform an operation over every Excel file in the excel folder. Per-file partial
+     * results are memoized by file fingerprint and merged on each call, so only files
+     * that changed since the previous call are extracted again.
+     */
+    Map<String, Object> performOperationOnAllFiles(String operation);
+    
+    /**
+     * Group data by arbitrary key columns and compute aggregates per group. Groups
+     * beyond the in-memory limit are spilled to disk, so the groups are not collected:
+     * the caller passes them on with {@link GroupByAggregator#forEachResult}, which
+     * deletes the spill files, or closes the aggregator if it does not.
+     * 
+     * @param data The Excel data to aggregate
+     * @param keyColumns Columns to group by
+     * @param aggregates Aggregates written as function(column), e.g. "sum(Amount)" or "count(*)"
+     * @return The aggregated groups
+     * @throws IllegalArgumentException If no key columns are given or an aggregate cannot be parsed
+     */
+    GroupByAggregator groupBy(List<ExcelData> data, List<String> keyColumns, List<String> aggregates);
+    
     /**
      * Get summary statistics of the extracted data
      */
@@ -0,0 +1,148 @@
+package com.jnj.extracter.service;
+
+import com.jnj.extracter.config.ExcelProcessingConfig;
+import com.jnj.extracter.entity.ExcelData;
+import com.jnj.extracter.index.IndexedSheet;
+import com.jnj.extracter.util.WorkbookParts;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the extracted rows of recently used sheets, with their secondary indexes,
+ * so repeated lookups do not re-read the workbook. Entries are keyed by the content
+ * hash of the file, so files with identical content share them. When an XLSX file
+ * changed but the zip entry of a cached sheet (and the shared strings and styles)
+ * did not, the cached rows and indexes are kept. The least recently used sheet is
+ * evicted once the configured number of sheets is exceeded. The rows come from
+ * the {@link RowCache}, so a sheet cached in both is held once.
+ */
+@Slf4j
+@Service
+public class ExtractionCache {
+
+    private final ExcelService excelService;
+    private final ContentStore contentStore;
+    private final int maxSheets;
+    /** Cached sheets by content hash and lower-case sheet name */
+    private final Map<String, IndexedSheet> sheets = new ConcurrentHashMap<>();
+    /** Key each file's sheet was last served from, by file path and lower-case sheet name */
+    private final Map<String, String> latestKeys = new ConcurrentHashMap<>();
+
+    public ExtractionCache(ExcelService excelService, ContentStore contentStore, ExcelProcessingConfig config) {
+        this.excelService = excelService;
+        this.contentStore = contentStore;
+        this.maxSheets = Math.max(1, config.getCacheMaxSheets());
+    }
+
+    /**
+     * Get the cached rows of a sheet, extracting them if no file with the same
+     * content has the sheet cached and the sheet's part of the file changed since
+     * the file was last cached.
+     *
+     * @param file The Excel file
+     * @param sheetName The sheet
+     * @return The sheet, or null if the file has no such sheet
+     */
+    public IndexedSheet getSheet(File file, String sheetName) {
+        String sheetKey = "|" + sheetName.toLowerCase();
+        String pathKey = file.getAbsolutePath() + sheetKey;
+        String contentHash = contentStore.hashOf(file);
+        String key = contentHash + sheetKey;
+        IndexedSheet cached = contentHash != null ? sheets.get(key) : null;
+        if (cached != null) {
+            latestKeys.put(pathKey, key);
+            cached.touch();
+            return cached;
+        }
+        String previousKey = latestKeys.get(pathKey);
+        IndexedSheet previous = previousKey != null ? sheets.get(previousKey) : null;
+        String partSignature = sheetSignature(file, sheetName);
+        if (contentHash != null && previous != null && partSignature != null
+                && partSignature.equals(previous.getPartSignature())) {
+            log.info("Sheet '{}' of file '{}' is unchanged, keeping cached rows and indexes", sheetName, file.getName());
+            sheets.put(key, previous);
+            latestKeys.put(pathKey, key);
+            dropIfUnused(previousKey);
+            previous.touch();
+            return previous;
+        }
+
+        // Workbooks resolve sheet names case-insensitively, so the cache does too
+        String actualSheetName = excelService.getSheetNames(file).stream()
+                .filter(name -> name.equalsIgnoreCase(sheetName))
+                .findFirst()
+                .orElse(null);
+        if (actualSheetName == null) {
+            return null;
+        }
+        List<ExcelData> rows = excelService.extractSheetData(file, actualSheetName);
+        IndexedSheet loaded = new IndexedSheet(partSignature, rows);
+        // Only cache rows read from a file that did not change while it was read
+        if (contentHash == null || !contentHash.equals(contentStore.hashOf(file))) {
+            return loaded;
+        }
+        sheets.put(key, loaded);
+        latestKeys.put(pathKey, key);
+        if (previousKey != null) {
+            dropIfUnused(previousKey);
+        }
+        log.info("Cached {} rows of sheet '{}' in file '{}'{}", rows.size(), actualSheetName, file.getName(),
+                previous != null ? " (file changed, indexes dropped)" : "");
+        evictIfNeeded();
+        return loaded;
+    }
+
+    /**
+     * Drop a cached sheet whose content no file holds anymore.
+     */
+    private void dropIfUnused(String key) {
+        String contentHash = key.substring(0, key.indexOf('|'));
+        if (!contentStore.isCurrent(contentHash)) {
+            sheets.remove(key);
+        }
+    }
+
+    /**
+     * Signature of the zip entry a sheet was read from, or null if the file is not
+     * an XLSX package or has no such worksheet.
+     */
+    private String sheetSignature(File file, String sheetName) {
+        if (!file.getName().toLowerCase().endsWith(".xlsx")) {
+            return null;
+        }
+        try {
+            WorkbookParts parts = WorkbookParts.read(file);
+            for (WorkbookParts.SheetPart sheet : parts.getSheets()) {
+                if (sheet.getName().equalsIgnoreCase(sheetName)) {
+                    return parts.sheetSignature(sheet.getName());
+                }
+            }
+            return null;
+        } catch (IOException e) {
+            log.debug("Cannot read part layout of {}: {}", file.getName(), e.getMessage());
+            return null;
+        }
+    }
+
+    public int getCachedSheetCount() {
+        return sheets.size();
+    }
+
+    private void evictIfNeeded() {
+        while (sheets.size() > maxSheets) {
+            sheets.entrySet().stream()
+                    .min(Comparator.comparingLong(entry -> entry.getValue().getLastAccess()))
+                    .ifPresent(entry -> {
+                        sheets.remove(entry.getKey(), entry.getValue());
+                        log.debug("Evicted cached sheet {}", entry.getKey());
+                    });
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.jnj.extracter.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent extractions of the same work item into a single parse.
+ * The first caller for a key performs the work, every caller that arrives while
+ * it is still running waits on the same future. Nothing is kept once the work
+ * completes, so this is not a cache.
+ * <p>
+ * Coalesced callers all receive the very instance the leading run returned, e.g.
+ * one {@code ExcelProcessingResult} and its row list, so callers must treat the
+ * result as read-only and copy it before changing anything.
+ */
+@Slf4j
+@Service
+public class ExtractionCoalescer {
+
+    private final ConcurrentMap<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final MetricsService metricsService;
+
+    public ExtractionCoalescer(MetricsService metricsService) {
+        this.metricsService = metricsService;
+    }
+
+    /**
+     * Run the given work for the key, or join the run already in progress for it.
+     *
+     * @param <T> The result type
+     * @param key Identity of the work (file fingerprint, sheet and options)
+     * @param work The work to perform if no run is in progress
+     * @return The result of the leading run, shared with every caller that joined it
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String key, Supplier<T> work) {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, future);
+
+        if (existing != null) {
+            log.debug("Joining in-flight extraction for {}", key);
+            metricsService.recordExtractionCoalesced();
+            try {
+                return (T) existing.join();
+            } catch (CompletionException e) {
+                throw unwrap(e);
+            }
+        }
+
+        metricsService.recordExtractionStarted();
+        try {
+            T result = work.get();
+            future.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    /**
+     * @return The number of extractions currently running
+     */
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    private RuntimeException unwrap(CompletionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof RuntimeException) {
+            return (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        return e;
+    }
+}
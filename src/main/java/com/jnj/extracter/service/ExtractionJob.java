@@ -0,0 +1,297 @@
+package com.jnj.extracter.service;
+
+import com.jnj.extracter.entity.ExcelProcessingResult;
+import com.jnj.extracter.util.FileFingerprint;
+
+import java.io.File;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * State of an asynchronous extraction job. Progress fields are updated by the
+ * worker thread through the {@link ExtractionListener} callbacks and read by
+ * request threads, so everything mutable is either atomic or volatile.
+ * <p>
+ * A job keeps a summary of each extracted file, not its rows; the rows are served
+ * from the extraction caches when the results are requested. A warm-up job only
+ * fills those caches: it records the progress and status of each file and has no
+ * results.
+ */
+public class ExtractionJob implements ExtractionListener {
+
+    public enum Status {
+        QUEUED, RUNNING, COMPLETED, FAILED, CANCELLED
+    }
+
+    private final String id;
+    private final List<File> files;
+    private final boolean warmup;
+    private final long totalBytes;
+    private final Instant createdAt = Instant.now();
+    private final Map<String, FileProgress> fileProgress = new ConcurrentHashMap<>();
+    private final List<ExcelProcessingResult> summaries = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicLong completedBytes = new AtomicLong();
+    private final AtomicInteger completedFiles = new AtomicInteger();
+
+    private volatile Status status = Status.QUEUED;
+    private volatile boolean cancelRequested;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile String currentFile;
+    private volatile String error;
+
+    public ExtractionJob(String id, List<File> files) {
+        this(id, files, false);
+    }
+
+    /**
+     * @param id The job id
+     * @param files The files to extract, in order
+     * @param warmup Whether the job only fills the extraction caches and keeps no summaries
+     */
+    public ExtractionJob(String id, List<File> files, boolean warmup) {
+        this.id = id;
+        this.files = List.copyOf(files);
+        this.warmup = warmup;
+        this.totalBytes = files.stream().mapToLong(File::length).sum();
+        for (File file : files) {
+            fileProgress.put(file.getName(), new FileProgress(file.length()));
+        }
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public List<File> getFiles() {
+        return files;
+    }
+
+    public boolean isWarmup() {
+        return warmup;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public boolean isFinished() {
+        return status == Status.COMPLETED || status == Status.FAILED || status == Status.CANCELLED;
+    }
+
+    /**
+     * @return A snapshot of the summaries of the files extracted so far, without their
+     * rows; always empty for a warm-up job
+     */
+    public List<ExcelProcessingResult> getSummaries() {
+        synchronized (summaries) {
+            return new ArrayList<>(summaries);
+        }
+    }
+
+    /**
+     * Check whether a file of the job is still the one that was extracted.
+     *
+     * @param file A file of the job
+     * @return true if the file was extracted and has not been replaced or modified since
+     */
+    public boolean isUnchanged(File file) {
+        FileProgress progress = fileProgress.get(file.getName());
+        return progress != null && progress.fingerprint != null
+                && progress.fingerprint.equals(FileFingerprint.of(file));
+    }
+
+    void markRunning() {
+        startedAt = Instant.now();
+        status = Status.RUNNING;
+    }
+
+    void markFinished(Status finalStatus, String errorMessage) {
+        error = errorMessage;
+        finishedAt = Instant.now();
+        currentFile = null;
+        status = finalStatus;
+    }
+
+    void fileStarted(File file) {
+        currentFile = file.getName();
+    }
+
+    void fileCompleted(File file, String fingerprint, ExcelProcessingResult result) {
+        if (!warmup) {
+            summaries.add(new ExcelProcessingResult(result.getFileName(), result.isSuccess(), result.getMessage(),
+                    result.getTotalSheets(), result.getTotalRows(), result.getSheetNames(), null, null));
+        }
+        FileProgress progress = fileProgress.get(file.getName());
+        progress.fingerprint = fingerprint;
+        progress.success = result.isSuccess();
+        progress.message = result.getMessage();
+        progress.totalRows = result.getTotalRows();
+        progress.completed = true;
+        completedBytes.addAndGet(file.length());
+        completedFiles.incrementAndGet();
+    }
+
+    /**
+     * Request cooperative cancellation. The worker stops at the next row it visits.
+     */
+    public void cancel() {
+        cancelRequested = true;
+        if (status == Status.QUEUED) {
+            markFinished(Status.CANCELLED, null);
+        }
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return cancelRequested;
+    }
+
+    @Override
+    public void onFileOpened(String fileName, long fileSize, long bytesInflated) {
+        fileProgress.get(fileName).bytesInflated = bytesInflated;
+    }
+
+    @Override
+    public void onSheetStarted(String fileName, String sheetName, int estimatedRows) {
+        FileProgress progress = fileProgress.get(fileName);
+        progress.sheets.put(sheetName, new SheetProgress(estimatedRows));
+        progress.estimatedRows.addAndGet(estimatedRows);
+    }
+
+    @Override
+    public void onRowsProcessed(String fileName, String sheetName, int rows) {
+        FileProgress progress = fileProgress.get(fileName);
+        progress.sheets.get(sheetName).rowsScanned.addAndGet(rows);
+        progress.rowsScanned.addAndGet(rows);
+    }
+
+    @Override
+    public void onSheetCompleted(String fileName, String sheetName, int extractedRows) {
+        SheetProgress sheet = fileProgress.get(fileName).sheets.get(sheetName);
+        sheet.rowsExtracted = extractedRows;
+        sheet.completed = true;
+    }
+
+    /**
+     * Build a JSON-friendly view of the job's progress, including an ETA
+     * extrapolated from the fraction of input bytes processed so far.
+     *
+     * @return Map describing the job
+     */
+    public Map<String, Object> toStatusMap() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("jobId", id);
+        status.put("status", this.status.name());
+        if (warmup) {
+            status.put("warmup", true);
+        }
+        status.put("createdAt", createdAt.toString());
+        status.put("startedAt", startedAt != null ? startedAt.toString() : null);
+        status.put("finishedAt", finishedAt != null ? finishedAt.toString() : null);
+        status.put("currentFile", currentFile);
+        status.put("totalFiles", files.size());
+        status.put("completedFiles", completedFiles.get());
+        if (error != null) {
+            status.put("error", error);
+        }
+
+        // Bytes of fully processed files plus the scanned fraction of the current one
+        double processedBytes = completedBytes.get();
+        String active = currentFile;
+        if (active != null && fileProgress.containsKey(active)) {
+            processedBytes += fileProgress.get(active).fractionDone() * fileProgress.get(active).fileSize;
+        }
+        double fraction = totalBytes > 0 ? Math.min(1.0, processedBytes / totalBytes) : (isFinished() ? 1.0 : 0.0);
+        status.put("progress", Math.round(fraction * 1000) / 10.0);
+
+        if (startedAt != null && !isFinished() && fraction > 0) {
+            long elapsedMs = Duration.between(startedAt, Instant.now()).toMillis();
+            status.put("etaSeconds", Math.round(elapsedMs * (1 - fraction) / fraction / 1000.0));
+        }
+
+        Map<String, Object> filesStatus = new LinkedHashMap<>();
+        for (File file : files) {
+            filesStatus.put(file.getName(), fileProgress.get(file.getName()).toMap());
+        }
+        status.put("files", filesStatus);
+        return status;
+    }
+
+    private static class FileProgress {
+        private final long fileSize;
+        private final Map<String, SheetProgress> sheets = Collections.synchronizedMap(new LinkedHashMap<>());
+        private final AtomicLong estimatedRows = new AtomicLong();
+        private final AtomicLong rowsScanned = new AtomicLong();
+        private volatile long bytesInflated;
+        /** Fingerprint of the file when its extraction started */
+        private volatile String fingerprint;
+        private volatile boolean completed;
+        private volatile boolean success;
+        private volatile String message;
+        private volatile int totalRows;
+
+        FileProgress(long fileSize) {
+            this.fileSize = fileSize;
+        }
+
+        double fractionDone() {
+            if (completed) {
+                return 1.0;
+            }
+            long estimated = estimatedRows.get();
+            return estimated > 0 ? Math.min(1.0, (double) rowsScanned.get() / estimated) : 0.0;
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("size", fileSize);
+            map.put("bytesInflated", bytesInflated);
+            map.put("rowsScanned", rowsScanned.get());
+            map.put("completed", completed);
+            if (completed) {
+                map.put("success", success);
+                map.put("message", message);
+                map.put("totalRows", totalRows);
+            }
+            Map<String, Object> sheetMap = new LinkedHashMap<>();
+            synchronized (sheets) {
+                sheets.forEach((name, sheet) -> sheetMap.put(name, sheet.toMap()));
+            }
+            map.put("sheets", sheetMap);
+            return map;
+        }
+    }
+
+    private static class SheetProgress {
+        private final int estimatedRows;
+        private final AtomicLong rowsScanned = new AtomicLong();
+        private volatile int rowsExtracted;
+        private volatile boolean completed;
+
+        SheetProgress(int estimatedRows) {
+            this.estimatedRows = estimatedRows;
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("estimatedRows", estimatedRows);
+            map.put("rowsScanned", rowsScanned.get());
+            map.put("rowsExtracted", rowsExtracted);
+            map.put("completed", completed);
+            return map;
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.jnj.extracter.service;
+
+import com.jnj.extracter.config.ExcelProcessingConfig;
+import com.jnj.extracter.entity.ExcelProcessingResult;
+import com.jnj.extracter.util.FileFingerprint;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Runs extractions in the background so that long batch runs do not hold a
+ * request thread. Jobs are kept in memory and evicted some time after they finish,
+ * or earlier, oldest first, once more than the configured number are kept.
+ */
+@Slf4j
+@Service
+public class ExtractionJobService {
+
+    private static final long EVICTION_INTERVAL_MS = 60_000;
+
+    private final ExcelService excelService;
+    private final Executor taskExecutor;
+    private final Duration retention;
+    private final int maxRetainedJobs;
+    private final Map<String, ExtractionJob> jobs = new ConcurrentHashMap<>();
+
+    public ExtractionJobService(ExcelService excelService,
+                                @Qualifier("taskExecutor") Executor taskExecutor,
+                                ExcelProcessingConfig config) {
+        this.excelService = excelService;
+        this.taskExecutor = taskExecutor;
+        this.retention = Duration.ofMinutes(Math.max(1, config.getJobRetentionMinutes()));
+        this.maxRetainedJobs = Math.max(1, config.getJobMaxRetained());
+    }
+
+    /**
+     * Queue an extraction of the given files.
+     *
+     * @param files The files to extract, in order
+     * @return The queued job
+     * @throws RejectedExecutionException If the executor has no room for another job
+     */
+    public ExtractionJob submit(List<File> files) {
+        return submit(files, false);
+    }
+
+    /**
+     * Queue an extraction that only fills the extraction caches, e.g. for a new
+     * upload. The job records the progress and status of each file but keeps no
+     * summaries, so it has no results to serve.
+     *
+     * @param files The files to extract, in order
+     * @return The queued job
+     * @throws RejectedExecutionException If the executor has no room for another job
+     */
+    public ExtractionJob submitWarmup(List<File> files) {
+        return submit(files, true);
+    }
+
+    private ExtractionJob submit(List<File> files, boolean warmup) {
+        evictJobs();
+
+        ExtractionJob job = new ExtractionJob(UUID.randomUUID().toString(), files, warmup);
+        jobs.put(job.getId(), job);
+        try {
+            taskExecutor.execute(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            job.markFinished(ExtractionJob.Status.FAILED, "Rejected: too many extraction jobs queued");
+            log.warn("Rejected extraction job for {} files: {}", files.size(), e.getMessage());
+            throw e;
+        }
+        log.info("Queued {}extraction job {} for {} files", warmup ? "warm-up " : "", job.getId(), files.size());
+        return job;
+    }
+
+    public Optional<ExtractionJob> getJob(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    public int getJobCount() {
+        return jobs.size();
+    }
+
+    /**
+     * Request cancellation of a job.
+     *
+     * @param jobId The job id
+     * @return The job, if it exists
+     */
+    public Optional<ExtractionJob> cancel(String jobId) {
+        ExtractionJob job = jobs.get(jobId);
+        if (job != null && !job.isFinished()) {
+            log.info("Cancelling extraction job {}", jobId);
+            job.cancel();
+        }
+        return Optional.ofNullable(job);
+    }
+
+    /**
+     * Get the result of a file of a finished job with its rows. Jobs only keep
+     * summaries, so the rows are read again through the extraction caches; a file
+     * that changed since it was extracted is reported as failed rather than served
+     * with rows the job never saw.
+     *
+     * @param job The job
+     * @param summary The summary of one of its files
+     * @return The result with the extracted rows
+     */
+    public ExcelProcessingResult loadResult(ExtractionJob job, ExcelProcessingResult summary) {
+        if (!summary.isSuccess()) {
+            return summary;
+        }
+        File file = job.getFiles().stream()
+                .filter(candidate -> candidate.getName().equals(summary.getFileName()))
+                .findFirst()
+                .orElse(null);
+        if (file == null || !job.isUnchanged(file)) {
+            ExcelProcessingResult changed = new ExcelProcessingResult();
+            changed.setFileName(summary.getFileName());
+            changed.setSuccess(false);
+            changed.setMessage("File changed since the job ran; start a new job to extract it again");
+            return changed;
+        }
+        return excelService.extractExcelFile(file);
+    }
+
+    private void run(ExtractionJob job) {
+        if (job.isCancelled()) {
+            return;
+        }
+        job.markRunning();
+        try {
+            for (File file : job.getFiles()) {
+                if (job.isCancelled()) {
+                    throw new CancellationException();
+                }
+                job.fileStarted(file);
+                String fingerprint = FileFingerprint.of(file);
+                ExcelProcessingResult result = excelService.extractExcelFile(file, job);
+                job.fileCompleted(file, fingerprint, result);
+            }
+            job.markFinished(ExtractionJob.Status.COMPLETED, null);
+            log.info("Extraction job {} completed", job.getId());
+        } catch (CancellationException e) {
+            job.markFinished(ExtractionJob.Status.CANCELLED, null);
+            log.info("Extraction job {} cancelled", job.getId());
+        } catch (Exception e) {
+            log.error("Extraction job {} failed", job.getId(), e);
+            job.markFinished(ExtractionJob.Status.FAILED, e.getMessage());
+        }
+    }
+
+    /**
+     * Drop finished jobs past their retention, then the oldest finished jobs while
+     * more jobs than allowed are kept. Jobs still queued or running are never dropped.
+     */
+    @Scheduled(fixedDelay = EVICTION_INTERVAL_MS)
+    void evictJobs() {
+        Instant cutoff = Instant.now().minus(retention);
+        jobs.values().removeIf(job -> job.isFinished()
+                && job.getFinishedAt() != null
+                && job.getFinishedAt().isBefore(cutoff));
+
+        int excess = jobs.size() - maxRetainedJobs;
+        if (excess > 0) {
+            jobs.values().stream()
+                    .filter(job -> job.isFinished() && job.getFinishedAt() != null)
+                    .sorted(Comparator.comparing(ExtractionJob::getFinishedAt))
+                    .limit(excess)
+                    .forEach(job -> jobs.remove(job.getId(), job));
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.jnj.extracter.service;
+
+/**
+ * Callback interface for observing the progress of an extraction and
+ * cooperatively cancelling it. All methods are invoked on the extracting thread.
+ */
+public interface ExtractionListener {
+
+    /**
+     * Listener that ignores all events and never cancels.
+     */
+    ExtractionListener NONE = new ExtractionListener() {
+    };
+
+    /**
+     * Called once the workbook has been opened.
+     *
+     * @param fileName The name of the file
+     * @param fileSize The size of the file on disk in bytes
+     * @param bytesInflated The uncompressed size of the workbook parts in bytes
+     */
+    default void onFileOpened(String fileName, long fileSize, long bytesInflated) {
+    }
+
+    /**
+     * Called before the rows of a sheet are processed.
+     *
+     * @param fileName The name of the file
+     * @param sheetName The name of the sheet
+     * @param estimatedRows The number of rows the sheet claims to have
+     */
+    default void onSheetStarted(String fileName, String sheetName, int estimatedRows) {
+    }
+
+    /**
+     * Called after each batch of rows has been processed.
+     *
+     * @param fileName The name of the file
+     * @param sheetName The name of the sheet
+     * @param rows The number of rows scanned in the batch
+     */
+    default void onRowsProcessed(String fileName, String sheetName, int rows) {
+    }
+
+    /**
+     * Called once all rows of a sheet have been processed.
+     *
+     * @param fileName The name of the file
+     * @param sheetName The name of the sheet
+     * @param extractedRows The number of rows extracted from the sheet
+     */
+    default void onSheetCompleted(String fileName, String sheetName, int extractedRows) {
+    }
+
+    /**
+     * Called with the cells decoded from a sheet once its rows have been extracted.
+     *
+     * @param fileName The name of the file
+     * @param sheetName The name of the sheet
+     * @param cells The number of cells decoded into the extracted rows
+     */
+    default void onCellsDecoded(String fileName, String sheetName, long cells) {
+    }
+
+    /**
+     * Called after each phase of the extraction with the time it took. A phase may
+     * be reported more than once, e.g. once per sheet.
+     *
+     * @param phase The phase
+     * @param nanos The time taken in nanoseconds
+     */
+    default void onPhase(MetricsService.Phase phase, long nanos) {
+    }
+
+    /**
+     * Called with the way the workbook is finally read, e.g. {@code streaming},
+     * {@code user_model} or {@code cached}.
+     *
+     * @param reader The reader path
+     */
+    default void onReaderSelected(String reader) {
+    }
+
+    /**
+     * Called when a way of reading the workbook failed and another one is tried.
+     *
+     * @param reader The reader path that failed
+     * @param reason Why it failed
+     */
+    default void onReaderFallback(String reader, String reason) {
+    }
+
+    /**
+     * Called with the number of distinct strings in the shared strings table, for
+     * workbooks that have one.
+     *
+     * @param count The number of unique shared strings
+     */
+    default void onSharedStringsLoaded(int count) {
+    }
+
+    /**
+     * Polled from inside the row loop; returning true aborts the extraction
+     * with a {@link java.util.concurrent.CancellationException}.
+     *
+     * @return true if the extraction should stop
+     */
+    default boolean isCancelled() {
+        return false;
+    }
+}
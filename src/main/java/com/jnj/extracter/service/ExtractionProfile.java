@@ -0,0 +1,200 @@
+package com.jnj.extracter.service;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Records where the time of one request went, for requests that ask for a profile
+ * with {@code ?profile=true}: wall time per phase and per sheet, bytes read and
+ * inflated, rows and cells decoded, the size of the shared strings table, the reader
+ * the workbook was opened with and every reader that failed before it, and the
+ * bytes each thread taking part allocated.
+ * <p>
+ * Allocation is read from the per-thread counters of the HotSpot thread bean, so it
+ * covers everything a thread allocated while the request ran, not only the
+ * extraction. A thread is counted from the first event it reports; the thread that
+ * creates the profile is counted from its creation.
+ */
+public class ExtractionProfile implements ExtractionListener {
+
+    private final long startNanos = System.nanoTime();
+    private final com.sun.management.ThreadMXBean threads = threadBean();
+    private final Map<Long, ThreadAllocation> allocations = new LinkedHashMap<>();
+    private final Map<MetricsService.Phase, Long> phaseNanos = new EnumMap<>(MetricsService.Phase.class);
+    private final Map<String, SheetProfile> sheets = new LinkedHashMap<>();
+    private final List<String> readers = new ArrayList<>();
+    private final List<Map<String, String>> fallbacks = new ArrayList<>();
+    private long bytesRead;
+    private long bytesInflated;
+    private long rows;
+    private long cells;
+    private int sharedStrings = -1;
+
+    public ExtractionProfile() {
+        seen();
+    }
+
+    @Override
+    public synchronized void onFileOpened(String fileName, long fileSize, long bytesInflated) {
+        seen();
+        this.bytesRead += fileSize;
+        this.bytesInflated += Math.max(0, bytesInflated);
+    }
+
+    @Override
+    public synchronized void onSheetStarted(String fileName, String sheetName, int estimatedRows) {
+        seen();
+        sheets.computeIfAbsent(sheetName, name -> new SheetProfile()).startNanos = System.nanoTime();
+    }
+
+    @Override
+    public synchronized void onCellsDecoded(String fileName, String sheetName, long cells) {
+        seen();
+        this.cells += cells;
+        sheets.computeIfAbsent(sheetName, name -> new SheetProfile()).cells += cells;
+    }
+
+    @Override
+    public synchronized void onSheetCompleted(String fileName, String sheetName, int extractedRows) {
+        seen();
+        rows += extractedRows;
+        SheetProfile sheet = sheets.computeIfAbsent(sheetName, name -> new SheetProfile());
+        sheet.rows += extractedRows;
+        if (sheet.startNanos > 0) {
+            sheet.wallNanos += System.nanoTime() - sheet.startNanos;
+            sheet.startNanos = 0;
+        }
+    }
+
+    @Override
+    public synchronized void onPhase(MetricsService.Phase phase, long nanos) {
+        seen();
+        phaseNanos.merge(phase, nanos, Long::sum);
+    }
+
+    @Override
+    public synchronized void onReaderSelected(String reader) {
+        seen();
+        readers.add(reader);
+    }
+
+    @Override
+    public synchronized void onReaderFallback(String reader, String reason) {
+        seen();
+        Map<String, String> fallback = new LinkedHashMap<>();
+        fallback.put("reader", reader);
+        fallback.put("reason", reason);
+        fallbacks.add(fallback);
+    }
+
+    @Override
+    public synchronized void onSharedStringsLoaded(int count) {
+        seen();
+        sharedStrings = Math.max(0, sharedStrings) + count;
+    }
+
+    /**
+     * Record a phase that ran outside the extraction, e.g. writing its output.
+     *
+     * @param phase The phase
+     * @param startNanos {@link System#nanoTime()} when the phase started
+     */
+    public void phaseSince(MetricsService.Phase phase, long startNanos) {
+        onPhase(phase, System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Build the profile as reported to the client.
+     *
+     * @return Map with the wall time, phases, sheets, reader path, volumes and allocations
+     */
+    public synchronized Map<String, Object> toMap() {
+        Map<String, Object> profile = new LinkedHashMap<>();
+        profile.put("wallMs", millis(System.nanoTime() - startNanos));
+
+        Map<String, Object> phases = new LinkedHashMap<>();
+        phaseNanos.forEach((phase, nanos) -> phases.put(phase.name().toLowerCase(), millis(nanos)));
+        profile.put("phasesMs", phases);
+
+        Map<String, Object> sheetProfiles = new LinkedHashMap<>();
+        sheets.forEach((name, sheet) -> {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("wallMs", millis(sheet.wallNanos));
+            entry.put("rows", sheet.rows);
+            entry.put("cells", sheet.cells);
+            sheetProfiles.put(name, entry);
+        });
+        profile.put("sheets", sheetProfiles);
+
+        profile.put("readers", List.copyOf(readers));
+        profile.put("fallbacks", List.copyOf(fallbacks));
+        profile.put("bytesRead", bytesRead);
+        profile.put("bytesInflated", bytesInflated);
+        profile.put("rows", rows);
+        profile.put("cells", cells);
+        if (sharedStrings >= 0) {
+            profile.put("sharedStrings", sharedStrings);
+        }
+
+        if (threads != null) {
+            Map<String, Object> allocated = new LinkedHashMap<>();
+            allocations.forEach((id, thread) -> {
+                long now = threads.getThreadAllocatedBytes(id);
+                // -1 once the thread has ended
+                if (now >= 0) {
+                    allocated.put(thread.name, now - thread.baseline);
+                }
+            });
+            profile.put("allocatedBytesByThread", allocated);
+        }
+        return profile;
+    }
+
+    /**
+     * Start counting the allocations of the calling thread the first time it reports.
+     */
+    private void seen() {
+        if (threads == null) {
+            return;
+        }
+        Thread current = Thread.currentThread();
+        allocations.computeIfAbsent(current.getId(), id ->
+                new ThreadAllocation(current.getName(), threads.getThreadAllocatedBytes(id)));
+    }
+
+    private static double millis(long nanos) {
+        return Math.round(nanos / 10_000.0) / 100.0;
+    }
+
+    /**
+     * The HotSpot thread bean, or null where per-thread allocation is not available.
+     */
+    private static com.sun.management.ThreadMXBean threadBean() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean
+                && bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled()) {
+            return bean;
+        }
+        return null;
+    }
+
+    private static final class SheetProfile {
+        private long startNanos;
+        private long wallNanos;
+        private long rows;
+        private long cells;
+    }
+
+    private static final class ThreadAllocation {
+        private final String name;
+        private final long baseline;
+
+        ThreadAllocation(String name, long baseline) {
+            this.name = name;
+            this.baseline = baseline;
+        }
+    }
+}
@@ -0,0 +1,417 @@
+package com.jnj.extracter.service;
+
+import com.jnj.extracter.config.ExcelProcessingConfig;
+import com.jnj.extracter.util.FileFingerprint;
+import com.jnj.extracter.util.WorkbookParts;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FilenameUtils;
+import org.apache.poi.util.XMLHelper;
+import org.springframework.stereotype.Service;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * The workbooks in the excel folder and their metadata, kept in memory so requests
+ * never list the folder or search it for a file name.
+ * <p>
+ * The folder is listed once at startup; after that a file system watch updates the
+ * entry of each file that is created, modified or deleted, and a full listing is
+ * only repeated when the watch overflows. Lookups by name are a single map read.
+ * For XLSX workbooks an entry also holds the sheet names and the row count each
+ * sheet declares in its dimension, read from the zip without inflating any sheet
+ * data. Where the file system cannot be watched, the folder is listed on every
+ * call as before.
+ */
+@Slf4j
+@Service
+public class FileCatalog {
+
+    private static final Set<String> EXTENSIONS = Set.of("xlsx", "xls", "xlsb", "csv");
+
+    private final File folder;
+    private final ContentStore contentStore;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final List<Runnable> changeListeners = new CopyOnWriteArrayList<>();
+    private volatile List<File> files = List.of();
+    private volatile WatchService watchService;
+
+    public FileCatalog(ExcelProcessingConfig config, ContentStore contentStore) {
+        this.folder = new File(config.getExcelFolderPath());
+        this.contentStore = contentStore;
+    }
+
+    @PostConstruct
+    void start() {
+        rescan();
+        try {
+            WatchService watcher = FileSystems.getDefault().newWatchService();
+            folder.toPath().register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+            watchService = watcher;
+            Thread thread = new Thread(() -> watch(watcher), "file-catalog-watcher");
+            thread.setDaemon(true);
+            thread.start();
+        } catch (IOException | UnsupportedOperationException e) {
+            log.warn("Cannot watch '{}', listing it on every request instead: {}", folder, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void stop() throws IOException {
+        WatchService watcher = watchService;
+        if (watcher != null) {
+            watchService = null;
+            watcher.close();
+        }
+    }
+
+    /**
+     * Register a callback run whenever a workbook is added, modified or removed.
+     * It runs on the thread that noticed the change and must return quickly.
+     *
+     * @param listener The callback
+     */
+    public void addChangeListener(Runnable listener) {
+        changeListeners.add(listener);
+    }
+
+    /**
+     * Get the workbooks in the excel folder.
+     *
+     * @return The files ordered by name
+     */
+    public List<File> getFiles() {
+        if (watchService == null) {
+            rescan();
+        }
+        return files;
+    }
+
+    /**
+     * Find a workbook in the excel folder by its file name.
+     *
+     * @param fileName The exact file name, without any path
+     * @return The file, or null if the folder holds no workbook of that name
+     */
+    public File find(String fileName) {
+        Entry entry = entry(fileName);
+        return entry != null ? entry.getFile() : null;
+    }
+
+    /**
+     * Get the metadata of a workbook in the excel folder.
+     *
+     * @param fileName The exact file name, without any path
+     * @return The entry, or null if the folder holds no workbook of that name
+     */
+    public Entry entry(String fileName) {
+        if (fileName == null) {
+            return null;
+        }
+        if (watchService == null) {
+            return refresh(fileName);
+        }
+        Entry entry = entries.get(fileName);
+        if (entry == null && isWorkbookName(fileName) && new File(folder, fileName).isFile()) {
+            // Created after the last listing and its event is not processed yet
+            entry = refresh(fileName);
+        }
+        return entry;
+    }
+
+    /**
+     * Get the metadata of every workbook in the excel folder.
+     *
+     * @return The entries ordered by file name
+     */
+    public List<Entry> getEntries() {
+        List<Entry> result = new ArrayList<>();
+        for (File file : getFiles()) {
+            Entry entry = entries.get(file.getName());
+            if (entry != null) {
+                result.add(entry);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Update the entry of one file right away, without waiting for its file system
+     * event, e.g. after the application itself wrote the file.
+     *
+     * @param fileName The file name in the excel folder
+     * @return The updated entry, or null if the file is gone or not a workbook
+     */
+    public synchronized Entry refresh(String fileName) {
+        if (fileName == null || !isWorkbookName(fileName)) {
+            return null;
+        }
+        File file = new File(folder, fileName);
+        Entry entry = null;
+        if (file.isFile()) {
+            Entry known = entries.get(fileName);
+            String fingerprint = FileFingerprint.of(file);
+            entry = known != null && known.getFingerprint().equals(fingerprint) ? known : describe(file, fingerprint);
+            if (entries.put(fileName, entry) == null) {
+                log.debug("Catalogued {} ({} bytes)", fileName, entry.getSize());
+                publish();
+            }
+            if (entry != known) {
+                fireChanged();
+            }
+        } else if (entries.remove(fileName) != null) {
+            log.debug("Removed {} from the catalog", fileName);
+            contentStore.forget(file);
+            publish();
+            fireChanged();
+        }
+        return entry;
+    }
+
+    /**
+     * List the folder and rebuild every entry that changed since it was read.
+     */
+    private synchronized void rescan() {
+        if (!folder.isDirectory()) {
+            log.warn("Excel directory '{}' does not exist", folder.getPath());
+            if (folder.mkdirs()) {
+                log.info("Created Excel directory: {}", folder.getPath());
+            }
+        }
+        File[] listed = folder.listFiles((dir, name) -> isWorkbookName(name));
+        Set<String> present = new LinkedHashSet<>();
+        boolean changed = false;
+        if (listed != null) {
+            for (File file : listed) {
+                if (!file.isFile()) {
+                    continue;
+                }
+                present.add(file.getName());
+                Entry known = entries.get(file.getName());
+                String fingerprint = FileFingerprint.of(file);
+                if (known == null || !known.getFingerprint().equals(fingerprint)) {
+                    entries.put(file.getName(), describe(file, fingerprint));
+                    changed = true;
+                }
+            }
+        }
+        for (String fileName : new ArrayList<>(entries.keySet())) {
+            if (!present.contains(fileName)) {
+                entries.remove(fileName);
+                contentStore.forget(new File(folder, fileName));
+                changed = true;
+            }
+        }
+        publish();
+        if (changed) {
+            fireChanged();
+        }
+        log.info("Found {} Excel files in directory: {}", entries.size(), folder.getPath());
+    }
+
+    /**
+     * Replace the ordered file list after a file was added or removed.
+     */
+    private void publish() {
+        List<File> sorted = new ArrayList<>(entries.size());
+        entries.values().stream()
+                .sorted(Comparator.comparing(Entry::getName))
+                .forEach(entry -> sorted.add(entry.getFile()));
+        files = Collections.unmodifiableList(sorted);
+    }
+
+    private void fireChanged() {
+        for (Runnable listener : changeListeners) {
+            listener.run();
+        }
+    }
+
+    private void watch(WatchService watcher) {
+        try {
+            while (true) {
+                WatchKey key = watcher.take();
+                // A save often fires several events; refresh each name once per batch
+                Set<String> changed = new LinkedHashSet<>();
+                boolean overflow = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        overflow = true;
+                    } else if (event.context() instanceof Path path) {
+                        changed.add(path.getFileName().toString());
+                    }
+                }
+                try {
+                    if (overflow) {
+                        rescan();
+                    } else {
+                        changed.forEach(this::refresh);
+                    }
+                } catch (RuntimeException e) {
+                    log.warn("Failed to update the file catalog: {}", e.getMessage(), e);
+                }
+                if (!key.reset()) {
+                    log.warn("Excel directory '{}' can no longer be watched, listing it on every request instead",
+                            folder.getPath());
+                    watchService = null;
+                    watcher.close();
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException | IOException e) {
+            // Shut down
+        }
+    }
+
+    /**
+     * Hidden files are uploads still being written; only root folder workbooks count.
+     */
+    private static boolean isWorkbookName(String fileName) {
+        return !fileName.startsWith(".")
+                && fileName.equals(FilenameUtils.getName(fileName))
+                && EXTENSIONS.contains(FilenameUtils.getExtension(fileName).toLowerCase());
+    }
+
+    private static Entry describe(File file, String fingerprint) {
+        Map<String, Long> sheets = new LinkedHashMap<>();
+        String extension = FilenameUtils.getExtension(file.getName()).toLowerCase();
+        if (extension.equals("xlsx")) {
+            try {
+                readSheets(file, sheets);
+            } catch (IOException e) {
+                // Still being written, or not a valid package; the next event reads it again
+                log.debug("Cannot read the sheets of {}: {}", file.getName(), e.getMessage());
+                sheets.clear();
+            } catch (RuntimeException e) {
+                // A malformed package must not keep the catalog, or the application, from starting
+                log.warn("Cannot read the sheets of {}, not a readable package: {}", file.getName(), e.toString());
+                sheets.clear();
+            }
+        } else if (extension.equals("xlsb")) {
+            log.info("Found XLSB file: {} ({} MB). Note: XLSB format has limited support.",
+                    file.getName(), file.length() / (1024 * 1024));
+        }
+        return new Entry(file, fingerprint, sheets);
+    }
+
+    private static void readSheets(File file, Map<String, Long> sheets) throws IOException {
+        WorkbookParts parts = WorkbookParts.read(file);
+        try (ZipFile zip = new ZipFile(file)) {
+            for (WorkbookParts.SheetPart sheet : parts.getSheets()) {
+                ZipEntry part = zip.getEntry(sheet.getPartName());
+                sheets.put(sheet.getName(), part != null && sheet.isWorksheet() ? dimensionRows(zip, part) : -1L);
+            }
+        }
+    }
+
+    /**
+     * Read the row count a worksheet declares in its dimension element, which
+     * precedes the sheet data, so only the start of the part is inflated.
+     *
+     * @return The number of rows from the first to the last used row, or -1 if the
+     * sheet declares no dimension
+     */
+    private static long dimensionRows(ZipFile zip, ZipEntry part) throws IOException {
+        try (InputStream in = zip.getInputStream(part)) {
+            XMLStreamReader reader = XMLHelper.newXMLInputFactory().createXMLStreamReader(in);
+            try {
+                while (reader.hasNext()) {
+                    if (reader.next() != XMLStreamConstants.START_ELEMENT) {
+                        continue;
+                    }
+                    if ("dimension".equals(reader.getLocalName())) {
+                        return rowSpan(reader.getAttributeValue(null, "ref"));
+                    }
+                    if ("sheetData".equals(reader.getLocalName())) {
+                        return -1;
+                    }
+                }
+                return -1;
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException("Cannot read sheet part " + part.getName() + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Rows spanned by a range reference such as A1:K1200.
+     */
+    private static long rowSpan(String ref) {
+        if (ref == null || ref.isBlank()) {
+            return -1;
+        }
+        int colon = ref.indexOf(':');
+        long first = rowNumber(colon < 0 ? ref : ref.substring(0, colon));
+        long last = colon < 0 ? first : rowNumber(ref.substring(colon + 1));
+        return first > 0 && last >= first ? last - first + 1 : -1;
+    }
+
+    private static long rowNumber(String cell) {
+        int digits = 0;
+        while (digits < cell.length() && !Character.isDigit(cell.charAt(digits))) {
+            digits++;
+        }
+        try {
+            return Long.parseLong(cell.substring(digits).replace("$", ""));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * One workbook in the excel folder as it was when its last change was seen.
+     */
+    @Getter
+    public static final class Entry {
+        private final File file;
+        private final String name;
+        private final long size;
+        private final long lastModified;
+        private final String fingerprint;
+        /** Sheet names in workbook order with their declared row counts (-1 if unknown); XLSX only */
+        private final Map<String, Long> estimatedRows;
+
+        Entry(File file, String fingerprint, Map<String, Long> estimatedRows) {
+            this.file = file;
+            this.name = file.getName();
+            this.size = file.length();
+            this.lastModified = file.lastModified();
+            this.fingerprint = fingerprint;
+            this.estimatedRows = Collections.unmodifiableMap(estimatedRows);
+        }
+
+        public List<String> getSheetNames() {
+            return List.copyOf(estimatedRows.keySet());
+        }
+    }
+}
@@ -0,0 +1,348 @@
+package com.jnj.extracter.service;
+
+import com.jnj.extracter.analysis.HashJoin;
+import com.jnj.extracter.config.ExcelProcessingConfig;
+import com.jnj.extracter.query.ColumnBatch;
+import com.jnj.extracter.query.ScanRequest;
+import com.jnj.extracter.util.WorkbookParts;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Joins the rows of two sheets on one or more key columns with a {@link HashJoin}.
+ * <p>
+ * The side whose sheet is smaller is hashed and the other side is streamed through
+ * it, so only the build side is held in memory, and only up to the configured
+ * budget before partitions spill to disk. Keys are compared as text: whole numbers
+ * match regardless of whether a cell holds 42 or 42.0, text is trimmed, and rows
+ * with an empty key never match.
+ * <p>
+ * The output holds the left columns followed by the right columns that are not join
+ * keys; an anti join outputs the left columns only. Right column names that clash
+ * with a left column get a numeric suffix.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class JoinService {
+
+    /** Separates the parts of a composite key; cannot occur in cell text typed by users */
+    private static final char KEY_SEPARATOR = '\u0001';
+
+    private final ExcelService excelService;
+    private final ExcelProcessingConfig config;
+
+    /**
+     * Receives the joined rows.
+     */
+    public interface JoinOutput {
+
+        /**
+         * Called once, before the first row.
+         */
+        void columns(List<String> columns) throws IOException;
+
+        void row(Object[] values) throws IOException;
+    }
+
+    /**
+     * One input of a join: a sheet of a workbook and its key columns.
+     */
+    @Getter
+    public static final class Side {
+        private final File file;
+        private final String sheetName;
+        private final List<String> keys;
+
+        /**
+         * @param file The workbook
+         * @param sheetName The sheet to read
+         * @param keys Key columns, matched to the header case-insensitively
+         */
+        public Side(File file, String sheetName, List<String> keys) {
+            this.file = file;
+            this.sheetName = sheetName;
+            this.keys = List.copyOf(keys);
+        }
+    }
+
+    /**
+     * Join two sheets.
+     *
+     * @param left The left side
+     * @param right The right side; must have as many keys as the left side
+     * @param type The join type
+     * @param output Receives the output columns and rows
+     * @return Map with the row counts, the build side and whether the join spilled to disk
+     * @throws IllegalArgumentException If the key lists differ in length or a key column is missing
+     */
+    public Map<String, Object> join(Side left, Side right, HashJoin.Type type, JoinOutput output) {
+        checkKeyCounts(left, right);
+        Instant startTime = Instant.now();
+        boolean buildIsLeft = estimateSize(left) < estimateSize(right);
+        Side build = buildIsLeft ? left : right;
+        Side probe = buildIsLeft ? right : left;
+        long budget = config.getJoinBuildMemoryMb() * 1024L * 1024L;
+
+        long[] rows = {0, 0, 0};
+        try (HashJoin join = new HashJoin(type, buildIsLeft, budget)) {
+            SideReader buildReader = new SideReader(build);
+            rows[0] = excelService.scanSheets(build.getFile(), build.getSheetName(), scanAll(), batch -> {
+                buildReader.bind(batch);
+                for (int i = 0; i < batch.size(); i++) {
+                    join.build(buildReader.key(batch, i), batch.row(i));
+                }
+                return true;
+            });
+
+            SideReader probeReader = new SideReader(probe);
+            OutputSink sink = new OutputSink(type, output);
+            rows[1] = excelService.scanSheets(probe.getFile(), probe.getSheetName(), scanAll(), batch -> {
+                probeReader.bind(batch);
+                if (!sink.isStarted()) {
+                    sink.start(buildIsLeft ? buildReader : probeReader, buildIsLeft ? probeReader : buildReader);
+                }
+                for (int i = 0; i < batch.size(); i++) {
+                    join.probe(probeReader.key(batch, i), batch.row(i), sink);
+                }
+                return true;
+            });
+            if (!sink.isStarted()) {
+                sink.start(buildIsLeft ? buildReader : probeReader, buildIsLeft ? probeReader : buildReader);
+            }
+            join.finish(sink);
+            rows[2] = sink.getRowsWritten();
+
+            long elapsed = Duration.between(startTime, Instant.now()).toMillis();
+            log.info("{} join of '{}' and '{}' produced {} rows in {} ms (build side {}, {} build rows spilled)",
+                    type, left.getFile().getName(), right.getFile().getName(), rows[2], elapsed,
+                    buildIsLeft ? "left" : "right", join.getSpilledRows());
+
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("type", type.name().toLowerCase());
+            summary.put("buildSide", buildIsLeft ? "left" : "right");
+            summary.put("leftRows", buildIsLeft ? rows[0] : rows[1]);
+            summary.put("rightRows", buildIsLeft ? rows[1] : rows[0]);
+            summary.put("outputRows", rows[2]);
+            summary.put("columns", sink.getColumns());
+            summary.put("spilledBuildRows", join.getSpilledRows());
+            summary.put("elapsedMs", elapsed);
+            return summary;
+        }
+    }
+
+    /**
+     * Check that both sheets exist and hold their key columns, decoding only the
+     * first batch row of each. Lets a caller reject a bad request before it starts
+     * streaming the join.
+     *
+     * @param left The left side
+     * @param right The right side
+     * @throws IllegalArgumentException If the key lists differ in length, a sheet or a key column is missing
+     */
+    public void validate(Side left, Side right) {
+        checkKeyCounts(left, right);
+        for (Side side : List.of(left, right)) {
+            SideReader reader = new SideReader(side);
+            excelService.scanSheets(side.getFile(), side.getSheetName(), new ScanRequest(null, List.of(), null, 1),
+                    batch -> {
+                        reader.bind(batch);
+                        return false;
+                    });
+        }
+    }
+
+    private static void checkKeyCounts(Side left, Side right) {
+        if (left.getKeys().isEmpty() || left.getKeys().size() != right.getKeys().size()) {
+            throw new IllegalArgumentException("Both sides need the same, non-zero number of key columns");
+        }
+    }
+
+    private static ScanRequest scanAll() {
+        return new ScanRequest(null, List.of(), null, 0);
+    }
+
+    /**
+     * Uncompressed size of the sheet XML for workbooks, the file size otherwise.
+     */
+    private static long estimateSize(Side side) {
+        try {
+            WorkbookParts parts = WorkbookParts.read(side.getFile());
+            long size = 0;
+            for (WorkbookParts.SheetPart sheet : parts.getSheets()) {
+                if (sheet.getName().equals(side.getSheetName())) {
+                    size += Math.max(0, sheet.getSize());
+                }
+            }
+            return size;
+        } catch (IOException e) {
+            // Not an XLSX package, e.g. a legacy .xls workbook
+            return side.getFile().length();
+        }
+    }
+
+    /**
+     * Normalize a key cell so equal values written differently still match.
+     */
+    static String keyText(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof Number number) {
+            double d = number.doubleValue();
+            if (d == Math.rint(d) && !Double.isInfinite(d) && Math.abs(d) < 1e15) {
+                return Long.toString((long) d);
+            }
+            return Double.toString(d);
+        }
+        String text = value.toString().trim();
+        return text.isEmpty() ? null : text;
+    }
+
+    /**
+     * Resolves the key columns of one side against its batches and builds row keys.
+     */
+    private static final class SideReader {
+        private final Side side;
+        private List<String> columns = List.of();
+        private int[] keyColumns;
+
+        SideReader(Side side) {
+            this.side = side;
+        }
+
+        /**
+         * Resolve the key columns against the first batch; every batch of a scan has the same layout.
+         */
+        void bind(ColumnBatch batch) {
+            if (keyColumns != null) {
+                return;
+            }
+            columns = batch.getColumnNames();
+            keyColumns = new int[side.getKeys().size()];
+            for (int k = 0; k < keyColumns.length; k++) {
+                keyColumns[k] = batch.indexOf(side.getKeys().get(k));
+                if (keyColumns[k] < 0) {
+                    throw new IllegalArgumentException("Key column '" + side.getKeys().get(k) + "' not found in '"
+                            + side.getFile().getName() + "'; available columns: " + columns);
+                }
+            }
+        }
+
+        String key(ColumnBatch batch, int row) {
+            if (keyColumns.length == 1) {
+                return keyText(batch.get(row, keyColumns[0]));
+            }
+            StringBuilder key = new StringBuilder();
+            for (int k = 0; k < keyColumns.length; k++) {
+                String part = keyText(batch.get(row, keyColumns[k]));
+                if (part == null) {
+                    return null;
+                }
+                if (k > 0) {
+                    key.append(KEY_SEPARATOR);
+                }
+                key.append(part);
+            }
+            return key.toString();
+        }
+
+        boolean isKey(int column) {
+            if (keyColumns == null) {
+                return false;
+            }
+            for (int keyColumn : keyColumns) {
+                if (keyColumn == column) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Lays out joined rows as left columns followed by the right non-key columns.
+     */
+    private static final class OutputSink implements HashJoin.RowSink {
+        private final HashJoin.Type type;
+        private final JoinOutput output;
+        private final List<String> columns = new ArrayList<>();
+        private int leftWidth;
+        private int[] rightColumns = new int[0];
+        @Getter
+        private boolean started;
+        @Getter
+        private long rowsWritten;
+
+        OutputSink(HashJoin.Type type, JoinOutput output) {
+            this.type = type;
+            this.output = output;
+        }
+
+        void start(SideReader left, SideReader right) {
+            started = true;
+            columns.addAll(left.columns);
+            leftWidth = left.columns.size();
+            if (type != HashJoin.Type.ANTI) {
+                Set<String> used = new HashSet<>();
+                columns.forEach(column -> used.add(column.toLowerCase()));
+                List<Integer> kept = new ArrayList<>();
+                for (int c = 0; c < right.columns.size(); c++) {
+                    if (right.isKey(c)) {
+                        continue;
+                    }
+                    String name = right.columns.get(c);
+                    String unique = name;
+                    int suffix = 1;
+                    while (used.contains(unique.toLowerCase())) {
+                        unique = name + "_" + suffix++;
+                    }
+                    used.add(unique.toLowerCase());
+                    columns.add(unique);
+                    kept.add(c);
+                }
+                rightColumns = kept.stream().mapToInt(Integer::intValue).toArray();
+            }
+            try {
+                output.columns(List.copyOf(columns));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to write join output", e);
+            }
+        }
+
+        List<String> getColumns() {
+            return List.copyOf(columns);
+        }
+
+        @Override
+        public void accept(Object[] left, Object[] right) {
+            Object[] values = new Object[columns.size()];
+            System.arraycopy(left, 0, values, 0, Math.min(left.length, leftWidth));
+            if (right != null) {
+                for (int i = 0; i < rightColumns.length; i++) {
+                    values[leftWidth + i] = right[rightColumns[i]];
+                }
+            }
+            try {
+                output.row(values);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to write join output", e);
+            }
+            rowsWritten++;
+        }
+    }
+}
@@ -1,31 +1,105 @@
 package com.jnj.extracter.service;
 
 import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
 import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.apache.commons.io.FilenameUtils;
+import org.springframework.core.task.TaskDecorator;
 import org.springframework.stereotype.Service;
 
+import java.io.File;
+import java.time.Duration;
 import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Supplier;
 
 /**
  * Service for collecting and reporting metrics about Excel processing.
+ * <p>
+ * Extraction meters are tagged only with values from small fixed sets (file type,
+ * size bucket, reader and phase), never with file or sheet names, so the number of
+ * series stays bounded however many files pass through.
  */
 @Service
 public class MetricsService {
 
+    private static final Set<String> FILE_TYPES = Set.of("xlsx", "xls", "xlsb", "csv");
+    
+    /** Bucket bounds of the phase timers; few enough to publish per tag combination */
+    private static final Duration[] PHASE_BUCKETS = {
+            Duration.ofMillis(10), Duration.ofMillis(100), Duration.ofSeconds(1),
+            Duration.ofSeconds(10), Duration.ofMinutes(1)};
+    
+    /**
+     * The stages of reading and producing a workbook.
+     */
+    public enum Phase {
+        /** Opening the file and its zip package; for the user model this includes parsing every part */
+        OPEN,
+        /** Loading the shared strings and styles tables */
+        SHARED_STRINGS,
+        /** Parsing sheet XML into rows */
+        SHEET_PARSE,
+        /** Turning parsed cells into typed row values */
+        CELL_DECODE,
+        /** Serializing extracted rows for a response */
+        SERIALIZE,
+        /** Writing an output workbook */
+        WRITE;
+        
+        String tag() {
+            return name().toLowerCase();
+        }
+    }
+    
+    /**
+     * How a workbook was read.
+     */
+    public enum Reader {
+        /** SAX parsing of the sheet XML */
+        STREAMING,
+        /** POI user model over a file stream */
+        USER_MODEL,
+        /** POI user model over a memory-mapped file */
+        MEMORY_MAPPED,
+        /** Served from remembered rows without parsing */
+        CACHED,
+        /** Output only; nothing was read */
+        NONE;
+        
+        String tag() {
+            return name().toLowerCase();
+        }
+    }
+    
     private final MeterRegistry registry;
     
+    // In-flight extractions; the gauges read these fields, which keep them reachable
+    private final AtomicInteger extractionsInFlight = new AtomicInteger();
+    private final AtomicLong bytesInFlight = new AtomicLong();
+    
     // Counters
     private final Counter filesProcessedCounter;
     private final Counter rowsProcessedCounter;
     private final Counter processingErrorsCounter;
+    private final Counter extractionsStartedCounter;
+    private final Counter extractionsCoalescedCounter;
     
     // Timers
     private final Timer fileProcessingTimer;
     private final Timer sheetProcessingTimer;
+    private final Timer journalGenerationTimer;
+    private final Counter journalRowsCounter;
     
     public MetricsService(MeterRegistry registry) {
         this.registry = registry;
@@ -34,10 +108,104 @@ public class MetricsService {
         this.filesProcessedCounter = registry.counter("excel.files.processed");
         this.rowsProcessedCounter = registry.counter("excel.rows.processed");
         this.processingErrorsCounter = registry.counter("excel.processing.errors");
+        this.extractionsStartedCounter = registry.counter("excel.extractions.started");
+        this.extractionsCoalescedCounter = registry.counter("excel.extractions.coalesced");
         
         // Initialize timers
         this.fileProcessingTimer = registry.timer("excel.file.processing.time");
         this.sheetProcessingTimer = registry.timer("excel.sheet.processing.time");
+        this.journalGenerationTimer = registry.timer("excel.journal.generation.time");
+        this.journalRowsCounter = registry.counter("excel.journal.rows");
+        
+        registry.gauge("excel.extraction.inflight", extractionsInFlight);
+        registry.gauge("excel.extraction.inflight.bytes", bytesInFlight);
+    }
+    
+    /**
+     * Build the bounded tags describing a file: its type, its size bucket and the
+     * reader that handles it.
+     * 
+     * @param file The file read or written
+     * @param reader How the file is read
+     * @return Tags for the phase and throughput meters
+     */
+    public static Tags fileTags(File file, Reader reader) {
+        return fileTags(file.getName(), file.length(), reader);
+    }
+    
+    /**
+     * Build the bounded tags describing a file by its name and size.
+     */
+    public static Tags fileTags(String fileName, long bytes, Reader reader) {
+        String extension = FilenameUtils.getExtension(fileName).toLowerCase();
+        return Tags.of(
+                Tag.of("fileType", FILE_TYPES.contains(extension) ? extension : "other"),
+                Tag.of("size", sizeBucket(bytes)),
+                Tag.of("reader", reader.tag()));
+    }
+    
+    private static String sizeBucket(long bytes) {
+        long mb = bytes / (1024 * 1024);
+        if (mb < 1) {
+            return "lt1mb";
+        } else if (mb < 10) {
+            return "1-10mb";
+        } else if (mb < 100) {
+            return "10-100mb";
+        }
+        return "gt100mb";
+    }
+    
+    /**
+     * Record the time one phase of reading or writing a workbook took.
+     * 
+     * @param phase The phase
+     * @param fileTags Tags from {@link #fileTags}
+     * @param nanos The time taken in nanoseconds
+     */
+    public void recordPhase(Phase phase, Tags fileTags, long nanos) {
+        Timer.builder("excel.extraction.phase")
+                .tags(fileTags.and("phase", phase.tag()))
+                .serviceLevelObjectives(PHASE_BUCKETS)
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+    
+    /**
+     * Record a completed extraction or write: its rows and bytes as counters, whose
+     * rates are the overall throughput, and its own rows and bytes per second as
+     * distributions.
+     * 
+     * @param fileTags Tags from {@link #fileTags}
+     * @param rows Rows read or written
+     * @param bytes Size of the file read or written
+     * @param nanos The time taken in nanoseconds
+     */
+    public void recordThroughput(Tags fileTags, long rows, long bytes, long nanos) {
+        registry.counter("excel.extraction.rows", fileTags).increment(rows);
+        Counter.builder("excel.extraction.bytes").baseUnit("bytes").tags(fileTags).register(registry)
+                .increment(bytes);
+        if (nanos > 0) {
+            double seconds = nanos / 1e9;
+            DistributionSummary.builder("excel.extraction.rows.per.second").tags(fileTags).register(registry)
+                    .record(rows / seconds);
+            DistributionSummary.builder("excel.extraction.bytes.per.second").baseUnit("bytes").tags(fileTags)
+                    .register(registry).record(bytes / seconds);
+        }
+    }
+    
+    /**
+     * Record that an extraction of a file of the given size started; pair with
+     * {@link #recordExtractionFinished}.
+     */
+    public void recordExtractionInFlight(long bytes) {
+        extractionsInFlight.incrementAndGet();
+        bytesInFlight.addAndGet(bytes);
+    }
+    
+    public void recordExtractionFinished(long bytes) {
+        extractionsInFlight.decrementAndGet();
+        bytesInFlight.addAndGet(-bytes);
     }
     
     /**
@@ -70,29 +238,106 @@ public class MetricsService {
     }
     
     /**
-     * Record the time taken to process a file.
+     * Record that an extraction was actually performed (not coalesced).
+     */
+    public void recordExtractionStarted() {
+        extractionsStartedCounter.increment();
+    }
+    
+    /**
+     * Record that a caller joined an in-flight extraction instead of parsing the file again.
+     */
+    public void recordExtractionCoalesced() {
+        extractionsCoalescedCounter.increment();
+    }
+    
+    /**
+     * Record the time taken to process a file. Per-phase times are recorded with
+     * {@link #recordPhase}.
      * 
-     * @param fileName The name of the file
      * @param timeMs The time taken in milliseconds
      */
-    public void recordFileProcessingTime(String fileName, long timeMs) {
+    public void recordFileProcessingTime(long timeMs) {
         fileProcessingTimer.record(timeMs, TimeUnit.MILLISECONDS);
-        registry.timer("excel.file.processing.time.by.file", 
-                      Arrays.asList(Tag.of("fileName", fileName)))
-                .record(timeMs, TimeUnit.MILLISECONDS);
     }
     
     /**
      * Record the time taken to process a sheet.
      * 
-     * @param sheetName The name of the sheet
      * @param timeMs The time taken in milliseconds
      */
-    public void recordSheetProcessingTime(String sheetName, long timeMs) {
+    public void recordSheetProcessingTime(long timeMs) {
         sheetProcessingTimer.record(timeMs, TimeUnit.MILLISECONDS);
-        registry.timer("excel.sheet.processing.time.by.sheet", 
-                      Arrays.asList(Tag.of("sheetName", sheetName)))
-                .record(timeMs, TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * Record the generation of one journal.
+     * 
+     * @param timeMs The time taken to map and write its rows in milliseconds
+     * @param rows The number of journal data rows
+     */
+    public void recordJournalGenerated(long timeMs, int rows) {
+        journalGenerationTimer.record(timeMs, TimeUnit.MILLISECONDS);
+        journalRowsCounter.increment(rows);
+    }
+    
+    /**
+     * Bind a thread pool to the registry: its size, active threads, queue depth and
+     * completed tasks as the standard {@code executor.*} meters, the tasks it
+     * rejects as {@code executor.rejected}, and the time each task waits in the
+     * queue and runs as the {@code executor.idle} and {@code executor} timers.
+     * 
+     * @param executor The pool
+     * @param name Value of the {@code name} tag
+     * @return The pool wrapped to time its tasks; submit through this
+     */
+    public ExecutorService monitorExecutor(ThreadPoolExecutor executor, String name) {
+        countRejections(executor, name);
+        return ExecutorServiceMetrics.monitor(registry, executor, name);
+    }
+    
+    /**
+     * Count the tasks a pool rejects as {@code executor.rejected}, then reject them
+     * as the pool did before.
+     * 
+     * @param executor The pool
+     * @param name Value of the {@code name} tag
+     */
+    public void countRejections(ThreadPoolExecutor executor, String name) {
+        Counter rejected = Counter.builder("executor.rejected")
+                .description("Tasks the pool did not accept")
+                .tag("name", name)
+                .register(registry);
+        RejectedExecutionHandler handler = executor.getRejectedExecutionHandler();
+        executor.setRejectedExecutionHandler((task, pool) -> {
+            rejected.increment();
+            handler.rejectedExecution(task, pool);
+        });
+    }
+    
+    /**
+     * Time the tasks of a Spring task executor the way {@link #monitorExecutor} times
+     * the tasks of a plain pool. Spring Boot binds the pool gauges of task executor
+     * beans itself.
+     * 
+     * @param name Value of the {@code name} tag
+     * @return Decorator timing each task from submission to start and from start to end
+     */
+    public TaskDecorator executorTimingDecorator(String name) {
+        Timer idle = registry.timer("executor.idle", "name", name);
+        Timer execution = registry.timer("executor", "name", name);
+        return task -> {
+            long submitted = System.nanoTime();
+            return () -> {
+                long started = System.nanoTime();
+                idle.record(started - submitted, TimeUnit.NANOSECONDS);
+                try {
+                    task.run();
+                } finally {
+                    execution.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+                }
+            };
+        };
     }
     
     /**
@@ -113,21 +358,4 @@ public class MetricsService {
         
         return result;
     }
-    
-    /**
-     * Record memory usage statistics.
-     */
-    public void recordMemoryUsage() {
-        Runtime runtime = Runtime.getRuntime();
-        long totalMemory = runtime.totalMemory();
-        long freeMemory = runtime.freeMemory();
-        long maxMemory = runtime.maxMemory();
-        long usedMemory = totalMemory - freeMemory;
-        
-        registry.gauge("jvm.memory.used", usedMemory / 1024 / 1024); // MB
-        registry.gauge("jvm.memory.free", freeMemory / 1024 / 1024); // MB
-        registry.gauge("jvm.memory.total", totalMemory / 1024 / 1024); // MB
-        registry.gauge("jvm.memory.max", maxMemory / 1024 / 1024); // MB
-        registry.gauge("jvm.memory.used.percentage", (double) usedMemory / totalMemory * 100);
-    }
 }
@@ -0,0 +1,179 @@
+package com.jnj.extracter.service;
+
+import com.jnj.extracter.config.ExcelProcessingConfig;
+import com.jnj.extracter.entity.ExcelData;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The one place extracted rows are kept between requests. Sheets are keyed by the
+ * content hash of their file, so files with identical content share them, and the
+ * least recently used sheets are evicted once their estimated size exceeds the
+ * configured budget.
+ * <p>
+ * Cached rows are shared by every caller: lists are unmodifiable and the cell map
+ * of each row is replaced by an unmodifiable view when the row is cached.
+ */
+@Slf4j
+@Service
+public class RowCache {
+
+    private static final Class<?> UNMODIFIABLE_MAP = Collections.unmodifiableMap(new HashMap<>()).getClass();
+
+    private final long maxBytes;
+    /** Cached sheets by content hash and lower-case sheet name */
+    private final Map<String, CachedSheet> sheets = new ConcurrentHashMap<>();
+    private long totalBytes;
+
+    public RowCache(ExcelProcessingConfig config) {
+        this.maxBytes = Math.max(1, config.getCacheMaxRowMemoryMb()) * 1024L * 1024L;
+    }
+
+    /**
+     * Get the cached rows of a sheet as rows of the named file. Rows cached for
+     * another file with the same content are copied with the name replaced; the
+     * cell maps are shared.
+     *
+     * @param contentHash Content hash of the file
+     * @param sheetName The sheet, matched case-insensitively
+     * @param forFileName Name of the file the rows are requested for
+     * @return Unmodifiable rows, or null if the sheet is not cached
+     */
+    public List<ExcelData> get(String contentHash, String sheetName, String forFileName) {
+        CachedSheet cached = sheets.get(key(contentHash, sheetName));
+        if (cached == null) {
+            return null;
+        }
+        cached.lastAccess = System.nanoTime();
+        if (cached.fileName.equals(forFileName)) {
+            return cached.rows;
+        }
+        List<ExcelData> renamed = new ArrayList<>(cached.rows.size());
+        for (ExcelData row : cached.rows) {
+            renamed.add(new ExcelData(forFileName, row.getSheetName(), row.getRowNumber(), row.getData(),
+                    row.getExtractedAt()));
+        }
+        return Collections.unmodifiableList(renamed);
+    }
+
+    /**
+     * Cache the rows of a sheet, unless the sheet is already cached for the content
+     * or is larger than the whole budget.
+     *
+     * @param contentHash Content hash of the file the rows were read from
+     * @param fileName Name of the file the rows were read from
+     * @param sheetName The sheet
+     * @param rows The rows; their cell maps are made unmodifiable
+     * @return The rows to hand out: the cached rows if the sheet was cached before,
+     * otherwise an unmodifiable copy of the given list
+     */
+    public synchronized List<ExcelData> put(String contentHash, String fileName, String sheetName,
+                                           List<ExcelData> rows) {
+        String key = key(contentHash, sheetName);
+        CachedSheet existing = sheets.get(key);
+        if (existing != null) {
+            existing.lastAccess = System.nanoTime();
+            return existing.rows;
+        }
+        long bytes = 0;
+        for (ExcelData row : rows) {
+            if (row.getData() != null && !UNMODIFIABLE_MAP.isInstance(row.getData())) {
+                row.setData(Collections.unmodifiableMap(row.getData()));
+            }
+            bytes += estimateBytes(row);
+        }
+        List<ExcelData> frozen = List.copyOf(rows);
+        if (bytes > maxBytes) {
+            return frozen;
+        }
+        sheets.put(key, new CachedSheet(fileName, frozen, bytes));
+        totalBytes += bytes;
+        while (totalBytes > maxBytes) {
+            sheets.entrySet().stream()
+                    .min(Comparator.comparingLong(entry -> entry.getValue().lastAccess))
+                    .ifPresent(entry -> {
+                        sheets.remove(entry.getKey());
+                        totalBytes -= entry.getValue().bytes;
+                        log.debug("Evicted cached rows of {}", entry.getKey());
+                    });
+        }
+        return frozen;
+    }
+
+    /**
+     * Whether any sheet of the content is cached.
+     */
+    public boolean containsContent(String contentHash) {
+        String prefix = contentHash + "|";
+        return sheets.keySet().stream().anyMatch(key -> key.startsWith(prefix));
+    }
+
+    /**
+     * Drop every cached sheet of a content, e.g. once no file holds it anymore.
+     */
+    public synchronized void removeContent(String contentHash) {
+        String prefix = contentHash + "|";
+        sheets.entrySet().removeIf(entry -> {
+            if (entry.getKey().startsWith(prefix)) {
+                totalBytes -= entry.getValue().bytes;
+                return true;
+            }
+            return false;
+        });
+    }
+
+    public int getCachedSheetCount() {
+        return sheets.size();
+    }
+
+    public synchronized long getEstimatedBytes() {
+        return totalBytes;
+    }
+
+    private static String key(String contentHash, String sheetName) {
+        return contentHash + "|" + sheetName.toLowerCase();
+    }
+
+    /**
+     * Rough heap size of a row: the row and its map entries, the values and the
+     * text of string values. Header names are shared by all rows of a sheet and
+     * not counted.
+     */
+    static long estimateBytes(ExcelData row) {
+        long bytes = 64;
+        Map<String, Object> data = row.getData();
+        if (data == null) {
+            return bytes;
+        }
+        bytes += 64 + 48L * data.size();
+        for (Object value : data.values()) {
+            if (value instanceof String text) {
+                bytes += 40 + text.length();
+            } else if (value != null && !(value instanceof Boolean)) {
+                bytes += 24;
+            }
+        }
+        return bytes;
+    }
+
+    private static final class CachedSheet {
+        private final String fileName;
+        private final List<ExcelData> rows;
+        private final long bytes;
+        private volatile long lastAccess = System.nanoTime();
+
+        CachedSheet(String fileName, List<ExcelData> rows, long bytes) {
+            this.fileName = fileName;
+            this.rows = rows;
+            this.bytes = bytes;
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package com.jnj.extracter.service;
+
+import com.jnj.extracter.entity.ExcelProcessingResult;
+import com.jnj.extracter.index.SearchSegment;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Full-text search over the cell values of every workbook in the excel folder.
+ * <p>
+ * Each distinct workbook content is indexed into its own {@link SearchSegment},
+ * shared by every file name holding that content. The index is reconciled with the
+ * folder on a background thread whenever the {@link FileCatalog} reports a change:
+ * only content that is new is extracted and indexed, segments of content no file
+ * holds anymore are dropped, and the result is published as one immutable index.
+ * Searches read the last published index without locking, so they never wait for
+ * indexing, except for the very first one, which waits for the initial build.
+ */
+@Slf4j
+@Service
+public class SearchIndexService {
+
+    private final ExcelService excelService;
+    private final ContentStore contentStore;
+    private final FileCatalog fileCatalog;
+    private final ExecutorService indexer = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "search-indexer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    /** Set when the folder changed since the last refresh started */
+    private final AtomicBoolean stale = new AtomicBoolean(true);
+    /** Set while a refresh is queued or running */
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private final CountDownLatch firstIndex = new CountDownLatch(1);
+    /** Nothing is indexed until the first search asks for it */
+    private volatile boolean requested;
+    private volatile Index index = new Index(Map.of(), Map.of());
+
+    public SearchIndexService(ExcelService excelService, ContentStore contentStore, FileCatalog fileCatalog) {
+        this.excelService = excelService;
+        this.contentStore = contentStore;
+        this.fileCatalog = fileCatalog;
+        fileCatalog.addChangeListener(this::folderChanged);
+    }
+
+    @PreDestroy
+    void stop() {
+        indexer.shutdownNow();
+    }
+
+    private void folderChanged() {
+        stale.set(true);
+        if (requested) {
+            scheduleRefresh();
+        }
+    }
+
+    private void scheduleRefresh() {
+        if (!refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            indexer.execute(this::refreshWhileStale);
+        } catch (RejectedExecutionException e) {
+            refreshing.set(false);
+        }
+    }
+
+    private void refreshWhileStale() {
+        try {
+            while (stale.getAndSet(false)) {
+                refresh();
+            }
+        } catch (RuntimeException e) {
+            log.error("Refreshing the search index failed, keeping the last one", e);
+        } finally {
+            refreshing.set(false);
+            firstIndex.countDown();
+        }
+        // A change reported after the loop ended but before the flag was cleared
+        if (stale.get()) {
+            scheduleRefresh();
+        }
+    }
+
+    /**
+     * Bring the index up to date with the excel folder and publish it.
+     */
+    private void refresh() {
+        Instant refreshStart = Instant.now();
+        Index current = index;
+        Map<String, String> files = new TreeMap<>();
+        Map<String, SearchSegment> segments = new HashMap<>();
+        int indexed = 0;
+        for (File file : excelService.getExcelFiles()) {
+            String contentHash = contentStore.hashOf(file);
+            if (contentHash == null) {
+                log.warn("Skipping {} in search index: content cannot be read", file.getName());
+                continue;
+            }
+            SearchSegment segment = segments.get(contentHash);
+            if (segment == null) {
+                segment = current.segments().get(contentHash);
+            }
+            if (segment == null) {
+                Instant startTime = Instant.now();
+                ExcelProcessingResult result = excelService.extractExcelFile(file);
+                if (!result.isSuccess() || result.getExtractedData() == null) {
+                    log.warn("Skipping {} in search index: {}", file.getName(), result.getMessage());
+                    continue;
+                }
+                segment = SearchSegment.build(file.getName(), contentHash, result.getExtractedData());
+                indexed++;
+                log.info("Indexed {} terms ({} postings bytes) from {} in {} ms", segment.getTermCount(),
+                        segment.getPostingsBytes(), file.getName(),
+                        Duration.between(startTime, Instant.now()).toMillis());
+            }
+            segments.put(contentHash, segment);
+            files.put(file.getName(), contentHash);
+        }
+        index = new Index(Collections.unmodifiableMap(files), Collections.unmodifiableMap(segments));
+        log.debug("Published search index of {} files after indexing {} in {} ms", files.size(), indexed,
+                Duration.between(refreshStart, Instant.now()).toMillis());
+    }
+
+    /**
+     * Search cell values. Every query term must prefix-match a term of the same cell.
+     *
+     * @param query Search text
+     * @param page Zero-based page number
+     * @param size Hits per page
+     * @return Map with the total hit count, hits per file and the requested page of hits
+     * @throws IllegalArgumentException If the query contains no searchable terms
+     */
+    public Map<String, Object> search(String query, int page, int size) {
+        Instant startTime = Instant.now();
+        Set<String> terms = query != null ? SearchSegment.tokenize(query) : Set.of();
+        if (terms.isEmpty()) {
+            throw new IllegalArgumentException("Query must contain at least one letter or digit");
+        }
+        requested = true;
+        // Without a watch the catalog only notices changes when it is listed
+        fileCatalog.getFiles();
+        if (stale.get()) {
+            scheduleRefresh();
+        }
+        awaitFirstIndex();
+        Index current = index;
+
+        // Files in name order give stable pagination
+        Map<String, Integer> fileCounts = new LinkedHashMap<>();
+        List<Map<String, Object>> hits = new ArrayList<>();
+        long totalHits = 0;
+        long skip = (long) page * size;
+        for (Map.Entry<String, String> file : current.files().entrySet()) {
+            SearchSegment segment = current.segments().get(file.getValue());
+            if (segment == null) {
+                continue;
+            }
+            long[] cells = null;
+            for (String term : terms) {
+                long[] matches = segment.prefixSearch(term);
+                cells = cells == null ? matches : SearchSegment.intersect(cells, matches);
+                if (cells.length == 0) {
+                    break;
+                }
+            }
+            if (cells.length == 0) {
+                continue;
+            }
+            fileCounts.put(file.getKey(), cells.length);
+            for (long cell : cells) {
+                if (totalHits >= skip && hits.size() < size) {
+                    Map<String, Object> hit = new LinkedHashMap<>();
+                    hit.put("fileName", file.getKey());
+                    hit.put("sheetName", segment.sheetName(cell));
+                    hit.put("rowNumber", segment.rowNumber(cell));
+                    hit.put("column", segment.columnName(cell));
+                    hits.add(hit);
+                }
+                totalHits++;
+            }
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("query", query);
+        result.put("terms", terms);
+        result.put("totalHits", totalHits);
+        result.put("page", page);
+        result.put("size", size);
+        result.put("fileCounts", fileCounts);
+        result.put("hits", hits);
+        result.put("indexedFiles", current.files().size());
+        result.put("indexedSegments", current.segments().size());
+        result.put("indexing", refreshing.get());
+        result.put("elapsedMs", Duration.between(startTime, Instant.now()).toMillis());
+        return result;
+    }
+
+    private void awaitFirstIndex() {
+        try {
+            firstIndex.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * One published state of the index.
+     *
+     * @param files Content hash of every indexed file, by file name
+     * @param segments Segments by content hash
+     */
+    private record Index(Map<String, String> files, Map<String, SearchSegment> segments) {
+    }
+}
@@ -0,0 +1,94 @@
+package com.jnj.extracter.service;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FilenameUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Stores uploaded workbooks in the excel folder and queues their extraction.
+ * <p>
+ * The upload is streamed from the multipart part into the {@link ContentStore},
+ * hashing the bytes on the way, and only then given its name in the excel folder,
+ * so the upload is never held in heap and other requests never see a half-written
+ * workbook. The warm-up job that follows fills the extraction caches, so the
+ * workbook is already parsed when it is first opened; content that was uploaded
+ * before under any name is found in those caches by its hash. The job only tracks
+ * progress; the rows are read through the usual endpoints.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UploadService {
+
+    private static final Set<String> EXTENSIONS = Set.of("xlsx", "xls", "xlsb", "csv");
+
+    private final ContentStore contentStore;
+    private final ExtractionJobService jobService;
+    private final FileCatalog fileCatalog;
+
+    /**
+     * Store an upload and queue its extraction.
+     *
+     * @param upload The uploaded file
+     * @return The stored file, its content hash and the warm-up job
+     * @throws IllegalArgumentException If the upload is empty or not a supported workbook type
+     * @throws IOException If the file cannot be written
+     * @throws java.util.concurrent.RejectedExecutionException If the file was stored but its
+     * extraction could not be queued
+     */
+    public Upload ingest(MultipartFile upload) throws IOException {
+        // Strip any client-side path so uploads cannot leave the excel folder
+        String fileName = FilenameUtils.getName(upload.getOriginalFilename());
+        if (upload.isEmpty() || fileName == null || fileName.isBlank()) {
+            throw new IllegalArgumentException("Please select a file to upload");
+        }
+        if (!EXTENSIONS.contains(FilenameUtils.getExtension(fileName).toLowerCase())) {
+            throw new IllegalArgumentException("Unsupported file type: " + fileName + "; expected one of " + EXTENSIONS);
+        }
+
+        Instant startTime = Instant.now();
+        ContentStore.StoredFile stored;
+        try (InputStream in = upload.getInputStream()) {
+            stored = contentStore.store(in, fileName);
+        }
+        log.info("Stored upload {} ({} bytes, sha256 {}) in {} ms", fileName, stored.getBytes(), stored.getSha256(),
+                Duration.between(startTime, Instant.now()).toMillis());
+
+        File file = stored.getFile();
+        fileCatalog.refresh(file.getName());
+        ExtractionJob job = jobService.submitWarmup(List.of(file));
+        return new Upload(file, stored.getBytes(), stored.getSha256(), stored.isDuplicate(), job);
+    }
+
+    /**
+     * A stored upload and the job extracting it.
+     */
+    @Getter
+    public static final class Upload {
+        private final File file;
+        private final long bytes;
+        private final String sha256;
+        /** Whether the same content was uploaded before, under any name */
+        private final boolean duplicate;
+        private final ExtractionJob job;
+
+        Upload(File file, long bytes, String sha256, boolean duplicate, ExtractionJob job) {
+            this.file = file;
+            this.bytes = bytes;
+            this.sha256 = sha256;
+            this.duplicate = duplicate;
+            this.job = job;
+        }
+    }
+}
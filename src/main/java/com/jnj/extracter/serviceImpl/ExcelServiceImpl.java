@@ -1,13 +1,38 @@
 package com.jnj.extracter.serviceImpl;
 
+import com.jnj.extracter.analysis.AggregateSpec;
+import com.jnj.extracter.analysis.ColumnStatsAccumulator;
+import com.jnj.extracter.analysis.GroupByAggregator;
+import com.jnj.extracter.analysis.NumericAccumulator;
 import com.jnj.extracter.config.ExcelProcessingConfig;
 import com.jnj.extracter.entity.ExcelData;
 import com.jnj.extracter.entity.ExcelProcessingResult;
+import com.jnj.extracter.jfr.BatchDecodeEvent;
+import com.jnj.extracter.jfr.SheetParseEvent;
+import com.jnj.extracter.jfr.TransformEvent;
+import com.jnj.extracter.jfr.WorkbookOpenEvent;
+import com.jnj.extracter.query.ColumnBatch;
+import com.jnj.extracter.query.ColumnBatchConsumer;
+import com.jnj.extracter.query.ScanRequest;
+import com.jnj.extracter.service.AdaptivePoolSizer;
+import com.jnj.extracter.service.ContentStore;
 import com.jnj.extracter.service.ExcelService;
+import com.jnj.extracter.service.ExtractionCoalescer;
+import com.jnj.extracter.service.ExtractionListener;
+import com.jnj.extracter.service.FileCatalog;
 import com.jnj.extracter.service.MetricsService;
+import com.jnj.extracter.service.RowCache;
+import com.jnj.extracter.transform.CombinedColumn;
+import com.jnj.extracter.transform.DerivedRows;
 import com.jnj.extracter.util.ExcelParsingUtils;
+import com.jnj.extracter.util.FileFingerprint;
 import com.jnj.extracter.util.MemoryMappedFileHandler;
 import com.jnj.extracter.util.ProtoConverter;
+import com.jnj.extracter.util.StreamingExcelWriter;
+import com.jnj.extracter.util.StreamingSheetReader;
+import com.jnj.extracter.util.StreamingSheetReader.SheetRow;
+import com.jnj.extracter.util.WorkbookParts;
+import io.micrometer.core.instrument.Tags;
 import lombok.extern.slf4j.Slf4j;
 
 import org.apache.poi.ss.usermodel.Workbook;
@@ -36,9 +61,15 @@ import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
 import java.util.stream.Collectors;
 import org.apache.commons.io.FilenameUtils;
 
@@ -50,21 +81,55 @@ public class ExcelServiceImpl implements ExcelService {
     private final MemoryMappedFileHandler memoryMapper;
     private final MetricsService metricsService;
     private final ProtoConverter protoConverter;
+    private final ExtractionCoalescer coalescer;
+    private final ContentStore contentStore;
+    private final FileCatalog fileCatalog;
+    private final RowCache rowCache;
     private final ExecutorService executorService;
+    private final Map<String, OperationPartial> operationPartials = new ConcurrentHashMap<>();
+    /** Part layout of each workbook content whose sheets are in the row cache */
+    private final Map<String, WorkbookParts> cachedParts = new ConcurrentHashMap<>();
+    /** Content hash each file was last extracted from, for incremental re-extraction */
+    private final Map<String, String> snapshotHashes = new ConcurrentHashMap<>();
     
     private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
     private static final String TEMP_FOLDER_PATH = "excel/temp";
+    private static final int SCAN_MISSING_COLUMN = -1;
+    private static final int SCAN_FILE_COLUMN = -2;
+    private static final int SCAN_SHEET_COLUMN = -3;
+    private static final int SCAN_ROW_COLUMN = -4;
+    private static final int PARALLEL_ANALYSIS_THRESHOLD = 10_000;
+    private static final String PARTIAL_COUNTS = "counts";
+    private static final String PARTIAL_NUMERIC = "numeric";
+    private static final String PARTIAL_COLUMNS = "columns";
+    /** Reader modes of the flight recorder events of extractions */
+    private static final String USER_MODEL_READER = "user_model";
+    private static final String STREAMING_READER = "streaming";
+    /** Name tag of the decode pool meters */
+    private static final String DECODE_EXECUTOR = "decodeExecutor";
     
     @Autowired
     public ExcelServiceImpl(ExcelProcessingConfig config, 
                            MemoryMappedFileHandler memoryMapper, 
                            MetricsService metricsService,
-                           ProtoConverter protoConverter) {
+                           ProtoConverter protoConverter,
+                           ExtractionCoalescer coalescer,
+                           ContentStore contentStore,
+                           FileCatalog fileCatalog,
+                           RowCache rowCache,
+                           AdaptivePoolSizer poolSizer) {
         this.config = config;
         this.memoryMapper = memoryMapper;
         this.metricsService = metricsService;
         this.protoConverter = protoConverter;
-        this.executorService = Executors.newFixedThreadPool(config.getThreadPoolSize());
+        this.coalescer = coalescer;
+        this.contentStore = contentStore;
+        this.fileCatalog = fileCatalog;
+        this.rowCache = rowCache;
+        ThreadPoolExecutor decodePool = new ThreadPoolExecutor(config.getThreadPoolSize(), config.getThreadPoolSize(),
+                0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>());
+        this.executorService = metricsService.monitorExecutor(decodePool, DECODE_EXECUTOR);
+        poolSizer.manage(DECODE_EXECUTOR, decodePool);
         
         // Initialize POI settings globally
         ZipSecureFile.setMinInflateRatio(0.0001);
@@ -130,7 +195,6 @@ public class ExcelServiceImpl implements ExcelService {
         Instant endTime = Instant.now();
         long elapsedTime = Duration.between(startTime, endTime).toMillis();
         log.info("Processed {} Excel files in {} ms", excelFiles.size(), elapsedTime);
-        metricsService.recordMemoryUsage();
         
         return results;
     }
@@ -169,7 +233,7 @@ public class ExcelServiceImpl implements ExcelService {
             } finally {
                 Instant fileEndTime = Instant.now();
                 long fileElapsedTime = Duration.between(fileStartTime, fileEndTime).toMillis();
-                metricsService.recordFileProcessingTime(file.getName(), fileElapsedTime);
+                metricsService.recordFileProcessingTime(fileElapsedTime);
             }
         }
         
@@ -178,6 +242,40 @@ public class ExcelServiceImpl implements ExcelService {
 
     @Override
     public ExcelProcessingResult extractExcelFile(File file) {
+        // Concurrent requests for the same unchanged file share a single parse
+        return coalescer.execute(extractionKey(file, null), () -> doExtractExcelFile(file, ExtractionListener.NONE));
+    }
+    
+    @Override
+    public ExcelProcessingResult extractExcelFile(File file, ExtractionListener listener) {
+        if (listener == null || listener == ExtractionListener.NONE) {
+            return extractExcelFile(file);
+        }
+        // Observed extractions report progress for their own caller, so they are not coalesced
+        return doExtractExcelFile(file, listener);
+    }
+    
+    /**
+     * Build the coalescing key for an extraction: the file fingerprint, the sheet
+     * (or all sheets) and the options that affect the parsed output.
+     */
+    private String extractionKey(File file, String sheetName) {
+        return FileFingerprint.of(file) + "|" + (sheetName != null ? "sheet:" + sheetName : "*")
+                + "|mm=" + config.isUseMemoryMapped();
+    }
+    
+    private ExcelProcessingResult doExtractExcelFile(File file, ExtractionListener listener) {
+        long bytes = file.length();
+        metricsService.recordExtractionInFlight(bytes);
+        try {
+            return extractWorkbook(file, listener);
+        } finally {
+            metricsService.recordExtractionFinished(bytes);
+        }
+    }
+    
+    private ExcelProcessingResult extractWorkbook(File file, ExtractionListener listener) {
+        long startNanos = System.nanoTime();
         ExcelProcessingResult result = new ExcelProcessingResult();
         result.setFileName(file.getName());
         
@@ -205,36 +303,65 @@ public class ExcelServiceImpl implements ExcelService {
             }
         }
         
+        // Content extracted before, under this or any other name, is not parsed again;
+        // a changed XLSX whose shared parts are intact only needs its changed sheets re-read
+        String contentHash = contentStore.hashOf(file);
+        WorkbookParts parts = file.getName().toLowerCase().endsWith(".xlsx") ? readWorkbookParts(file) : null;
+        if (parts != null && contentHash != null) {
+            ExcelProcessingResult incremental = extractChangedSheets(file, contentHash, parts, listener, startNanos);
+            if (incremental != null) {
+                return incremental;
+            }
+        }
+        
         try (FileInputStream fis = new FileInputStream(fileToProcess)) {
             // Set additional security settings for processing potentially problematic files
             org.apache.poi.openxml4j.util.ZipSecureFile.setMinInflateRatio(0.0001); // More permissive ratio
             org.apache.poi.openxml4j.util.ZipSecureFile.setMaxEntrySize(100 * 1024 * 1024); // 100MB max entry size
             
-            Workbook workbook = createWorkbook(fileToProcess, fis);
+            Tags tags = MetricsService.fileTags(file, userModelReader(file));
+            long phaseStart = System.nanoTime();
+            Workbook workbook = createWorkbook(fileToProcess, fis, listener);
+            recordPhase(MetricsService.Phase.OPEN, tags, System.nanoTime() - phaseStart, listener);
+            if (workbook instanceof XSSFWorkbook xssf && xssf.getSharedStringSource() != null) {
+                listener.onSharedStringsLoaded(xssf.getSharedStringSource().getUniqueCount());
+            }
+            listener.onFileOpened(file.getName(), file.length(), ExcelParsingUtils.getUncompressedSize(file));
             
             List<String> sheetNames = new ArrayList<>();
             List<ExcelData> allData = new ArrayList<>();
+            Map<String, List<ExcelData>> dataBySheet = new LinkedHashMap<>();
             int totalRows = 0;
             
-            for (int i = 0; i < workbook.getNumberOfSheets(); i++) {
-                Sheet sheet = workbook.getSheetAt(i);
-                String sheetName = sheet.getSheetName();
-                sheetNames.add(sheetName);
+            try {
+                for (int i = 0; i < workbook.getNumberOfSheets(); i++) {
+                    Sheet sheet = workbook.getSheetAt(i);
+                    String sheetName = sheet.getSheetName();
+                    sheetNames.add(sheetName);
+                    
+                    phaseStart = System.nanoTime();
+                    List<ExcelData> sheetData = extractDataFromSheet(sheet, file.getName(), listener);
+                    recordPhase(MetricsService.Phase.CELL_DECODE, tags, System.nanoTime() - phaseStart, listener);
+                    dataBySheet.put(sheetName, sheetData);
+                    totalRows += sheetData.size();
+                }
+                rememberWorkbook(file, contentHash, parts, dataBySheet);
+                dataBySheet.values().forEach(allData::addAll);
                 
-                List<ExcelData> sheetData = extractDataFromSheet(sheet, file.getName());
-                allData.addAll(sheetData);
-                totalRows += sheetData.size();
+                result.setSuccess(true);
+                result.setMessage("Successfully extracted data");
+                result.setTotalSheets(workbook.getNumberOfSheets());
+                result.setTotalRows(totalRows);
+                result.setSheetNames(sheetNames);
+                result.setExtractedData(allData);
+                metricsService.recordThroughput(tags, totalRows, file.length(), System.nanoTime() - startNanos);
+            } finally {
+                workbook.close();
             }
             
-            result.setSuccess(true);
-            result.setMessage("Successfully extracted data");
-            result.setTotalSheets(workbook.getNumberOfSheets());
-            result.setTotalRows(totalRows);
-            result.setSheetNames(sheetNames);
-            result.setExtractedData(allData);
-            
-            workbook.close();
-            
+        } catch (CancellationException e) {
+            log.info("Extraction of file {} was cancelled", file.getName());
+            throw e;
         } catch (Exception e) {
             log.error("Error extracting data from file: {}", file.getName(), e);
             result.setSuccess(false);
@@ -292,16 +419,202 @@ public class ExcelServiceImpl implements ExcelService {
         return result;
     }
 
+    private void recordPhase(MetricsService.Phase phase, Tags tags, long nanos, ExtractionListener listener) {
+        metricsService.recordPhase(phase, tags, nanos);
+        listener.onPhase(phase, nanos);
+    }
+    
+    /**
+     * The reader {@link #createWorkbook} opens a file with, for the metrics tags.
+     */
+    private MetricsService.Reader userModelReader(File file) {
+        String fileName = file.getName().toLowerCase();
+        boolean mappable = fileName.endsWith(".xlsx") || fileName.endsWith(".xls");
+        return config.isUseMemoryMapped() && mappable && file.length() / (1024 * 1024) > 5
+                ? MetricsService.Reader.MEMORY_MAPPED : MetricsService.Reader.USER_MODEL;
+    }
+    
+    private WorkbookParts readWorkbookParts(File file) {
+        try {
+            return WorkbookParts.read(file);
+        } catch (IOException e) {
+            log.debug("Cannot read part layout of {}: {}", file.getName(), e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * Reuse the cached rows of a workbook with the same content, or re-extract only
+     * the sheets of a workbook whose zip entry changed since its last extraction (or
+     * whose rows were evicted) and reuse the cached rows of the others. Falls back to
+     * a full extraction (returns null) when neither the content nor the file was
+     * extracted before, when its shared strings or styles changed, or when a sheet
+     * to re-read is not a worksheet.
+     *
+     * @param file The Excel file
+     * @param contentHash Content hash of the file, taken before its parts were read
+     * @param parts The current part layout of the file
+     * @param listener Listener for progress and cancellation
+     * @param startNanos When the extraction started, for the throughput metrics
+     * @return The extraction result, or null if the file must be extracted in full
+     */
+    private ExcelProcessingResult extractChangedSheets(File file, String contentHash, WorkbookParts parts,
+                                                       ExtractionListener listener, long startNanos) {
+        String previousHash = contentHash;
+        WorkbookParts previousParts = cachedParts.get(contentHash);
+        if (previousParts == null) {
+            previousHash = snapshotHashes.get(file.getAbsolutePath());
+            previousParts = previousHash != null ? cachedParts.get(previousHash) : null;
+        }
+        if (previousParts == null) {
+            return null;
+        }
+        if (!previousParts.sharesDecodingPartsWith(parts)) {
+            log.info("Shared strings or styles of {} changed, re-extracting all sheets", file.getName());
+            return null;
+        }
+        
+        Map<String, List<ExcelData>> cachedRows = new HashMap<>();
+        List<String> changedSheets = new ArrayList<>();
+        for (WorkbookParts.SheetPart sheet : parts.getSheets()) {
+            WorkbookParts.SheetPart before = previousParts.sheet(sheet.getName());
+            List<ExcelData> rows = before != null && Objects.equals(before.getSignature(), sheet.getSignature())
+                    ? rowCache.get(previousHash, sheet.getName(), file.getName()) : null;
+            if (rows != null) {
+                cachedRows.put(sheet.getName(), rows);
+                continue;
+            }
+            if (!sheet.isWorksheet()) {
+                return null;
+            }
+            changedSheets.add(sheet.getName());
+        }
+        
+        Instant startTime = Instant.now();
+        Tags tags = MetricsService.fileTags(file, changedSheets.isEmpty()
+                ? MetricsService.Reader.CACHED : MetricsService.Reader.STREAMING);
+        Map<String, List<SheetRow>> changedRows;
+        try {
+            StreamingSheetReader.ReadTimings timings = new StreamingSheetReader.ReadTimings();
+            changedRows = changedSheets.isEmpty() ? Map.of()
+                    : StreamingSheetReader.read(file, parts, changedSheets, StreamingSheetReader.CellDecoding.VALUE, timings);
+            if (!changedSheets.isEmpty()) {
+                recordPhase(MetricsService.Phase.OPEN, tags, timings.getOpenNanos(), listener);
+                recordPhase(MetricsService.Phase.SHARED_STRINGS, tags, timings.getSharedStringsNanos(), listener);
+                recordPhase(MetricsService.Phase.SHEET_PARSE, tags, timings.getParseNanos(), listener);
+                listener.onSharedStringsLoaded(timings.getSharedStringCount());
+            }
+        } catch (IOException e) {
+            log.warn("Incremental extraction of {} failed, re-extracting all sheets: {}", file.getName(), e.getMessage());
+            listener.onReaderFallback(STREAMING_READER, e.getMessage());
+            return null;
+        }
+        listener.onReaderSelected(changedSheets.isEmpty() ? "cached" : STREAMING_READER);
+        listener.onFileOpened(file.getName(), file.length(), ExcelParsingUtils.getUncompressedSize(file));
+        
+        List<String> sheetNames = new ArrayList<>();
+        Map<String, List<ExcelData>> dataBySheet = new LinkedHashMap<>();
+        for (WorkbookParts.SheetPart sheet : parts.getSheets()) {
+            String sheetName = sheet.getName();
+            List<ExcelData> sheetData;
+            if (changedRows.containsKey(sheetName)) {
+                long phaseStart = System.nanoTime();
+                sheetData = extractDataFromSheetRows(changedRows.get(sheetName), sheetName, file.getName(), listener);
+                recordPhase(MetricsService.Phase.CELL_DECODE, tags, System.nanoTime() - phaseStart, listener);
+            } else {
+                sheetData = cachedRows.get(sheetName);
+                listener.onSheetStarted(file.getName(), sheetName, sheetData.size());
+                listener.onSheetCompleted(file.getName(), sheetName, sheetData.size());
+            }
+            sheetNames.add(sheetName);
+            dataBySheet.put(sheetName, sheetData);
+        }
+        rememberWorkbook(file, contentHash, parts, dataBySheet);
+        List<ExcelData> allData = new ArrayList<>();
+        dataBySheet.values().forEach(allData::addAll);
+        metricsService.recordThroughput(tags, allData.size(), file.length(), System.nanoTime() - startNanos);
+        
+        if (!changedSheets.isEmpty()) {
+            log.info("Re-extracted {} of {} sheets of {} in {} ms: {}", changedSheets.size(), sheetNames.size(),
+                    file.getName(), Duration.between(startTime, Instant.now()).toMillis(), changedSheets);
+        }
+        
+        ExcelProcessingResult result = new ExcelProcessingResult();
+        result.setFileName(file.getName());
+        result.setSuccess(true);
+        result.setMessage("Successfully extracted data");
+        result.setTotalSheets(sheetNames.size());
+        result.setTotalRows(allData.size());
+        result.setSheetNames(sheetNames);
+        result.setExtractedData(allData);
+        return result;
+    }
+    
+    /**
+     * Put the extracted rows of every sheet of a workbook into the row cache under
+     * the content hash they were read from, replacing each sheet's rows with the
+     * cached, unmodifiable rows, and remember the part layout for later incremental
+     * extractions.
+     */
+    private void rememberWorkbook(File file, String contentHash, WorkbookParts parts,
+                                  Map<String, List<ExcelData>> dataBySheet) {
+        if (contentHash == null || !contentHash.equals(contentStore.hashOf(file))) {
+            // Unreadable, or the file changed while it was being read
+            return;
+        }
+        dataBySheet.replaceAll((sheetName, rows) -> rowCache.put(contentHash, file.getName(), sheetName, rows));
+        String previousHash = snapshotHashes.put(file.getAbsolutePath(), contentHash);
+        if (previousHash != null && !previousHash.equals(contentHash) && !contentStore.isCurrent(previousHash)) {
+            // The previous version of the file is gone; rows it shares with this one are cached under the new content
+            rowCache.removeContent(previousHash);
+            cachedParts.remove(previousHash);
+        }
+        if (parts == null) {
+            return;
+        }
+        List<String> partSheetNames = new ArrayList<>();
+        for (WorkbookParts.SheetPart sheet : parts.getSheets()) {
+            partSheetNames.add(sheet.getName());
+        }
+        if (!partSheetNames.equals(new ArrayList<>(dataBySheet.keySet()))) {
+            return;
+        }
+        cachedParts.putIfAbsent(contentHash, parts);
+        // Layouts of content whose rows were all evicted
+        cachedParts.keySet().removeIf(hash -> !rowCache.containsContent(hash));
+    }
+
     @Override
     public List<ExcelData> extractSheetData(File file, String sheetName) {
+        return coalescer.execute(extractionKey(file, sheetName), () -> doExtractSheetData(file, sheetName));
+    }
+    
+    private List<ExcelData> doExtractSheetData(File file, String sheetName) {
+        String contentHash = contentStore.hashOf(file);
+        List<ExcelData> cached = contentHash != null ? rowCache.get(contentHash, sheetName, file.getName()) : null;
+        if (cached != null) {
+            return cached;
+        }
         List<ExcelData> data = new ArrayList<>();
         
+        Tags tags = MetricsService.fileTags(file, userModelReader(file));
+        long startNanos = System.nanoTime();
+        // Read once so the gauge is given back what it got, even if the file changes meanwhile
+        long bytes = file.length();
+        metricsService.recordExtractionInFlight(bytes);
         try (FileInputStream fis = new FileInputStream(file)) {
-            Workbook workbook = createWorkbook(file, fis);
+            Workbook workbook = createWorkbook(file, fis, ExtractionListener.NONE);
+            long phaseStart = System.nanoTime();
+            metricsService.recordPhase(MetricsService.Phase.OPEN, tags, phaseStart - startNanos);
             Sheet sheet = workbook.getSheet(sheetName);
             
             if (sheet != null) {
-                data = extractDataFromSheet(sheet, file.getName());
+                data = extractDataFromSheet(sheet, file.getName(), ExtractionListener.NONE);
+                metricsService.recordPhase(MetricsService.Phase.CELL_DECODE, tags, System.nanoTime() - phaseStart);
+                metricsService.recordThroughput(tags, data.size(), bytes, System.nanoTime() - startNanos);
+                if (contentHash != null && contentHash.equals(contentStore.hashOf(file))) {
+                    data = rowCache.put(contentHash, file.getName(), sheet.getSheetName(), data);
+                }
             } else {
                 log.warn("Sheet '{}' not found in file '{}'", sheetName, file.getName());
             }
@@ -310,11 +623,209 @@ public class ExcelServiceImpl implements ExcelService {
             
         } catch (Exception e) {
             log.error("Error extracting data from sheet '{}' in file '{}'", sheetName, file.getName(), e);
+        } finally {
+            metricsService.recordExtractionFinished(bytes);
         }
         
         return data;
     }
     
+    @Override
+    public long scanSheets(File file, String sheetName, ScanRequest request, ColumnBatchConsumer consumer) {
+        Instant startTime = Instant.now();
+        long[] emitted = {0};
+        ColumnBatchConsumer counting = batch -> {
+            emitted[0] += batch.size();
+            return consumer.accept(batch);
+        };
+        
+        Tags tags = MetricsService.fileTags(file, userModelReader(file));
+        long startNanos = System.nanoTime();
+        try (FileInputStream fis = new FileInputStream(file);
+             Workbook workbook = createWorkbook(file, fis, ExtractionListener.NONE)) {
+            long phaseStart = System.nanoTime();
+            metricsService.recordPhase(MetricsService.Phase.OPEN, tags, phaseStart - startNanos);
+            List<Sheet> sheets = new ArrayList<>();
+            if (sheetName != null) {
+                Sheet sheet = workbook.getSheet(sheetName);
+                if (sheet == null) {
+                    throw new IllegalArgumentException("Sheet '" + sheetName + "' not found in file '" + file.getName() + "'");
+                }
+                sheets.add(sheet);
+            } else {
+                for (int i = 0; i < workbook.getNumberOfSheets(); i++) {
+                    sheets.add(workbook.getSheetAt(i));
+                }
+            }
+            
+            for (Sheet sheet : sheets) {
+                if (!scanSheet(sheet, file.getName(), request, counting)) {
+                    break;
+                }
+            }
+            // Includes the time the consumer spends on each batch
+            metricsService.recordPhase(MetricsService.Phase.CELL_DECODE, tags, System.nanoTime() - phaseStart);
+            metricsService.recordThroughput(tags, emitted[0], file.length(), System.nanoTime() - startNanos);
+        } catch (IOException e) {
+            metricsService.recordProcessingError("SheetScan");
+            throw new IllegalStateException("Error scanning file '" + file.getName() + "': " + e.getMessage(), e);
+        }
+        
+        log.info("Scanned {} rows from file '{}' in {} ms", emitted[0], file.getName(),
+                Duration.between(startTime, Instant.now()).toMillis());
+        return emitted[0];
+    }
+    
+    /**
+     * Scan one sheet in batches of physical rows.
+     * 
+     * @return false if the consumer asked to stop
+     */
+    private boolean scanSheet(Sheet sheet, String fileName, ScanRequest request, ColumnBatchConsumer consumer) {
+        if (sheet.getPhysicalNumberOfRows() == 0) {
+            return true;
+        }
+        
+        Map<Integer, String> columnIndexToHeaderMap = resolveColumnHeaders(sheet, fileName);
+        Map<String, Integer> headerIndexes = new HashMap<>();
+        Map<String, Integer> lowerCaseHeaderIndexes = new HashMap<>();
+        columnIndexToHeaderMap.forEach((index, header) -> {
+            headerIndexes.put(header, index);
+            lowerCaseHeaderIndexes.putIfAbsent(header.toLowerCase(), index);
+        });
+        
+        // Filter columns come first in the batch layout so they can be decoded on their own
+        List<String> filterColumns = request.getFilterColumns() != null ? request.getFilterColumns() : List.of();
+        List<String> columns = request.getColumns() != null
+                ? request.getColumns() : new ArrayList<>(columnIndexToHeaderMap.values());
+        List<String> layout = new ArrayList<>(filterColumns);
+        for (String column : columns) {
+            if (!layout.contains(column)) {
+                layout.add(column);
+            }
+        }
+        
+        int[] cellIndexes = new int[layout.size()];
+        for (int i = 0; i < layout.size(); i++) {
+            String column = layout.get(i);
+            Integer index = headerIndexes.get(column);
+            if (index == null) {
+                index = lowerCaseHeaderIndexes.get(column.toLowerCase());
+            }
+            if (index != null) {
+                cellIndexes[i] = index;
+            } else if (ScanRequest.FILE_COLUMN.equalsIgnoreCase(column)) {
+                cellIndexes[i] = SCAN_FILE_COLUMN;
+            } else if (ScanRequest.SHEET_COLUMN.equalsIgnoreCase(column)) {
+                cellIndexes[i] = SCAN_SHEET_COLUMN;
+            } else if (ScanRequest.ROW_COLUMN.equalsIgnoreCase(column)) {
+                cellIndexes[i] = SCAN_ROW_COLUMN;
+            } else {
+                cellIndexes[i] = SCAN_MISSING_COLUMN;
+            }
+        }
+        
+        int batchSize = request.getBatchSize() > 0 ? request.getBatchSize() : config.getBatchSize();
+        Row[] rows = new Row[batchSize];
+        int[] selection = new int[batchSize];
+        int count = 0;
+        
+        int firstRowNum = sheet.getFirstRowNum();
+        int startRow = sheet.getRow(firstRowNum) != null ? firstRowNum + 1 : firstRowNum;
+        for (int rowIndex = startRow; rowIndex <= sheet.getLastRowNum(); rowIndex++) {
+            Row row = sheet.getRow(rowIndex);
+            if (row == null || !rowHasData(row, columnIndexToHeaderMap)) {
+                continue;
+            }
+            rows[count++] = row;
+            if (count == batchSize) {
+                if (!emitScanBatch(sheet, fileName, rows, count, layout, cellIndexes,
+                        filterColumns.size(), request.getFilter(), selection, consumer)) {
+                    return false;
+                }
+                count = 0;
+            }
+        }
+        
+        return count == 0 || emitScanBatch(sheet, fileName, rows, count, layout, cellIndexes,
+                filterColumns.size(), request.getFilter(), selection, consumer);
+    }
+    
+    /**
+     * Decode the filter columns of a batch, apply the filter and decode the remaining
+     * columns for the surviving rows only.
+     */
+    private boolean emitScanBatch(Sheet sheet, String fileName, Row[] rows, int count, List<String> layout,
+                                  int[] cellIndexes, int filterWidth, ScanRequest.BatchFilter filter,
+                                  int[] selection, ColumnBatchConsumer consumer) {
+        BatchDecodeEvent event = new BatchDecodeEvent();
+        event.begin();
+        Object[][] vectors = new Object[layout.size()][];
+        for (int c = 0; c < filterWidth; c++) {
+            vectors[c] = decodeScanColumn(sheet, fileName, rows, count, cellIndexes[c]);
+        }
+        
+        int selected = count;
+        if (filter != null) {
+            ColumnBatch filterBatch = new ColumnBatch(layout.subList(0, filterWidth),
+                    Arrays.copyOf(vectors, filterWidth), count);
+            selected = filter.select(filterBatch, selection);
+            if (selected == 0) {
+                event.report(fileName, sheet.getSheetName(), count, USER_MODEL_READER);
+                return true;
+            }
+            if (selected < count) {
+                for (int c = 0; c < filterWidth; c++) {
+                    Object[] compacted = new Object[selected];
+                    for (int i = 0; i < selected; i++) {
+                        compacted[i] = vectors[c][selection[i]];
+                    }
+                    vectors[c] = compacted;
+                }
+                for (int i = 0; i < selected; i++) {
+                    rows[i] = rows[selection[i]];
+                }
+            }
+        }
+        
+        for (int c = filterWidth; c < layout.size(); c++) {
+            vectors[c] = decodeScanColumn(sheet, fileName, rows, selected, cellIndexes[c]);
+        }
+        event.report(fileName, sheet.getSheetName(), count, USER_MODEL_READER);
+        return consumer.accept(new ColumnBatch(new ArrayList<>(layout), vectors, selected));
+    }
+    
+    private Object[] decodeScanColumn(Sheet sheet, String fileName, Row[] rows, int count, int cellIndex) {
+        Object[] vector = new Object[count];
+        for (int i = 0; i < count; i++) {
+            switch (cellIndex) {
+                case SCAN_MISSING_COLUMN -> vector[i] = null;
+                case SCAN_FILE_COLUMN -> vector[i] = fileName;
+                case SCAN_SHEET_COLUMN -> vector[i] = sheet.getSheetName();
+                case SCAN_ROW_COLUMN -> vector[i] = rows[i].getRowNum() + 1;
+                default -> vector[i] = getCellValue(rows[i].getCell(cellIndex));
+            }
+        }
+        return vector;
+    }
+    
+    /**
+     * Check whether any mapped cell of a row has a non-blank value, the same rule
+     * extraction uses to skip empty rows.
+     */
+    private boolean rowHasData(Row row, Map<Integer, String> columnIndexToHeaderMap) {
+        for (Cell cell : row) {
+            if (!columnIndexToHeaderMap.containsKey(cell.getColumnIndex())) {
+                continue;
+            }
+            Object value = getCellValue(cell);
+            if (value != null && !value.toString().trim().isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
     @Override
     public List<String> getSheetNames(File file) {
         if (!file.exists() || !file.isFile()) {
@@ -328,7 +839,14 @@ public class ExcelServiceImpl implements ExcelService {
             return Collections.emptyList();
         }
         
-        try (Workbook workbook = WorkbookFactory.create(file)) {
+        // The catalog read the sheet names of catalogued XLSX files from the package already
+        FileCatalog.Entry entry = fileCatalog.entry(file.getName());
+        if (entry != null && !entry.getEstimatedRows().isEmpty()
+                && entry.getFingerprint().equals(FileFingerprint.of(file))) {
+            return entry.getSheetNames();
+        }
+        
+        try (Workbook workbook = WorkbookFactory.create(file, null, true)) {
             List<String> sheetNames = new ArrayList<>();
             for (int i = 0; i < workbook.getNumberOfSheets(); i++) {
                 sheetNames.add(workbook.getSheetName(i));
@@ -342,51 +860,7 @@ public class ExcelServiceImpl implements ExcelService {
 
     @Override
     public List<File> getExcelFiles() {
-        File excelDir = new File(config.getExcelFolderPath());
-        List<File> excelFiles = new ArrayList<>();
-        
-        if (excelDir.exists() && excelDir.isDirectory()) {
-            File[] files = excelDir.listFiles((dir, name) -> {
-                String lowercase = name.toLowerCase();
-                
-                // Only process files in the root excel directory, not in temp folders
-                if (dir.getName().equals("temp")) {
-                    return false;
-                }
-                
-                return lowercase.endsWith(".xlsx") || 
-                       lowercase.endsWith(".xls") ||
-                       lowercase.endsWith(".xlsb") ||
-                       lowercase.endsWith(".csv"); // Added CSV support
-            });
-            
-            if (files != null) {
-                log.info("Found {} Excel files in directory: {}", files.length, config.getExcelFolderPath());
-                excelFiles.addAll(Arrays.asList(files));
-                
-                // Log details about each file
-                for (File file : files) {
-                    String extension = FilenameUtils.getExtension(file.getName()).toLowerCase();
-                    long fileSizeMB = file.length() / (1024 * 1024);
-                    
-                    if (extension.equals("xlsb")) {
-                        log.info("Found XLSB file: {} ({} MB). Note: XLSB format has limited support.", 
-                                file.getName(), fileSizeMB);
-                    } else {
-                        log.debug("Found Excel file: {} ({} MB)", file.getName(), fileSizeMB);
-                    }
-                }
-            }
-        } else {
-            log.warn("Excel directory '{}' does not exist", config.getExcelFolderPath());
-            // Create the directory
-            boolean created = excelDir.mkdirs();
-            if (created) {
-                log.info("Created Excel directory: {}", config.getExcelFolderPath());
-            }
-        }
-        
-        return excelFiles;
+        return fileCatalog.getFiles();
     }
 
     @Override
@@ -421,38 +895,267 @@ public class ExcelServiceImpl implements ExcelService {
                 result = performNumericAnalysis(data);
                 break;
                 
+            case "column_stats":
+                result = performColumnStats(data);
+                break;
+                
             default:
                 result.put("error", "Unknown operation: " + operation);
-                result.put("availableOperations", Arrays.asList("count", "summary", "groupBySheet", "groupByFile", "numeric_analysis"));
+                result.put("availableOperations", Arrays.asList("count", "summary", "groupBySheet", "groupByFile", "numeric_analysis", "column_stats"));
                 break;
         }
         
         return result;
     }
 
+    @Override
+    public GroupByAggregator groupBy(List<ExcelData> data, List<String> keyColumns, List<String> aggregates) {
+        if (keyColumns == null || keyColumns.isEmpty()) {
+            throw new IllegalArgumentException("At least one key column is required");
+        }
+        List<AggregateSpec> specs = (aggregates == null || aggregates.isEmpty())
+            ? List.of(AggregateSpec.parse("count(*)"))
+            : aggregates.stream().map(AggregateSpec::parse).collect(Collectors.toList());
+        
+        Instant startTime = Instant.now();
+        int maxGroups = config.getGroupByMaxGroupsInMemory();
+        
+        // Each thread aggregates into its own partial table; partials are merged at the end
+        boolean parallel = config.isParallelProcessing() && data.size() >= PARALLEL_ANALYSIS_THRESHOLD;
+        List<GroupByAggregator> partials = Collections.synchronizedList(new ArrayList<>());
+        GroupByAggregator aggregator;
+        try {
+            aggregator = (parallel ? data.parallelStream() : data.stream())
+                .collect(() -> {
+                             GroupByAggregator partial = new GroupByAggregator(keyColumns, specs, maxGroups);
+                             partials.add(partial);
+                             return partial;
+                         },
+                         (partial, row) -> partial.accept(row.getData()),
+                         GroupByAggregator::merge);
+        } catch (RuntimeException e) {
+            // Merged partials handed their files on, so this deletes every spill file once
+            partials.forEach(GroupByAggregator::close);
+            throw e;
+        }
+        
+        log.info("Aggregated {} rows by {} in {} ms{}", data.size(), keyColumns,
+                Duration.between(startTime, Instant.now()).toMillis(),
+                aggregator.hasSpilled() ? " (spilled to disk)" : "");
+        return aggregator;
+    }
+
     @Override
     public Map<String, Object> getDataSummary(List<ExcelData> data) {
+        Map<String, Long> fileDistribution = data.stream()
+            .collect(Collectors.groupingBy(ExcelData::getFileName, Collectors.counting()));
+        Map<String, Long> sheetDistribution = data.stream()
+            .collect(Collectors.groupingBy(ExcelData::getSheetName, Collectors.counting()));
+        return summaryResult(data.size(), fileDistribution, sheetDistribution);
+    }
+    
+    private Map<String, Object> summaryResult(long totalRecords, Map<String, Long> fileDistribution,
+                                              Map<String, Long> sheetDistribution) {
         Map<String, Object> summary = new HashMap<>();
         
-        summary.put("totalRecords", data.size());
-        summary.put("uniqueFiles", data.stream().map(ExcelData::getFileName).distinct().count());
-        summary.put("uniqueSheets", data.stream().map(ExcelData::getSheetName).distinct().count());
+        summary.put("totalRecords", totalRecords);
+        summary.put("uniqueFiles", (long) fileDistribution.size());
+        summary.put("uniqueSheets", (long) sheetDistribution.size());
         
         // File distribution
-        Map<String, Long> fileDistribution = data.stream()
-            .collect(Collectors.groupingBy(ExcelData::getFileName, Collectors.counting()));
         summary.put("fileDistribution", fileDistribution);
         
         // Sheet distribution
-        Map<String, Long> sheetDistribution = data.stream()
-            .collect(Collectors.groupingBy(ExcelData::getSheetName, Collectors.counting()));
         summary.put("sheetDistribution", sheetDistribution);
         
         return summary;
     }
 
-    private Workbook createWorkbook(File file, FileInputStream fis) throws IOException {
+    @Override
+    public Map<String, Object> performOperationOnAllFiles(String operation) {
+        String op = operation.toLowerCase();
+        String kind;
+        switch (op) {
+            case "count":
+            case "summary":
+            case "groupbysheet":
+            case "groupbyfile":
+                kind = PARTIAL_COUNTS;
+                break;
+            case "numeric_analysis":
+                kind = PARTIAL_NUMERIC;
+                break;
+            case "column_stats":
+                kind = PARTIAL_COLUMNS;
+                break;
+            default:
+                // Unknown operations report the available ones
+                return performDataOperations(Collections.emptyList(), operation);
+        }
+        
+        Instant startTime = Instant.now();
+        List<File> files = getExcelFiles();
+        int recomputed = ensurePartials(files, kind);
+        
+        // Merge the per-file partials; cached partials are only ever read
+        long totalRecords = 0;
+        Map<String, Long> fileDistribution = new HashMap<>();
+        Map<String, Long> sheetDistribution = new HashMap<>();
+        Map<String, NumericAccumulator> numeric = new HashMap<>();
+        Map<String, ColumnStatsAccumulator> columns = new HashMap<>();
+        for (File file : files) {
+            Map<String, Long> sheetCounts = cachedPartial(file, PARTIAL_COUNTS);
+            if (sheetCounts == null) {
+                continue;
+            }
+            long fileRecords = 0;
+            for (Map.Entry<String, Long> entry : sheetCounts.entrySet()) {
+                sheetDistribution.merge(entry.getKey(), entry.getValue(), Long::sum);
+                fileRecords += entry.getValue();
+            }
+            if (fileRecords > 0) {
+                fileDistribution.put(file.getName(), fileRecords);
+            }
+            totalRecords += fileRecords;
+            
+            if (kind.equals(PARTIAL_NUMERIC)) {
+                NumericAccumulator.mergeAll(numeric, cachedPartial(file, PARTIAL_NUMERIC));
+            } else if (kind.equals(PARTIAL_COLUMNS)) {
+                ColumnStatsAccumulator.mergeAll(columns, cachedPartial(file, PARTIAL_COLUMNS));
+            }
+        }
+        
+        Map<String, Object> result;
+        switch (op) {
+            case "count":
+                result = new HashMap<>();
+                result.put("totalRecords", totalRecords);
+                result.put("operation", "count");
+                break;
+            case "groupbysheet":
+                result = new HashMap<>();
+                result.put("groupedBySheet", sheetDistribution);
+                result.put("operation", "groupBySheet");
+                break;
+            case "groupbyfile":
+                result = new HashMap<>();
+                result.put("groupedByFile", fileDistribution);
+                result.put("operation", "groupByFile");
+                break;
+            case "numeric_analysis":
+                result = numericAnalysisResult(numeric);
+                break;
+            case "column_stats":
+                result = columnStatsResult(columns, totalRecords);
+                break;
+            default:
+                result = summaryResult(totalRecords, fileDistribution, sheetDistribution);
+                break;
+        }
+        
+        log.info("Operation '{}' over {} files took {} ms ({} files recomputed)", operation, files.size(),
+                Duration.between(startTime, Instant.now()).toMillis(), recomputed);
+        return result;
+    }
+    
+    /**
+     * Make sure every file has an up-to-date partial of the given kind, extracting
+     * the files whose content changed in parallel. Files with the same content share
+     * their partials, so only one of them is extracted.
+     * 
+     * @return Number of files that had to be extracted
+     */
+    private int ensurePartials(List<File> files, String kind) {
+        Map<String, File> stale = new LinkedHashMap<>();
+        for (File file : files) {
+            if (cachedPartial(file, kind) == null || cachedPartial(file, PARTIAL_COUNTS) == null) {
+                String contentHash = contentStore.hashOf(file);
+                stale.putIfAbsent(contentHash != null ? contentHash : file.getAbsolutePath(), file);
+            }
+        }
+        if (stale.isEmpty()) {
+            return 0;
+        }
+        
+        List<CompletableFuture<Void>> futures = stale.values().stream()
+            .map(file -> CompletableFuture.runAsync(() -> computePartials(file, kind), executorService))
+            .collect(Collectors.toList());
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        // Partials of content that no file holds anymore
+        operationPartials.values().removeIf(partial -> !contentStore.isCurrent(partial.contentHash));
+        return stale.size();
+    }
+    
+    private void computePartials(File file, String kind) {
+        String contentHash = contentStore.hashOf(file);
+        if (contentHash == null) {
+            log.warn("No partial results for file {}: content cannot be read", file.getName());
+            return;
+        }
+        ExcelProcessingResult extraction = extractExcelFile(file);
+        if (!extraction.isSuccess() || extraction.getExtractedData() == null) {
+            // Failures are not memoized so the file is retried on the next request
+            log.warn("No partial results for file {}: {}", file.getName(), extraction.getMessage());
+            return;
+        }
+        List<ExcelData> data = extraction.getExtractedData();
+        
+        Map<String, Long> sheetCounts = new LinkedHashMap<>();
+        for (ExcelData row : data) {
+            sheetCounts.merge(row.getSheetName(), 1L, Long::sum);
+        }
+        if (!contentHash.equals(contentStore.hashOf(file))) {
+            // Changed while it was extracted; the rows belong to neither version
+            return;
+        }
+        storePartial(contentHash, PARTIAL_COUNTS, sheetCounts);
+        
+        if (kind.equals(PARTIAL_NUMERIC)) {
+            Map<String, NumericAccumulator> numeric = new HashMap<>();
+            data.forEach(row -> accumulateNumericRow(numeric, row));
+            storePartial(contentHash, PARTIAL_NUMERIC, numeric);
+        } else if (kind.equals(PARTIAL_COLUMNS)) {
+            Map<String, ColumnStatsAccumulator> columns = new HashMap<>();
+            data.forEach(row -> accumulateColumnStatsRow(columns, row));
+            storePartial(contentHash, PARTIAL_COLUMNS, columns);
+        }
+    }
+    
+    @SuppressWarnings("unchecked")
+    private <T> T cachedPartial(File file, String kind) {
+        String contentHash = contentStore.hashOf(file);
+        OperationPartial partial = contentHash != null ? operationPartials.get(contentHash + "|" + kind) : null;
+        return partial != null ? (T) partial.value : null;
+    }
+    
+    private void storePartial(String contentHash, String kind, Object value) {
+        operationPartials.put(contentHash + "|" + kind, new OperationPartial(contentHash, value));
+    }
+    
+    /**
+     * Partial result of an operation over one file content.
+     */
+    private static final class OperationPartial {
+        private final String contentHash;
+        private final Object value;
+        
+        OperationPartial(String contentHash, Object value) {
+            this.contentHash = contentHash;
+            this.value = value;
+        }
+    }
+
+    /**
+     * Open a workbook with the user model, trying alternative readers when the usual
+     * one fails. The reader that succeeds and every failed attempt are reported to
+     * the listener.
+     */
+    private Workbook createWorkbook(File file, FileInputStream fis, ExtractionListener listener) throws IOException {
         Instant startTime = Instant.now();
+        WorkbookOpenEvent openEvent = new WorkbookOpenEvent();
+        openEvent.begin();
+        ReaderSelection selection = new ReaderSelection(listener);
+        listener = selection;
         MappedByteBuffer mappedBuffer = null;
         
         try {
@@ -475,16 +1178,21 @@ public class ExcelServiceImpl implements ExcelService {
                         // For XLSX files, use OPC package with memory-mapped buffer
                         mappedBuffer = memoryMapper.createMemoryMappedBuffer(file);
                         try (OPCPackage pkg = OPCPackage.open(file, PackageAccess.READ)) {
-                            return new XSSFWorkbook(pkg);
+                            XSSFWorkbook workbook = new XSSFWorkbook(pkg);
+                            listener.onReaderSelected("memory_mapped");
+                            return workbook;
                         }
                     } else if (fileName.endsWith(".xls")) {
                         // For XLS files, use direct buffering
                         ByteBuffer buffer = memoryMapper.readFileToDirectBuffer(file, config.getBufferSize());
-                        return new HSSFWorkbook(fis);
+                        HSSFWorkbook workbook = new HSSFWorkbook(fis);
+                        listener.onReaderSelected("memory_mapped");
+                        return workbook;
                     }
                     // For other formats, fall back to standard approach
                 } catch (Exception e) {
                     log.warn("Memory-mapped approach failed, falling back to standard: {}", e.getMessage());
+                    listener.onReaderFallback("memory_mapped", e.getMessage());
                     // Reopen the stream
                     fis = new FileInputStream(file);
                 }
@@ -497,14 +1205,18 @@ public class ExcelServiceImpl implements ExcelService {
                 // Try the more reliable approach for .xlsb files
                 try {
                     // Use WorkbookFactory as a first attempt
-                    return WorkbookFactory.create(fis);
+                    Workbook workbook = WorkbookFactory.create(fis);
+                    listener.onReaderSelected("user_model");
+                    return workbook;
                 } catch (Exception e) {
                     log.error("Standard processing of XLSB failed: {}", e.getMessage());
+                    listener.onReaderFallback("user_model", e.getMessage());
                     
                     // Fall back to direct OPC approach
                     fis.close();
                     try (OPCPackage pkg = OPCPackage.open(file, PackageAccess.READ)) {
                         XSSFWorkbook workbook = new XSSFWorkbook(pkg);
+                        listener.onReaderSelected("opc_package");
                         return workbook;
                     } catch (Exception ex) {
                         log.error("Direct OPC processing failed: {}", ex.getMessage());
@@ -520,11 +1232,14 @@ public class ExcelServiceImpl implements ExcelService {
                 // For other Excel files, try using custom loading to handle corrupted pivot tables
                 try {
                     // First try the standard approach
-                    return WorkbookFactory.create(fis);
+                    Workbook workbook = WorkbookFactory.create(fis);
+                    listener.onReaderSelected("user_model");
+                    return workbook;
                 } catch (Exception e) {
                     // If the error is related to invalid UTF-8 in pivot cache records, try a custom approach
                     if (e.toString().contains("Invalid byte") && e.toString().contains("UTF-8 sequence")) {
                         log.warn("Encountered UTF-8 encoding issue in file: {}. Attempting alternative loading method.", file.getName());
+                        listener.onReaderFallback("user_model", e.getMessage());
                         
                         // Close the current stream and open a new one
                         fis.close();
@@ -534,10 +1249,12 @@ public class ExcelServiceImpl implements ExcelService {
                             XSSFWorkbook workbook = ExcelParsingUtils.createPartialWorkbook(file);
                             if (workbook != null) {
                                 log.info("Successfully loaded file using partial workbook approach: {}", file.getName());
+                                listener.onReaderSelected("partial_workbook");
                                 return workbook;
                             }
                             
                             log.warn("Partial workbook approach failed, trying direct stream approach");
+                            listener.onReaderFallback("partial_workbook", "no workbook could be built without the pivot tables");
                             
                             // Use event-based approach instead of dom-based to skip problematic parts
                             try (FileInputStream newFis = new FileInputStream(file)) {
@@ -548,11 +1265,15 @@ public class ExcelServiceImpl implements ExcelService {
                                 if (fileName.endsWith(".xlsx")) {
                                     // Try with strict OOXML disabled
                                     System.setProperty("org.apache.poi.ooxml.strict", "false");
-                                    return new XSSFWorkbook(newFis);
+                                    XSSFWorkbook tolerant = new XSSFWorkbook(newFis);
+                                    listener.onReaderSelected("tolerant_user_model");
+                                    return tolerant;
                                 } 
                                 // For .xls files
                                 else if (fileName.endsWith(".xls")) {
-                                    return new HSSFWorkbook(newFis);
+                                    HSSFWorkbook tolerant = new HSSFWorkbook(newFis);
+                                    listener.onReaderSelected("tolerant_user_model");
+                                    return tolerant;
                                 } else {
                                     throw new IOException("Unsupported file format after attempting recovery: " + fileName);
                                 }
@@ -575,6 +1296,9 @@ public class ExcelServiceImpl implements ExcelService {
             Instant endTime = Instant.now();
             long elapsedTime = Duration.between(startTime, endTime).toMillis();
             log.debug("Workbook creation took {} ms for file: {}", elapsedTime, file.getName());
+            if (selection.reader != null) {
+                openEvent.report(file, selection.reader);
+            }
             
             // Release memory-mapped buffer if used
             if (mappedBuffer != null) {
@@ -583,108 +1307,52 @@ public class ExcelServiceImpl implements ExcelService {
         }
     }
 
-    private List<ExcelData> extractDataFromSheet(Sheet sheet, String fileName) {
+    /**
+     * Passes the reader events of opening one workbook on and remembers the reader
+     * that succeeded.
+     */
+    private static final class ReaderSelection implements ExtractionListener {
+        private final ExtractionListener listener;
+        private String reader;
+        
+        ReaderSelection(ExtractionListener listener) {
+            this.listener = listener;
+        }
+        
+        @Override
+        public void onReaderSelected(String reader) {
+            this.reader = reader;
+            listener.onReaderSelected(reader);
+        }
+        
+        @Override
+        public void onReaderFallback(String reader, String reason) {
+            listener.onReaderFallback(reader, reason);
+        }
+        
+        @Override
+        public boolean isCancelled() {
+            return listener.isCancelled();
+        }
+    }
+
+    private List<ExcelData> extractDataFromSheet(Sheet sheet, String fileName, ExtractionListener listener) {
         Instant startTime = Instant.now();
+        SheetParseEvent event = new SheetParseEvent();
+        event.begin();
         List<ExcelData> sheetData = new ArrayList<>();
         
+        listener.onSheetStarted(fileName, sheet.getSheetName(), sheet.getPhysicalNumberOfRows());
         if (sheet.getPhysicalNumberOfRows() == 0) {
+            listener.onSheetCompleted(fileName, sheet.getSheetName(), 0);
             return sheetData;
         }
         
         try {
-            // Get header row and determine all columns dynamically
             int firstRowNum = sheet.getFirstRowNum();
-            Row headerRow = sheet.getRow(firstRowNum);
-            Map<Integer, String> columnIndexToHeaderMap = new HashMap<>();
-            Set<Integer> cellIndexes = new HashSet<>();
-            int maxColumns = 0;
-            
-            // Phase 1: Analyze the sheet structure - determine used columns
-            log.debug("Analyzing structure of sheet '{}' in file '{}'", sheet.getSheetName(), fileName);
-            
-            // First pass: determine the maximum number of columns across all rows
-            // Use a sample of rows for better performance on very large sheets
             int lastRowNum = sheet.getLastRowNum();
-            int rowCount = lastRowNum - firstRowNum + 1;
-            
-            // For very large sheets, sample rows instead of scanning all
-            int sampleSize = Math.min(rowCount, 1000); // Sample at most 1000 rows
-            int step = rowCount / sampleSize;
-            if (step < 1) step = 1;
-            
-            // First analyze data rows to find all used columns
-            for (int rowIndex = firstRowNum; rowIndex <= lastRowNum; rowIndex += step) {
-                Row row = sheet.getRow(rowIndex);
-                if (row == null) continue;
-                
-                short lastCellNum = row.getLastCellNum();
-                if (lastCellNum > maxColumns) {
-                    maxColumns = lastCellNum;
-                }
-                
-                // Collect all cell indexes that have data
-                for (Cell cell : row) {
-                    int cellIndex = cell.getColumnIndex();
-                    Object value = getCellValue(cell);
-                    if (value != null && !value.toString().trim().isEmpty()) {
-                        cellIndexes.add(cellIndex);
-                    }
-                }
-            }
-            
-            log.debug("Sheet '{}' has maximum of {} columns with data in {} positions", 
-                    sheet.getSheetName(), maxColumns, cellIndexes.size());
-            
-            // Phase 2: Extract headers
-            List<String> headers = new ArrayList<>();
-            
-            // Deduplicate header names to ensure uniqueness
-            Set<String> usedHeaderNames = new HashSet<>();
-            
-            if (headerRow != null) {
-                // Get all headers from the first row
-                for (int cellIndex = 0; cellIndex < maxColumns; cellIndex++) {
-                    String headerValue;
-                    Cell cell = headerRow.getCell(cellIndex);
-                    
-                    // If this column was used in any row, ensure it has a header
-                    if (cellIndexes.contains(cellIndex) || cell != null) {
-                        headerValue = getCellValueAsString(cell);
-                        
-                        // Handle empty or duplicate headers
-                        if (headerValue == null || headerValue.trim().isEmpty()) {
-                            headerValue = "Column_" + (cellIndex + 1);
-                        }
-                        
-                        // Ensure header name uniqueness
-                        String originalHeader = headerValue;
-                        int suffix = 1;
-                        while (usedHeaderNames.contains(headerValue.toLowerCase())) {
-                            headerValue = originalHeader + "_" + suffix;
-                            suffix++;
-                        }
-                        
-                        usedHeaderNames.add(headerValue.toLowerCase());
-                        columnIndexToHeaderMap.put(cellIndex, headerValue);
-                    }
-                }
-            } else {
-                // No header row found, generate default headers for all used columns
-                for (Integer cellIndex : cellIndexes) {
-                    String headerValue = "Column_" + (cellIndex + 1);
-                    columnIndexToHeaderMap.put(cellIndex, headerValue);
-                }
-            }
-            
-            // Sort headers by column index
-            headers = columnIndexToHeaderMap.entrySet().stream()
-                .sorted(Map.Entry.comparingByKey())
-                .map(Map.Entry::getValue)
-                .collect(Collectors.toList());
-            
-            log.debug("Extracted {} column headers from sheet '{}': {}", 
-                    headers.size(), sheet.getSheetName(), 
-                    headers.size() > 10 ? headers.subList(0, 10) + "..." : headers);
+            Row headerRow = sheet.getRow(firstRowNum);
+            Map<Integer, String> columnIndexToHeaderMap = resolveColumnHeaders(sheet, fileName);
             
             // Phase 3: Process data rows in batches for better memory efficiency
             int startRow = firstRowNum + 1; // Skip header
@@ -708,10 +1376,13 @@ public class ExcelServiceImpl implements ExcelService {
                 int toIndex = Math.min(fromIndex + batchSize, totalRows);
                 
                 List<Integer> batchRowIndexes = rowIndexes.subList(fromIndex, toIndex);
-                List<ExcelData> batchData = processBatch(sheet, fileName, batchRowIndexes, columnIndexToHeaderMap);
+                List<ExcelData> batchData = processBatch(sheet, fileName, batchRowIndexes, columnIndexToHeaderMap, listener);
                 sheetData.addAll(batchData);
+                listener.onRowsProcessed(fileName, sheet.getSheetName(), batchRowIndexes.size());
             }
             
+        } catch (CancellationException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Error extracting data from sheet '{}' in file '{}'", sheet.getSheetName(), fileName, e);
             metricsService.recordProcessingError("SheetProcessing");
@@ -723,12 +1394,209 @@ public class ExcelServiceImpl implements ExcelService {
                 sheetData.size(), sheet.getSheetName(), elapsedTime);
         
         // Record metrics
-        metricsService.recordSheetProcessingTime(sheet.getSheetName(), elapsedTime);
+        metricsService.recordSheetProcessingTime(elapsedTime);
+        metricsService.recordRowsProcessed(sheetData.size());
+        listener.onCellsDecoded(fileName, sheet.getSheetName(), countCells(sheetData));
+        listener.onSheetCompleted(fileName, sheet.getSheetName(), sheetData.size());
+        event.report(fileName, sheet.getSheetName(), sheetData.size(), USER_MODEL_READER);
+        
+        return sheetData;
+    }
+    
+    /**
+     * Extract the rows of a worksheet read by {@link StreamingSheetReader}, applying the
+     * same header resolution and row rules as {@link #extractDataFromSheet}.
+     */
+    private List<ExcelData> extractDataFromSheetRows(List<SheetRow> rows, String sheetName, String fileName,
+                                                     ExtractionListener listener) {
+        Instant startTime = Instant.now();
+        List<ExcelData> sheetData = new ArrayList<>();
+        
+        listener.onSheetStarted(fileName, sheetName, rows.size());
+        if (rows.isEmpty()) {
+            listener.onSheetCompleted(fileName, sheetName, 0);
+            return sheetData;
+        }
+        
+        // Sample rows for used columns the way resolveColumnHeaders does
+        SheetRow headerRow = rows.get(0);
+        int firstRowNum = headerRow.getRowIndex();
+        int lastRowNum = rows.get(rows.size() - 1).getRowIndex();
+        int rowCount = lastRowNum - firstRowNum + 1;
+        int step = Math.max(1, rowCount / Math.min(rowCount, 1000));
+        Set<Integer> cellIndexes = new HashSet<>();
+        int maxColumns = 0;
+        int position = 0;
+        for (int rowIndex = firstRowNum; rowIndex <= lastRowNum; rowIndex += step) {
+            while (rows.get(position).getRowIndex() < rowIndex) {
+                position++;
+            }
+            SheetRow row = rows.get(position);
+            if (row.getRowIndex() != rowIndex) continue;
+            
+            maxColumns = Math.max(maxColumns, row.getLastCellNum());
+            for (int i = 0; i < row.getCellCount(); i++) {
+                Object value = row.valueAt(i);
+                if (value != null && !value.toString().trim().isEmpty()) {
+                    cellIndexes.add(row.columnAt(i));
+                }
+            }
+        }
+        Map<Integer, String> columnIndexToHeaderMap = buildColumnHeaders(maxColumns, cellIndexes, true,
+                headerRow::hasCell, headerRow::getValue);
+        
+        int batchSize = config.getBatchSize();
+        BatchDecodeEvent batchEvent = new BatchDecodeEvent();
+        batchEvent.begin();
+        for (int i = 1; i < rows.size(); i++) {
+            if (listener.isCancelled()) {
+                throw new CancellationException("Extraction of " + fileName + " was cancelled");
+            }
+            SheetRow row = rows.get(i);
+            ExcelData excelData = toExcelData(fileName, sheetName, row.getRowIndex(), columnIndexToHeaderMap,
+                    row::getValue);
+            if (excelData != null) {
+                sheetData.add(excelData);
+            }
+            if (i % batchSize == 0 || i == rows.size() - 1) {
+                int batchRows = i % batchSize == 0 ? batchSize : i % batchSize;
+                listener.onRowsProcessed(fileName, sheetName, batchRows);
+                batchEvent.report(fileName, sheetName, batchRows, STREAMING_READER);
+                batchEvent = new BatchDecodeEvent();
+                batchEvent.begin();
+            }
+        }
+        
+        long elapsedTime = Duration.between(startTime, Instant.now()).toMillis();
+        log.info("Extracted {} rows from sheet '{}' in {} ms (streamed)", sheetData.size(), sheetName, elapsedTime);
+        metricsService.recordSheetProcessingTime(elapsedTime);
         metricsService.recordRowsProcessed(sheetData.size());
+        listener.onCellsDecoded(fileName, sheetName, countCells(sheetData));
+        listener.onSheetCompleted(fileName, sheetName, sheetData.size());
         
         return sheetData;
     }
     
+    private static long countCells(List<ExcelData> rows) {
+        long cells = 0;
+        for (ExcelData row : rows) {
+            cells += row.getData() != null ? row.getData().size() : 0;
+        }
+        return cells;
+    }
+    
+    /**
+     * Resolve the header of every used column in a sheet, keyed by column index in column order.
+     * Empty headers become Column_N and duplicates get a numeric suffix.
+     */
+    private Map<Integer, String> resolveColumnHeaders(Sheet sheet, String fileName) {
+        int firstRowNum = sheet.getFirstRowNum();
+        Row headerRow = sheet.getRow(firstRowNum);
+        Set<Integer> cellIndexes = new HashSet<>();
+        int maxColumns = 0;
+        
+        // Phase 1: Analyze the sheet structure - determine used columns
+        log.debug("Analyzing structure of sheet '{}' in file '{}'", sheet.getSheetName(), fileName);
+        
+        // First pass: determine the maximum number of columns across all rows
+        // Use a sample of rows for better performance on very large sheets
+        int lastRowNum = sheet.getLastRowNum();
+        int rowCount = lastRowNum - firstRowNum + 1;
+        
+        // For very large sheets, sample rows instead of scanning all
+        int sampleSize = Math.min(rowCount, 1000); // Sample at most 1000 rows
+        int step = rowCount / sampleSize;
+        if (step < 1) step = 1;
+        
+        // First analyze data rows to find all used columns
+        for (int rowIndex = firstRowNum; rowIndex <= lastRowNum; rowIndex += step) {
+            Row row = sheet.getRow(rowIndex);
+            if (row == null) continue;
+            
+            short lastCellNum = row.getLastCellNum();
+            if (lastCellNum > maxColumns) {
+                maxColumns = lastCellNum;
+            }
+            
+            // Collect all cell indexes that have data
+            for (Cell cell : row) {
+                int cellIndex = cell.getColumnIndex();
+                Object value = getCellValue(cell);
+                if (value != null && !value.toString().trim().isEmpty()) {
+                    cellIndexes.add(cellIndex);
+                }
+            }
+        }
+        
+        log.debug("Sheet '{}' has maximum of {} columns with data in {} positions", 
+                sheet.getSheetName(), maxColumns, cellIndexes.size());
+        
+        // Phase 2: Extract headers
+        Map<Integer, String> columnIndexToHeaderMap = buildColumnHeaders(maxColumns, cellIndexes, headerRow != null,
+                cellIndex -> headerRow.getCell(cellIndex) != null,
+                cellIndex -> getCellValue(headerRow.getCell(cellIndex)));
+        
+        // Headers are kept sorted by column index
+        List<String> headers = new ArrayList<>(columnIndexToHeaderMap.values());
+        
+        log.debug("Extracted {} column headers from sheet '{}': {}", 
+                headers.size(), sheet.getSheetName(), 
+                headers.size() > 10 ? headers.subList(0, 10) + "..." : headers);
+        
+        return columnIndexToHeaderMap;
+    }
+
+    /**
+     * Name the used columns of a sheet from its header row. Empty headers become
+     * Column_N and duplicates (compared case-insensitively) get a numeric suffix.
+     *
+     * @param maxColumns Number of columns to consider
+     * @param cellIndexes Columns holding data in any sampled row
+     * @param hasHeaderRow Whether the sheet has a header row
+     * @param headerCellExists Whether the header row has a cell at a column
+     * @param headerCell The decoded header cell value at a column
+     * @return Header per column index, in column order
+     */
+    private Map<Integer, String> buildColumnHeaders(int maxColumns, Set<Integer> cellIndexes, boolean hasHeaderRow,
+                                                    IntPredicate headerCellExists, IntFunction<Object> headerCell) {
+        Map<Integer, String> columnIndexToHeaderMap = new TreeMap<>();
+        
+        if (!hasHeaderRow) {
+            // No header row found, generate default headers for all used columns
+            for (Integer cellIndex : cellIndexes) {
+                columnIndexToHeaderMap.put(cellIndex, "Column_" + (cellIndex + 1));
+            }
+            return columnIndexToHeaderMap;
+        }
+        
+        // Deduplicate header names to ensure uniqueness
+        Set<String> usedHeaderNames = new HashSet<>();
+        for (int cellIndex = 0; cellIndex < maxColumns; cellIndex++) {
+            // If this column was used in any row, ensure it has a header
+            if (!cellIndexes.contains(cellIndex) && !headerCellExists.test(cellIndex)) {
+                continue;
+            }
+            String headerValue = formatCellValue(headerCell.apply(cellIndex));
+            
+            // Handle empty or duplicate headers
+            if (headerValue.trim().isEmpty()) {
+                headerValue = "Column_" + (cellIndex + 1);
+            }
+            
+            // Ensure header name uniqueness
+            String originalHeader = headerValue;
+            int suffix = 1;
+            while (usedHeaderNames.contains(headerValue.toLowerCase())) {
+                headerValue = originalHeader + "_" + suffix;
+                suffix++;
+            }
+            
+            usedHeaderNames.add(headerValue.toLowerCase());
+            columnIndexToHeaderMap.put(cellIndex, headerValue);
+        }
+        return columnIndexToHeaderMap;
+    }
+
     /**
      * Process a batch of rows from an Excel sheet.
      * 
@@ -736,50 +1604,69 @@ public class ExcelServiceImpl implements ExcelService {
      * @param fileName The name of the file
      * @param rowIndexes The indexes of the rows to process
      * @param columnIndexToHeaderMap Mapping of column indexes to header names
+     * @param listener Listener polled for cancellation before each row
      * @return List of ExcelData objects for the batch
      */
     private List<ExcelData> processBatch(Sheet sheet, String fileName, List<Integer> rowIndexes, 
-                                        Map<Integer, String> columnIndexToHeaderMap) {
+                                        Map<Integer, String> columnIndexToHeaderMap,
+                                        ExtractionListener listener) {
+        BatchDecodeEvent event = new BatchDecodeEvent();
+        event.begin();
         List<ExcelData> batchData = new ArrayList<>();
         
         for (Integer rowIndex : rowIndexes) {
+            if (listener.isCancelled()) {
+                throw new CancellationException("Extraction of " + fileName + " was cancelled");
+            }
             Row row = sheet.getRow(rowIndex);
             if (row == null) continue;
             
-            Map<String, Object> rowData = new HashMap<>();
-            boolean hasData = false;
-            
-            // Extract data for all mapped columns
-            for (Map.Entry<Integer, String> entry : columnIndexToHeaderMap.entrySet()) {
-                int cellIndex = entry.getKey();
-                String header = entry.getValue();
-                
-                Cell cell = row.getCell(cellIndex);
-                Object cellValue = getCellValue(cell);
-                
-                if (cellValue != null && !cellValue.toString().trim().isEmpty()) {
-                    hasData = true;
-                }
-                
-                rowData.put(header, cellValue);
-            }
-            
+            ExcelData excelData = toExcelData(fileName, sheet.getSheetName(), rowIndex, columnIndexToHeaderMap,
+                    cellIndex -> getCellValue(row.getCell(cellIndex)));
             // Only add row if it contains some data
-            if (hasData) {
-                ExcelData excelData = new ExcelData();
-                excelData.setFileName(fileName);
-                excelData.setSheetName(sheet.getSheetName());
-                excelData.setRowNumber(rowIndex + 1); // 1-based row numbers for user display
-                excelData.setData(rowData);
-                excelData.setExtractedAt(LocalDateTime.now().format(FORMATTER));
-                
+            if (excelData != null) {
                 batchData.add(excelData);
             }
         }
         
+        event.report(fileName, sheet.getSheetName(), rowIndexes.size(), USER_MODEL_READER);
         return batchData;
     }
 
+    /**
+     * Build the extracted record of one row from its cell values.
+     *
+     * @param rowIndex Zero-based row index
+     * @param columnIndexToHeaderMap Mapping of column indexes to header names
+     * @param cellValue The decoded cell value at a column index
+     * @return The record, or null if no mapped cell holds data
+     */
+    private ExcelData toExcelData(String fileName, String sheetName, int rowIndex,
+                                  Map<Integer, String> columnIndexToHeaderMap, IntFunction<Object> cellValue) {
+        Map<String, Object> rowData = new HashMap<>();
+        boolean hasData = false;
+        
+        // Extract data for all mapped columns
+        for (Map.Entry<Integer, String> entry : columnIndexToHeaderMap.entrySet()) {
+            Object value = cellValue.apply(entry.getKey());
+            if (value != null && !value.toString().trim().isEmpty()) {
+                hasData = true;
+            }
+            rowData.put(entry.getValue(), value);
+        }
+        
+        if (!hasData) {
+            return null;
+        }
+        ExcelData excelData = new ExcelData();
+        excelData.setFileName(fileName);
+        excelData.setSheetName(sheetName);
+        excelData.setRowNumber(rowIndex + 1); // 1-based row numbers for user display
+        excelData.setData(rowData);
+        excelData.setExtractedAt(LocalDateTime.now().format(FORMATTER));
+        return excelData;
+    }
+
     private Object getCellValue(Cell cell) {
         if (cell == null) {
             return null;
@@ -864,8 +1751,7 @@ public class ExcelServiceImpl implements ExcelService {
         }
     }
 
-    private String getCellValueAsString(Cell cell) {
-        Object value = getCellValue(cell);
+    private String formatCellValue(Object value) {
         if (value == null) {
             return "";
         }
@@ -885,87 +1771,101 @@ public class ExcelServiceImpl implements ExcelService {
     }
 
     private Map<String, Object> performNumericAnalysis(List<ExcelData> data) {
+        // Single pass over the rows; large inputs are split across threads and the
+        // per-partition accumulators merged at the end
+        boolean parallel = config.isParallelProcessing() && data.size() >= PARALLEL_ANALYSIS_THRESHOLD;
+        Map<String, NumericAccumulator> accumulators = (parallel ? data.parallelStream() : data.stream())
+            .collect(HashMap::new, this::accumulateNumericRow, NumericAccumulator::mergeAll);
+        return numericAnalysisResult(accumulators);
+    }
+    
+    private Map<String, Object> numericAnalysisResult(Map<String, NumericAccumulator> accumulators) {
         Map<String, Object> analysis = new HashMap<>();
-        Map<String, List<Double>> numericColumns = new HashMap<>();
-        
-        // Collect numeric data by column
-        for (ExcelData row : data) {
-            for (Map.Entry<String, Object> entry : row.getData().entrySet()) {
-                String column = entry.getKey();
-                Object value = entry.getValue();
-                
-                if (value instanceof Number) {
-                    numericColumns.computeIfAbsent(column, k -> new ArrayList<>())
-                               .add(((Number) value).doubleValue());
-                }
-            }
-        }
         
         // Perform analysis for each numeric column
         Map<String, Map<String, Double>> columnAnalysis = new HashMap<>();
-        for (Map.Entry<String, List<Double>> entry : numericColumns.entrySet()) {
-            String column = entry.getKey();
-            List<Double> values = entry.getValue();
+        Map<String, Map<String, Object>> numericStats = new LinkedHashMap<>();
+        for (Map.Entry<String, NumericAccumulator> entry : accumulators.entrySet()) {
+            NumericAccumulator accumulator = entry.getValue();
+            columnAnalysis.put(entry.getKey(), accumulator.toMap());
             
-            if (!values.isEmpty()) {
-                Map<String, Double> stats = new HashMap<>();
-                stats.put("count", (double) values.size());
-                stats.put("sum", values.stream().mapToDouble(Double::doubleValue).sum());
-                stats.put("average", values.stream().mapToDouble(Double::doubleValue).average().orElse(0.0));
-                stats.put("min", values.stream().mapToDouble(Double::doubleValue).min().orElse(0.0));
-                stats.put("max", values.stream().mapToDouble(Double::doubleValue).max().orElse(0.0));
-                
-                columnAnalysis.put(column, stats);
-            }
+            // Shape expected by the analysis-result view
+            Map<String, Object> viewStats = new HashMap<>();
+            viewStats.put("count", accumulator.getCount());
+            viewStats.put("sum", accumulator.getSum());
+            viewStats.put("avg", accumulator.getMean());
+            viewStats.put("min", accumulator.getMin());
+            viewStats.put("max", accumulator.getMax());
+            numericStats.put(entry.getKey(), viewStats);
         }
         
         analysis.put("numericColumnAnalysis", columnAnalysis);
+        analysis.put("numericStats", numericStats);
         analysis.put("operation", "numeric_analysis");
         
         return analysis;
     }
     
+    private Map<String, Object> performColumnStats(List<ExcelData> data) {
+        boolean parallel = config.isParallelProcessing() && data.size() >= PARALLEL_ANALYSIS_THRESHOLD;
+        Map<String, ColumnStatsAccumulator> accumulators = (parallel ? data.parallelStream() : data.stream())
+            .collect(HashMap::new, this::accumulateColumnStatsRow, ColumnStatsAccumulator::mergeAll);
+        return columnStatsResult(accumulators, data.size());
+    }
+    
+    private Map<String, Object> columnStatsResult(Map<String, ColumnStatsAccumulator> accumulators, long totalRecords) {
+        Map<String, Object> analysis = new HashMap<>();
+        
+        Map<String, Map<String, Object>> columnStats = new TreeMap<>();
+        accumulators.forEach((column, accumulator) -> columnStats.put(column, accumulator.toMap()));
+        
+        // Columns ranked by how many rows populate them
+        Map<String, Long> topColumns = new LinkedHashMap<>();
+        accumulators.entrySet().stream()
+            .sorted((a, b) -> Long.compare(b.getValue().getPopulatedCount(), a.getValue().getPopulatedCount()))
+            .limit(10)
+            .forEach(entry -> topColumns.put(entry.getKey(), entry.getValue().getPopulatedCount()));
+        
+        analysis.put("columnStats", columnStats);
+        analysis.put("topColumns", topColumns);
+        analysis.put("uniqueColumns", columnStats.size());
+        analysis.put("totalRecords", totalRecords);
+        analysis.put("operation", "column_stats");
+        
+        return analysis;
+    }
+    
+    private void accumulateColumnStatsRow(Map<String, ColumnStatsAccumulator> accumulators, ExcelData row) {
+        if (row.getData() == null) {
+            return;
+        }
+        for (Map.Entry<String, Object> entry : row.getData().entrySet()) {
+            accumulators.computeIfAbsent(entry.getKey(), k -> new ColumnStatsAccumulator())
+                        .accept(entry.getValue());
+        }
+    }
+    
+    private void accumulateNumericRow(Map<String, NumericAccumulator> accumulators, ExcelData row) {
+        if (row.getData() == null) {
+            return;
+        }
+        for (Map.Entry<String, Object> entry : row.getData().entrySet()) {
+            Object value = entry.getValue();
+            if (value instanceof Number) {
+                accumulators.computeIfAbsent(entry.getKey(), k -> new NumericAccumulator())
+                            .accept(((Number) value).doubleValue());
+            }
+        }
+    }
+    
     @Override
     public List<ExcelData> transformDataByCombiningColumns(List<ExcelData> data, List<String> sourceColumns, 
                                                          String targetColumn, String separator) {
         log.info("Transforming data by combining columns: {} -> {}", sourceColumns, targetColumn);
-        List<ExcelData> transformedData = new ArrayList<>();
         
-        if (separator == null) {
-            separator = "";
-        }
-        
-        for (ExcelData excelData : data) {
-            // Create a deep copy of the original data
-            ExcelData newData = new ExcelData();
-            newData.setFileName(excelData.getFileName());
-            newData.setSheetName(excelData.getSheetName());
-            newData.setRowNumber(excelData.getRowNumber());
-            newData.setExtractedAt(excelData.getExtractedAt());
-            
-            Map<String, Object> rowData = new HashMap<>(excelData.getData());
-            
-            // Build combined value from source columns
-            StringBuilder combinedValue = new StringBuilder();
-            boolean firstColumn = true;
-            
-            for (String columnName : sourceColumns) {
-                Object columnValue = rowData.get(columnName);
-                if (columnValue != null) {
-                    if (!firstColumn && !separator.isEmpty()) {
-                        combinedValue.append(separator);
-                    }
-                    combinedValue.append(columnValue.toString().trim());
-                    firstColumn = false;
-                }
-            }
-            
-            // Add the new combined column
-            rowData.put(targetColumn, combinedValue.toString());
-            newData.setData(rowData);
-            
-            transformedData.add(newData);
-        }
+        // The rows are overlaid with the new column instead of being copied
+        DerivedRows transformedData = DerivedRows.of(data)
+                .withColumn(new CombinedColumn(targetColumn, sourceColumns, separator));
         
         log.info("Transformation complete. Created new column '{}' in {} records", 
                 targetColumn, transformedData.size());
@@ -985,40 +1885,25 @@ public class ExcelServiceImpl implements ExcelService {
             separatorMap = new HashMap<>();
         }
         
-        // Create a copy of the original data with transformed columns
-        List<Map<String, Object>> transformedRows = new ArrayList<>();
+        // Derive the transformed columns over the original rows instead of copying them
+        List<CombinedColumn> combinedColumns = new ArrayList<>();
+        for (Map.Entry<String, List<String>> transformation : transformationMap.entrySet()) {
+            String targetColumn = transformation.getKey();
+            combinedColumns.add(new CombinedColumn(targetColumn, transformation.getValue(),
+                    separatorMap.getOrDefault(targetColumn, "")));
+        }
+        // The event covers deriving the column values as well as appending the rows
+        TransformEvent transformEvent = new TransformEvent();
+        transformEvent.begin();
+        DerivedRows transformedRows = DerivedRows.of(data).withColumns(combinedColumns);
         
-        for (ExcelData excelData : data) {
-            // Start with empty row or original data based on includeOriginalColumns flag
-            Map<String, Object> transformedRow = includeOriginalColumns ? 
-                new HashMap<>(excelData.getData()) : new HashMap<>();
-            
-            // Apply each transformation
-            for (Map.Entry<String, List<String>> transformation : transformationMap.entrySet()) {
-                String targetColumn = transformation.getKey();
-                List<String> sourceColumns = transformation.getValue();
-                String separator = separatorMap.getOrDefault(targetColumn, "");
-                
-                // Build combined value from source columns
-                StringBuilder combinedValue = new StringBuilder();
-                boolean firstColumn = true;
-                
-                for (String columnName : sourceColumns) {
-                    Object columnValue = excelData.getData().get(columnName);
-                    if (columnValue != null) {
-                        if (!firstColumn && !separator.isEmpty()) {
-                            combinedValue.append(separator);
-                        }
-                        combinedValue.append(columnValue.toString().trim());
-                        firstColumn = false;
-                    }
-                }
-                
-                // Add the transformed column to the row
-                transformedRow.put(targetColumn, combinedValue.toString());
-            }
-            
-            transformedRows.add(transformedRow);
+        // Original columns (in the first row's order) followed by the transformed ones
+        Set<String> columnNames = new LinkedHashSet<>();
+        if (includeOriginalColumns && !data.isEmpty() && data.get(0).getData() != null) {
+            columnNames.addAll(data.get(0).getData().keySet());
+        }
+        if (!transformedRows.isEmpty()) {
+            columnNames.addAll(transformationMap.keySet());
         }
         
         // Ensure output file has proper extension
@@ -1037,60 +1922,33 @@ public class ExcelServiceImpl implements ExcelService {
         String outputFilePath = TEMP_FOLDER_PATH + File.separator + outputFileName;
         File outputFile = new File(outputFilePath);
         
-        try (Workbook workbook = new XSSFWorkbook()) {
-            Sheet sheet = workbook.createSheet("Transformed Data");
-            
-            // Create header row
-            Row headerRow = sheet.createRow(0);
-            
-            // Get all column names from the first row
-            Set<String> columnNames = new HashSet<>();
-            if (!transformedRows.isEmpty()) {
-                columnNames.addAll(transformedRows.get(0).keySet());
-            }
-            
-            // Create header cells
-            int cellIndex = 0;
-            for (String columnName : columnNames) {
-                Cell cell = headerRow.createCell(cellIndex++);
-                cell.setCellValue(columnName);
-            }
-            
-            // Create data rows
+        // Rows are streamed through a bounded window; column widths come from value lengths
+        List<String> columns = new ArrayList<>(columnNames);
+        Instant startTime = Instant.now();
+        try (StreamingExcelWriter writer = new StreamingExcelWriter("Transformed Data", columns,
+                config.getWriteRowWindow())) {
+            Object[] values = new Object[columns.size()];
             for (int rowIndex = 0; rowIndex < transformedRows.size(); rowIndex++) {
-                Row row = sheet.createRow(rowIndex + 1);  // +1 to account for header
-                Map<String, Object> rowData = transformedRows.get(rowIndex);
-                
-                cellIndex = 0;
-                for (String columnName : columnNames) {
-                    Cell cell = row.createCell(cellIndex++);
-                    Object value = rowData.get(columnName);
-                    
-                    if (value != null) {
-                        if (value instanceof Number) {
-                            cell.setCellValue(((Number) value).doubleValue());
-                        } else if (value instanceof Boolean) {
-                            cell.setCellValue((Boolean) value);
-                        } else if (value instanceof Date) {
-                            cell.setCellValue((Date) value);
-                        } else {
-                            cell.setCellValue(value.toString());
-                        }
-                    }
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = transformedRows.value(rowIndex, columns.get(i));
                 }
+                writer.writeRow(values);
             }
-            
-            // Auto-size columns for better readability
-            for (int i = 0; i < columnNames.size(); i++) {
-                sheet.autoSizeColumn(i);
-            }
+            transformEvent.report("combined_columns", outputFileName, writer.getRowsWritten());
             
             // Write to file
+            long writeStart = System.nanoTime();
             try (FileOutputStream fileOut = new FileOutputStream(outputFile)) {
-                workbook.write(fileOut);
+                writer.write(fileOut);
             }
+            Tags tags = MetricsService.fileTags(outputFile, MetricsService.Reader.NONE);
+            metricsService.recordPhase(MetricsService.Phase.WRITE, tags, System.nanoTime() - writeStart);
+            metricsService.recordThroughput(tags, writer.getRowsWritten(), outputFile.length(),
+                    Duration.between(startTime, Instant.now()).toNanos());
             
-            log.info("Successfully created transformed Excel file at {}", outputFile.getAbsolutePath());
+            log.info("Successfully created transformed Excel file at {} with {} rows in {} ms",
+                    outputFile.getAbsolutePath(), writer.getRowsWritten(),
+                    Duration.between(startTime, Instant.now()).toMillis());
             return outputFile.getAbsolutePath();
             
         } catch (Exception e) {
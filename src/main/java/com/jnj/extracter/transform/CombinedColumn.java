@@ -0,0 +1,46 @@
+package com.jnj.extracter.transform;
+
+import lombok.Getter;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A column whose value is the trimmed values of other columns of the same row joined
+ * with a separator. Missing and null source values are skipped.
+ */
+@Getter
+public final class CombinedColumn {
+
+    private final String name;
+    private final List<String> sourceColumns;
+    private final String separator;
+
+    public CombinedColumn(String name, List<String> sourceColumns, String separator) {
+        this.name = name;
+        this.sourceColumns = List.copyOf(sourceColumns);
+        this.separator = separator != null ? separator : "";
+    }
+
+    /**
+     * Compute the combined value for one row.
+     *
+     * @param row The row's column values
+     * @return The combined value, empty if no source column has a value
+     */
+    public String compute(Map<String, Object> row) {
+        StringBuilder combinedValue = new StringBuilder();
+        boolean firstColumn = true;
+        for (String columnName : sourceColumns) {
+            Object columnValue = row.get(columnName);
+            if (columnValue != null) {
+                if (!firstColumn && !separator.isEmpty()) {
+                    combinedValue.append(separator);
+                }
+                combinedValue.append(columnValue.toString().trim());
+                firstColumn = false;
+            }
+        }
+        return combinedValue.toString();
+    }
+}
@@ -0,0 +1,220 @@
+package com.jnj.extracter.transform;
+
+import com.jnj.extracter.entity.ExcelData;
+
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.Set;
+
+/**
+ * Extracted rows overlaid with derived columns, without copying the rows.
+ * <p>
+ * Each derived column is computed once into its own value vector. Rows are exposed as
+ * {@link ExcelData} views created on access, whose data map reads derived columns from
+ * the vectors and every other column from the unchanged base row. Deriving another
+ * column from a {@code DerivedRows} shares the base rows and the existing vectors, so a
+ * chain of transforms costs one vector per derived column rather than one copy of
+ * every row per transform.
+ */
+public final class DerivedRows extends AbstractList<ExcelData> implements RandomAccess {
+
+    private final List<ExcelData> base;
+    private final String[] names;
+    private final Object[][] vectors;
+
+    private DerivedRows(List<ExcelData> base, String[] names, Object[][] vectors) {
+        this.base = base;
+        this.names = names;
+        this.vectors = vectors;
+    }
+
+    /**
+     * View rows as derived rows, reusing the overlay if they already are.
+     */
+    public static DerivedRows of(List<ExcelData> rows) {
+        if (rows instanceof DerivedRows) {
+            return (DerivedRows) rows;
+        }
+        // Position lookups must be constant time
+        List<ExcelData> base = rows instanceof RandomAccess ? rows : new ArrayList<>(rows);
+        return new DerivedRows(base, new String[0], new Object[0][]);
+    }
+
+    /**
+     * Add a derived column, replacing an earlier derived column of the same name.
+     */
+    public DerivedRows withColumn(CombinedColumn column) {
+        return withColumns(List.of(column));
+    }
+
+    /**
+     * Add derived columns. All of them are computed from the rows as they are before
+     * this call, so one of them never sees the value of another.
+     */
+    public DerivedRows withColumns(List<CombinedColumn> columns) {
+        int size = size();
+        Object[][] computed = new Object[columns.size()][size];
+        for (int row = 0; row < size; row++) {
+            Map<String, Object> data = new RowView(base.get(row).getData(), row);
+            for (int c = 0; c < columns.size(); c++) {
+                computed[c][row] = columns.get(c).compute(data);
+            }
+        }
+
+        List<String> newNames = new ArrayList<>(Arrays.asList(names));
+        List<Object[]> newVectors = new ArrayList<>(Arrays.asList(vectors));
+        for (int c = 0; c < columns.size(); c++) {
+            int existing = newNames.indexOf(columns.get(c).getName());
+            if (existing >= 0) {
+                newVectors.set(existing, computed[c]);
+            } else {
+                newNames.add(columns.get(c).getName());
+                newVectors.add(computed[c]);
+            }
+        }
+        return new DerivedRows(base, newNames.toArray(new String[0]), newVectors.toArray(new Object[0][]));
+    }
+
+    /**
+     * Read one value without creating a row view.
+     *
+     * @param row Row position
+     * @param column Column name, base or derived
+     * @return The value, or null if the row has no such column
+     */
+    public Object value(int row, String column) {
+        int derived = derivedIndex(column);
+        if (derived >= 0) {
+            return vectors[derived][row];
+        }
+        Map<String, Object> data = base.get(row).getData();
+        return data != null ? data.get(column) : null;
+    }
+
+    public List<String> getDerivedColumnNames() {
+        return Collections.unmodifiableList(Arrays.asList(names));
+    }
+
+    @Override
+    public ExcelData get(int index) {
+        ExcelData row = base.get(index);
+        if (names.length == 0) {
+            return row;
+        }
+        return new ExcelData(row.getFileName(), row.getSheetName(), row.getRowNumber(),
+                new RowView(row.getData(), index), row.getExtractedAt());
+    }
+
+    @Override
+    public int size() {
+        return base.size();
+    }
+
+    private int derivedIndex(String column) {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(column)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Read-only map of one row: the base row's columns followed by the derived
+     * columns, a derived column shadowing a base column of the same name.
+     */
+    private final class RowView extends AbstractMap<String, Object> {
+        private final Map<String, Object> data;
+        private final int row;
+
+        RowView(Map<String, Object> data, int row) {
+            this.data = data != null ? data : Collections.emptyMap();
+            this.row = row;
+        }
+
+        @Override
+        public Object get(Object key) {
+            int derived = key instanceof String ? derivedIndex((String) key) : -1;
+            return derived >= 0 ? vectors[derived][row] : data.get(key);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return (key instanceof String && derivedIndex((String) key) >= 0) || data.containsKey(key);
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<String, Object>> iterator() {
+                    return new EntryIterator(data.entrySet().iterator(), row);
+                }
+
+                @Override
+                public int size() {
+                    int size = data.size() + names.length;
+                    for (String name : names) {
+                        if (data.containsKey(name)) {
+                            size--;
+                        }
+                    }
+                    return size;
+                }
+            };
+        }
+    }
+
+    private final class EntryIterator implements Iterator<Map.Entry<String, Object>> {
+        private final Iterator<Map.Entry<String, Object>> baseEntries;
+        private final int row;
+        private Map.Entry<String, Object> next;
+        private int derived;
+
+        EntryIterator(Iterator<Map.Entry<String, Object>> baseEntries, int row) {
+            this.baseEntries = baseEntries;
+            this.row = row;
+            advance();
+        }
+
+        private void advance() {
+            next = null;
+            while (baseEntries.hasNext()) {
+                Map.Entry<String, Object> entry = baseEntries.next();
+                if (derivedIndex(entry.getKey()) < 0) {
+                    // Views are read-only, so base entries are not handed out directly
+                    next = new AbstractMap.SimpleImmutableEntry<>(entry);
+                    return;
+                }
+            }
+            if (derived < names.length) {
+                next = new AbstractMap.SimpleImmutableEntry<>(names[derived], vectors[derived][row]);
+                derived++;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Map.Entry<String, Object> next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            Map.Entry<String, Object> current = next;
+            advance();
+            return current;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.jnj.extracter.transform;
+
+import com.jnj.extracter.util.StreamingSheetReader.SheetRow;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * The master rows partitioned into one group per entity and payrun, in the order the
+ * groups first appear in the master. Filled in a single pass as the streaming reader
+ * hands over rows; only the columns the plan reads are decoded and kept.
+ */
+public final class JournalBatch implements Consumer<SheetRow> {
+
+    private final JournalMapping mapping;
+    private JournalPlan plan;
+    private final Map<List<String>, List<SheetRow>> groups = new LinkedHashMap<>();
+
+    JournalBatch(JournalMapping mapping) {
+        this.mapping = mapping;
+    }
+
+    /**
+     * Every header cell is needed; after that only the mapped columns.
+     */
+    boolean reads(int column) {
+        return plan == null || plan.reads(column);
+    }
+
+    @Override
+    public void accept(SheetRow row) {
+        if (plan == null) {
+            plan = mapping.compile(row);
+            return;
+        }
+        groups.computeIfAbsent(List.of(plan.entity(row), plan.payrun(row)), key -> new ArrayList<>()).add(row);
+    }
+
+    JournalPlan getPlan() {
+        return plan;
+    }
+
+    /**
+     * @return Rows per [entity, payrun] key
+     */
+    Map<List<String>, List<SheetRow>> getGroups() {
+        return Collections.unmodifiableMap(groups);
+    }
+
+    public int getJournalCount() {
+        return groups.size();
+    }
+}
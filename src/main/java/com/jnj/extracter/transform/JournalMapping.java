@@ -0,0 +1,92 @@
+package com.jnj.extracter.transform;
+
+import com.jnj.extracter.util.StreamingSheetReader.SheetRow;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Declares how a journal is filled from master data rows: which master column
+ * feeds each journal column and which master columns make up the info row.
+ * Master columns are matched to the master header case-insensitively. A mapping is
+ * compiled into a {@link JournalPlan} once per distinct master header.
+ */
+@Getter
+public final class JournalMapping {
+
+    /** The journal layout generated from the Detailed Costing master. */
+    public static final JournalMapping DEFAULT = new JournalMapping(
+            List.of(
+                    new Column("Account Code", "Account"),
+                    new Column("Account Name", "Account"),
+                    new Column("Doc Currency Amount", "Amount"),
+                    new Column("Local Currency Amount", "Amount"),
+                    new Column("Tax Code", "Txn_Code"),
+                    new Column("Calculated Tax", "Txn_Cat"),
+                    new Column("Assignment", "Txn_Grp"),
+                    new Column("Line Item Text", "Posn_Title"),
+                    new Column("Cost Centre", "Cost_Prd"),
+                    new Column("Profit Centre", "OU_Lvl_1")),
+            "Company", "Entity", "Paid_Date", "Pay_No", "Date_Frm", "Date_To", "AUD");
+
+    private final List<Column> columns;
+    private final String companyColumn;
+    private final String entityColumn;
+    private final String paidDateColumn;
+    private final String payrunColumn;
+    private final String periodFromColumn;
+    private final String periodToColumn;
+    private final String currency;
+    @Getter(AccessLevel.NONE)
+    private final Map<List<String>, JournalPlan> plans = new ConcurrentHashMap<>();
+
+    public JournalMapping(List<Column> columns, String companyColumn, String entityColumn, String paidDateColumn,
+                          String payrunColumn, String periodFromColumn, String periodToColumn, String currency) {
+        this.columns = List.copyOf(columns);
+        this.companyColumn = companyColumn;
+        this.entityColumn = entityColumn;
+        this.paidDateColumn = paidDateColumn;
+        this.payrunColumn = payrunColumn;
+        this.periodFromColumn = periodFromColumn;
+        this.periodToColumn = periodToColumn;
+        this.currency = currency;
+    }
+
+    /**
+     * Get the plan for a master header, compiling it on first use.
+     *
+     * @param masterHeaders The master header cells, in order
+     */
+    public JournalPlan compile(List<String> masterHeaders) {
+        return plans.computeIfAbsent(List.copyOf(masterHeaders), headers -> new JournalPlan(this, headers));
+    }
+
+    /**
+     * Get the plan for the master header row as read by the streaming reader.
+     */
+    public JournalPlan compile(SheetRow headerRow) {
+        List<String> headers = new ArrayList<>(headerRow.getCellCount());
+        for (int i = 0; i < headerRow.getCellCount(); i++) {
+            headers.add(String.valueOf(headerRow.valueAt(i)));
+        }
+        return compile(headers);
+    }
+
+    /**
+     * One journal column and the master column it is copied from.
+     */
+    @Getter
+    public static final class Column {
+        private final String journalHeader;
+        private final String masterColumn;
+
+        public Column(String journalHeader, String masterColumn) {
+            this.journalHeader = journalHeader;
+            this.masterColumn = masterColumn;
+        }
+    }
+}
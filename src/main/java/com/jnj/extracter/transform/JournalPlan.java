@@ -0,0 +1,120 @@
+package com.jnj.extracter.transform;
+
+import com.jnj.extracter.util.StreamingSheetReader.SheetRow;
+
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * A {@link JournalMapping} resolved against one master header: every mapped master
+ * column is reduced to its position, so mapping a row is a series of array reads.
+ * Master columns missing from the header map to empty values. Plans are immutable
+ * and shared by concurrent journal generations.
+ */
+public final class JournalPlan {
+
+    private final List<String> journalHeaders;
+    private final int[] sources;
+    private final int company;
+    private final int entity;
+    private final int paidDate;
+    private final int payrun;
+    private final int periodFrom;
+    private final int periodTo;
+    private final String currency;
+    private final BitSet columns = new BitSet();
+
+    JournalPlan(JournalMapping mapping, List<String> masterHeaders) {
+        List<JournalMapping.Column> columns = mapping.getColumns();
+        this.journalHeaders = columns.stream().map(JournalMapping.Column::getJournalHeader).toList();
+        this.sources = new int[columns.size()];
+        for (int i = 0; i < sources.length; i++) {
+            sources[i] = indexOf(masterHeaders, columns.get(i).getMasterColumn());
+        }
+        this.company = indexOf(masterHeaders, mapping.getCompanyColumn());
+        this.entity = indexOf(masterHeaders, mapping.getEntityColumn());
+        this.paidDate = indexOf(masterHeaders, mapping.getPaidDateColumn());
+        this.payrun = indexOf(masterHeaders, mapping.getPayrunColumn());
+        this.periodFrom = indexOf(masterHeaders, mapping.getPeriodFromColumn());
+        this.periodTo = indexOf(masterHeaders, mapping.getPeriodToColumn());
+        this.currency = mapping.getCurrency();
+        for (int source : sources) {
+            markRead(source);
+        }
+        for (int info : new int[] {company, entity, paidDate, payrun, periodFrom, periodTo}) {
+            markRead(info);
+        }
+    }
+
+    public List<String> getJournalHeaders() {
+        return journalHeaders;
+    }
+
+    /**
+     * @return Whether the plan reads the master column at the sheet column index
+     */
+    public boolean reads(int column) {
+        return columns.get(column);
+    }
+
+    /**
+     * Map a master row to its journal values.
+     *
+     * @param row The master row, read with formatted cell decoding
+     * @param values Receives one value per journal column
+     */
+    public void map(SheetRow row, String[] values) {
+        for (int i = 0; i < sources.length; i++) {
+            values[i] = value(row, sources[i]);
+        }
+    }
+
+    /**
+     * Build the journal info row from a master row: company and entity, paid date,
+     * currency, payrun and period.
+     */
+    public String[] infoRow(SheetRow row) {
+        return new String[] {
+                (value(row, company) + " " + value(row, entity)).trim(),
+                value(row, paidDate),
+                currency,
+                value(row, payrun),
+                value(row, periodFrom) + " - " + value(row, periodTo)
+        };
+    }
+
+    public String entity(SheetRow row) {
+        return value(row, entity);
+    }
+
+    public String payrun(SheetRow row) {
+        return value(row, payrun);
+    }
+
+    private void markRead(int column) {
+        if (column >= 0) {
+            columns.set(column);
+        }
+    }
+
+    private static String value(SheetRow row, int column) {
+        if (column < 0) {
+            return "";
+        }
+        Object value = row.getValue(column);
+        return value != null ? value.toString() : "";
+    }
+
+    /**
+     * A column's position in the header list doubles as its sheet column index, which
+     * holds for master files whose header row has no gaps.
+     */
+    private static int indexOf(List<String> headers, String column) {
+        for (int i = 0; i < headers.size(); i++) {
+            if (headers.get(i).equalsIgnoreCase(column)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,116 @@
+package com.jnj.extracter.transform;
+
+import com.jnj.extracter.util.StreamingExcelWriter;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.FillPatternType;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.IndexedColors;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Writes one journal workbook row by row with constant heap: a bold title merged
+ * across the journal columns, a blank row, the highlighted info row, the highlighted
+ * journal header and then the data rows. The rows above the header are the
+ * preamble of a {@link StreamingExcelWriter}, which does the windowing and the
+ * column sizing.
+ */
+public final class JournalWriter implements Closeable {
+
+    private static final String TITLE = "JOURNAL ENTRY 1";
+
+    private final StreamingExcelWriter writer;
+
+    /**
+     * Start a journal and write everything above its data rows.
+     *
+     * @param infoRow Company and entity, paid date, currency, payrun and period
+     * @param headers Journal column headers
+     * @param rowWindow Number of rows kept in memory before they are flushed to disk
+     */
+    public JournalWriter(String[] infoRow, List<String> headers, int rowWindow) {
+        this.writer = new StreamingExcelWriter("Journal", headers, rowWindow,
+                sheet -> writePreamble(sheet, infoRow, headers.size()));
+    }
+
+    private static StreamingExcelWriter.RowStyles writePreamble(StreamingExcelWriter sheet, String[] infoRow,
+                                                                 int columnCount) {
+        // Data wrap style
+        CellStyle wrapStyle = sheet.createCellStyle();
+        wrapStyle.setWrapText(true);
+
+        // Info row style (yellow + wrap)
+        CellStyle infoStyle = sheet.createCellStyle();
+        infoStyle.setWrapText(true);
+        infoStyle.setFillForegroundColor(IndexedColors.LIGHT_YELLOW.getIndex());
+        infoStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+
+        // Header row style (blue + wrap + bold)
+        CellStyle headerStyle = sheet.createCellStyle();
+        headerStyle.setWrapText(true);
+        headerStyle.setFillForegroundColor(IndexedColors.LIGHT_CORNFLOWER_BLUE.getIndex());
+        headerStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+        Font headerFont = sheet.createFont();
+        headerFont.setBold(true);
+        headerStyle.setFont(headerFont);
+
+        // Title (bold, merged across the journal columns)
+        CellStyle titleStyle = sheet.createCellStyle();
+        Font titleFont = sheet.createFont();
+        titleFont.setBold(true);
+        titleFont.setFontHeightInPoints((short) 14);
+        titleStyle.setFont(titleFont);
+        int titleRow = sheet.writePreambleRow(new Object[]{TITLE}, titleStyle);
+        sheet.mergeCells(titleRow, 0, Math.max(columnCount - 1, 1));
+
+        // Blank row
+        sheet.writePreambleRow(new Object[0], null);
+
+        sheet.writePreambleRow(text(infoRow), infoStyle);
+        return new StreamingExcelWriter.RowStyles(headerStyle, wrapStyle);
+    }
+
+    /**
+     * Append a data row.
+     *
+     * @param values One value per journal column; null leaves the cell empty text
+     */
+    public void writeRow(String[] values) {
+        writer.writeRow(text(values));
+    }
+
+    /**
+     * Size the columns and write the workbook.
+     *
+     * @param out Destination; not closed
+     */
+    public void write(OutputStream out) throws IOException {
+        writer.write(out);
+    }
+
+    public int getRowsWritten() {
+        return writer.getRowsWritten();
+    }
+
+    /**
+     * Delete the temporary files backing the flushed rows.
+     */
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+
+    /**
+     * Journal cells are all text; missing values are written as empty text.
+     */
+    private static Object[] text(String[] values) {
+        Object[] cells = new Object[values.length];
+        for (int i = 0; i < values.length; i++) {
+            cells[i] = values[i] != null ? values[i] : "";
+        }
+        return cells;
+    }
+}
@@ -0,0 +1,71 @@
+package com.jnj.extracter.transform;
+
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The master data of one file version: the last master row of every entity, keyed
+ * by entity. Rows are held as value arrays aligned with the header list rather than
+ * as one map per row, and the index is immutable so it can be shared by concurrent
+ * transforms.
+ */
+public final class MasterDataIndex {
+
+    @Getter
+    private final String fingerprint;
+    @Getter
+    private final String partSignature;
+    @Getter
+    private final List<String> headers;
+    private final Map<String, String[]> rowsByEntity;
+
+    MasterDataIndex(String fingerprint, String partSignature, List<String> headers, Map<String, String[]> rowsByEntity) {
+        this.fingerprint = fingerprint;
+        this.partSignature = partSignature;
+        this.headers = List.copyOf(headers);
+        this.rowsByEntity = Collections.unmodifiableMap(rowsByEntity);
+    }
+
+    static MasterDataIndex empty(String fingerprint) {
+        return new MasterDataIndex(fingerprint, null, List.of(), Map.of());
+    }
+
+    /**
+     * The same rows, valid for a later version of the file whose sheet part is unchanged.
+     */
+    MasterDataIndex revalidate(String newFingerprint) {
+        return new MasterDataIndex(newFingerprint, partSignature, headers, rowsByEntity);
+    }
+
+    /**
+     * Get the master row of an entity as header → value. The map is a fresh copy
+     * the caller may modify.
+     *
+     * @param entity The entity code
+     * @return The row, or null if the master has no row for the entity
+     */
+    public Map<String, String> get(String entity) {
+        String[] values = rowsByEntity.get(entity);
+        if (values == null) {
+            return null;
+        }
+        Map<String, String> row = new HashMap<>();
+        for (int i = 0; i < headers.size(); i++) {
+            row.put(headers.get(i), values[i]);
+        }
+        return row;
+    }
+
+    public Set<String> getEntities() {
+        return rowsByEntity.keySet();
+    }
+
+    public int size() {
+        return rowsByEntity.size();
+    }
+}
@@ -0,0 +1,123 @@
+package com.jnj.extracter.transform;
+
+import com.jnj.extracter.util.FileFingerprint;
+import com.jnj.extracter.util.StreamingSheetReader;
+import com.jnj.extracter.util.StreamingSheetReader.CellDecoding;
+import com.jnj.extracter.util.StreamingSheetReader.SheetRow;
+import com.jnj.extracter.util.WorkbookParts;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Parses master data files into {@link MasterDataIndex}es and keeps them, so journal
+ * transforms share one parse per file version. The first sheet is read with the
+ * streaming reader in {@link CellDecoding#TEXT} mode, which yields the same text as
+ * {@code Cell.toString()} without opening the workbook. An index is reused while the
+ * file fingerprint is unchanged, and also after a rewrite that left the sheet part,
+ * shared strings and styles unchanged.
+ */
+@Slf4j
+@Service
+public class MasterDataService {
+
+    private static final String ENTITY_HEADER = "Entity";
+
+    private final Map<String, MasterDataIndex> indexes = new ConcurrentHashMap<>();
+
+    /**
+     * Get the master data of a file, parsing it only if it changed since it was last parsed.
+     *
+     * @param file The master data workbook
+     * @return The index; if the file cannot be read, the index last read from it,
+     * or an empty index if it was never read
+     */
+    public MasterDataIndex getIndex(File file) {
+        String fingerprint = FileFingerprint.of(file);
+        MasterDataIndex cached = indexes.get(file.getAbsolutePath());
+        if (cached != null && cached.getFingerprint().equals(fingerprint)) {
+            return cached;
+        }
+        // Concurrent callers for the same file wait for a single parse
+        MasterDataIndex index = indexes.compute(file.getAbsolutePath(), (path, current) -> {
+            if (current != null && current.getFingerprint().equals(fingerprint)) {
+                return current;
+            }
+            try {
+                return load(file, fingerprint, current);
+            } catch (IOException | RuntimeException e) {
+                log.error("Error reading master data file '{}': {}", file.getName(), e.getMessage(), e);
+                // Failures are not remembered: the last good index stays cached under its
+                // own fingerprint, so callers keep using it and the next call retries
+                return current;
+            }
+        });
+        return index != null ? index : MasterDataIndex.empty("");
+    }
+
+    private MasterDataIndex load(File file, String fingerprint, MasterDataIndex previous) throws IOException {
+        long start = System.currentTimeMillis();
+        WorkbookParts parts = WorkbookParts.read(file);
+        if (parts.getSheets().isEmpty() || !parts.getSheets().get(0).isWorksheet()) {
+            log.warn("Master data file '{}' has no leading worksheet", file.getName());
+            return MasterDataIndex.empty(fingerprint);
+        }
+        String sheetName = parts.getSheets().get(0).getName();
+        String partSignature = parts.sheetSignature(sheetName);
+        if (previous != null && partSignature != null && partSignature.equals(previous.getPartSignature())) {
+            log.info("Master data sheet of '{}' is unchanged, keeping {} entities", file.getName(), previous.size());
+            return previous.revalidate(fingerprint);
+        }
+
+        List<SheetRow> rows = StreamingSheetReader.read(file, parts, List.of(sheetName), CellDecoding.TEXT)
+                .get(sheetName);
+        // A file that changed while it was read is indexed but not matched again
+        boolean stable = fingerprint.equals(FileFingerprint.of(file));
+        MasterDataIndex index = buildIndex(rows, stable ? fingerprint : "", stable ? partSignature : null);
+        log.info("Indexed {} master data entities from '{}' in {} ms", index.size(), file.getName(),
+                System.currentTimeMillis() - start);
+        return index;
+    }
+
+    /**
+     * Index the rows by entity. Headers are the header row's cells in order, data
+     * values are read by header position, and the last row of an entity wins.
+     */
+    private static MasterDataIndex buildIndex(List<SheetRow> rows, String fingerprint, String partSignature) {
+        if (rows.isEmpty()) {
+            return MasterDataIndex.empty(fingerprint);
+        }
+        SheetRow headerRow = rows.get(0);
+        List<String> headers = new ArrayList<>(headerRow.getCellCount());
+        int entityColumn = -1;
+        for (int i = 0; i < headerRow.getCellCount(); i++) {
+            String header = (String) headerRow.valueAt(i);
+            if (header.equalsIgnoreCase(ENTITY_HEADER)) {
+                entityColumn = headers.size();
+            }
+            headers.add(header);
+        }
+
+        Map<String, String[]> rowsByEntity = new HashMap<>();
+        for (int r = 1; r < rows.size(); r++) {
+            SheetRow row = rows.get(r);
+            String[] values = new String[headers.size()];
+            for (int i = 0; i < values.length; i++) {
+                Object value = row.getValue(i);
+                values[i] = value != null ? (String) value : "";
+            }
+            String entity = entityColumn >= 0 ? values[entityColumn] : null;
+            if (entity != null && !entity.isEmpty()) {
+                rowsByEntity.put(entity, values);
+            }
+        }
+        return new MasterDataIndex(fingerprint, partSignature, headers, rowsByEntity);
+    }
+}
@@ -1,16 +1,41 @@
 
 package com.jnj.extracter.transform;
 
+import com.jnj.extracter.config.ExcelProcessingConfig;
+import com.jnj.extracter.jfr.TransformEvent;
+import com.jnj.extracter.service.MetricsService;
+import com.jnj.extracter.util.StreamingSheetReader;
+import com.jnj.extracter.util.StreamingSheetReader.CellDecoding;
+import com.jnj.extracter.util.StreamingSheetReader.SheetRow;
+import com.jnj.extracter.util.WorkbookParts;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.output.CountingOutputStream;
 import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.ss.usermodel.DataFormatter;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.springframework.stereotype.Service;
 
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
+@Slf4j
 @Service
 public class Transform {
 
@@ -18,6 +43,30 @@ public class Transform {
 	private static final String JOURNAL_FILE = "excel/Journal.xlsx";
 	private static final String OUTPUT_FILE = "excel/temp/Detailed Costing_transformed.xlsx";
 
+	private static final String BATCH_MANIFEST = "journals.csv";
+	private static final String JOURNAL_TRANSFORM = "journal";
+
+	private final MasterDataService masterDataService;
+	private final ExcelProcessingConfig config;
+	private final MetricsService metricsService;
+	private final ExecutorService journalExecutor;
+	private final int journalThreads;
+
+	public Transform(MasterDataService masterDataService, ExcelProcessingConfig config, MetricsService metricsService) {
+		this.masterDataService = masterDataService;
+		this.config = config;
+		this.metricsService = metricsService;
+		int threads = Math.max(1, config.getJournalBatchThreads());
+		this.journalThreads = threads;
+		this.journalExecutor = metricsService.monitorExecutor(new ThreadPoolExecutor(threads, threads, 0L,
+			TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>()), "journalExecutor");
+	}
+
+	@PreDestroy
+	void shutdown() {
+		journalExecutor.shutdownNow();
+	}
+
 	public String transformJournalWithMaster() {
 		try (
 			FileInputStream journalFis = new FileInputStream(new File(JOURNAL_FILE));
@@ -25,8 +74,8 @@ public class Transform {
 			Workbook outputWb = new XSSFWorkbook();
 			FileOutputStream fos = new FileOutputStream(new File(OUTPUT_FILE));
 		) {
-			// Load master data
-			Map<String, Map<String, String>> masterData = loadMasterData(MASTER_FILE);
+			// Load master data, parsed only when the master file changed
+			MasterDataIndex masterData = masterDataService.getIndex(new File(MASTER_FILE));
 			Sheet journalSheet = journalWb.getSheetAt(0);
 			Sheet outputSheet = outputWb.createSheet("Transformed");
 
@@ -101,184 +150,278 @@ public class Transform {
 	}
 
 
-	public byte[] generateJournalFromMaster() {
-		try (
-			FileInputStream masterFis = new FileInputStream(new File(MASTER_FILE));
-			Workbook masterWb = new XSSFWorkbook(masterFis);
-			Workbook outputWb = new XSSFWorkbook();
-			java.io.ByteArrayOutputStream baos = new java.io.ByteArrayOutputStream();
-		) {
-			// Prepare styles
-			// Data wrap style
-			CellStyle wrapStyle = outputWb.createCellStyle();
-			wrapStyle.setWrapText(true);
-
-			// Info row style (yellow + wrap)
-			CellStyle infoStyle = outputWb.createCellStyle();
-			infoStyle.setWrapText(true);
-			infoStyle.setFillForegroundColor(IndexedColors.LIGHT_YELLOW.getIndex());
-			infoStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
-
-			// Header row style (blue + wrap + bold)
-			CellStyle headerStyle = outputWb.createCellStyle();
-			headerStyle.setWrapText(true);
-			headerStyle.setFillForegroundColor(IndexedColors.LIGHT_CORNFLOWER_BLUE.getIndex());
-			headerStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
-			Font headerFont = outputWb.createFont();
-			headerFont.setBold(true);
-			headerStyle.setFont(headerFont);
-			Sheet masterSheet = masterWb.getSheetAt(0);
-			Sheet outputSheet = outputWb.createSheet("Journal");
-
-			// Define the exact headers as in your screenshot
-			String[] journalHeaders = new String[] {
-				"Account Code", "Account Name", "Doc Currency Amount", "Local Currency Amount", "Tax Code", "Calculated Tax", "Assignment", "Line Item Text", "Cost Centre", "Profit Centre"
-			};
-
-			// Prepare to read master data
-			Iterator<Row> masterRows = masterSheet.iterator();
-			Row masterHeader = masterRows.hasNext() ? masterRows.next() : null;
-			List<String> headers = new ArrayList<>();
-			if (masterHeader != null) {
-				for (Cell cell : masterHeader) {
-					headers.add(cell.getStringCellValue());
-				}
+	/**
+	 * Build the journal from the master file. The master sheet is streamed row by row,
+	 * each row is mapped through the compiled {@link JournalMapping} plan and appended
+	 * to a streaming workbook, so neither side is held in memory. The caller writes the
+	 * journal straight to its destination and closes it.
+	 *
+	 * @return The journal, or null if the master has no data rows or cannot be read
+	 */
+	public JournalWriter generateJournalFromMaster() {
+		File masterFile = new File(MASTER_FILE);
+		JournalPipeline pipeline = new JournalPipeline(JournalMapping.DEFAULT, config.getWriteRowWindow());
+		long start = System.currentTimeMillis();
+		try {
+			WorkbookParts parts = WorkbookParts.read(masterFile);
+			String masterSheet = parts.getSheets().get(0).getName();
+			StreamingSheetReader.ReadTimings timings = new StreamingSheetReader.ReadTimings();
+			TransformEvent event = new TransformEvent();
+			event.begin();
+			StreamingSheetReader.read(masterFile, parts, masterSheet, CellDecoding.FORMATTED, pipeline::reads, pipeline,
+				timings);
+			// The parse also maps and writes every row, so only the stages before it are recorded
+			Tags tags = MetricsService.fileTags(masterFile, MetricsService.Reader.STREAMING);
+			metricsService.recordPhase(MetricsService.Phase.OPEN, tags, timings.getOpenNanos());
+			metricsService.recordPhase(MetricsService.Phase.SHARED_STRINGS, tags, timings.getSharedStringsNanos());
+			if (pipeline.journal == null) {
+				return null;
 			}
+			event.report(JOURNAL_TRANSFORM, masterFile.getName(), pipeline.journal.getRowsWritten());
+			log.info("Generated journal with {} rows from '{}' in {} ms", pipeline.journal.getRowsWritten(),
+				masterFile.getName(), System.currentTimeMillis() - start);
+			return pipeline.journal;
+		} catch (Exception e) {
+			log.error("Error generating journal from '{}'", masterFile.getName(), e);
+			metricsService.recordProcessingError("JournalGeneration");
+			closeQuietly(pipeline.journal);
+			return null;
+		}
+	}
 
-			int outputRowNum = 0;
-			// Row 1: JOURNAL ENTRY 1 (bold, merged)
-			Row row0 = outputSheet.createRow(outputRowNum++);
-			row0.createCell(0).setCellValue("JOURNAL ENTRY 1");
-			outputSheet.addMergedRegion(new org.apache.poi.ss.util.CellRangeAddress(0, 0, 0, journalHeaders.length - 1));
-			CellStyle boldStyle = outputWb.createCellStyle();
-			Font font = outputWb.createFont();
-			font.setBold(true);
-			font.setFontHeightInPoints((short)14);
-			boldStyle.setFont(font);
-			row0.getCell(0).setCellStyle(boldStyle);
-
-			// Row 2: blank
-			outputSheet.createRow(outputRowNum++);
-
-			// Use the first data row for the info row (row 3)
-			Row firstDataRow = masterRows.hasNext() ? masterRows.next() : null;
-			if (firstDataRow == null) {
-				outputWb.write(baos);
-				return new byte[0];
-			}
-			String company = getCellValueByHeader(firstDataRow, headers, "Company");
-			String entity = getCellValueByHeader(firstDataRow, headers, "Entity");
-			String paidDate = getCellValueByHeader(firstDataRow, headers, "Paid_Date");
-			String currency = "AUD"; // Default/fixed, update if you have a column
-			String payrun = getCellValueByHeader(firstDataRow, headers, "Pay_No");
-			String period = getCellValueByHeader(firstDataRow, headers, "Date_Frm") + " - " + getCellValueByHeader(firstDataRow, headers, "Date_To");
-
-
-			// Row 3: Company + Entity | Paid Date | Currency | Payrun | Period (highlighted)
-			Row infoRow = outputSheet.createRow(outputRowNum++);
-			infoRow.createCell(0).setCellValue((company + " " + entity).trim());
-			infoRow.createCell(1).setCellValue(paidDate); // Paid Date as string
-			infoRow.createCell(2).setCellValue(currency);
-			infoRow.createCell(3).setCellValue(payrun);
-			infoRow.createCell(4).setCellValue(period);
-			for (int i = 0; i < 5; i++) {
-				infoRow.getCell(i).setCellStyle(infoStyle);
-			}
+	/**
+	 * Partition the master rows into one journal per entity and payrun in a single
+	 * streaming pass over the master sheet.
+	 *
+	 * @return The partitioned rows, or null if the master has no data rows or cannot be read
+	 */
+	public JournalBatch partitionJournalsFromMaster() {
+		File masterFile = new File(MASTER_FILE);
+		JournalBatch batch = new JournalBatch(JournalMapping.DEFAULT);
+		long start = System.currentTimeMillis();
+		try {
+			WorkbookParts parts = WorkbookParts.read(masterFile);
+			String masterSheet = parts.getSheets().get(0).getName();
+			StreamingSheetReader.ReadTimings timings = new StreamingSheetReader.ReadTimings();
+			StreamingSheetReader.read(masterFile, parts, masterSheet, CellDecoding.FORMATTED, batch::reads, batch, timings);
+			Tags tags = MetricsService.fileTags(masterFile, MetricsService.Reader.STREAMING);
+			metricsService.recordPhase(MetricsService.Phase.OPEN, tags, timings.getOpenNanos());
+			metricsService.recordPhase(MetricsService.Phase.SHARED_STRINGS, tags, timings.getSharedStringsNanos());
+			metricsService.recordPhase(MetricsService.Phase.SHEET_PARSE, tags, timings.getParseNanos());
+			log.info("Partitioned '{}' into {} journals in {} ms", masterFile.getName(), batch.getJournalCount(),
+				System.currentTimeMillis() - start);
+			return batch.getJournalCount() > 0 ? batch : null;
+		} catch (Exception e) {
+			log.error("Error partitioning journals from '{}'", masterFile.getName(), e);
+			metricsService.recordProcessingError("JournalPartitioning");
+			return null;
+		}
+	}
 
-			// Row 4: Journal headers (highlighted)
-			Row headerRow = outputSheet.createRow(outputRowNum++);
-			for (int i = 0; i < journalHeaders.length; i++) {
-				Cell cell = headerRow.createCell(i, CellType.STRING);
-				cell.setCellValue(journalHeaders[i]);
-				cell.setCellStyle(headerStyle);
-			}
+	/**
+	 * Generate the journals of a batch concurrently on the bounded journal pool and
+	 * write each into a ZIP entry as soon as it completes, so the first journals reach
+	 * the client while later ones are still being built. Each finished journal holds a
+	 * streaming workbook until the ZIP reaches it, and the ZIP moves at the client's
+	 * pace, so only about as many journals as the pool has threads are generated ahead
+	 * of it. The ZIP ends with a CSV of
+	 * the rows and generation time of every journal. A journal that fails is listed
+	 * there with its error instead of aborting the batch.
+	 *
+	 * @param batch The partitioned master rows
+	 * @param out Destination of the ZIP; finished but not closed
+	 */
+	public void writeJournalBatch(JournalBatch batch, OutputStream out) throws IOException {
+		long start = System.currentTimeMillis();
+		CompletionService<GeneratedJournal> completion = new ExecutorCompletionService<>(journalExecutor);
+		List<Future<GeneratedJournal>> pending = new ArrayList<>();
+		Iterator<Map.Entry<List<String>, List<SheetRow>>> groups = batch.getGroups().entrySet().iterator();
+		while (pending.size() < journalThreads && groups.hasNext()) {
+			pending.add(submitJournal(completion, batch.getPlan(), groups.next()));
+		}
 
-			// Data rows: for all rows in master, fill mapped columns
-			// Mapping: Account Code=Account, Account Name=Emp_Name, Doc Currency Amount=Amount, Local Currency Amount=Amount, Tax Code=Txn_Code, Calculated Tax=Txn_Cat, Assignment=Txn_Grp, Line Item Text=Posn_Title, Cost Centre=Cost_Prd, Profit Centre=OU_Lvl_1
-			if (firstDataRow != null) {
-				List<Row> allRows = new ArrayList<>();
-				allRows.add(firstDataRow);
-				while (masterRows.hasNext()) {
-					allRows.add(masterRows.next());
+		StringBuilder manifest = new StringBuilder("entity,payrun,file,rows,ms,error\n");
+		Set<String> entryNames = new HashSet<>();
+		ZipOutputStream zip = new ZipOutputStream(out);
+		try {
+			for (int i = 0; i < batch.getJournalCount(); i++) {
+				Future<GeneratedJournal> done = completion.take();
+				pending.remove(done);
+				if (groups.hasNext()) {
+					pending.add(submitJournal(completion, batch.getPlan(), groups.next()));
 				}
-				for (Row masterRow : allRows) {
-					Row dataRow = outputSheet.createRow(outputRowNum++);
-					String[] values = new String[] {
-						getCellValueByHeader(masterRow, headers, "Account"), // Account Code
-						getCellValueByHeader(masterRow, headers, "Account"), // Account Name
-						getCellValueByHeader(masterRow, headers, "Amount"), // Doc Currency Amount
-						getCellValueByHeader(masterRow, headers, "Amount"), // Local Currency Amount
-						getCellValueByHeader(masterRow, headers, "Txn_Code"), // Tax Code
-						getCellValueByHeader(masterRow, headers, "Txn_Cat"), // Calculated Tax
-						getCellValueByHeader(masterRow, headers, "Txn_Grp"), // Assignment
-						getCellValueByHeader(masterRow, headers, "Posn_Title"), // Line Item Text
-						getCellValueByHeader(masterRow, headers, "Cost_Prd"), // Cost Centre
-						getCellValueByHeader(masterRow, headers, "OU_Lvl_1") // Profit Centre
-					};
-					for (int i = 0; i < values.length; i++) {
-						Cell cell = dataRow.createCell(i, CellType.STRING);
-						cell.setCellValue(values[i] != null ? values[i] : "");
-						cell.setCellStyle(wrapStyle);
+				GeneratedJournal journal = done.get();
+				String entryName = "";
+				if (journal.writer != null) {
+					entryName = uniqueEntryName(journal.entity, journal.payrun, entryNames);
+					try (JournalWriter writer = journal.writer) {
+						zip.putNextEntry(new ZipEntry(entryName));
+						long writeStart = System.nanoTime();
+						CountingOutputStream entry = new CountingOutputStream(zip);
+						writer.write(entry);
+						long writeNanos = System.nanoTime() - writeStart;
+						zip.closeEntry();
+						Tags tags = MetricsService.fileTags(entryName, entry.getByteCount(), MetricsService.Reader.NONE);
+						metricsService.recordPhase(MetricsService.Phase.WRITE, tags, writeNanos);
+						metricsService.recordThroughput(tags, journal.rows, entry.getByteCount(), writeNanos);
 					}
 				}
+				manifest.append(csv(journal.entity)).append(',').append(csv(journal.payrun)).append(',')
+					.append(csv(entryName)).append(',').append(journal.rows).append(',').append(journal.timeMs)
+					.append(',').append(csv(journal.error != null ? journal.error : "")).append('\n');
+			}
+			zip.putNextEntry(new ZipEntry(BATCH_MANIFEST));
+			zip.write(manifest.toString().getBytes(StandardCharsets.UTF_8));
+			zip.closeEntry();
+			zip.finish();
+			log.info("Wrote {} journals in {} ms", batch.getJournalCount(), System.currentTimeMillis() - start);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while generating journals", e);
+		} catch (ExecutionException e) {
+			throw new IOException("Journal generation failed", e.getCause());
+		} finally {
+			// The client went away or generation failed: release the journals not yet sent
+			for (Future<GeneratedJournal> future : pending) {
+				discard(future);
 			}
+		}
+	}
+
+	private Future<GeneratedJournal> submitJournal(CompletionService<GeneratedJournal> completion, JournalPlan plan,
+			Map.Entry<List<String>, List<SheetRow>> group) {
+		return completion.submit(() -> generateJournal(plan, group.getKey(), group.getValue()));
+	}
 
-			// Auto-size all columns to fit the longest text
-			for (int i = 0; i < journalHeaders.length; i++) {
-				outputSheet.autoSizeColumn(i);
+	private GeneratedJournal generateJournal(JournalPlan plan, List<String> key, List<SheetRow> rows) {
+		long start = System.currentTimeMillis();
+		TransformEvent event = new TransformEvent();
+		event.begin();
+		JournalWriter writer = null;
+		try {
+			writer = new JournalWriter(plan.infoRow(rows.get(0)), plan.getJournalHeaders(), config.getWriteRowWindow());
+			String[] values = new String[plan.getJournalHeaders().size()];
+			for (SheetRow row : rows) {
+				plan.map(row, values);
+				writer.writeRow(values);
 			}
+			event.report(JOURNAL_TRANSFORM, key.get(0) + "/" + key.get(1), rows.size());
+			long timeMs = System.currentTimeMillis() - start;
+			metricsService.recordJournalGenerated(timeMs, rows.size());
+			log.info("Generated journal for entity '{}' payrun '{}' with {} rows in {} ms", key.get(0), key.get(1),
+				rows.size(), timeMs);
+			return new GeneratedJournal(key.get(0), key.get(1), writer, rows.size(), timeMs, null);
+		} catch (RuntimeException e) {
+			log.error("Error generating journal for entity '{}' payrun '{}'", key.get(0), key.get(1), e);
+			metricsService.recordProcessingError("JournalGeneration");
+			closeQuietly(writer);
+			return new GeneratedJournal(key.get(0), key.get(1), null, rows.size(), System.currentTimeMillis() - start,
+				e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+		}
+	}
 
-			outputWb.write(baos);
-			return baos.toByteArray();
-		} catch (Exception e) {
-			e.printStackTrace();
-			return new byte[0];
+	private static void discard(Future<GeneratedJournal> future) {
+		future.cancel(true);
+		if (future.isCancelled()) {
+			return;
+		}
+		try {
+			closeQuietly(future.get().writer);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException ignored) {
+			// Nothing was built, so there is nothing to release
 		}
 	}
 
-	private Map<String, Map<String, String>> loadMasterData(String filePath) {
-		Map<String, Map<String, String>> masterData = new HashMap<>();
-		try (FileInputStream fis = new FileInputStream(new File(filePath));
-			 Workbook wb = new XSSFWorkbook(fis)) {
-			Sheet sheet = wb.getSheetAt(0);
-			Iterator<Row> rowIterator = sheet.iterator();
-			Row headerRow = rowIterator.hasNext() ? rowIterator.next() : null;
-			if (headerRow == null) return masterData;
-			List<String> headers = new ArrayList<>();
-			for (Cell cell : headerRow) {
-				headers.add(cell.getStringCellValue());
-			}
-			while (rowIterator.hasNext()) {
-				Row row = rowIterator.next();
-				Map<String, String> rowData = new HashMap<>();
-				String entity = null;
-				for (int i = 0; i < headers.size(); i++) {
-					Cell cell = row.getCell(i);
-					String value = cell != null ? cell.toString() : "";
-					rowData.put(headers.get(i), value);
-					if (headers.get(i).equalsIgnoreCase("Entity")) {
-						entity = value;
-					}
-				}
-				if (entity != null && !entity.isEmpty()) {
-					masterData.put(entity, rowData);
-				}
-			}
-		} catch (Exception e) {
-			e.printStackTrace();
+	private static void closeQuietly(JournalWriter writer) {
+		if (writer == null) {
+			return;
+		}
+		try {
+			writer.close();
+		} catch (IOException ignored) {
+			// Only temporary files are affected
+		}
+	}
+
+	private static String uniqueEntryName(String entity, String payrun, Set<String> taken) {
+		String base = "Journal_" + safeName(entity) + "_" + safeName(payrun);
+		String name = base + ".xlsx";
+		for (int i = 2; !taken.add(name); i++) {
+			name = base + "_" + i + ".xlsx";
+		}
+		return name;
+	}
+
+	private static String safeName(String value) {
+		String name = value.replaceAll("[^A-Za-z0-9._-]", "_");
+		return name.isEmpty() ? "none" : name;
+	}
+
+	private static String csv(String value) {
+		if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+			return value;
+		}
+		return '"' + value.replace("\"", "\"\"") + '"';
+	}
+
+	/**
+	 * One journal of a batch, built and waiting to be written into the ZIP.
+	 */
+	private static final class GeneratedJournal {
+		private final String entity;
+		private final String payrun;
+		private final JournalWriter writer;
+		private final int rows;
+		private final long timeMs;
+		private final String error;
+
+		GeneratedJournal(String entity, String payrun, JournalWriter writer, int rows, long timeMs, String error) {
+			this.entity = entity;
+			this.payrun = payrun;
+			this.writer = writer;
+			this.rows = rows;
+			this.timeMs = timeMs;
+			this.error = error;
 		}
-		return masterData;
 	}
 
-	private String getCellValueByHeader(Row row, List<String> headers, String headerName) {
-		DataFormatter formatter = new DataFormatter();
-		for (int i = 0; i < headers.size(); i++) {
-			if (headers.get(i).equalsIgnoreCase(headerName)) {
-				Cell cell = row.getCell(i);
-				return cell != null ? formatter.formatCellValue(cell) : "";
+	/**
+	 * Maps master rows into a journal as they are read: the first row compiles the
+	 * plan, the first data row also supplies the info row.
+	 */
+	private static final class JournalPipeline implements Consumer<SheetRow> {
+		private final JournalMapping mapping;
+		private final int rowWindow;
+		private JournalPlan plan;
+		private String[] values;
+		private JournalWriter journal;
+
+		JournalPipeline(JournalMapping mapping, int rowWindow) {
+			this.mapping = mapping;
+			this.rowWindow = rowWindow;
+		}
+
+		/**
+		 * Every header cell is needed; after that only the mapped columns.
+		 */
+		boolean reads(int column) {
+			return plan == null || plan.reads(column);
+		}
+
+		@Override
+		public void accept(SheetRow row) {
+			if (plan == null) {
+				plan = mapping.compile(row);
+				values = new String[plan.getJournalHeaders().size()];
+				return;
+			}
+			if (journal == null) {
+				journal = new JournalWriter(plan.infoRow(row), plan.getJournalHeaders(), rowWindow);
 			}
+			plan.map(row, values);
+			journal.writeRow(values);
 		}
-		return "";
 	}
-		// Removed duplicate generateJournalFromMaster and getCellValueByHeader methods
 }
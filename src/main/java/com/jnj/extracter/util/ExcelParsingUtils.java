@@ -15,6 +15,8 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.*;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 /**
  * Utility class for handling problematic Excel files, 
@@ -65,6 +67,30 @@ public class ExcelParsingUtils {
         return sheetNames;
     }
 
+    /**
+     * Sums the uncompressed sizes recorded in the zip central directory of an
+     * OOXML workbook, without inflating any entry. For non-zip formats the file
+     * size on disk is returned.
+     * 
+     * @param file The Excel file
+     * @return The number of bytes the workbook parts inflate to
+     */
+    public static long getUncompressedSize(File file) {
+        try (ZipFile zipFile = new ZipFile(file)) {
+            long total = 0;
+            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements()) {
+                long size = entries.nextElement().getSize();
+                if (size > 0) {
+                    total += size;
+                }
+            }
+            return total;
+        } catch (IOException e) {
+            return file.length();
+        }
+    }
+
     /**
      * Creates a workbook that skips problematic parts like pivot tables or charts
      * by focusing only on worksheet data.
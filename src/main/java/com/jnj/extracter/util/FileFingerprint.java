@@ -0,0 +1,24 @@
+package com.jnj.extracter.util;
+
+import java.io.File;
+
+/**
+ * Utility for computing a cheap identity for an Excel file on disk.
+ * Two calls return the same fingerprint as long as the file has not been
+ * replaced or modified, so it can be used to key in-flight work and caches.
+ */
+public final class FileFingerprint {
+
+    private FileFingerprint() {
+    }
+
+    /**
+     * Compute the fingerprint of a file from its absolute path, size and modification time.
+     *
+     * @param file The file to fingerprint
+     * @return A string that changes whenever the file content is replaced
+     */
+    public static String of(File file) {
+        return file.getAbsolutePath() + ":" + file.length() + ":" + file.lastModified();
+    }
+}
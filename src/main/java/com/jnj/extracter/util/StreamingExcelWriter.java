@@ -0,0 +1,219 @@
+package com.jnj.extracter.util;
+
+import com.jnj.extracter.jfr.WriteEvent;
+import org.apache.commons.io.output.CountingOutputStream;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Writes a single-sheet XLSX file row by row with constant heap.
+ * <p>
+ * Only a bounded window of rows is held in memory; older rows are flushed to a
+ * compressed temporary file. Column widths are derived from the longest value
+ * written to each column instead of {@code autoSizeColumn}, which measures every
+ * cell with font metrics and cannot see rows that were already flushed.
+ * <p>
+ * A {@link Preamble} can write styled rows above the header row and style the
+ * header and data rows, as journals do.
+ */
+public final class StreamingExcelWriter implements Closeable {
+
+    /** Widest column, in characters, that content can widen a column to. */
+    private static final int MAX_COLUMN_CHARS = 100;
+    private static final int COLUMN_PADDING_CHARS = 2;
+
+    private final SXSSFWorkbook workbook;
+    private final SXSSFSheet sheet;
+    private final int columnCount;
+    private final CellStyle dataStyle;
+    private int[] maxChars;
+    private int nextRow;
+    private int rowsWritten;
+
+    /**
+     * Writes the rows above the header row.
+     */
+    @FunctionalInterface
+    public interface Preamble {
+
+        /**
+         * Write the preamble rows through {@link #writePreambleRow} and create the
+         * styles of the header and data rows.
+         *
+         * @param writer The writer, positioned at the first row
+         * @return Styles of the header and data rows, or null for unstyled rows
+         */
+        RowStyles write(StreamingExcelWriter writer);
+    }
+
+    /**
+     * Cell styles of the header row and of the data rows; either may be null.
+     */
+    public record RowStyles(CellStyle header, CellStyle data) {
+    }
+
+    /**
+     * Start a workbook with one sheet and write its header row.
+     *
+     * @param sheetName Name of the sheet
+     * @param headers Column headers
+     * @param rowWindow Number of rows kept in memory before they are flushed to disk
+     */
+    public StreamingExcelWriter(String sheetName, List<String> headers, int rowWindow) {
+        this(sheetName, headers, rowWindow, null);
+    }
+
+    /**
+     * Start a workbook with one sheet, write the preamble rows and then the header row.
+     *
+     * @param sheetName Name of the sheet
+     * @param headers Column headers
+     * @param rowWindow Number of rows kept in memory before they are flushed to disk
+     * @param preamble Writes the rows above the header row; null for none
+     */
+    public StreamingExcelWriter(String sheetName, List<String> headers, int rowWindow, Preamble preamble) {
+        this.workbook = new SXSSFWorkbook(Math.max(1, rowWindow));
+        this.workbook.setCompressTempFiles(true);
+        this.sheet = workbook.createSheet(sheetName);
+        this.columnCount = headers.size();
+        this.maxChars = new int[columnCount];
+
+        RowStyles styles = preamble != null ? preamble.write(this) : null;
+        this.dataStyle = styles != null ? styles.data() : null;
+        writeCells(headers.toArray(), styles != null ? styles.header() : null);
+    }
+
+    /**
+     * Append a data row. Values beyond the header width are ignored and null
+     * values leave the cell empty.
+     *
+     * @param values Cell values in column order
+     */
+    public void writeRow(Object[] values) {
+        writeCells(values.length > columnCount ? Arrays.copyOf(values, columnCount) : values, dataStyle);
+        rowsWritten++;
+    }
+
+    /**
+     * Append a row above the header row; only for use by a {@link Preamble}.
+     * Preamble rows may be wider than the header.
+     *
+     * @param values Cell values in column order; null values leave the cell empty
+     * @param style Style of the row's cells, or null
+     * @return Index of the row
+     */
+    public int writePreambleRow(Object[] values, CellStyle style) {
+        writeCells(values, style);
+        return nextRow - 1;
+    }
+
+    /**
+     * Merge a range of cells in a preamble row.
+     */
+    public void mergeCells(int row, int firstColumn, int lastColumn) {
+        sheet.addMergedRegion(new CellRangeAddress(row, row, firstColumn, lastColumn));
+    }
+
+    public CellStyle createCellStyle() {
+        return workbook.createCellStyle();
+    }
+
+    public Font createFont() {
+        return workbook.createFont();
+    }
+
+    /**
+     * Size the columns and write the workbook.
+     *
+     * @param out Destination; not closed
+     */
+    public void write(OutputStream out) throws IOException {
+        for (int i = 0; i < maxChars.length; i++) {
+            int chars = Math.min(maxChars[i], MAX_COLUMN_CHARS) + COLUMN_PADDING_CHARS;
+            // Column width is measured in 1/256ths of a character
+            sheet.setColumnWidth(i, chars * 256);
+        }
+        WriteEvent event = new WriteEvent();
+        event.begin();
+        CountingOutputStream counting = new CountingOutputStream(out);
+        workbook.write(counting);
+        event.report(sheet.getSheetName(), rowsWritten, counting.getByteCount());
+    }
+
+    public int getRowsWritten() {
+        return rowsWritten;
+    }
+
+    /**
+     * Delete the temporary files backing the flushed rows.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            workbook.dispose();
+        } finally {
+            workbook.close();
+        }
+    }
+
+    private void writeCells(Object[] values, CellStyle style) {
+        Row row = sheet.createRow(nextRow++);
+        if (values.length > maxChars.length) {
+            maxChars = Arrays.copyOf(maxChars, values.length);
+        }
+        for (int i = 0; i < values.length; i++) {
+            Object value = values[i];
+            if (value == null) {
+                continue;
+            }
+            Cell cell = row.createCell(i);
+            if (style != null) {
+                cell.setCellStyle(style);
+            }
+            if (value instanceof Number) {
+                cell.setCellValue(((Number) value).doubleValue());
+            } else if (value instanceof Boolean) {
+                cell.setCellValue((Boolean) value);
+            } else if (value instanceof Date) {
+                cell.setCellValue((Date) value);
+            } else if (value instanceof Calendar) {
+                cell.setCellValue((Calendar) value);
+            } else {
+                cell.setCellValue(value.toString());
+            }
+            track(i, value);
+        }
+    }
+
+    private void track(int column, Object value) {
+        int length;
+        if (value instanceof String) {
+            length = ((String) value).length();
+        } else if (value instanceof Double || value instanceof Float) {
+            length = Double.toString(((Number) value).doubleValue()).length();
+        } else if (value instanceof Number || value instanceof Boolean) {
+            length = value.toString().length();
+        } else if (value instanceof Date || value instanceof Calendar) {
+            // Dates render with the default date format, e.g. 1/1/2025
+            length = 10;
+        } else {
+            length = value.toString().length();
+        }
+        if (length > maxChars[column]) {
+            maxChars[column] = length;
+        }
+    }
+}
@@ -0,0 +1,690 @@
+package com.jnj.extracter.util;
+
+import com.jnj.extracter.jfr.SheetParseEvent;
+import com.jnj.extracter.jfr.WorkbookOpenEvent;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.usermodel.ExcelNumberFormat;
+import org.apache.poi.ss.usermodel.FormulaError;
+import org.apache.poi.ss.formula.eval.ErrorEval;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.LocaleUtil;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.SharedStrings;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.apache.poi.xssf.usermodel.XSSFRichTextString;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.IntPredicate;
+
+/**
+ * Reads selected worksheets of an XLSX file with a SAX parser, without building
+ * the DOM of the other sheets as {@code XSSFWorkbook} does on open.
+ * <p>
+ * Cell values are decoded as selected by {@link CellDecoding}, matching what the
+ * user model returns for the corresponding {@code XSSFCell}, so rows read here are
+ * interchangeable with rows read through the user model.
+ */
+public final class StreamingSheetReader {
+
+    private static final String ERROR_READING_CELL = "#ERROR_READING_CELL";
+    /** Reader mode of the flight recorder events of streaming reads */
+    private static final String READER_MODE = "streaming";
+
+    /**
+     * How cell values are decoded.
+     */
+    public enum CellDecoding {
+        /** Typed values exactly as {@code ExcelServiceImpl.getCellValue} returns them. */
+        VALUE,
+        /**
+         * Text as {@code XSSFCell.toString()} returns it. The one difference is shared
+         * formulas: every cell of a shared formula reports the formula text as written
+         * for the cell that defines it, where the user model parses it and translates
+         * relative references to each cell.
+         */
+        TEXT,
+        /**
+         * Text as a {@code DataFormatter} without a formula evaluator formats it, with
+         * the same caveat for shared formulas as {@link #TEXT}. One formatter serves
+         * all cells of a read.
+         */
+        FORMATTED
+    }
+
+    private StreamingSheetReader() {
+    }
+
+    /**
+     * Read the rows of the given worksheets with {@link CellDecoding#VALUE} decoding.
+     *
+     * @param file The workbook
+     * @param parts The part layout of the workbook
+     * @param sheetNames The worksheets to read
+     * @return Rows per sheet name, in the order the sheets were requested
+     * @throws IOException If the file or one of its parts cannot be read
+     */
+    public static Map<String, List<SheetRow>> read(File file, WorkbookParts parts, Collection<String> sheetNames)
+            throws IOException {
+        return read(file, parts, sheetNames, CellDecoding.VALUE);
+    }
+
+    /**
+     * Read the rows of the given worksheets.
+     *
+     * @param file The workbook
+     * @param parts The part layout of the workbook
+     * @param sheetNames The worksheets to read
+     * @param decoding How cell values are decoded
+     * @return Rows per sheet name, in the order the sheets were requested
+     * @throws IOException If the file or one of its parts cannot be read
+     */
+    public static Map<String, List<SheetRow>> read(File file, WorkbookParts parts, Collection<String> sheetNames,
+                                                   CellDecoding decoding) throws IOException {
+        return read(file, parts, sheetNames, decoding, new ReadTimings());
+    }
+
+    /**
+     * Read the rows of the given worksheets, adding the time spent in each stage of
+     * the read to the given timings.
+     *
+     * @param file The workbook
+     * @param parts The part layout of the workbook
+     * @param sheetNames The worksheets to read
+     * @param decoding How cell values are decoded
+     * @param timings Receives the time spent opening the package, loading the shared tables and parsing
+     * @return Rows per sheet name, in the order the sheets were requested
+     * @throws IOException If the file or one of its parts cannot be read
+     */
+    public static Map<String, List<SheetRow>> read(File file, WorkbookParts parts, Collection<String> sheetNames,
+                                                   CellDecoding decoding, ReadTimings timings) throws IOException {
+        Map<String, List<SheetRow>> result = new LinkedHashMap<>();
+        WorkbookOpenEvent openEvent = new WorkbookOpenEvent();
+        openEvent.begin();
+        long start = System.nanoTime();
+        try (OPCPackage pkg = OPCPackage.open(file, PackageAccess.READ)) {
+            XSSFReader reader = new XSSFReader(pkg);
+            start = timings.lap(ReadTimings.OPEN, start);
+            SharedStrings sharedStrings = parts.getSharedStringsSignature() != null ? reader.getSharedStringsTable() : null;
+            StylesTable styles = parts.getStylesSignature() != null ? reader.getStylesTable() : null;
+            start = timings.lap(ReadTimings.SHARED_STRINGS, start);
+            timings.sharedStringCount = sharedStrings != null ? sharedStrings.getUniqueCount() : 0;
+            openEvent.report(file, READER_MODE);
+            for (String sheetName : sheetNames) {
+                WorkbookParts.SheetPart sheet = parts.sheet(sheetName);
+                if (sheet == null || !sheet.isWorksheet()) {
+                    throw new IOException("No worksheet named '" + sheetName + "' in " + file.getName());
+                }
+                SheetParseEvent parseEvent = new SheetParseEvent();
+                parseEvent.begin();
+                List<SheetRow> rows = new ArrayList<>();
+                parse(reader, sheet, new SheetHandler(sharedStrings, styles, parts.isDate1904(), decoding,
+                        column -> true, rows::add));
+                // Rows are normally written in order; the user model orders them regardless
+                rows.sort(Comparator.comparingInt(SheetRow::getRowIndex));
+                result.put(sheetName, rows);
+                parseEvent.report(file.getName(), sheetName, rows.size(), READER_MODE);
+            }
+            timings.lap(ReadTimings.PARSE, start);
+        } catch (OpenXML4JException | SAXException | ParserConfigurationException e) {
+            throw new IOException("Cannot stream sheets of " + file.getName() + ": " + e.getMessage(), e);
+        }
+        return result;
+    }
+
+    /**
+     * Read the rows of one worksheet, handing each row to a consumer as soon as it is
+     * complete instead of collecting the sheet. Rows arrive in the order the sheet
+     * XML lists them, which is ascending row order in files written by Excel and POI.
+     *
+     * @param file The workbook
+     * @param parts The part layout of the workbook
+     * @param sheetName The worksheet to read
+     * @param decoding How cell values are decoded
+     * @param columns Selects the columns whose cells are decoded; it is asked per cell,
+     *                so the selection may narrow once the header row has been seen
+     * @param consumer Receives every row
+     * @throws IOException If the file or one of its parts cannot be read
+     */
+    public static void read(File file, WorkbookParts parts, String sheetName, CellDecoding decoding,
+                            IntPredicate columns, Consumer<SheetRow> consumer) throws IOException {
+        read(file, parts, sheetName, decoding, columns, consumer, new ReadTimings());
+    }
+
+    /**
+     * Read the rows of one worksheet into a consumer, adding the time spent in each
+     * stage of the read to the given timings. The parse time includes the time the
+     * consumer takes.
+     */
+    public static void read(File file, WorkbookParts parts, String sheetName, CellDecoding decoding,
+                            IntPredicate columns, Consumer<SheetRow> consumer, ReadTimings timings)
+            throws IOException {
+        WorkbookOpenEvent openEvent = new WorkbookOpenEvent();
+        openEvent.begin();
+        long start = System.nanoTime();
+        try (OPCPackage pkg = OPCPackage.open(file, PackageAccess.READ)) {
+            XSSFReader reader = new XSSFReader(pkg);
+            start = timings.lap(ReadTimings.OPEN, start);
+            SharedStrings sharedStrings = parts.getSharedStringsSignature() != null ? reader.getSharedStringsTable() : null;
+            StylesTable styles = parts.getStylesSignature() != null ? reader.getStylesTable() : null;
+            start = timings.lap(ReadTimings.SHARED_STRINGS, start);
+            timings.sharedStringCount = sharedStrings != null ? sharedStrings.getUniqueCount() : 0;
+            openEvent.report(file, READER_MODE);
+            WorkbookParts.SheetPart sheet = parts.sheet(sheetName);
+            if (sheet == null || !sheet.isWorksheet()) {
+                throw new IOException("No worksheet named '" + sheetName + "' in " + file.getName());
+            }
+            SheetParseEvent parseEvent = new SheetParseEvent();
+            parseEvent.begin();
+            long[] rows = new long[1];
+            parse(reader, sheet, new SheetHandler(sharedStrings, styles, parts.isDate1904(), decoding, columns,
+                    row -> {
+                        rows[0]++;
+                        consumer.accept(row);
+                    }));
+            timings.lap(ReadTimings.PARSE, start);
+            parseEvent.report(file.getName(), sheetName, rows[0], READER_MODE);
+        } catch (OpenXML4JException | SAXException | ParserConfigurationException e) {
+            throw new IOException("Cannot stream sheet of " + file.getName() + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static void parse(XSSFReader reader, WorkbookParts.SheetPart sheet, SheetHandler handler)
+            throws IOException, OpenXML4JException, SAXException, ParserConfigurationException {
+        try (InputStream in = reader.getSheet(sheet.getRelationshipId())) {
+            XMLReader xmlReader = XMLHelper.newXMLReader();
+            xmlReader.setContentHandler(handler);
+            xmlReader.parse(new InputSource(in));
+        }
+    }
+
+    /**
+     * Time spent in the stages of streaming reads, summed over the reads it is passed
+     * to, and the size of the shared strings table of the last read.
+     */
+    public static final class ReadTimings {
+        private static final int OPEN = 0;
+        private static final int SHARED_STRINGS = 1;
+        private static final int PARSE = 2;
+
+        private final long[] nanos = new long[3];
+        private int sharedStringCount;
+
+        /**
+         * Add the time since {@code start} to a stage.
+         *
+         * @return The current time, the start of the next stage
+         */
+        private long lap(int stage, long start) {
+            long now = System.nanoTime();
+            nanos[stage] += now - start;
+            return now;
+        }
+
+        /** Time spent opening the zip package */
+        public long getOpenNanos() {
+            return nanos[OPEN];
+        }
+
+        /** Time spent loading the shared strings and styles tables */
+        public long getSharedStringsNanos() {
+            return nanos[SHARED_STRINGS];
+        }
+
+        /** Time spent parsing sheet XML and decoding its cells */
+        public long getParseNanos() {
+            return nanos[PARSE];
+        }
+
+        /** Unique strings in the shared strings table, 0 if the workbook has none */
+        public int getSharedStringCount() {
+            return sharedStringCount;
+        }
+    }
+
+    /**
+     * One row of a worksheet: the cells present in the sheet XML, including styled
+     * blank cells, in column order.
+     */
+    public static final class SheetRow {
+        private final int rowIndex;
+        private int[] columns = new int[8];
+        private Object[] values = new Object[8];
+        private int cellCount;
+
+        SheetRow(int rowIndex) {
+            this.rowIndex = rowIndex;
+        }
+
+        /**
+         * @return Zero-based row index
+         */
+        public int getRowIndex() {
+            return rowIndex;
+        }
+
+        /**
+         * @return One more than the last column index, or -1 for a row without cells
+         */
+        public int getLastCellNum() {
+            return cellCount == 0 ? -1 : columns[cellCount - 1] + 1;
+        }
+
+        public int getCellCount() {
+            return cellCount;
+        }
+
+        public int columnAt(int position) {
+            return columns[position];
+        }
+
+        public Object valueAt(int position) {
+            return values[position];
+        }
+
+        /**
+         * @return Whether the sheet XML has a cell, possibly blank, at the column
+         */
+        public boolean hasCell(int column) {
+            return Arrays.binarySearch(columns, 0, cellCount, column) >= 0;
+        }
+
+        /**
+         * @return The decoded value of the cell at the column, or null if blank or absent
+         */
+        public Object getValue(int column) {
+            int position = Arrays.binarySearch(columns, 0, cellCount, column);
+            return position >= 0 ? values[position] : null;
+        }
+
+        void put(int column, Object value) {
+            int position = Arrays.binarySearch(columns, 0, cellCount, column);
+            if (position >= 0) {
+                values[position] = value;
+                return;
+            }
+            position = -position - 1;
+            if (cellCount == columns.length) {
+                columns = Arrays.copyOf(columns, cellCount * 2);
+                values = Arrays.copyOf(values, cellCount * 2);
+            }
+            System.arraycopy(columns, position, columns, position + 1, cellCount - position);
+            System.arraycopy(values, position, values, position + 1, cellCount - position);
+            columns[position] = column;
+            values[position] = value;
+            cellCount++;
+        }
+    }
+
+    /**
+     * SAX handler collecting the rows of one worksheet part.
+     */
+    private static final class SheetHandler extends DefaultHandler {
+        private final SharedStrings sharedStrings;
+        private final StylesTable styles;
+        private final boolean date1904;
+        private final CellDecoding decoding;
+        private final IntPredicate columns;
+        private final Consumer<SheetRow> consumer;
+        private final Map<String, String> sharedFormulas = new HashMap<>();
+        private DateFormat dateFormat;
+        private DataFormatter dataFormatter;
+        private final List<int[]> columnStyles = new ArrayList<>();
+        private final StringBuilder text = new StringBuilder();
+
+        private SheetRow row;
+        private int lastRowIndex = -1;
+        private int column;
+        private String type;
+        private String style;
+        private boolean formula;
+        private String formulaText;
+        private String sharedFormulaIndex;
+        private String value;
+        private StringBuilder inlineText;
+        private StringBuilder runText;
+        private boolean hasRuns;
+        private boolean inPhonetic;
+        private boolean collecting;
+
+        SheetHandler(SharedStrings sharedStrings, StylesTable styles, boolean date1904, CellDecoding decoding,
+                     IntPredicate columns, Consumer<SheetRow> consumer) {
+            this.sharedStrings = sharedStrings;
+            this.styles = styles;
+            this.date1904 = date1904;
+            this.decoding = decoding;
+            this.columns = columns;
+            this.consumer = consumer;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            switch (localName) {
+                case "col": {
+                    // Cells without a style of their own take their column's style
+                    String columnStyle = attributes.getValue("style");
+                    if (columnStyle != null) {
+                        columnStyles.add(new int[] {Integer.parseInt(attributes.getValue("min")) - 1,
+                                Integer.parseInt(attributes.getValue("max")) - 1, Integer.parseInt(columnStyle)});
+                    }
+                    break;
+                }
+                case "row": {
+                    String reference = attributes.getValue("r");
+                    int rowIndex = reference != null ? Integer.parseInt(reference) - 1 : lastRowIndex + 1;
+                    // A row is handed on once the next one starts, because a repeated
+                    // row index replaces the earlier row, as in the user model
+                    if (row != null && row.getRowIndex() != rowIndex) {
+                        consumer.accept(row);
+                    }
+                    row = new SheetRow(rowIndex);
+                    lastRowIndex = rowIndex;
+                    break;
+                }
+                case "c": {
+                    String reference = attributes.getValue("r");
+                    int lastCellNum = row.getLastCellNum();
+                    column = reference != null ? new CellReference(reference).getCol() : Math.max(lastCellNum, 0);
+                    type = attributes.getValue("t");
+                    style = attributes.getValue("s");
+                    formula = false;
+                    formulaText = null;
+                    value = null;
+                    inlineText = null;
+                    runText = null;
+                    hasRuns = false;
+                    break;
+                }
+                case "f":
+                    formula = true;
+                    sharedFormulaIndex = "shared".equals(attributes.getValue("t")) ? attributes.getValue("si") : null;
+                    startText();
+                    break;
+                case "v":
+                    startText();
+                    break;
+                case "is":
+                    inlineText = new StringBuilder();
+                    runText = new StringBuilder();
+                    break;
+                case "r":
+                    if (inlineText != null) {
+                        hasRuns = true;
+                    }
+                    break;
+                case "rPh":
+                    inPhonetic = true;
+                    break;
+                case "t":
+                    if (inlineText != null && !inPhonetic) {
+                        startText();
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) {
+            switch (localName) {
+                case "v":
+                    value = endText();
+                    break;
+                case "f":
+                    formulaText = endText();
+                    if (sharedFormulaIndex != null) {
+                        // Only the defining cell of a shared formula carries its text
+                        if (formulaText.isEmpty()) {
+                            formulaText = sharedFormulas.getOrDefault(sharedFormulaIndex, "");
+                        } else {
+                            sharedFormulas.put(sharedFormulaIndex, formulaText);
+                        }
+                    }
+                    break;
+                case "t":
+                    if (collecting) {
+                        String t = endText();
+                        // Run texts concatenate; a bare <t> is the whole string
+                        runText.append(t);
+                        if (!hasRuns) {
+                            inlineText.setLength(0);
+                            inlineText.append(t);
+                        }
+                    }
+                    break;
+                case "rPh":
+                    inPhonetic = false;
+                    break;
+                case "c":
+                    if (columns.test(column)) {
+                        row.put(column, decode());
+                    }
+                    inlineText = null;
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        @Override
+        public void endDocument() {
+            if (row != null) {
+                consumer.accept(row);
+                row = null;
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (collecting) {
+                text.append(ch, start, length);
+            }
+        }
+
+        private void startText() {
+            text.setLength(0);
+            collecting = true;
+        }
+
+        private String endText() {
+            collecting = false;
+            return text.toString();
+        }
+
+        /**
+         * Decode the current cell the way the user model reports it.
+         */
+        private Object decode() {
+            switch (decoding) {
+                case TEXT:
+                    return render();
+                case FORMATTED:
+                    return format();
+                default:
+                    return decodeValue();
+            }
+        }
+
+        /**
+         * Decode the current cell the way {@code ExcelServiceImpl.getCellValue} reports it.
+         */
+        private Object decodeValue() {
+            try {
+                String cellType = type != null ? type : "n";
+                if (formula) {
+                    switch (cellType) {
+                        case "str":
+                        case "s":
+                        case "inlineStr":
+                            return decodeText(value != null ? value : "");
+                        case "b":
+                            return "1".equals(value);
+                        case "e":
+                            return "#ERROR";
+                        default:
+                            return decodeNumber(value);
+                    }
+                }
+                switch (cellType) {
+                    case "s":
+                        if (value == null || value.isEmpty()) {
+                            return "";
+                        }
+                        return sharedStrings.getItemAt(Integer.parseInt(value)).getString();
+                    case "inlineStr":
+                        if (value != null) {
+                            return decodeText(value);
+                        }
+                        if (inlineText == null) {
+                            return "";
+                        }
+                        return decodeText(hasRuns ? runText.toString() : inlineText.toString());
+                    case "str":
+                        return decodeText(value != null ? value : "");
+                    case "b":
+                        return "1".equals(value);
+                    case "e":
+                        if (value == null) {
+                            return "#ERROR:0";
+                        }
+                        return "#ERROR:" + FormulaError.forString(value).getCode();
+                    default:
+                        // A number without a value is a blank cell
+                        return value == null ? null : decodeNumber(value);
+                }
+            } catch (RuntimeException e) {
+                return ERROR_READING_CELL;
+            }
+        }
+
+        /**
+         * Decode the current cell the way {@code XSSFCell.toString()} renders it.
+         */
+        private String render() {
+            try {
+                if (formula) {
+                    return formulaText != null ? formulaText : "";
+                }
+                String cellType = type != null ? type : "n";
+                switch (cellType) {
+                    case "s":
+                    case "inlineStr":
+                    case "str": {
+                        Object text = decodeValue();
+                        return text != null ? text.toString() : "";
+                    }
+                    case "b":
+                        return "1".equals(value) ? "TRUE" : "FALSE";
+                    case "e":
+                        return ErrorEval.getText(value == null ? 0 : FormulaError.forString(value).getCode());
+                    default:
+                        if (value == null) {
+                            return "";
+                        }
+                        double number = value.isEmpty() ? 0.0 : Double.parseDouble(value);
+                        if (DateUtil.isValidExcelDate(number) && isDateFormatted()) {
+                            if (dateFormat == null) {
+                                dateFormat = new SimpleDateFormat("dd-MMM-yyyy", LocaleUtil.getUserLocale());
+                                dateFormat.setTimeZone(LocaleUtil.getUserTimeZone());
+                            }
+                            return dateFormat.format(DateUtil.getJavaDate(number, date1904));
+                        }
+                        return Double.toString(number);
+                }
+            } catch (RuntimeException e) {
+                return ERROR_READING_CELL;
+            }
+        }
+
+        /**
+         * Decode the current cell the way {@code DataFormatter.formatCellValue} formats
+         * it without a formula evaluator.
+         */
+        private String format() {
+            try {
+                // Only plain numbers depend on the number format
+                if (formula || (type != null && !"n".equals(type))) {
+                    return render();
+                }
+                if (value == null) {
+                    return "";
+                }
+                double number = value.isEmpty() ? 0.0 : Double.parseDouble(value);
+                if (dataFormatter == null) {
+                    dataFormatter = new DataFormatter();
+                }
+                ExcelNumberFormat numberFormat = numberFormat();
+                if (numberFormat == null) {
+                    return String.valueOf(number);
+                }
+                return dataFormatter.formatRawCellContents(number, numberFormat.getIdx(), numberFormat.getFormat(),
+                        date1904);
+            } catch (RuntimeException e) {
+                return ERROR_READING_CELL;
+            }
+        }
+
+        private Object decodeNumber(String raw) {
+            double number = raw == null || raw.isEmpty() ? 0.0 : Double.parseDouble(raw);
+            if (DateUtil.isValidExcelDate(number) && isDateFormatted()) {
+                return DateUtil.getJavaDate(number, date1904).toString();
+            }
+            if (number == Math.floor(number) && !Double.isInfinite(number)) {
+                return (long) number;
+            }
+            return number;
+        }
+
+        private boolean isDateFormatted() {
+            ExcelNumberFormat format = numberFormat();
+            return format != null && DateUtil.isADateFormat(format);
+        }
+
+        private ExcelNumberFormat numberFormat() {
+            if (styles == null || styles.getNumCellStyles() == 0) {
+                return null;
+            }
+            XSSFCellStyle cellStyle = styles.getStyleAt(style != null ? Integer.parseInt(style) : columnStyle());
+            return ExcelNumberFormat.from(cellStyle);
+        }
+
+        private int columnStyle() {
+            for (int[] range : columnStyles) {
+                if (column >= range[0] && column <= range[1]) {
+                    return range[2];
+                }
+            }
+            return 0;
+        }
+
+        private static String decodeText(String raw) {
+            // Only escaped characters (_xHHHH_) need the rich text decoder
+            return raw.contains("_x") ? new XSSFRichTextString(raw).getString() : raw;
+        }
+    }
+}
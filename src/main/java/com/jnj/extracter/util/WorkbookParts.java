@@ -0,0 +1,265 @@
+package com.jnj.extracter.util;
+
+import lombok.Getter;
+import org.apache.poi.util.XMLHelper;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * The part layout of an XLSX workbook together with a content signature for each
+ * part, read from the zip central directory without inflating any sheet.
+ * <p>
+ * A part's signature is its CRC-32 plus compressed and uncompressed size, so two
+ * reads of the same workbook give equal signatures for every part that was not
+ * rewritten. Comparing the layouts of two versions of a file tells which sheets
+ * changed and whether the parts all sheets depend on (shared strings, styles)
+ * changed with them.
+ */
+@Getter
+public final class WorkbookParts {
+
+    private static final String RELATIONSHIPS_NS_SUFFIX = "/relationships";
+
+    private final List<SheetPart> sheets;
+    private final String sharedStringsSignature;
+    private final String stylesSignature;
+    private final boolean date1904;
+
+    private WorkbookParts(List<SheetPart> sheets, String sharedStringsSignature, String stylesSignature,
+                          boolean date1904) {
+        this.sheets = Collections.unmodifiableList(sheets);
+        this.sharedStringsSignature = sharedStringsSignature;
+        this.stylesSignature = stylesSignature;
+        this.date1904 = date1904;
+    }
+
+    /**
+     * Read the part layout of an XLSX file.
+     *
+     * @param file The workbook
+     * @return The sheets in workbook order with their part signatures
+     * @throws IOException If the file is not a readable XLSX package, including
+     * packages with malformed relationships
+     */
+    public static WorkbookParts read(File file) throws IOException {
+        try {
+            return readParts(file);
+        } catch (IllegalArgumentException e) {
+            // URI.create on a bad relationship target, or a zip entry name that cannot be decoded
+            throw new IOException("Malformed package " + file.getName() + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static WorkbookParts readParts(File file) throws IOException {
+        try (ZipFile zip = new ZipFile(file)) {
+            String workbookPart = null;
+            for (Relationship relationship : readRelationships(zip, "_rels/.rels", "/")) {
+                if (relationship.type.endsWith("/officeDocument")) {
+                    workbookPart = relationship.target;
+                    break;
+                }
+            }
+            if (workbookPart == null || zip.getEntry(workbookPart) == null) {
+                throw new IOException("No workbook part found in " + file.getName());
+            }
+
+            int slash = workbookPart.lastIndexOf('/');
+            String relationshipsPart = workbookPart.substring(0, slash + 1) + "_rels/"
+                    + workbookPart.substring(slash + 1) + ".rels";
+            Map<String, Relationship> relationships = new HashMap<>();
+            String sharedStrings = null;
+            String styles = null;
+            for (Relationship relationship : readRelationships(zip, relationshipsPart, "/" + workbookPart)) {
+                relationships.put(relationship.id, relationship);
+                if (relationship.type.endsWith("/sharedStrings")) {
+                    sharedStrings = signature(zip, relationship.target);
+                } else if (relationship.type.endsWith("/styles")) {
+                    styles = signature(zip, relationship.target);
+                }
+            }
+
+            List<SheetPart> sheets = new ArrayList<>();
+            boolean date1904 = false;
+            try (InputStream in = zip.getInputStream(zip.getEntry(workbookPart))) {
+                XMLStreamReader reader = XMLHelper.newXMLInputFactory().createXMLStreamReader(in);
+                try {
+                    while (reader.hasNext()) {
+                        if (reader.next() != XMLStreamConstants.START_ELEMENT) {
+                            continue;
+                        }
+                        if ("workbookPr".equals(reader.getLocalName())) {
+                            String value = reader.getAttributeValue(null, "date1904");
+                            date1904 = "1".equals(value) || "true".equalsIgnoreCase(value);
+                        } else if ("sheet".equals(reader.getLocalName())) {
+                            String name = reader.getAttributeValue(null, "name");
+                            Relationship relationship = relationships.get(relationshipId(reader));
+                            if (name == null || relationship == null) {
+                                continue;
+                            }
+                            ZipEntry part = zip.getEntry(relationship.target);
+                            sheets.add(new SheetPart(name, relationship.id, relationship.target,
+                                    signature(zip, relationship.target), part != null ? part.getSize() : -1,
+                                    relationship.type.endsWith("/worksheet")));
+                        }
+                    }
+                } finally {
+                    reader.close();
+                }
+            } catch (XMLStreamException e) {
+                throw new IOException("Cannot read workbook part of " + file.getName() + ": " + e.getMessage(), e);
+            }
+            return new WorkbookParts(sheets, sharedStrings, styles, date1904);
+        }
+    }
+
+    /**
+     * Find a sheet by its exact name.
+     *
+     * @return The sheet part, or null if the workbook has no such sheet
+     */
+    public SheetPart sheet(String name) {
+        for (SheetPart sheet : sheets) {
+            if (sheet.getName().equals(name)) {
+                return sheet;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Check whether the parts shared by all sheets are unchanged, so that sheets
+     * whose own part is unchanged still decode to the same values.
+     */
+    public boolean sharesDecodingPartsWith(WorkbookParts other) {
+        return other != null
+                && Objects.equals(sharedStringsSignature, other.sharedStringsSignature)
+                && Objects.equals(stylesSignature, other.stylesSignature)
+                && date1904 == other.date1904;
+    }
+
+    /**
+     * Signature of everything the decoded values of one sheet depend on: its own
+     * part plus the shared strings, styles and date system of the workbook.
+     *
+     * @return The signature, or null if the workbook has no such worksheet
+     */
+    public String sheetSignature(String name) {
+        SheetPart sheet = sheet(name);
+        if (sheet == null || !sheet.isWorksheet()) {
+            return null;
+        }
+        return sheet.getSignature() + "|" + sharedStringsSignature + "|" + stylesSignature + "|" + date1904;
+    }
+
+    private static String signature(ZipFile zip, String entryName) {
+        ZipEntry entry = zip.getEntry(entryName);
+        if (entry == null) {
+            return null;
+        }
+        return Long.toHexString(entry.getCrc()) + ":" + entry.getSize() + ":" + entry.getCompressedSize();
+    }
+
+    private static String relationshipId(XMLStreamReader reader) {
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            String namespace = reader.getAttributeNamespace(i);
+            if ("id".equals(reader.getAttributeLocalName(i)) && namespace != null
+                    && namespace.endsWith(RELATIONSHIPS_NS_SUFFIX)) {
+                return reader.getAttributeValue(i);
+            }
+        }
+        return null;
+    }
+
+    private static List<Relationship> readRelationships(ZipFile zip, String partName, String sourcePart)
+            throws IOException {
+        ZipEntry entry = zip.getEntry(partName);
+        List<Relationship> relationships = new ArrayList<>();
+        if (entry == null) {
+            return relationships;
+        }
+        try (InputStream in = zip.getInputStream(entry)) {
+            XMLStreamReader reader = XMLHelper.newXMLInputFactory().createXMLStreamReader(in);
+            try {
+                while (reader.hasNext()) {
+                    if (reader.next() == XMLStreamConstants.START_ELEMENT
+                            && "Relationship".equals(reader.getLocalName())
+                            && !"External".equals(reader.getAttributeValue(null, "TargetMode"))) {
+                        String id = reader.getAttributeValue(null, "Id");
+                        String type = reader.getAttributeValue(null, "Type");
+                        String target = reader.getAttributeValue(null, "Target");
+                        if (id == null || type == null || target == null) {
+                            throw new IOException("Relationship without Id, Type or Target in " + partName);
+                        }
+                        relationships.add(new Relationship(id, type, resolve(sourcePart, target)));
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException("Cannot read relationships part " + partName + ": " + e.getMessage(), e);
+        }
+        return relationships;
+    }
+
+    /**
+     * Resolve a relationship target against the part it belongs to, giving the zip entry name.
+     */
+    private static String resolve(String sourcePart, String target) {
+        if (target.startsWith("/")) {
+            return target.substring(1);
+        }
+        String resolved = URI.create(sourcePart.replace(" ", "%20")).resolve(target.replace(" ", "%20")).getPath();
+        return resolved.startsWith("/") ? resolved.substring(1) : resolved;
+    }
+
+    /**
+     * One sheet of the workbook and the zip entry holding it.
+     */
+    @Getter
+    public static final class SheetPart {
+        private final String name;
+        private final String relationshipId;
+        private final String partName;
+        private final String signature;
+        /** Uncompressed size of the sheet XML in bytes, or -1 if unknown */
+        private final long size;
+        private final boolean worksheet;
+
+        SheetPart(String name, String relationshipId, String partName, String signature, long size,
+                  boolean worksheet) {
+            this.name = name;
+            this.relationshipId = relationshipId;
+            this.partName = partName;
+            this.signature = signature;
+            this.size = size;
+            this.worksheet = worksheet;
+        }
+    }
+
+    private static final class Relationship {
+        final String id;
+        final String type;
+        final String target;
+
+        Relationship(String id, String type, String target) {
+            this.id = id;
+            this.type = type;
+            this.target = target;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.jnj.extracter;
+
+import com.jnj.extracter.config.ExcelProcessingConfig;
+import com.jnj.extracter.service.AdaptivePoolSizer;
+import com.jnj.extracter.service.ContentStore;
+import com.jnj.extracter.service.ExtractionCoalescer;
+import com.jnj.extracter.service.FileCatalog;
+import com.jnj.extracter.service.MetricsService;
+import com.jnj.extracter.service.RowCache;
+import com.jnj.extracter.serviceImpl.ExcelServiceImpl;
+import com.jnj.extracter.util.MemoryMappedFileHandler;
+import com.jnj.extracter.util.ProtoConverter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The extraction services wired as the application wires them, without the web
+ * layer, over an excel folder of the test's choosing. The folder is listed when the
+ * context starts, so workbooks should be written before it is created.
+ */
+public final class ServiceTestContext implements AutoCloseable {
+
+    private final AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+
+    /**
+     * @param excelFolder The excel folder
+     * @param properties Properties overriding application.properties
+     * @param extraBeans Further services to register, e.g. the query service
+     */
+    public ServiceTestContext(Path excelFolder, Map<String, Object> properties, Class<?>... extraBeans) {
+        Map<String, Object> overrides = new HashMap<>(properties);
+        overrides.put("excel.folder.path", excelFolder.toString());
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("test", overrides));
+        context.registerBean(MeterRegistry.class, SimpleMeterRegistry::new);
+        context.register(ExcelProcessingConfig.class, MetricsService.class, MemoryMappedFileHandler.class,
+                ProtoConverter.class, ExtractionCoalescer.class, ContentStore.class, FileCatalog.class,
+                RowCache.class, AdaptivePoolSizer.class, ExcelServiceImpl.class);
+        if (extraBeans.length > 0) {
+            context.register(extraBeans);
+        }
+        context.refresh();
+    }
+
+    public ServiceTestContext(Path excelFolder, Class<?>... extraBeans) {
+        this(excelFolder, Map.of(), extraBeans);
+    }
+
+    public <T> T get(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+}
@@ -0,0 +1,90 @@
+package com.jnj.extracter;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Writes small fixture workbooks for tests.
+ */
+public final class TestWorkbooks {
+
+    private TestWorkbooks() {
+    }
+
+    /**
+     * Write an XLSX workbook with one sheet per entry. The first row of each sheet
+     * is the header row; numbers are written as numeric cells, booleans as boolean
+     * cells, null as a missing cell and anything else as text.
+     *
+     * @param file Destination
+     * @param sheets Rows per sheet name, in sheet order
+     * @return The file
+     */
+    public static Path write(Path file, Map<String, List<List<Object>>> sheets) throws IOException {
+        try (XSSFWorkbook workbook = new XSSFWorkbook(); OutputStream out = Files.newOutputStream(file)) {
+            sheets.forEach((name, rows) -> {
+                Sheet sheet = workbook.createSheet(name);
+                for (int r = 0; r < rows.size(); r++) {
+                    Row row = sheet.createRow(r);
+                    List<Object> values = rows.get(r);
+                    for (int c = 0; c < values.size(); c++) {
+                        Object value = values.get(c);
+                        if (value == null) {
+                            continue;
+                        }
+                        Cell cell = row.createCell(c);
+                        if (value instanceof Number number) {
+                            cell.setCellValue(number.doubleValue());
+                        } else if (value instanceof Boolean bool) {
+                            cell.setCellValue(bool);
+                        } else {
+                            cell.setCellValue(value.toString());
+                        }
+                    }
+                }
+            });
+            workbook.write(out);
+        }
+        return file;
+    }
+
+    /**
+     * Replace one part of a workbook package, e.g. to make it malformed.
+     *
+     * @param file The workbook
+     * @param partName Zip entry name of the part
+     * @param content The new content of the part
+     * @return The file
+     */
+    public static Path replacePart(Path file, String partName, String content) throws IOException {
+        Path rewritten = file.resolveSibling(file.getFileName() + ".tmp");
+        try (ZipInputStream in = new ZipInputStream(Files.newInputStream(file));
+             ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(rewritten))) {
+            for (ZipEntry entry = in.getNextEntry(); entry != null; entry = in.getNextEntry()) {
+                out.putNextEntry(new ZipEntry(entry.getName()));
+                if (entry.getName().equals(partName)) {
+                    out.write(content.getBytes(StandardCharsets.UTF_8));
+                } else {
+                    in.transferTo(out);
+                }
+                out.closeEntry();
+            }
+        }
+        Files.move(rewritten, file, StandardCopyOption.REPLACE_EXISTING);
+        return file;
+    }
+}
@@ -0,0 +1,163 @@
+package com.jnj.extracter.analysis;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class GroupByAggregatorTests {
+
+    private static final List<String> KEYS = List.of("Region", "Code");
+    private static final List<AggregateSpec> AGGREGATES = List.of(
+            AggregateSpec.parse("count(*)"), AggregateSpec.parse("sum(Amount)"), AggregateSpec.parse("avg(Amount)"),
+            AggregateSpec.parse("min(Amount)"), AggregateSpec.parse("max(Amount)"), AggregateSpec.parse("count(Note)"));
+
+    @Test
+    void spilledResultsEqualInMemoryResults() {
+        List<Map<String, Object>> rows = rows(new Random(1), 5_000);
+        GroupByAggregator inMemory = aggregate(rows, Integer.MAX_VALUE);
+        GroupByAggregator spilling = aggregate(rows, 1);
+
+        assertThat(inMemory.hasSpilled()).isFalse();
+        assertThat(spilling.hasSpilled()).isTrue();
+        assertThat(sorted(spilling.getResults())).isEqualTo(sorted(inMemory.getResults()));
+    }
+
+    @Test
+    void mergedSpillingPartialsEqualASinglePass() {
+        List<Map<String, Object>> rows = rows(new Random(2), 5_000);
+        GroupByAggregator single = aggregate(rows, Integer.MAX_VALUE);
+        GroupByAggregator first = aggregate(rows.subList(0, 2_000), 1);
+        GroupByAggregator second = aggregate(rows.subList(2_000, rows.size()), 3);
+
+        first.merge(second);
+        // The merged partial handed its spill files on
+        second.close();
+        assertThat(second.getSpillFileCount()).isZero();
+
+        assertThat(sorted(first.getResults())).isEqualTo(sorted(single.getResults()));
+    }
+
+    @Test
+    void spillsKeysLongerThan64Kilobytes() {
+        String longKey = "x".repeat(70_000) + "é";
+        GroupByAggregator aggregator = new GroupByAggregator(List.of("Key"), List.of(AggregateSpec.parse("count(*)")), 1);
+        for (String key : List.of(longKey, "short", longKey)) {
+            aggregator.accept(Map.of("Key", key));
+        }
+
+        assertThat(aggregator.hasSpilled()).isTrue();
+        Map<Object, Object> counts = new HashMap<>();
+        aggregator.getResults().forEach(row -> counts.put(row.get("Key"), row.get("count(*)")));
+        assertThat(counts).containsEntry(longKey, 2L).containsEntry("short", 1L).hasSize(2);
+    }
+
+    @Test
+    void numericKeysComeBackAsNumbers() {
+        GroupByAggregator aggregator = new GroupByAggregator(List.of("Year", "Rate", "Region"),
+                List.of(AggregateSpec.parse("count(*)")), 1);
+        aggregator.accept(row("Year", 2024, "Rate", 1.5, "Region", "North"));
+        aggregator.accept(row("Year", 2025L, "Rate", 2.0, "Region", "South"));
+        aggregator.accept(row("Year", 2024, "Rate", 1.5, "Region", "North"));
+
+        List<Map<String, Object>> results = sorted(aggregator.getResults());
+        assertThat(results).hasSize(2);
+        assertThat(results.get(0)).containsEntry("Year", 2024L).containsEntry("Rate", 1.5)
+                .containsEntry("Region", "North").containsEntry("count(*)", 2L);
+        assertThat(results.get(1)).containsEntry("Year", 2025L).containsEntry("Rate", 2.0);
+    }
+
+    @Test
+    void mixedKeyColumnsStayText() {
+        GroupByAggregator first = new GroupByAggregator(List.of("Code"), List.of(AggregateSpec.parse("count(*)")), 10);
+        GroupByAggregator second = new GroupByAggregator(List.of("Code"), List.of(AggregateSpec.parse("count(*)")), 10);
+        first.accept(Map.of("Code", 7));
+        second.accept(Map.of("Code", "A7"));
+
+        // A partial that saw text makes the merged column text
+        first.merge(second);
+
+        assertThat(first.getResults()).extracting(row -> row.get("Code")).containsExactlyInAnyOrder("7", "A7");
+    }
+
+    @Test
+    void stoppingEarlyStillDeletesTheSpillFiles() {
+        GroupByAggregator aggregator = aggregate(rows(new Random(3), 1_000), 1);
+        List<Map<String, Object>> seen = new ArrayList<>();
+
+        boolean completed = aggregator.forEachResult(row -> {
+            seen.add(row);
+            return seen.size() < 5;
+        });
+
+        assertThat(completed).isFalse();
+        assertThat(seen).hasSize(5);
+        assertThat(aggregator.getSpillFileCount()).isZero();
+        // Nothing is left to read: the partitions were cleared with their files
+        assertThat(aggregator.getResults()).isEmpty();
+    }
+
+    @Test
+    void failingConsumersStillDeleteTheSpillFiles() {
+        GroupByAggregator aggregator = aggregate(rows(new Random(4), 1_000), 1);
+        assertThat(aggregator.getSpillFileCount()).isPositive();
+
+        assertThatThrownBy(() -> aggregator.forEachResult(row -> {
+            throw new IllegalStateException("client went away");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(aggregator.getSpillFileCount()).isZero();
+    }
+
+    @Test
+    void closingAnAbandonedAggregatorDeletesItsSpillFiles() {
+        GroupByAggregator aggregator = aggregate(rows(new Random(5), 1_000), 1);
+        assertThat(aggregator.getSpillFileCount()).isPositive();
+
+        aggregator.close();
+
+        assertThat(aggregator.getSpillFileCount()).isZero();
+    }
+
+    private static GroupByAggregator aggregate(List<Map<String, Object>> rows, int maxGroupsInMemory) {
+        GroupByAggregator aggregator = new GroupByAggregator(KEYS, AGGREGATES, maxGroupsInMemory);
+        rows.forEach(aggregator::accept);
+        return aggregator;
+    }
+
+    private static List<Map<String, Object>> rows(Random random, int count) {
+        List<String> regions = List.of("North", "South", "East", "West");
+        List<Map<String, Object>> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Map<String, Object> row = new HashMap<>();
+            row.put("Region", regions.get(random.nextInt(regions.size())));
+            row.put("Code", random.nextInt(200));
+            // Integral amounts keep the sums exact in any order
+            row.put("Amount", i % 10 == 0 ? "n/a" : (double) (random.nextInt(2_000) - 500));
+            row.put("Note", i % 3 == 0 ? "" : "note");
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private static Map<String, Object> row(Object... keysAndValues) {
+        Map<String, Object> row = new HashMap<>();
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            row.put((String) keysAndValues[i], keysAndValues[i + 1]);
+        }
+        return row;
+    }
+
+    private static List<Map<String, Object>> sorted(List<Map<String, Object>> groups) {
+        List<Map<String, Object>> copy = new ArrayList<>(groups);
+        copy.sort(Comparator.comparing(group -> group.toString()));
+        return copy;
+    }
+}
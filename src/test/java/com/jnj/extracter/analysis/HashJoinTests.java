@@ -0,0 +1,147 @@
+package com.jnj.extracter.analysis;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HashJoinTests {
+
+    private static final List<Object[]> LEFT = List.of(
+            new Object[]{"a", 1L}, new Object[]{"b", 2L}, new Object[]{null, 3L}, new Object[]{"a", 4L},
+            new Object[]{"c", 5L});
+    private static final List<Object[]> RIGHT = List.of(
+            new Object[]{"a", "x"}, new Object[]{null, "y"}, new Object[]{"b", "z"}, new Object[]{"a", "w"},
+            new Object[]{"d", "v"});
+
+    @Test
+    void innerJoinPairsEqualKeysOnly() {
+        for (boolean buildIsLeft : new boolean[]{true, false}) {
+            assertThat(join(HashJoin.Type.INNER, buildIsLeft, Long.MAX_VALUE, LEFT, RIGHT))
+                    .as("buildIsLeft=%s", buildIsLeft)
+                    .containsExactlyInAnyOrder("a,1|a,x", "a,1|a,w", "a,4|a,x", "a,4|a,w", "b,2|b,z");
+        }
+    }
+
+    @Test
+    void leftJoinKeepsUnmatchedAndNullKeyedLeftRows() {
+        for (boolean buildIsLeft : new boolean[]{true, false}) {
+            assertThat(join(HashJoin.Type.LEFT, buildIsLeft, Long.MAX_VALUE, LEFT, RIGHT))
+                    .as("buildIsLeft=%s", buildIsLeft)
+                    .containsExactlyInAnyOrder("a,1|a,x", "a,1|a,w", "a,4|a,x", "a,4|a,w", "b,2|b,z",
+                            "null,3|null", "c,5|null");
+        }
+    }
+
+    @Test
+    void antiJoinKeepsOnlyUnmatchedLeftRows() {
+        for (boolean buildIsLeft : new boolean[]{true, false}) {
+            assertThat(join(HashJoin.Type.ANTI, buildIsLeft, Long.MAX_VALUE, LEFT, RIGHT))
+                    .as("buildIsLeft=%s", buildIsLeft)
+                    .containsExactlyInAnyOrder("null,3|null", "c,5|null");
+        }
+    }
+
+    @Test
+    void probeOrderIsKeptWithoutSpilling() {
+        assertThat(join(HashJoin.Type.INNER, false, Long.MAX_VALUE, LEFT, RIGHT))
+                .containsExactly("a,1|a,x", "a,1|a,w", "b,2|b,z", "a,4|a,x", "a,4|a,w");
+    }
+
+    @Test
+    void spilledJoinsMatchANestedLoopJoin() {
+        Random random = new Random(3);
+        List<Object[]> left = rows(random, 2_000, "L");
+        List<Object[]> right = rows(random, 1_500, "R");
+
+        for (HashJoin.Type type : HashJoin.Type.values()) {
+            List<String> expected = nestedLoopJoin(type, left, right);
+            for (boolean buildIsLeft : new boolean[]{true, false}) {
+                try (HashJoin join = new HashJoin(type, buildIsLeft, 1)) {
+                    List<String> joined = run(join, buildIsLeft, left, right);
+
+                    assertThat(join.hasSpilled()).isTrue();
+                    assertThat(joined)
+                            .as("%s buildIsLeft=%s", type, buildIsLeft)
+                            .containsExactlyInAnyOrderElementsOf(expected);
+                }
+            }
+        }
+    }
+
+    @Test
+    void spilledValuesKeepTheirTypes() {
+        List<Object[]> left = List.<Object[]>of(new Object[]{"k", 7L, 2.5, true, null, "text"});
+        List<Object[]> right = List.<Object[]>of(new Object[]{"k", 1});
+
+        try (HashJoin join = new HashJoin(HashJoin.Type.INNER, true, 1)) {
+            List<Object[]> pairs = new ArrayList<>();
+            join.build("k", left.get(0));
+            join.probe("k", right.get(0), (l, r) -> pairs.add(l));
+            join.finish((l, r) -> pairs.add(l));
+
+            assertThat(join.hasSpilled()).isTrue();
+            assertThat(pairs).hasSize(1);
+            assertThat(pairs.get(0)).containsExactly("k", 7L, 2.5, true, null, "text");
+        }
+    }
+
+    private static List<String> join(HashJoin.Type type, boolean buildIsLeft, long budget,
+                                     List<Object[]> left, List<Object[]> right) {
+        try (HashJoin join = new HashJoin(type, buildIsLeft, budget)) {
+            return run(join, buildIsLeft, left, right);
+        }
+    }
+
+    private static List<String> run(HashJoin join, boolean buildIsLeft, List<Object[]> left, List<Object[]> right) {
+        List<String> joined = new ArrayList<>();
+        HashJoin.RowSink sink = (l, r) -> joined.add(format(l) + "|" + format(r));
+        for (Object[] row : buildIsLeft ? left : right) {
+            join.build((String) row[0], row);
+        }
+        for (Object[] row : buildIsLeft ? right : left) {
+            join.probe((String) row[0], row, sink);
+        }
+        join.finish(sink);
+        return joined;
+    }
+
+    private static List<String> nestedLoopJoin(HashJoin.Type type, List<Object[]> left, List<Object[]> right) {
+        List<String> joined = new ArrayList<>();
+        for (Object[] l : left) {
+            boolean matched = false;
+            for (Object[] r : right) {
+                if (l[0] != null && l[0].equals(r[0])) {
+                    matched = true;
+                    if (type != HashJoin.Type.ANTI) {
+                        joined.add(format(l) + "|" + format(r));
+                    }
+                }
+            }
+            if (!matched && type != HashJoin.Type.INNER) {
+                joined.add(format(l) + "|null");
+            }
+        }
+        return joined;
+    }
+
+    private static List<Object[]> rows(Random random, int count, String prefix) {
+        List<Object[]> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String key = random.nextInt(20) == 0 ? null : "k" + random.nextInt(600);
+            rows.add(new Object[]{key, prefix + i, (long) i});
+        }
+        return rows;
+    }
+
+    private static String format(Object[] row) {
+        if (row == null) {
+            return "null";
+        }
+        return String.join(",", Arrays.stream(row).map(String::valueOf).toList());
+    }
+}
@@ -0,0 +1,86 @@
+package com.jnj.extracter.analysis;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HyperLogLogTests {
+
+    /** Three standard errors of a 2^12-register sketch */
+    private static final double MAX_RELATIVE_ERROR = 3 * 1.04 / Math.sqrt(1 << 12);
+
+    @Test
+    void estimatesAreWithinTheErrorBound() {
+        for (int distinct : new int[]{1, 10, 100, 1_000, 5_000, 10_000, 50_000, 100_000, 1_000_000}) {
+            HyperLogLog sketch = new HyperLogLog();
+            for (int i = 0; i < distinct; i++) {
+                sketch.add("value-" + i);
+            }
+            assertWithinBound(sketch.estimate(), distinct);
+        }
+    }
+
+    @Test
+    void emptySketchEstimatesZero() {
+        assertThat(new HyperLogLog().estimate()).isZero();
+    }
+
+    @Test
+    void duplicatesDoNotChangeTheEstimate() {
+        HyperLogLog once = new HyperLogLog();
+        HyperLogLog repeated = new HyperLogLog();
+        for (int i = 0; i < 20_000; i++) {
+            once.add("value-" + i);
+            for (int copy = 0; copy < 5; copy++) {
+                repeated.add("value-" + i);
+            }
+        }
+
+        assertThat(repeated.estimate()).isEqualTo(once.estimate());
+    }
+
+    @Test
+    void mergeEqualsTheSketchOfTheUnion() {
+        HyperLogLog first = new HyperLogLog();
+        HyperLogLog second = new HyperLogLog();
+        HyperLogLog union = new HyperLogLog();
+        // Overlapping ranges: 0..59999 and 40000..99999
+        for (int i = 0; i < 100_000; i++) {
+            String value = "value-" + i;
+            if (i < 60_000) {
+                first.add(value);
+            }
+            if (i >= 40_000) {
+                second.add(value);
+            }
+            union.add(value);
+        }
+        HyperLogLog reversed = new HyperLogLog();
+        reversed.merge(second);
+        reversed.merge(first);
+        first.merge(second);
+
+        assertThat(first.estimate()).isEqualTo(union.estimate());
+        assertThat(reversed.estimate()).isEqualTo(union.estimate());
+        assertWithinBound(first.estimate(), 100_000);
+
+        // Merging again is a no-op
+        first.merge(second);
+        assertThat(first.estimate()).isEqualTo(union.estimate());
+    }
+
+    @Test
+    void allZeroHashSuffixStaysInRange() {
+        HyperLogLog sketch = new HyperLogLog();
+        sketch.addHash(0L);
+        sketch.addHash(0xFFF0_0000_0000_0000L);
+
+        assertThat(sketch.estimate()).isEqualTo(2);
+    }
+
+    private static void assertWithinBound(long estimate, int distinct) {
+        assertThat(Math.abs(estimate - distinct) / (double) distinct)
+                .as("estimate %d of %d distinct values", estimate, distinct)
+                .isLessThanOrEqualTo(MAX_RELATIVE_ERROR);
+    }
+}
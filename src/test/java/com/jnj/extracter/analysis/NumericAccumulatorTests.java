@@ -0,0 +1,93 @@
+package com.jnj.extracter.analysis;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class NumericAccumulatorTests {
+
+    @Test
+    void mergeEqualsSinglePass() {
+        Random random = new Random(42);
+        NumericAccumulator single = new NumericAccumulator();
+        NumericAccumulator[] parts = {new NumericAccumulator(), new NumericAccumulator(), new NumericAccumulator()};
+        for (int i = 0; i < 30_000; i++) {
+            double value = 1_000 + random.nextGaussian() * 250;
+            single.accept(value);
+            // Uneven partitions, as sheets and files are
+            parts[i % 7 == 0 ? 0 : i % 2 + 1].accept(value);
+        }
+        NumericAccumulator merged = new NumericAccumulator().merge(parts[0]).merge(parts[1]).merge(parts[2]);
+
+        assertThat(merged.getCount()).isEqualTo(single.getCount());
+        assertThat(merged.getSum()).isEqualTo(single.getSum());
+        assertThat(merged.getMean()).isCloseTo(single.getMean(), within(1e-9));
+        assertThat(merged.getVariance()).isCloseTo(single.getVariance(), within(single.getVariance() * 1e-12));
+        assertThat(merged.getMin()).isEqualTo(single.getMin());
+        assertThat(merged.getMax()).isEqualTo(single.getMax());
+        for (double quantile : new double[]{0, 0.1, 0.5, 0.9, 0.99, 1}) {
+            assertThat(merged.getQuantile(quantile)).isEqualTo(single.getQuantile(quantile));
+        }
+    }
+
+    @Test
+    void mergeWithEmptyAccumulatorsChangesNothing() {
+        NumericAccumulator values = new NumericAccumulator();
+        values.accept(3);
+        values.accept(5);
+
+        NumericAccumulator merged = new NumericAccumulator().merge(values).merge(new NumericAccumulator());
+
+        assertThat(merged.toMap()).isEqualTo(values.toMap());
+    }
+
+    @Test
+    void sumSurvivesCatastrophicCancellation() {
+        NumericAccumulator accumulator = new NumericAccumulator();
+        accumulator.accept(1.0);
+        accumulator.accept(1e100);
+        accumulator.accept(1.0);
+        accumulator.accept(-1e100);
+
+        // A plain double sum returns 0
+        assertThat(accumulator.getSum()).isEqualTo(2.0);
+    }
+
+    @Test
+    void mergedSumKeepsTheCompensation() {
+        NumericAccumulator first = new NumericAccumulator();
+        first.accept(1e100);
+        first.accept(1.0);
+        NumericAccumulator second = new NumericAccumulator();
+        second.accept(-1e100);
+        second.accept(1.0);
+
+        assertThat(first.merge(second).getSum()).isEqualTo(2.0);
+    }
+
+    @Test
+    void varianceOfLargeValuesWithSmallSpread() {
+        NumericAccumulator accumulator = new NumericAccumulator();
+        for (double offset : new double[]{4, 7, 13, 16}) {
+            accumulator.accept(1e9 + offset);
+        }
+
+        // The textbook sum-of-squares formula loses all digits here
+        assertThat(accumulator.getMean()).isEqualTo(1e9 + 10);
+        assertThat(accumulator.getVariance()).isCloseTo(30.0, within(1e-6));
+    }
+
+    @Test
+    void ignoresNaN() {
+        NumericAccumulator accumulator = new NumericAccumulator();
+        accumulator.accept(Double.NaN);
+        accumulator.accept(2);
+
+        assertThat(accumulator.getCount()).isEqualTo(1);
+        assertThat(accumulator.getSum()).isEqualTo(2.0);
+        assertThat(accumulator.getVariance()).isZero();
+    }
+}
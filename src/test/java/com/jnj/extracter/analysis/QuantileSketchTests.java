@@ -0,0 +1,126 @@
+package com.jnj.extracter.analysis;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class QuantileSketchTests {
+
+    private static final double[] QUANTILES = {0, 0.01, 0.1, 0.25, 0.5, 0.75, 0.9, 0.99, 0.999, 1};
+    /** Room for floating-point error in the bucket boundaries */
+    private static final double TOLERANCE = QuantileSketch.RELATIVE_ACCURACY + 1e-9;
+
+    @Test
+    void quantilesAreWithinTheRelativeAccuracy() {
+        Random random = new Random(7);
+        double[] values = new double[50_000];
+        QuantileSketch sketch = new QuantileSketch();
+        for (int i = 0; i < values.length; i++) {
+            // Heavy-tailed, both signs, and exact zeros
+            values[i] = i % 50 == 0 ? 0 : Math.exp(random.nextGaussian() * 3) * (i % 3 == 0 ? -1 : 1);
+            sketch.add(values[i]);
+        }
+        Arrays.sort(values);
+
+        for (double quantile : QUANTILES) {
+            assertWithinAccuracy(sketch.getQuantile(quantile), exact(values, quantile));
+        }
+        assertThat(sketch.getCount()).isEqualTo(values.length);
+    }
+
+    @Test
+    void mergeEqualsSinglePass() {
+        Random random = new Random(11);
+        QuantileSketch single = new QuantileSketch();
+        QuantileSketch first = new QuantileSketch();
+        QuantileSketch second = new QuantileSketch();
+        for (int i = 0; i < 20_000; i++) {
+            double value = random.nextDouble() * 1_000 - 100;
+            single.add(value);
+            (i < 5_000 ? first : second).add(value);
+        }
+        first.merge(second);
+
+        assertThat(first.getCount()).isEqualTo(single.getCount());
+        for (double quantile : QUANTILES) {
+            assertThat(first.getQuantile(quantile)).isEqualTo(single.getQuantile(quantile));
+        }
+    }
+
+    @Test
+    void upperQuantilesKeepTheirAccuracyAfterBinsCollapse() {
+        // 24 decades need about 2800 bins; only the top 2048 are kept
+        double[] values = new double[100_000];
+        QuantileSketch sketch = new QuantileSketch();
+        for (int i = 0; i < values.length; i++) {
+            values[i] = Math.pow(10, -12 + 24.0 * i / (values.length - 1));
+        }
+        // Ascending input forces a collapse on every new highest bucket
+        for (double value : values) {
+            sketch.add(value);
+        }
+
+        assertCollapsedButAccurateAbove(sketch, values);
+    }
+
+    @Test
+    void mergedSketchesCollapseTheSameWay() {
+        double[] values = new double[100_000];
+        QuantileSketch low = new QuantileSketch();
+        QuantileSketch high = new QuantileSketch();
+        for (int i = 0; i < values.length; i++) {
+            values[i] = Math.pow(10, -12 + 24.0 * i / (values.length - 1));
+            (i < values.length / 2 ? low : high).add(values[i]);
+        }
+        // Merging the low half into the high half adds values below the retained range
+        high.merge(low);
+
+        assertCollapsedButAccurateAbove(high, values);
+    }
+
+    @Test
+    void emptySketchHasNoQuantiles() {
+        QuantileSketch sketch = new QuantileSketch();
+        sketch.add(Double.NaN);
+
+        assertThat(sketch.getCount()).isZero();
+        assertThat(sketch.getQuantile(0.5)).isNaN();
+    }
+
+    /**
+     * The lowest quantiles fall into the collapsed bucket and are overestimated;
+     * every quantile whose value is in the retained range is still accurate.
+     */
+    private static void assertCollapsedButAccurateAbove(QuantileSketch sketch, double[] sorted) {
+        assertThat(sketch.getCount()).isEqualTo(sorted.length);
+        assertThat(sketch.getQuantile(0)).isGreaterThan(sorted[0] * 1e3);
+
+        // 2048 bins span a factor of gamma^2048, about 6e17, below the maximum
+        double retainedFrom = sorted[sorted.length - 1] / 1e17;
+        int checked = 0;
+        for (double quantile = 0; quantile <= 1; quantile += 0.01) {
+            double exact = exact(sorted, quantile);
+            if (exact >= retainedFrom) {
+                assertWithinAccuracy(sketch.getQuantile(quantile), exact);
+                checked++;
+            }
+        }
+        // The top 17 of the 24 decades
+        assertThat(checked).isGreaterThanOrEqualTo(70);
+    }
+
+    private static double exact(double[] sorted, double quantile) {
+        return sorted[(int) (quantile * (sorted.length - 1))];
+    }
+
+    private static void assertWithinAccuracy(double estimate, double exact) {
+        if (exact == 0) {
+            assertThat(estimate).isZero();
+        } else {
+            assertThat(Math.abs(estimate - exact) / Math.abs(exact)).isLessThanOrEqualTo(TOLERANCE);
+        }
+    }
+}
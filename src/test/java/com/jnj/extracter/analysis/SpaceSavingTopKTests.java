@@ -0,0 +1,128 @@
+package com.jnj.extracter.analysis;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SpaceSavingTopKTests {
+
+    private static final int CAPACITY = 50;
+
+    @Test
+    void countsExactlyWhileEveryValueFits() {
+        SpaceSavingTopK topK = new SpaceSavingTopK(CAPACITY);
+        for (int i = 0; i < 10; i++) {
+            for (int j = 0; j <= i; j++) {
+                topK.add("v" + i);
+            }
+        }
+
+        Map<String, Long> top = topK.top(3);
+        assertThat(top).containsExactly(Map.entry("v9", 10L), Map.entry("v8", 9L), Map.entry("v7", 8L));
+    }
+
+    @Test
+    void keepsEveryValueAboveTheGuaranteedFrequency() {
+        List<String> stream = skewedStream(new Random(3), 100_000);
+        Map<String, Long> exact = exactCounts(stream);
+        SpaceSavingTopK topK = new SpaceSavingTopK(CAPACITY);
+        stream.forEach(topK::add);
+
+        Map<String, Long> top = topK.top(CAPACITY);
+        long threshold = stream.size() / CAPACITY;
+        exact.forEach((value, count) -> {
+            if (count > threshold) {
+                assertThat(top).containsKey(value);
+            }
+        });
+        // Estimates never undercount and overcount by at most total/capacity
+        top.forEach((value, estimate) -> {
+            long count = exact.getOrDefault(value, 0L);
+            assertThat(estimate).isBetween(count, count + threshold);
+        });
+    }
+
+    @Test
+    void returnsTheHeaviestHittersInOrder() {
+        List<String> stream = skewedStream(new Random(5), 100_000);
+        SpaceSavingTopK topK = new SpaceSavingTopK(CAPACITY);
+        stream.forEach(topK::add);
+
+        List<String> expected = exactCounts(stream).entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(5)
+                .map(Map.Entry::getKey)
+                .toList();
+        assertThat(new ArrayList<>(topK.top(5).keySet())).isEqualTo(expected);
+    }
+
+    @Test
+    void mergeKeepsTheHeavyHittersOfTheCombinedStream() {
+        Random random = new Random(9);
+        List<String> first = skewedStream(random, 50_000);
+        List<String> second = skewedStream(random, 50_000);
+        SpaceSavingTopK merged = new SpaceSavingTopK(CAPACITY);
+        SpaceSavingTopK other = new SpaceSavingTopK(CAPACITY);
+        first.forEach(merged::add);
+        second.forEach(other::add);
+        merged.merge(other);
+
+        List<String> all = new ArrayList<>(first);
+        all.addAll(second);
+        Map<String, Long> exact = exactCounts(all);
+        Map<String, Long> top = merged.top(CAPACITY);
+        long threshold = all.size() / CAPACITY;
+        exact.forEach((value, count) -> {
+            if (count > threshold) {
+                assertThat(top).containsKey(value);
+                assertThat(top.get(value)).isGreaterThanOrEqualTo(count);
+            }
+        });
+    }
+
+    @Test
+    void mergeOfSummariesThatFitIsExact() {
+        SpaceSavingTopK first = new SpaceSavingTopK(CAPACITY);
+        SpaceSavingTopK second = new SpaceSavingTopK(CAPACITY);
+        Collections.nCopies(3, "a").forEach(first::add);
+        first.add("b");
+        Collections.nCopies(3, "b").forEach(second::add);
+        second.add("c");
+
+        first.merge(second);
+
+        assertThat(first.top(3)).containsExactly(Map.entry("b", 4L), Map.entry("a", 3L), Map.entry("c", 1L));
+    }
+
+    /**
+     * A Zipf-like stream over 5000 values, shuffled so heavy hitters do not arrive first.
+     */
+    private static List<String> skewedStream(Random random, int size) {
+        List<String> stream = new ArrayList<>(size);
+        double norm = 0;
+        for (int rank = 1; rank <= 5_000; rank++) {
+            norm += 1.0 / rank;
+        }
+        for (int rank = 1; rank <= 5_000 && stream.size() < size; rank++) {
+            long copies = Math.max(1, Math.round(size / (rank * norm)));
+            for (long i = 0; i < copies && stream.size() < size; i++) {
+                stream.add("value-" + rank);
+            }
+        }
+        Collections.shuffle(stream, random);
+        return stream;
+    }
+
+    private static Map<String, Long> exactCounts(List<String> stream) {
+        Map<String, Long> counts = new HashMap<>();
+        stream.forEach(value -> counts.merge(value, 1L, Long::sum));
+        return counts;
+    }
+}
@@ -0,0 +1,120 @@
+package com.jnj.extracter.query;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BatchOperatorsTests {
+
+    private static final List<String> COLUMNS = List.of("Id", "Score");
+
+    @Test
+    void topNMatchesAFullSortAcrossBatches() {
+        Random random = new Random(7);
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            rows.add(new Object[]{(long) i, i % 97 == 0 ? null : random.nextInt(1_000)});
+        }
+        List<ParsedQuery.OrderItem> orderBy = List.of(
+                new ParsedQuery.OrderItem("Score", true), new ParsedQuery.OrderItem("Id", false));
+
+        BatchOperators.CollectSink full = new BatchOperators.CollectSink(Integer.MAX_VALUE);
+        BatchOperators.CollectSink top = new BatchOperators.CollectSink(Integer.MAX_VALUE);
+        push(new BatchOperators.SortSink(orderBy, 0, full), rows, 700);
+        push(new BatchOperators.SortSink(orderBy, 25, top), rows, 700);
+
+        assertThat(full.getRows()).hasSize(rows.size());
+        assertThat(top.getRows()).isEqualTo(full.getRows().subList(0, 25));
+        List<Object> scores = full.getRows().stream().map(row -> row.get(1)).toList();
+        assertThat(scores.stream().filter(score -> score != null).toList())
+                .isSortedAccordingTo(Comparator.comparing(score -> -(Integer) score));
+    }
+
+    @Test
+    void nullsSortLastInEitherDirection() {
+        List<Object[]> rows = List.of(
+                new Object[]{1L, null}, new Object[]{2L, 5}, new Object[]{3L, "7"}, new Object[]{4L, 1});
+
+        for (boolean descending : new boolean[]{false, true}) {
+            BatchOperators.CollectSink collector = new BatchOperators.CollectSink(Integer.MAX_VALUE);
+            push(new BatchOperators.SortSink(List.of(new ParsedQuery.OrderItem("score", descending)), 3, collector),
+                    rows, 2);
+
+            List<Object> ids = collector.getRows().stream().map(row -> row.get(0)).toList();
+            assertThat(ids).containsExactly(descending ? new Object[]{3L, 2L, 4L} : new Object[]{4L, 2L, 3L});
+        }
+    }
+
+    @Test
+    void sortRejectsUnknownColumns() {
+        BatchOperators.SortSink sort = new BatchOperators.SortSink(
+                List.of(new ParsedQuery.OrderItem("Missing", false)), 0, new BatchOperators.CollectSink(10));
+
+        assertThatThrownBy(() -> sort.accept(batch(List.<Object[]>of(new Object[]{1L, 2}))))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Unknown ORDER BY column 'Missing'");
+    }
+
+    @Test
+    void limitStopsThePipelineOnceSatisfied() {
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            rows.add(new Object[]{(long) i, i});
+        }
+        BatchOperators.CollectSink collector = new BatchOperators.CollectSink(Integer.MAX_VALUE);
+        BatchOperators.LimitSink limit = new BatchOperators.LimitSink(5, collector);
+
+        assertThat(limit.accept(batch(rows.subList(0, 3)))).isTrue();
+        assertThat(limit.accept(batch(rows.subList(3, 6)))).isFalse();
+        assertThat(limit.accept(batch(rows.subList(6, 10)))).isFalse();
+        assertThat(collector.getRows()).extracting(row -> row.get(0)).containsExactly(0L, 1L, 2L, 3L, 4L);
+    }
+
+    @Test
+    void filterPassesOnlyMatchingRows() {
+        List<Object[]> rows = List.of(
+                new Object[]{1L, 10}, new Object[]{2L, null}, new Object[]{3L, 30}, new Object[]{4L, "40"});
+        BatchOperators.CollectSink collector = new BatchOperators.CollectSink(Integer.MAX_VALUE);
+        Expression predicate = QueryParser.parse("SELECT * FROM t WHERE Score > 15").getBlocks().get(0).getWhere();
+
+        push(new BatchOperators.FilterSink(predicate, collector), rows, 4);
+
+        assertThat(collector.getRows()).extracting(row -> row.get(0)).containsExactly(3L, 4L);
+    }
+
+    @Test
+    void collectorTruncatesAtItsMaximum() {
+        List<Object[]> rows = List.of(new Object[]{1L, 1}, new Object[]{2L, 2}, new Object[]{3L, 3});
+        BatchOperators.CollectSink collector = new BatchOperators.CollectSink(2);
+
+        assertThat(collector.accept(batch(rows))).isFalse();
+        assertThat(collector.getRows()).hasSize(2);
+        assertThat(collector.isTruncated()).isTrue();
+        assertThat(collector.getColumns()).isEqualTo(COLUMNS);
+    }
+
+    private static void push(BatchOperators.Sink sink, List<Object[]> rows, int batchSize) {
+        for (int start = 0; start < rows.size(); start += batchSize) {
+            if (!sink.accept(batch(rows.subList(start, Math.min(rows.size(), start + batchSize))))) {
+                break;
+            }
+        }
+        sink.finish();
+    }
+
+    private static ColumnBatch batch(List<Object[]> rows) {
+        Object[][] vectors = new Object[COLUMNS.size()][rows.size()];
+        for (int row = 0; row < rows.size(); row++) {
+            for (int c = 0; c < COLUMNS.size(); c++) {
+                vectors[c][row] = rows.get(row)[c];
+            }
+        }
+        return new ColumnBatch(COLUMNS, vectors, rows.size());
+    }
+}
@@ -0,0 +1,125 @@
+package com.jnj.extracter.query;
+
+import com.jnj.extracter.analysis.AggregateSpec;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class QueryParserTests {
+
+    @Test
+    void parsesAFullSelectBlock() {
+        ParsedQuery query = QueryParser.parse("SELECT Region, sum(Qty) AS total, count(*) units "
+                + "FROM \"Sales.xlsx\".Orders WHERE Qty > 1 AND Product = 'Gadget' GROUP BY Region "
+                + "ORDER BY total DESC, Region LIMIT 5;");
+
+        assertThat(query.isExplain()).isFalse();
+        assertThat(query.getBlocks()).hasSize(1);
+        ParsedQuery.SelectBlock block = query.getBlocks().get(0);
+        assertThat(block.getItems()).extracting(ParsedQuery.SelectItem::getOutputName)
+                .containsExactly("Region", "total", "units");
+        assertThat(block.getItems().get(1).getAggregate().getFunction()).isEqualTo(AggregateSpec.Function.SUM);
+        assertThat(block.getItems().get(2).getAggregate().isCountAll()).isTrue();
+        assertThat(block.getTableName()).containsExactly("Sales.xlsx", "Orders");
+        assertThat(block.getWhere()).hasToString("(Qty > 1 AND Product = 'Gadget')");
+        assertThat(block.getGroupBy()).containsExactly("Region");
+        assertThat(block.isAggregate()).isTrue();
+        assertThat(query.getOrderBy()).extracting(Object::toString).containsExactly("total DESC", "Region ASC");
+        assertThat(query.getLimit()).isEqualTo(5);
+    }
+
+    @Test
+    void andBindsTighterThanOr() {
+        ParsedQuery query = QueryParser.parse("SELECT * FROM t WHERE a = 1 OR b = 2 AND NOT c = 3");
+
+        assertThat(query.getBlocks().get(0).getWhere()).hasToString("(a = 1 OR (b = 2 AND NOT c = 3))");
+    }
+
+    @Test
+    void parsesPredicatesAndLiterals() {
+        ParsedQuery query = QueryParser.parse("SELECT * FROM t WHERE a IS NOT NULL AND b IS NULL "
+                + "AND c NOT LIKE 'x%' AND d IN ('a', -2, 1.5, NULL) AND e NOT IN (TRUE) AND f <> -3");
+
+        assertThat(query.getBlocks().get(0).getWhere()).hasToString("(((((a IS NOT NULL AND b IS NULL) "
+                + "AND c NOT LIKE 'x%') AND d IN ('a', -2, 1.5, NULL)) AND e NOT IN (true)) AND f != -3)");
+    }
+
+    @Test
+    void doubledQuotesEscapeTheQuoteCharacter() {
+        ParsedQuery query = QueryParser.parse("SELECT \"Say \"\"hi\"\"\" FROM `My File.xlsx` WHERE Name = 'O''Brien'");
+
+        ParsedQuery.SelectBlock block = query.getBlocks().get(0);
+        assertThat(block.getItems().get(0).getColumn()).isEqualTo("Say \"hi\"");
+        assertThat(block.getTableName()).containsExactly("My File.xlsx");
+        assertThat(block.getWhere()).hasToString("Name = 'O''Brien'");
+    }
+
+    @Test
+    void splitsUnquotedDottedNames() {
+        ParsedQuery query = QueryParser.parse("select * from Sales.xlsx.Orders");
+
+        assertThat(query.getBlocks().get(0).getTableName()).containsExactly("Sales", "xlsx", "Orders");
+    }
+
+    @Test
+    void parsesExplainAndUnionAll() {
+        ParsedQuery query = QueryParser.parse("explain SELECT a FROM t1 UNION ALL SELECT b FROM t2 ORDER BY a");
+
+        assertThat(query.isExplain()).isTrue();
+        assertThat(query.getBlocks()).extracting(block -> block.getTableName())
+                .containsExactly(List.of("t1"), List.of("t2"));
+        assertThat(query.getOrderBy()).extracting(Object::toString).containsExactly("a ASC");
+        assertThat(query.getLimit()).isNull();
+    }
+
+    @Test
+    void rejectsEmptyQueries() {
+        assertThatThrownBy(() -> QueryParser.parse("  "))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Query is empty");
+    }
+
+    @Test
+    void reportsThePositionOfSyntaxErrors() {
+        assertThatThrownBy(() -> QueryParser.parse("SELECT FROM t"))
+                .hasMessage("Syntax error at position 8: expected a column or table name but found 'FROM'");
+        assertThatThrownBy(() -> QueryParser.parse("SELECT a FROM"))
+                .hasMessage("Syntax error at position 14: expected a column or table name but found end of query");
+        assertThatThrownBy(() -> QueryParser.parse("SELECT a t"))
+                .hasMessage("Syntax error at position 11: expected FROM but found end of query");
+        assertThatThrownBy(() -> QueryParser.parse("SELECT a FROM t extra"))
+                .hasMessage("Syntax error at position 17: expected end of query but found 'extra'");
+    }
+
+    @Test
+    void explainsUnsupportedConstructs() {
+        assertThatThrownBy(() -> QueryParser.parse("SELECT a FROM t UNION SELECT a FROM u"))
+                .hasMessage("Syntax error at position 23: expected ALL after UNION; only UNION ALL is supported"
+                        + " but found 'SELECT'");
+        assertThatThrownBy(() -> QueryParser.parse("SELECT a FROM t LIMIT 2.5"))
+                .hasMessage("Syntax error at position 23: expected a row count after LIMIT but found '2.5'");
+        assertThatThrownBy(() -> QueryParser.parse("SELECT a FROM t WHERE a NOT = 1"))
+                .hasMessage("Syntax error at position 29: expected LIKE or IN after NOT but found '='");
+        assertThatThrownBy(() -> QueryParser.parse("SELECT a FROM t WHERE a IN (b)"))
+                .hasMessage("Syntax error at position 30: expected a literal value in the IN list but found ')'");
+        assertThatThrownBy(() -> QueryParser.parse("SELECT a FROM t WHERE a LIKE b"))
+                .hasMessage("Syntax error at position 30: expected a quoted pattern after LIKE but found 'b'");
+    }
+
+    @Test
+    void reportsTokenizerErrors() {
+        assertThatThrownBy(() -> QueryParser.parse("SELECT a FROM t WHERE b = 'open"))
+                .hasMessage("Unterminated quote starting at position 27");
+        assertThatThrownBy(() -> QueryParser.parse("SELECT a FROM t WHERE b = #1"))
+                .hasMessage("Unexpected character '#' at position 27");
+    }
+
+    @Test
+    void rejectsAggregatesWithoutAColumn() {
+        assertThatThrownBy(() -> QueryParser.parse("SELECT sum(*) FROM t"))
+                .hasMessage("Aggregate 'sum(*)' needs a column");
+    }
+}
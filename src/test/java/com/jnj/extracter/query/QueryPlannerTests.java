@@ -0,0 +1,104 @@
+package com.jnj.extracter.query;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class QueryPlannerTests {
+
+    private final QueryPlanner planner = new QueryPlanner(List.of(
+            new File("excel", "Sales.xlsx"), new File("excel", "Sales.2024.xlsx")));
+
+    private LogicalPlan plan(String query) {
+        return planner.plan(QueryParser.parse(query));
+    }
+
+    @Test
+    void naivePlanFiltersAboveAFullScan() {
+        LogicalPlan plan = plan("SELECT Region, Qty FROM \"Sales.xlsx\".Orders WHERE Qty > 1 AND Product LIKE 'G%'");
+
+        assertThat(plan.explain()).containsExactly(
+                "Project [Region, Qty]",
+                "  Filter (Qty > 1 AND Product LIKE 'G%')",
+                "    Scan \"Sales.xlsx\".Orders columns=*");
+    }
+
+    @Test
+    void pushesConjunctsAndNarrowsTheScan() {
+        LogicalPlan optimized = QueryPlanner.optimize(
+                plan("SELECT Region, Qty FROM \"Sales.xlsx\".Orders WHERE Qty > 1 AND Product LIKE 'G%'"));
+
+        assertThat(optimized.explain()).containsExactly(
+                "Project [Region, Qty]",
+                "  Scan \"Sales.xlsx\".Orders columns=[Region, Qty] pushedFilters=[Qty > 1, Product LIKE 'G%']");
+        LogicalPlan.Scan scan = (LogicalPlan.Scan) optimized.getChild();
+        assertThat(scan.getFilters()).hasSize(2);
+        assertThat(QueryPlanner.filterColumns(scan.getFilters())).containsExactly("Qty", "Product");
+    }
+
+    @Test
+    void keepsADisjunctionAsOneFilter() {
+        LogicalPlan optimized = QueryPlanner.optimize(plan("SELECT Region, sum(Qty) AS total, count(*) "
+                + "FROM \"Sales.xlsx\".Orders WHERE (Qty > 1 AND Product = 'Gadget') OR Price IS NULL "
+                + "GROUP BY Region ORDER BY total DESC LIMIT 5"));
+
+        assertThat(optimized.explain()).containsExactly(
+                "Limit 5",
+                "  TopN 5 [total DESC]",
+                "    Aggregate groupBy=[Region] select=[Region, sum(Qty) AS total, count(*)]",
+                "      Scan \"Sales.xlsx\".Orders columns=[Region, Qty] "
+                        + "pushedFilters=[((Qty > 1 AND Product = 'Gadget') OR Price IS NULL)]");
+    }
+
+    @Test
+    void selectStarDecodesEveryColumn() {
+        LogicalPlan optimized = QueryPlanner.optimize(plan("SELECT * FROM \"Sales.xlsx\" WHERE Qty >= 2"));
+
+        assertThat(optimized.explain()).containsExactly(
+                "Project [*]",
+                "  Scan \"Sales.xlsx\".* columns=* pushedFilters=[Qty >= 2]");
+    }
+
+    @Test
+    void optimizesEveryUnionBranch() {
+        LogicalPlan optimized = QueryPlanner.optimize(plan("SELECT Region FROM \"Sales.xlsx\".Orders WHERE Qty > 1 "
+                + "UNION ALL SELECT Area FROM \"Sales.xlsx\".Returns ORDER BY Region"));
+
+        assertThat(optimized.explain()).containsExactly(
+                "Sort [Region ASC]",
+                "  UnionAll",
+                "    Project [Region]",
+                "      Scan \"Sales.xlsx\".Orders columns=[Region] pushedFilters=[Qty > 1]",
+                "    Project [Area]",
+                "      Scan \"Sales.xlsx\".Returns columns=[Area]");
+    }
+
+    @Test
+    void longestFilePrefixWins() {
+        LogicalPlan.Scan scan = (LogicalPlan.Scan) plan("SELECT * FROM Sales.\"2024\".xlsx.Orders.Q1").getChild();
+
+        assertThat(scan.getFile().getName()).isEqualTo("Sales.2024.xlsx");
+        assertThat(scan.getSheetName()).isEqualTo("Orders.Q1");
+        assertThat(((LogicalPlan.Scan) plan("SELECT * FROM sales.xlsx").getChild()).getFile().getName())
+                .isEqualTo("Sales.xlsx");
+    }
+
+    @Test
+    void rejectsSemanticErrors() {
+        assertThatThrownBy(() -> plan("SELECT * FROM \"Missing.xlsx\".Orders"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Unknown table 'Missing.xlsx.Orders': no Excel file with that name");
+        assertThatThrownBy(() -> plan("SELECT *, count(*) FROM \"Sales.xlsx\""))
+                .hasMessage("SELECT * cannot be combined with aggregates or GROUP BY");
+        assertThatThrownBy(() -> plan("SELECT Region, Product, sum(Qty) FROM \"Sales.xlsx\" GROUP BY Region"))
+                .hasMessage("Column 'Product' must appear in GROUP BY or be used in an aggregate");
+        assertThatThrownBy(() -> plan("SELECT Region FROM \"Sales.xlsx\" ORDER BY Qty"))
+                .hasMessage("ORDER BY column 'Qty' is not in the select list [Region]");
+        assertThatThrownBy(() -> plan("SELECT Region FROM \"Sales.xlsx\" UNION ALL SELECT Region, Qty FROM \"Sales.xlsx\""))
+                .hasMessage("UNION ALL branches must select the same number of columns");
+    }
+}
@@ -0,0 +1,152 @@
+package com.jnj.extracter.query;
+
+import com.jnj.extracter.ServiceTestContext;
+import com.jnj.extracter.TestWorkbooks;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class QueryServiceTests {
+
+    @TempDir
+    static Path folder;
+
+    private static ServiceTestContext context;
+    private static QueryService queryService;
+
+    @BeforeAll
+    static void writeFixture() throws Exception {
+        Map<String, List<List<Object>>> sheets = new LinkedHashMap<>();
+        sheets.put("Orders", List.of(
+                Arrays.asList("Region", "Product", "Qty", "Price"),
+                Arrays.asList("North", "Widget", 3, 2.5),
+                Arrays.asList("South", "Gadget", 5, null),
+                Arrays.asList("North", "Gadget", 1, 10.0),
+                Arrays.asList("East", "Widget", 4, 4.0),
+                Arrays.asList("South", "Widget", 2, 1.5)));
+        sheets.put("Returns", List.of(
+                Arrays.asList("Region", "Qty"),
+                Arrays.asList("North", 1)));
+        TestWorkbooks.write(folder.resolve("Sales.xlsx"), sheets);
+
+        context = new ServiceTestContext(folder, QueryService.class);
+        queryService = context.get(QueryService.class);
+    }
+
+    @AfterAll
+    static void closeContext() {
+        context.close();
+    }
+
+    @Test
+    void aggregatesByGroup() {
+        Map<String, Object> result = queryService.execute("SELECT Region, sum(Qty) AS total, count(*), avg(Price), "
+                + "min(Price), max(Qty) FROM \"Sales.xlsx\".Orders GROUP BY Region ORDER BY Region", false);
+
+        assertThat(result.get("columns"))
+                .isEqualTo(List.of("Region", "total", "count(*)", "avg(Price)", "min(Price)", "max(Qty)"));
+        assertThat(rows(result)).containsExactly(
+                List.of("East", 4.0, 1L, 4.0, 4.0, 4.0),
+                List.of("North", 4.0, 2L, 6.25, 2.5, 3.0),
+                List.of("South", 7.0, 2L, 1.5, 1.5, 5.0));
+        assertThat(result.get("rowsScanned")).isEqualTo(5L);
+    }
+
+    @Test
+    void globalAggregateOverNoRowsYieldsOneRow() {
+        Map<String, Object> result = queryService.execute(
+                "SELECT count(*), sum(Qty) FROM \"Sales.xlsx\".Orders WHERE Region = 'West'", false);
+
+        assertThat(rows(result)).containsExactly(Arrays.asList(0L, null));
+    }
+
+    @Test
+    void spilledAggregatesMatchInMemoryAggregates() throws Exception {
+        String query = "SELECT Region, Product, sum(Qty), count(*) FROM \"Sales.xlsx\".Orders "
+                + "GROUP BY Region, Product ORDER BY Region, Product";
+        try (ServiceTestContext spilling = new ServiceTestContext(folder,
+                Map.of("excel.groupby.max-groups-in-memory", 1), QueryService.class)) {
+            assertThat(rows(spilling.get(QueryService.class).execute(query, false)))
+                    .isEqualTo(rows(queryService.execute(query, false)))
+                    .hasSize(5);
+        }
+    }
+
+    @Test
+    void filtersWithPushedDownPredicates() {
+        Map<String, Object> result = queryService.execute("SELECT Region, Qty FROM \"Sales.xlsx\".Orders "
+                + "WHERE (Qty > 1 AND Product = 'Gadget') OR Price IS NULL OR Region IN ('East')", false);
+
+        assertThat(rows(result)).containsExactly(List.of("South", 5L), List.of("East", 4L));
+    }
+
+    @Test
+    void topNWithLimit() {
+        Map<String, Object> result = queryService.execute(
+                "SELECT Product, Qty FROM \"Sales.xlsx\".Orders ORDER BY Qty DESC LIMIT 2", false);
+
+        assertThat(rows(result)).containsExactly(List.of("Gadget", 5L), List.of("Widget", 4L));
+        assertThat(result.get("truncated")).isEqualTo(false);
+        assertThat(result.get("plan")).isEqualTo(List.of(
+                "Limit 2",
+                "  TopN 2 [Qty DESC]",
+                "    Project [Product, Qty]",
+                "      Scan \"Sales.xlsx\".Orders columns=[Product, Qty]"));
+    }
+
+    @Test
+    void unionAllAndAllSheetScans() {
+        Map<String, Object> union = queryService.execute("SELECT Region, Qty FROM \"Sales.xlsx\".Returns "
+                + "UNION ALL SELECT Region, Qty FROM \"Sales.xlsx\".Orders WHERE Region = 'North'", false);
+        Map<String, Object> allSheets = queryService.execute(
+                "SELECT Region, Qty FROM \"Sales.xlsx\" WHERE Region = 'North'", false);
+
+        assertThat(rows(union)).containsExactlyInAnyOrder(
+                List.of("North", 1L), List.of("North", 3L), List.of("North", 1L));
+        assertThat(rows(allSheets)).containsExactlyInAnyOrderElementsOf(rows(union));
+    }
+
+    @Test
+    void explainReturnsPlansWithoutRunning() {
+        Map<String, Object> result = queryService.execute("EXPLAIN SELECT Region, Qty FROM \"Sales.xlsx\".Orders "
+                + "WHERE Qty > 1 AND Product LIKE 'G%'", false);
+
+        assertThat(result).containsOnlyKeys("logicalPlan", "optimizedPlan", "pushdown");
+        assertThat(result.get("logicalPlan")).isEqualTo(List.of(
+                "Project [Region, Qty]",
+                "  Filter (Qty > 1 AND Product LIKE 'G%')",
+                "    Scan \"Sales.xlsx\".Orders columns=*"));
+        assertThat(result.get("optimizedPlan")).isEqualTo(List.of(
+                "Project [Region, Qty]",
+                "  Scan \"Sales.xlsx\".Orders columns=[Region, Qty] pushedFilters=[Qty > 1, Product LIKE 'G%']"));
+        Map<String, Object> pushdown = new LinkedHashMap<>();
+        pushdown.put("table", "\"Sales.xlsx\".Orders");
+        pushdown.put("projectedColumns", List.of("Region", "Qty"));
+        pushdown.put("pushedFilters", List.of("Qty > 1", "Product LIKE 'G%'"));
+        pushdown.put("filterColumns", List.of("Qty", "Product"));
+        assertThat(result.get("pushdown")).isEqualTo(List.of(pushdown));
+        assertThat(queryService.execute("SELECT * FROM \"Sales.xlsx\".Orders", true)).containsKey("optimizedPlan");
+    }
+
+    @Test
+    void rejectsUnknownTables() {
+        assertThatThrownBy(() -> queryService.execute("SELECT * FROM \"Missing.xlsx\"", false))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Unknown table 'Missing.xlsx': no Excel file with that name");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<List<Object>> rows(Map<String, Object> result) {
+        return (List<List<Object>>) result.get("rows");
+    }
+}
@@ -0,0 +1,49 @@
+package com.jnj.extracter.service;
+
+import com.jnj.extracter.ServiceTestContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ContentStoreTests {
+
+    @TempDir
+    Path folder;
+
+    @Test
+    void tracksWhichContentIsStillHeld() throws Exception {
+        File first = Files.writeString(folder.resolve("a.csv"), "same").toFile();
+        File second = Files.writeString(folder.resolve("b.csv"), "same").toFile();
+
+        try (ServiceTestContext context = new ServiceTestContext(folder)) {
+            ContentStore contentStore = context.get(ContentStore.class);
+            FileCatalog fileCatalog = context.get(FileCatalog.class);
+            String hash = contentStore.hashOf(first);
+            assertThat(contentStore.hashOf(second)).isEqualTo(hash);
+
+            // Rewriting one file moves it to another hash; the other still holds the content
+            Files.writeString(first.toPath(), "different");
+            assertThat(first.setLastModified(first.lastModified() + 10_000)).isTrue();
+            String changed = contentStore.hashOf(first);
+            assertThat(changed).isNotEqualTo(hash);
+            assertThat(contentStore.isCurrent(hash)).isTrue();
+            assertThat(contentStore.isCurrent(changed)).isTrue();
+
+            // Deleted files are forgotten once the catalog drops them
+            Files.delete(second.toPath());
+            fileCatalog.refresh(second.getName());
+            assertThat(contentStore.isCurrent(hash)).isFalse();
+            assertThat(contentStore.getKnownFileCount()).isEqualTo(1);
+
+            Files.delete(first.toPath());
+            fileCatalog.refresh(first.getName());
+            assertThat(contentStore.isCurrent(changed)).isFalse();
+            assertThat(contentStore.getKnownFileCount()).isZero();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.jnj.extracter.service;
+
+import com.jnj.extracter.ServiceTestContext;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ExtractionCoalescerTests {
+
+    private static final int JOINERS = 3;
+
+    private final ExecutorService callers = Executors.newFixedThreadPool(JOINERS + 1);
+
+    @TempDir
+    Path folder;
+
+    @AfterEach
+    void stopCallers() {
+        callers.shutdownNow();
+    }
+
+    @Test
+    void runsTheWorkOnceForConcurrentCallers() throws Exception {
+        try (ServiceTestContext context = new ServiceTestContext(folder)) {
+            ExtractionCoalescer coalescer = context.get(ExtractionCoalescer.class);
+            MeterRegistry registry = context.get(MeterRegistry.class);
+            AtomicInteger runs = new AtomicInteger();
+            CountDownLatch release = new CountDownLatch(1);
+
+            List<Future<Object>> results = callConcurrently(coalescer, registry, release, () -> {
+                runs.incrementAndGet();
+                return new Object();
+            });
+            release.countDown();
+
+            Object leaderResult = results.get(0).get(10, TimeUnit.SECONDS);
+            for (Future<Object> result : results) {
+                assertThat(result.get(10, TimeUnit.SECONDS)).isSameAs(leaderResult);
+            }
+            assertThat(runs).hasValue(1);
+            assertThat(registry.counter("excel.extractions.started").count()).isEqualTo(1);
+            assertThat(registry.counter("excel.extractions.coalesced").count()).isEqualTo(JOINERS);
+            assertThat(coalescer.getInFlightCount()).isZero();
+        }
+    }
+
+    @Test
+    void handsTheLeadersFailureToEveryCaller() throws Exception {
+        try (ServiceTestContext context = new ServiceTestContext(folder)) {
+            ExtractionCoalescer coalescer = context.get(ExtractionCoalescer.class);
+            MeterRegistry registry = context.get(MeterRegistry.class);
+            IllegalStateException failure = new IllegalStateException("Cannot read the workbook");
+            CountDownLatch release = new CountDownLatch(1);
+
+            List<Future<Object>> results = callConcurrently(coalescer, registry, release, () -> {
+                throw failure;
+            });
+            release.countDown();
+
+            for (Future<Object> result : results) {
+                assertThatThrownBy(() -> result.get(10, TimeUnit.SECONDS))
+                        .isInstanceOf(ExecutionException.class)
+                        .cause().isSameAs(failure);
+            }
+            // The key is gone, so the next caller runs the work again
+            assertThat(coalescer.getInFlightCount()).isZero();
+            assertThat(coalescer.execute("Sales.xlsx", () -> "again")).isEqualTo("again");
+            assertThat(registry.counter("excel.extractions.started").count()).isEqualTo(2);
+        }
+    }
+
+    /**
+     * Start a leader that blocks in the work until released, then the joiners, and
+     * return once every joiner waits on the leader. The leader's result comes first.
+     */
+    private List<Future<Object>> callConcurrently(ExtractionCoalescer coalescer, MeterRegistry registry,
+                                                  CountDownLatch release, Supplier<Object> work)
+            throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        List<Future<Object>> results = new ArrayList<>();
+        results.add(callers.submit(() -> coalescer.execute("Sales.xlsx", () -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return work.get();
+        })));
+        assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+
+        for (int i = 0; i < JOINERS; i++) {
+            results.add(callers.submit(() -> coalescer.execute("Sales.xlsx", () -> {
+                throw new AssertionError("Joiners must not run the work");
+            })));
+        }
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (registry.counter("excel.extractions.coalesced").count() < JOINERS
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(coalescer.getInFlightCount()).isEqualTo(1);
+        return results;
+    }
+}
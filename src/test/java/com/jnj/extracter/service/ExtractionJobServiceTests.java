@@ -0,0 +1,130 @@
+package com.jnj.extracter.service;
+
+import com.jnj.extracter.config.ExcelProcessingConfig;
+import com.jnj.extracter.entity.ExcelData;
+import com.jnj.extracter.entity.ExcelProcessingResult;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ExtractionJobServiceTests {
+
+    @TempDir
+    Path folder;
+
+    private final ExcelService excelService = mock(ExcelService.class);
+
+    @Test
+    void keepsSummariesAndReloadsRows() throws IOException {
+        File file = workbook("a.xlsx");
+        ExcelProcessingResult extracted = result(file, 1);
+        when(excelService.extractExcelFile(any(File.class), any(ExtractionListener.class))).thenReturn(extracted);
+        when(excelService.extractExcelFile(file)).thenReturn(extracted);
+        ExtractionJobService service = new ExtractionJobService(excelService, Runnable::run, config(10));
+
+        ExtractionJob job = service.submit(List.of(file));
+
+        assertThat(job.getStatus()).isEqualTo(ExtractionJob.Status.COMPLETED);
+        ExcelProcessingResult summary = job.getSummaries().get(0);
+        assertThat(summary.getTotalRows()).isEqualTo(1);
+        assertThat(summary.getExtractedData()).isNull();
+        assertThat(service.loadResult(job, summary).getExtractedData()).hasSize(1);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void warmupJobsTrackProgressWithoutSummaries() throws IOException {
+        File file = workbook("a.xlsx");
+        when(excelService.extractExcelFile(any(File.class), any(ExtractionListener.class))).thenReturn(result(file, 3));
+        ExtractionJobService service = new ExtractionJobService(excelService, Runnable::run, config(10));
+
+        ExtractionJob job = service.submitWarmup(List.of(file));
+
+        assertThat(job.getStatus()).isEqualTo(ExtractionJob.Status.COMPLETED);
+        assertThat(job.isWarmup()).isTrue();
+        assertThat(job.getSummaries()).isEmpty();
+        Map<String, Object> status = job.toStatusMap();
+        assertThat(status).containsEntry("completedFiles", 1).containsEntry("progress", 100.0);
+        Map<String, Object> progress = (Map<String, Object>) ((Map<String, Object>) status.get("files")).get("a.xlsx");
+        assertThat(progress).containsEntry("success", true).containsEntry("totalRows", 3);
+    }
+
+    @Test
+    void reportsFilesChangedSinceTheJobRan() throws IOException {
+        File file = workbook("a.xlsx");
+        when(excelService.extractExcelFile(any(File.class), any(ExtractionListener.class))).thenReturn(result(file, 1));
+        ExtractionJobService service = new ExtractionJobService(excelService, Runnable::run, config(10));
+        ExtractionJob job = service.submit(List.of(file));
+
+        Files.writeString(file.toPath(), "changed content");
+        assertThat(file.setLastModified(file.lastModified() + 10_000)).isTrue();
+
+        ExcelProcessingResult result = service.loadResult(job, job.getSummaries().get(0));
+        assertThat(result.isSuccess()).isFalse();
+        assertThat(result.getExtractedData()).isNull();
+    }
+
+    @Test
+    void dropsRejectedJobs() throws IOException {
+        Executor rejecting = task -> {
+            throw new RejectedExecutionException("queue full");
+        };
+        ExtractionJobService service = new ExtractionJobService(excelService, rejecting, config(10));
+
+        assertThatThrownBy(() -> service.submit(List.of(workbook("a.xlsx"))))
+                .isInstanceOf(RejectedExecutionException.class);
+        // Nothing left behind that could stay queued forever
+        assertThat(service.getJobCount()).isZero();
+    }
+
+    @Test
+    void evictsOldestFinishedJobsBeyondTheCap() throws IOException, InterruptedException {
+        File file = workbook("a.xlsx");
+        when(excelService.extractExcelFile(any(File.class), any(ExtractionListener.class))).thenReturn(result(file, 1));
+        ExtractionJobService service = new ExtractionJobService(excelService, Runnable::run, config(2));
+
+        ExtractionJob first = service.submit(List.of(file));
+        Thread.sleep(5);
+        ExtractionJob second = service.submit(List.of(file));
+        Thread.sleep(5);
+        ExtractionJob third = service.submit(List.of(file));
+        service.evictJobs();
+
+        assertThat(service.getJob(first.getId())).isEmpty();
+        assertThat(service.getJob(second.getId())).isPresent();
+        assertThat(service.getJob(third.getId())).isPresent();
+    }
+
+    private File workbook(String name) throws IOException {
+        return Files.writeString(folder.resolve(name), "content").toFile();
+    }
+
+    private static ExcelProcessingResult result(File file, int rows) {
+        List<ExcelData> data = IntStream.range(0, rows)
+                .mapToObj(i -> new ExcelData(file.getName(), "Sheet1", i + 1, Map.of("A", i), null))
+                .toList();
+        return new ExcelProcessingResult(file.getName(), true, "ok", 1, rows, List.of("Sheet1"), data, null);
+    }
+
+    private static ExcelProcessingConfig config(int maxRetained) {
+        ExcelProcessingConfig config = mock(ExcelProcessingConfig.class);
+        when(config.getJobMaxRetained()).thenReturn(maxRetained);
+        when(config.getJobRetentionMinutes()).thenReturn(60);
+        return config;
+    }
+}
@@ -0,0 +1,41 @@
+package com.jnj.extracter.service;
+
+import com.jnj.extracter.ServiceTestContext;
+import com.jnj.extracter.TestWorkbooks;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FileCatalogTests {
+
+    /** Package relationships whose workbook target is not a valid URI path */
+    static final String BAD_ROOT_RELATIONSHIPS = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+            + "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">"
+            + "<Relationship Id=\"rId1\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/"
+            + "officeDocument\" Target=\"xl/work{book}.xml\"/></Relationships>";
+
+    @TempDir
+    Path folder;
+
+    @Test
+    void cataloguesMalformedPackagesWithoutSheets() throws Exception {
+        Map<String, List<List<Object>>> sheets = Map.of("Orders", List.of(Arrays.asList("Region", "Qty")));
+        TestWorkbooks.write(folder.resolve("Good.xlsx"), sheets);
+        TestWorkbooks.replacePart(TestWorkbooks.write(folder.resolve("Bad.xlsx"), sheets),
+                "_rels/.rels", BAD_ROOT_RELATIONSHIPS);
+
+        try (ServiceTestContext context = new ServiceTestContext(folder)) {
+            FileCatalog fileCatalog = context.get(FileCatalog.class);
+
+            assertThat(fileCatalog.entry("Good.xlsx").getSheetNames()).containsExactly("Orders");
+            assertThat(fileCatalog.entry("Bad.xlsx").getSheetNames()).isEmpty();
+            assertThat(fileCatalog.refresh("Bad.xlsx").getSheetNames()).isEmpty();
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.jnj.extracter.service;
+
+import com.jnj.extracter.ServiceTestContext;
+import com.jnj.extracter.TestWorkbooks;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JoinServiceTests {
+
+    @TempDir
+    Path folder;
+
+    @Test
+    void validatesKeyColumnsWithoutJoining() throws Exception {
+        Map<String, List<List<Object>>> sheets = new LinkedHashMap<>();
+        sheets.put("Orders", List.of(
+                Arrays.asList("Region", "Qty"),
+                Arrays.asList("North", 3)));
+        sheets.put("Regions", List.of(
+                Arrays.asList("Region", "Manager"),
+                Arrays.asList("North", "Kim")));
+        File file = TestWorkbooks.write(folder.resolve("Sales.xlsx"), sheets).toFile();
+
+        try (ServiceTestContext context = new ServiceTestContext(folder, JoinService.class)) {
+            JoinService joinService = context.get(JoinService.class);
+            JoinService.Side orders = new JoinService.Side(file, "Orders", List.of("region"));
+
+            assertThatCode(() -> joinService.validate(orders,
+                    new JoinService.Side(file, "Regions", List.of("Region")))).doesNotThrowAnyException();
+            assertThatThrownBy(() -> joinService.validate(orders,
+                    new JoinService.Side(file, "Regions", List.of("Area"))))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageStartingWith("Key column 'Area' not found in 'Sales.xlsx'");
+            assertThatThrownBy(() -> joinService.validate(orders,
+                    new JoinService.Side(file, "Missing", List.of("Region"))))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining("Sheet 'Missing' not found");
+            assertThatThrownBy(() -> joinService.validate(orders,
+                    new JoinService.Side(file, "Regions", List.of("Region", "Manager"))))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessage("Both sides need the same, non-zero number of key columns");
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.jnj.extracter.service;
+
+import com.jnj.extracter.ServiceTestContext;
+import com.jnj.extracter.TestWorkbooks;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SearchIndexServiceTests {
+
+    @TempDir
+    Path folder;
+
+    @Test
+    void reindexesInTheBackgroundWhenTheCatalogChanges() throws Exception {
+        TestWorkbooks.write(folder.resolve("Sales.xlsx"), Map.of("Orders", List.of(
+                Arrays.asList("Region", "Qty"),
+                Arrays.asList("North", 3),
+                Arrays.asList("South", 5))));
+
+        try (ServiceTestContext context = new ServiceTestContext(folder, SearchIndexService.class)) {
+            SearchIndexService searchIndexService = context.get(SearchIndexService.class);
+            FileCatalog fileCatalog = context.get(FileCatalog.class);
+
+            // The first search waits for the initial build
+            assertThat(searchIndexService.search("north", 0, 10).get("totalHits")).isEqualTo(1L);
+
+            TestWorkbooks.write(folder.resolve("Later.xlsx"), Map.of("Orders", List.of(
+                    Arrays.asList("Region", "Qty"),
+                    Arrays.asList("North", 7))));
+            fileCatalog.refresh("Later.xlsx");
+            assertThat(awaitSearch(searchIndexService, "north", result -> result.get("totalHits").equals(2L))
+                    .get("fileCounts")).isEqualTo(Map.of("Later.xlsx", 1, "Sales.xlsx", 1));
+
+            Files.delete(folder.resolve("Sales.xlsx"));
+            fileCatalog.refresh("Sales.xlsx");
+            Map<String, Object> result = awaitSearch(searchIndexService, "north",
+                    found -> found.get("indexedFiles").equals(1));
+            assertThat(result.get("fileCounts")).isEqualTo(Map.of("Later.xlsx", 1));
+            assertThat(result.get("indexedSegments")).isEqualTo(1);
+        }
+    }
+
+    private static Map<String, Object> awaitSearch(SearchIndexService searchIndexService, String query,
+                                                   Predicate<Map<String, Object>> done) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        Map<String, Object> result = searchIndexService.search(query, 0, 10);
+        while (!done.test(result) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+            result = searchIndexService.search(query, 0, 10);
+        }
+        assertThat(done.test(result)).as("search result %s", result).isTrue();
+        return result;
+    }
+}
@@ -0,0 +1,177 @@
+package com.jnj.extracter.serviceImpl;
+
+import com.jnj.extracter.ServiceTestContext;
+import com.jnj.extracter.TestWorkbooks;
+import com.jnj.extracter.entity.ExcelData;
+import com.jnj.extracter.entity.ExcelProcessingResult;
+import com.jnj.extracter.service.ExtractionListener;
+import com.jnj.extracter.service.RowCache;
+import com.jnj.extracter.util.StreamingSheetReader;
+import com.jnj.extracter.util.WorkbookParts;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ExcelServiceImplTests {
+
+    private static final File SAMPLE_FOLDER = new File("excel");
+
+    private static final MethodHandle EXTRACT_DATA_FROM_SHEET;
+    private static final MethodHandle EXTRACT_DATA_FROM_SHEET_ROWS;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(ExcelServiceImpl.class, MethodHandles.lookup());
+            EXTRACT_DATA_FROM_SHEET = lookup.findVirtual(ExcelServiceImpl.class, "extractDataFromSheet",
+                    MethodType.methodType(List.class, Sheet.class, String.class, ExtractionListener.class));
+            EXTRACT_DATA_FROM_SHEET_ROWS = lookup.findVirtual(ExcelServiceImpl.class, "extractDataFromSheetRows",
+                    MethodType.methodType(List.class, List.class, String.class, String.class, ExtractionListener.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    @TempDir
+    Path folder;
+
+    /**
+     * Incremental extraction decodes changed sheets from streamed rows; they must
+     * come out as the user model decodes them.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void streamedRowsMatchTheUserModelOnEverySample() throws Throwable {
+        File[] samples = SAMPLE_FOLDER.listFiles((dir, name) -> name.endsWith(".xlsx"));
+        assertThat(samples).hasSize(11);
+        try (ServiceTestContext context = new ServiceTestContext(folder)) {
+            ExcelServiceImpl service = context.get(ExcelServiceImpl.class);
+            for (File sample : samples) {
+                WorkbookParts parts = WorkbookParts.read(sample);
+                List<String> sheetNames = parts.getSheets().stream()
+                        .filter(WorkbookParts.SheetPart::isWorksheet)
+                        .map(WorkbookParts.SheetPart::getName)
+                        .toList();
+                Map<String, List<StreamingSheetReader.SheetRow>> streamed =
+                        StreamingSheetReader.read(sample, parts, sheetNames);
+
+                try (InputStream in = new FileInputStream(sample); XSSFWorkbook workbook = new XSSFWorkbook(in)) {
+                    for (String sheetName : sheetNames) {
+                        List<ExcelData> userModel = (List<ExcelData>) EXTRACT_DATA_FROM_SHEET.invoke(service,
+                                workbook.getSheet(sheetName), sample.getName(), ExtractionListener.NONE);
+                        List<ExcelData> fromRows = (List<ExcelData>) EXTRACT_DATA_FROM_SHEET_ROWS.invoke(service,
+                                streamed.get(sheetName), sheetName, sample.getName(), ExtractionListener.NONE);
+
+                        assertThat(comparable(fromRows))
+                                .as("%s / %s", sample.getName(), sheetName)
+                                .isEqualTo(comparable(userModel));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void servesCachedRowsAsUnmodifiableViews() throws Exception {
+        Map<String, List<List<Object>>> sheets = new LinkedHashMap<>();
+        sheets.put("Orders", List.of(
+                Arrays.asList("Region", "Qty"),
+                Arrays.asList("North", 3),
+                Arrays.asList("South", 5)));
+        sheets.put("Returns", List.of(
+                Arrays.asList("Region", "Qty"),
+                Arrays.asList("North", 1)));
+        File file = TestWorkbooks.write(folder.resolve("Sales.xlsx"), sheets).toFile();
+        File copy = Files.copy(file.toPath(), folder.resolve("Copy.xlsx")).toFile();
+
+        try (ServiceTestContext context = new ServiceTestContext(folder)) {
+            ExcelServiceImpl service = context.get(ExcelServiceImpl.class);
+            ExcelProcessingResult first = service.extractExcelFile(file);
+            ExcelProcessingResult second = service.extractExcelFile(file);
+            List<ExcelData> orders = service.extractSheetData(file, "orders");
+
+            assertThat(first.getExtractedData()).hasSize(3);
+            assertThat(second.getExtractedData().get(0)).isSameAs(first.getExtractedData().get(0));
+            assertThat(orders.get(0)).isSameAs(first.getExtractedData().get(0));
+            assertThat(context.get(RowCache.class).getCachedSheetCount()).isEqualTo(2);
+            assertThatThrownBy(() -> orders.add(orders.get(0))).isInstanceOf(UnsupportedOperationException.class);
+            assertThatThrownBy(() -> orders.get(0).getData().put("Qty", 0))
+                    .isInstanceOf(UnsupportedOperationException.class);
+
+            // Identical content under another name shares the cached cell maps
+            List<ExcelData> copied = service.extractSheetData(copy, "Orders");
+            assertThat(copied.get(0).getFileName()).isEqualTo("Copy.xlsx");
+            assertThat(copied.get(0).getData()).isSameAs(orders.get(0).getData());
+            assertThat(context.get(RowCache.class).getCachedSheetCount()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedSheetsOverTheByteBudget() throws Exception {
+        Map<String, List<List<Object>>> sheets = new LinkedHashMap<>();
+        for (String name : List.of("A", "B", "C")) {
+            List<List<Object>> rows = new ArrayList<>();
+            rows.add(List.of("Text"));
+            for (int i = 0; i < 1_000; i++) {
+                rows.add(List.of("x".repeat(200) + i));
+            }
+            sheets.put(name, rows);
+        }
+        File file = TestWorkbooks.write(folder.resolve("Large.xlsx"), sheets).toFile();
+
+        try (ServiceTestContext context = new ServiceTestContext(folder, Map.of("excel.cache.max-row-memory-mb", 1))) {
+            ExcelServiceImpl service = context.get(ExcelServiceImpl.class);
+            RowCache rowCache = context.get(RowCache.class);
+            List<ExcelData> a = service.extractSheetData(file, "A");
+            service.extractSheetData(file, "B");
+            service.extractSheetData(file, "A");
+            service.extractSheetData(file, "C");
+
+            assertThat(rowCache.getEstimatedBytes()).isLessThanOrEqualTo(1024 * 1024);
+            assertThat(rowCache.getCachedSheetCount()).isEqualTo(2);
+            assertThat(service.extractSheetData(file, "A")).isSameAs(a);
+        }
+    }
+
+    @Test
+    void reportsMalformedPackagesAsFailedExtractions() throws Exception {
+        Path file = TestWorkbooks.write(folder.resolve("Bad.xlsx"),
+                Map.of("Orders", List.of(Arrays.asList("Region", "Qty"))));
+        TestWorkbooks.replacePart(file, "_rels/.rels", "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+                + "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">"
+                + "<Relationship Id=\"rId1\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/"
+                + "relationships/officeDocument\" Target=\"xl/work{book}.xml\"/></Relationships>");
+
+        try (ServiceTestContext context = new ServiceTestContext(folder)) {
+            ExcelProcessingResult result = context.get(ExcelServiceImpl.class).extractExcelFile(file.toFile());
+
+            assertThat(result.isSuccess()).isFalse();
+            assertThat(result.getMessage()).startsWith("Error: ");
+        }
+    }
+
+    private static List<List<Object>> comparable(List<ExcelData> rows) {
+        List<List<Object>> values = new ArrayList<>(rows.size());
+        for (ExcelData row : rows) {
+            values.add(Arrays.asList(row.getFileName(), row.getSheetName(), row.getRowNumber(), row.getData()));
+        }
+        return values;
+    }
+}
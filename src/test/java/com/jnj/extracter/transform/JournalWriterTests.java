@@ -0,0 +1,49 @@
+package com.jnj.extracter.transform;
+
+import org.apache.poi.ss.usermodel.FillPatternType;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.usermodel.XSSFSheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JournalWriterTests {
+
+    @Test
+    void writesTitleInfoRowHeaderAndTextRows() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JournalWriter journal = new JournalWriter(new String[]{"E1 Company", "2025-01-31", "AUD", "P1", "Jan"},
+                List.of("Account", "Debit", "Credit"), 1)) {
+            journal.writeRow(new String[]{"6000", "10.00", null});
+            journal.writeRow(new String[]{"2000", null, "10.00"});
+            journal.write(out);
+            assertThat(journal.getRowsWritten()).isEqualTo(2);
+        }
+
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+            XSSFSheet sheet = workbook.getSheet("Journal");
+            assertThat(sheet.getRow(0).getCell(0).getStringCellValue()).isEqualTo("JOURNAL ENTRY 1");
+            assertThat(sheet.getMergedRegions()).singleElement()
+                    .satisfies(region -> assertThat(region.getLastColumn()).isEqualTo(2));
+            assertThat(sheet.getRow(1).getPhysicalNumberOfCells()).isZero();
+            Row info = sheet.getRow(2);
+            assertThat(info.getCell(4).getStringCellValue()).isEqualTo("Jan");
+            assertThat(info.getCell(0).getCellStyle().getFillPattern()).isEqualTo(FillPatternType.SOLID_FOREGROUND);
+            Row header = sheet.getRow(3);
+            assertThat(header.getCell(0).getStringCellValue()).isEqualTo("Account");
+            assertThat(workbook.getFontAt(header.getCell(0).getCellStyle().getFontIndex()).getBold()).isTrue();
+            Row data = sheet.getRow(4);
+            assertThat(data.getCell(0).getStringCellValue()).isEqualTo("6000");
+            assertThat(data.getCell(2).getStringCellValue()).isEmpty();
+            assertThat(data.getCell(0).getCellStyle().getWrapText()).isTrue();
+            assertThat(sheet.getLastRowNum()).isEqualTo(5);
+            // The info row is wider than the journal columns and sizes its own columns
+            assertThat(sheet.getColumnWidth(3)).isEqualTo(("P1".length() + 2) * 256);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.jnj.extracter.transform;
+
+import com.jnj.extracter.TestWorkbooks;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MasterDataServiceTests {
+
+    @TempDir
+    Path folder;
+
+    private final MasterDataService service = new MasterDataService();
+
+    @Test
+    void keepsTheLastGoodIndexWhenTheFileCannotBeRead() throws Exception {
+        File file = writeMasterData("E1", "E2");
+        MasterDataIndex good = service.getIndex(file);
+        assertThat(good.getEntities()).containsExactlyInAnyOrder("E1", "E2");
+
+        Files.writeString(file.toPath(), "not a workbook");
+        assertThat(service.getIndex(file)).isSameAs(good);
+        assertThat(service.getIndex(file)).isSameAs(good);
+
+        writeMasterData("E3");
+        assertThat(service.getIndex(file).getEntities()).containsExactly("E3");
+    }
+
+    @Test
+    void unreadableFilesThatWereNeverReadGiveAnEmptyIndex() throws Exception {
+        File file = Files.writeString(folder.resolve("Master.xlsx"), "not a workbook").toFile();
+
+        assertThat(service.getIndex(file).size()).isZero();
+
+        writeMasterData("E1");
+        assertThat(service.getIndex(file).getEntities()).containsExactly("E1");
+    }
+
+    private File writeMasterData(String... entities) throws Exception {
+        List<List<Object>> rows = new ArrayList<>();
+        rows.add(List.of("Entity", "Name"));
+        for (String entity : entities) {
+            rows.add(List.of(entity, "Name of " + entity));
+        }
+        return TestWorkbooks.write(folder.resolve("Master.xlsx"), Map.of("Master", rows)).toFile();
+    }
+}
@@ -0,0 +1,94 @@
+package com.jnj.extracter.transform;
+
+import com.jnj.extracter.ServiceTestContext;
+import com.jnj.extracter.TestWorkbooks;
+import com.jnj.extracter.util.StreamingSheetReader;
+import com.jnj.extracter.util.StreamingSheetReader.CellDecoding;
+import com.jnj.extracter.util.WorkbookParts;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TransformTests {
+
+    private static final int THREADS = 2;
+    private static final List<String> MASTER_HEADERS = List.of("Company", "Entity", "Paid_Date", "Pay_No",
+            "Date_Frm", "Date_To", "Account", "Amount", "Txn_Code", "Txn_Cat", "Txn_Grp", "Posn_Title", "Cost_Prd",
+            "OU_Lvl_1");
+
+    @TempDir
+    Path folder;
+
+    @Test
+    void generatesOnlyAFewJournalsAheadOfASlowClient() throws Exception {
+        try (ServiceTestContext context = new ServiceTestContext(folder,
+                Map.of("excel.journal.batch-threads", THREADS), MasterDataService.class, Transform.class)) {
+            Transform transform = context.get(Transform.class);
+            MeterRegistry registry = context.get(MeterRegistry.class);
+            JournalBatch batch = masterBatch(8, 200);
+
+            // Stall on the first write, while the first journal is being sent
+            long[] generatedWhileStalled = {-1};
+            ByteArrayOutputStream zip = new ByteArrayOutputStream();
+            FilterOutputStream slowClient = new FilterOutputStream(zip) {
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    if (generatedWhileStalled[0] < 0) {
+                        try {
+                            Thread.sleep(1_000);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        generatedWhileStalled[0] = registry.timer("excel.journal.generation.time").count();
+                    }
+                    out.write(b, off, len);
+                }
+            };
+            transform.writeJournalBatch(batch, slowClient);
+
+            // The journal being sent plus one per thread
+            assertThat(generatedWhileStalled[0]).isBetween(1L, THREADS + 1L);
+            List<String> entries = new ArrayList<>();
+            try (ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(zip.toByteArray()))) {
+                for (ZipEntry entry = in.getNextEntry(); entry != null; entry = in.getNextEntry()) {
+                    entries.add(entry.getName());
+                }
+            }
+            assertThat(entries).hasSize(batch.getJournalCount() + 1).contains("journals.csv");
+        }
+    }
+
+    /**
+     * Partition a master with the given number of entities, all in one payrun.
+     */
+    private JournalBatch masterBatch(int entities, int rowsPerEntity) throws IOException {
+        List<List<Object>> rows = new ArrayList<>();
+        rows.add(new ArrayList<>(MASTER_HEADERS));
+        for (int e = 0; e < entities; e++) {
+            for (int r = 0; r < rowsPerEntity; r++) {
+                rows.add(List.of("C1", "E" + e, "31.05.2025", "11", "01.05.2025", "31.05.2025", "6" + r,
+                        r * 1.5, "T", "Cat", "Grp", "Title " + r, "CC" + e, "OU"));
+            }
+        }
+        File master = TestWorkbooks.write(folder.resolve("Master.xlsx"), Map.of("Master", rows)).toFile();
+        JournalBatch batch = new JournalBatch(JournalMapping.DEFAULT);
+        StreamingSheetReader.read(master, WorkbookParts.read(master), "Master", CellDecoding.FORMATTED, batch::reads,
+                batch);
+        assertThat(batch.getJournalCount()).isEqualTo(entities);
+        return batch;
+    }
+}
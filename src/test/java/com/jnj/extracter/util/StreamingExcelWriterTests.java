@@ -0,0 +1,67 @@
+package com.jnj.extracter.util;
+
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.usermodel.XSSFSheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StreamingExcelWriterTests {
+
+    @Test
+    void writesHeaderAndTypedDataRowsBeyondTheWindow() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (StreamingExcelWriter writer = new StreamingExcelWriter("Data", List.of("Name", "Amount", "Flag"), 2)) {
+            for (int i = 0; i < 10; i++) {
+                writer.writeRow(new Object[]{"row " + i, i * 1.5, i % 2 == 0, "ignored"});
+            }
+            writer.writeRow(new Object[]{null, 7});
+            writer.write(out);
+            assertThat(writer.getRowsWritten()).isEqualTo(11);
+        }
+
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+            XSSFSheet sheet = workbook.getSheet("Data");
+            assertThat(sheet.getLastRowNum()).isEqualTo(11);
+            assertThat(sheet.getRow(0).getCell(0).getStringCellValue()).isEqualTo("Name");
+            Row third = sheet.getRow(3);
+            assertThat(third.getCell(0).getStringCellValue()).isEqualTo("row 2");
+            assertThat(third.getCell(1).getNumericCellValue()).isEqualTo(3.0);
+            assertThat(third.getCell(2).getCellType()).isEqualTo(CellType.BOOLEAN);
+            assertThat(third.getLastCellNum()).isEqualTo((short) 3);
+            assertThat(sheet.getRow(11).getCell(0)).isNull();
+            // Longest value plus padding, in 1/256ths of a character
+            assertThat(sheet.getColumnWidth(0)).isEqualTo(("row 0".length() + 2) * 256);
+        }
+    }
+
+    @Test
+    void preambleRowsAreWrittenAboveTheStyledHeader() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (StreamingExcelWriter writer = new StreamingExcelWriter("Data", List.of("A", "B"), 10, sheet -> {
+            int title = sheet.writePreambleRow(new Object[]{"Title"}, null);
+            sheet.mergeCells(title, 0, 1);
+            sheet.writePreambleRow(new Object[]{"x", "y", "a wide third preamble cell"}, null);
+            return new StreamingExcelWriter.RowStyles(sheet.createCellStyle(), null);
+        })) {
+            writer.writeRow(new Object[]{1, 2});
+            writer.write(out);
+            assertThat(writer.getRowsWritten()).isEqualTo(1);
+        }
+
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+            XSSFSheet sheet = workbook.getSheet("Data");
+            assertThat(sheet.getRow(0).getCell(0).getStringCellValue()).isEqualTo("Title");
+            assertThat(sheet.getMergedRegions()).hasSize(1);
+            assertThat(sheet.getRow(2).getCell(1).getStringCellValue()).isEqualTo("B");
+            assertThat(sheet.getRow(3).getCell(0).getNumericCellValue()).isEqualTo(1.0);
+            assertThat(sheet.getColumnWidth(2)).isEqualTo(("a wide third preamble cell".length() + 2) * 256);
+        }
+    }
+}
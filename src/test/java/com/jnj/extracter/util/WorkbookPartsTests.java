@@ -0,0 +1,65 @@
+package com.jnj.extracter.util;
+
+import com.jnj.extracter.TestWorkbooks;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class WorkbookPartsTests {
+
+    private static final String RELATIONSHIPS_START = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+            + "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">";
+    private static final String OFFICE_DOCUMENT =
+            "http://schemas.openxmlformats.org/officeDocument/2006/relationships/officeDocument";
+
+    @TempDir
+    Path folder;
+
+    @Test
+    void readsTheSheetsOfAWorkbook() throws Exception {
+        WorkbookParts parts = WorkbookParts.read(workbook("Good.xlsx"));
+
+        assertThat(parts.getSheets()).extracting(WorkbookParts.SheetPart::getName).containsExactly("Orders", "Returns");
+        assertThat(parts.getSheets()).allMatch(WorkbookParts.SheetPart::isWorksheet);
+        assertThat(parts.sheetSignature("Orders")).isNotNull();
+    }
+
+    @Test
+    void rejectsRelationshipTargetsThatAreNotPaths() throws Exception {
+        File file = TestWorkbooks.replacePart(workbook("Bad.xlsx").toPath(), "_rels/.rels", RELATIONSHIPS_START
+                + "<Relationship Id=\"rId1\" Type=\"" + OFFICE_DOCUMENT + "\" Target=\"xl/work{book}.xml\"/>"
+                + "</Relationships>").toFile();
+
+        assertThatThrownBy(() -> WorkbookParts.read(file))
+                .isInstanceOf(IOException.class)
+                .hasMessageStartingWith("Malformed package Bad.xlsx")
+                .hasCauseInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void rejectsRelationshipsWithoutAType() throws Exception {
+        File file = TestWorkbooks.replacePart(workbook("Bad.xlsx").toPath(), "_rels/.rels", RELATIONSHIPS_START
+                + "<Relationship Id=\"rId1\" Target=\"xl/workbook.xml\"/></Relationships>").toFile();
+
+        assertThatThrownBy(() -> WorkbookParts.read(file))
+                .isInstanceOf(IOException.class)
+                .hasMessage("Relationship without Id, Type or Target in _rels/.rels");
+    }
+
+    private File workbook(String name) throws IOException {
+        Map<String, List<List<Object>>> sheets = new LinkedHashMap<>();
+        sheets.put("Orders", List.of(Arrays.asList("Region", "Qty")));
+        sheets.put("Returns", List.of(Arrays.asList("Region", "Qty")));
+        return TestWorkbooks.write(folder.resolve(name), sheets).toFile();
+    }
+}